@@ -62,6 +62,8 @@ public abstract class AbstractGetFeature extends AbstractRequest implements GetF
     private QName typeName       = null;
     private Filter filter        = null;
     private Integer maxFeatures  = null;
+    private Integer startIndex   = null;
+    private ResultTypeType resultType = null;
     private GenericName[] propertyNames = null;
     private String outputFormat  = null;
 
@@ -118,6 +120,38 @@ public abstract class AbstractGetFeature extends AbstractRequest implements GetF
         maxFeatures = max;
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Integer getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void setStartIndex(final Integer startIndex) {
+        this.startIndex = startIndex;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ResultTypeType getResultType() {
+        return resultType;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void setResultType(final ResultTypeType resultType) {
+        this.resultType = resultType;
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -163,6 +197,14 @@ public abstract class AbstractGetFeature extends AbstractRequest implements GetF
             requestParameters.put("MAXFEATURES", maxFeatures.toString());
         }
 
+        if(startIndex != null){
+            requestParameters.put("STARTINDEX", startIndex.toString());
+        }
+
+        if(resultType != null){
+            requestParameters.put("RESULTTYPE", resultType.value());
+        }
+
         if(typeName != null){
             final StringBuilder sbN = new StringBuilder();
             final StringBuilder sbNS = new StringBuilder();
@@ -274,7 +316,9 @@ public abstract class AbstractGetFeature extends AbstractRequest implements GetF
 
         final Query query = WFSXmlFactory.buildQuery(version, xmlFilter, typeNames, "1.1.0", null, null, propName);
 
-        final GetFeature request = WFSXmlFactory.buildGetFeature(version, "WFS", null, null, maxFeatures, query, ResultTypeType.RESULTS, outputFormat);
+        //start index is only encoded in 2.0.0 requests
+        final GetFeature request = WFSXmlFactory.buildGetFeature(version, "WFS", null, startIndex, maxFeatures, query,
+                (resultType != null) ? resultType : ResultTypeType.RESULTS, outputFormat);
 
         final URL url = new URL(serverURL);
         URLConnection conec = url.openConnection();
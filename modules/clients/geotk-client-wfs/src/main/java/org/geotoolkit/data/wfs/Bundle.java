@@ -67,6 +67,17 @@ public final class Bundle extends IndexedResourceBundle {
          * Use post queries.
          */
         public static final short postRemarks = 6;
+
+        /**
+         * Page size
+         */
+        public static final short pageSize = 7;
+
+        /**
+         * Number of features requested by page, 0 to request all features at once. All features are requested at
+         * once if the server ignores the STARTINDEX parameter.
+         */
+        public static final short pageSizeRemarks = 8;
     }
 
     /**
@@ -18,6 +18,7 @@ package org.geotoolkit.data.wfs;
 
 import javax.xml.namespace.QName;
 import org.geotoolkit.client.Request;
+import org.geotoolkit.wfs.xml.ResultTypeType;
 import org.opengis.util.GenericName;
 import org.opengis.filter.Filter;
 
@@ -64,6 +65,33 @@ public interface GetFeatureRequest extends Request{
      */
     void setMaxFeatures(Integer max);
 
+    /**
+     * @return Integer : index of the first feature returned by this request,
+     *  null to start at the first feature.
+     */
+    Integer getStartIndex();
+
+    /**
+     * Set the index of the first feature returned by this request.
+     * Start index is part of WFS 2.0.0, WFS 1.1.0 servers supporting it
+     * accept it as the STARTINDEX parameter of GET requests.
+     *
+     * @param startIndex : index of the first feature returned by this request,
+     *  null to start at the first feature.
+     */
+    void setStartIndex(Integer startIndex);
+
+    /**
+     * @return ResultTypeType : requested result type, null for the features.
+     */
+    ResultTypeType getResultType();
+
+    /**
+     * @param resultType : {@link ResultTypeType#HITS} to get only the number
+     *  of features matching the request, null for the features.
+     */
+    void setResultType(ResultTypeType resultType);
+
     /**
      * @return String[] : array of requested properties,
      *  null if all properties, empty for only the id.
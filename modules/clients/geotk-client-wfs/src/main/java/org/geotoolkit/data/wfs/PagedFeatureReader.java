@@ -0,0 +1,257 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.wfs;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.feature.FeatureExt;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+
+/**
+ * Feature reader requesting the features by pages.
+ * <p>
+ * Up to {@code depth} pages are downloaded at the same time, the next page is
+ * requested only when the reader moves to a new page, so at most
+ * {@code depth × pageSize} features are held in memory. Pages are returned in
+ * the server order. The first page holding less features than requested ends
+ * the iteration.
+ * <p>
+ * Servers are not required to support the STARTINDEX parameter, those which
+ * ignore it return the same features for all pages. The first page is returned
+ * once the second one is received : if both start with the same feature all
+ * features are requested at once with the unpaged reader instead. This can not
+ * be detected when all features fit in the first page.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class PagedFeatureReader implements FeatureReader {
+
+    /**
+     * Download of a range of features.
+     */
+    interface PageLoader {
+
+        /**
+         * @param startIndex index of the first feature
+         * @param count maximum number of features
+         * @return features of the page, in server order
+         */
+        List<Feature> load(int startIndex, int count) throws Exception;
+    }
+
+    private static final class Page {
+        private final Future<List<Feature>> features;
+        private final int count;
+
+        private Page(final Future<List<Feature>> features, final int count) {
+            this.features = features;
+            this.count = count;
+        }
+    }
+
+    private final FeatureType type;
+    private final PageLoader loader;
+    private final Callable<FeatureReader> unpaged;
+    private final ExecutorService executor;
+    private final int startIndex;
+    private final long limit;
+    private final int pageSize;
+    private final int depth;
+
+    private final ArrayDeque<Page> pending = new ArrayDeque<>();
+    private long requested = 0;
+    private boolean ended = false;
+    private boolean checked = false;
+    private Iterator<Feature> current = null;
+    private FeatureReader fallback = null;
+
+    /**
+     * @param type features type
+     * @param loader page download
+     * @param unpaged reader of all features from start index to limit, without paging,
+     *        used if the server does not support STARTINDEX
+     * @param executor executor downloading the pages
+     * @param startIndex index of the first feature
+     * @param limit maximum number of features, -1 for no limit
+     * @param pageSize number of features by page
+     * @param depth maximum number of pages downloaded ahead
+     */
+    PagedFeatureReader(final FeatureType type, final PageLoader loader, final Callable<FeatureReader> unpaged,
+            final ExecutorService executor, final int startIndex, final long limit, final int pageSize, final int depth) {
+        this.type = type;
+        this.loader = loader;
+        this.unpaged = unpaged;
+        this.executor = executor;
+        this.startIndex = startIndex;
+        this.limit = limit;
+        this.pageSize = pageSize;
+        this.depth = depth;
+        fill();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public FeatureType getFeatureType() {
+        return type;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean hasNext() throws FeatureStoreRuntimeException {
+        if (fallback != null) {
+            return fallback.hasNext();
+        }
+        while (current == null || !current.hasNext()) {
+            current = null;
+            final Page page = pending.poll();
+            if (page == null) return false;
+
+            final List<Feature> features = get(page);
+            if (!checked) {
+                checked = true;
+                final Page second = pending.peek();
+                if (second != null && features.size() == page.count && !features.isEmpty()) {
+                    final List<Feature> next = get(second);
+                    if (!next.isEmpty() && sameFeature(features.get(0), next.get(0))) {
+                        //STARTINDEX is ignored by the server
+                        cancel();
+                        try {
+                            fallback = unpaged.call();
+                        } catch (Exception ex) {
+                            close();
+                            throw new FeatureStoreRuntimeException(ex);
+                        }
+                        return fallback.hasNext();
+                    }
+                }
+            }
+
+            if (features.size() < page.count) {
+                //last page, following requests are useless
+                ended = true;
+                cancel();
+            } else {
+                fill();
+            }
+            current = features.iterator();
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Feature next() throws FeatureStoreRuntimeException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more features.");
+        }
+        if (fallback != null) {
+            return fallback.next();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancel the pending downloads.
+     */
+    @Override
+    public void close() {
+        ended = true;
+        current = null;
+        cancel();
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new FeatureStoreRuntimeException("Not supported.");
+    }
+
+    /**
+     * Request pages until depth pages are pending.
+     */
+    private void fill() {
+        while (!ended && pending.size() < depth) {
+            long count = pageSize;
+            if (limit >= 0) {
+                count = Math.min(count, limit - requested);
+                if (count <= 0) return;
+            }
+            final long start = startIndex + requested;
+            if (start > Integer.MAX_VALUE) return;
+            final int pageStart = (int) start;
+            final int pageCount = (int) count;
+            pending.add(new Page(executor.submit(() -> loader.load(pageStart, pageCount)), pageCount));
+            requested += count;
+        }
+    }
+
+    /**
+     * Wait for the features of a page.
+     */
+    private List<Feature> get(final Page page) throws FeatureStoreRuntimeException {
+        try {
+            return page.features.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new FeatureStoreRuntimeException(ex);
+        } catch (ExecutionException ex) {
+            close();
+            throw new FeatureStoreRuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Compare features by identifier, or by value when they have none.
+     */
+    private static boolean sameFeature(final Feature first, final Feature second) {
+        final FeatureId id1 = FeatureExt.getId(first);
+        final FeatureId id2 = FeatureExt.getId(second);
+        if (id1 != null && id1.getID() != null && id2 != null) {
+            return id1.getID().equals(id2.getID());
+        }
+        return Objects.equals(first, second);
+    }
+
+    private void cancel() {
+        for (Page page : pending) {
+            page.features.cancel(true);
+        }
+        pending.clear();
+    }
+
+}
@@ -28,14 +28,21 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.geotoolkit.feature.FeatureTypeExt;
 import org.geotoolkit.feature.ReprojectFeatureType;
 import org.apache.sis.feature.builder.AttributeRole;
@@ -63,6 +70,7 @@ import org.geotoolkit.ows.xml.BoundingBox;
 import org.apache.sis.referencing.CRS;
 import org.apache.sis.referencing.CommonCRS;
 import org.geotoolkit.wfs.xml.FeatureTypeList;
+import org.geotoolkit.wfs.xml.ResultTypeType;
 import org.geotoolkit.wfs.xml.TransactionResponse;
 import org.geotoolkit.wfs.xml.WFSCapabilities;
 import org.geotoolkit.wfs.xml.WFSMarshallerPool;
@@ -79,6 +87,7 @@ import org.apache.sis.referencing.crs.AbstractCRS;
 import org.apache.sis.referencing.cs.AxesConvention;
 import org.apache.sis.storage.IllegalNameException;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.internal.data.GenericNameIndex;
 import org.geotoolkit.data.FeatureStreams;
 import org.geotoolkit.storage.DataStoreFactory;
@@ -95,6 +104,23 @@ public class WFSFeatureStore extends AbstractFeatureStore{
 
     private static final AtomicLong NS_INC = new AtomicLong();
 
+    /**
+     * Maximum number of pages downloaded ahead of a feature reader.
+     */
+    static final int PAGE_DEPTH = 4;
+
+    /**
+     * Shared executor downloading the feature pages. Threads are daemons and are
+     * released after one minute of inactivity.
+     */
+    private static final ExecutorService PAGE_EXECUTOR;
+    static {
+        final ThreadPoolExecutor exec = new ThreadPoolExecutor(8, 8, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), Threads.createThreadFactory("WFS GetFeature #", true));
+        exec.allowCoreThreadTimeOut(true);
+        PAGE_EXECUTOR = exec;
+    }
+
     private final QueryCapabilities queryCapabilities = new DefaultQueryCapabilities(false);
     private final WebFeatureClient server;
     private final List<GenericName> typeNames = new ArrayList<>();
@@ -213,6 +239,14 @@ public class WFSFeatureStore extends AbstractFeatureStore{
         return parameters.getValue(WFSFeatureStoreFactory.LONGITUDE_FIRST);
     }
 
+    /**
+     * @return number of features requested by page, 0 if features are requested at once
+     */
+    public int getPageSize(){
+        final Integer size = parameters.getValue(WFSFeatureStoreFactory.PAGE_SIZE);
+        return (size == null) ? 0 : size;
+    }
+
     @Override
     public DataStoreFactory getProvider() {
         return DataStores.getFactoryById(WFSFeatureStoreFactory.NAME);
@@ -306,27 +340,41 @@ public class WFSFeatureStore extends AbstractFeatureStore{
 
     /**
      * {@inheritDoc }
+     *
+     * Features are parsed while they are received. When a page size is defined
+     * the features are requested by pages, several pages being downloaded ahead
+     * of the reader. Servers ignoring STARTINDEX are detected on the second page.
      */
     @Override
     public FeatureReader getFeatureReader(final Query query) throws DataStoreException {
         final String name = query.getTypeName();
         //will raise an error if typename in unknowned
         final FeatureType sft = getFeatureType(name);
+        final QName q = toQName(sft);
+        final FeatureType type = FeatureTypeExt.createSubType(sft, query.getPropertyNames());
 
-        final QName q = new QName(NamesExt.getNamespace(sft.getName()), sft.getName().tip().toString(), prefixes.get(NamesExt.getNamespace(sft.getName())));
-        final FeatureCollection collection;
-        try {
-            collection = requestFeature(q, query);
-        } catch (IOException ex) {
-            throw new DataStoreException(ex);
-        }
-
+        final int startIndex = query.getStartIndex();
+        final Integer max = query.getMaxFeatures();
+        final int pageSize = getPageSize();
 
         FeatureReader reader;
-        if(collection == null){
-            reader = FeatureStreams.emptyReader(sft);
-        }else{
-            reader = FeatureStreams.asReader(collection.iterator(), sft);
+        if (pageSize > 0 && !getUsePost()) {
+            //start index is not encoded in 1.1.0 POST requests, pages are requested by GET
+            reader = new PagedFeatureReader(type, (int start, int count) -> {
+                final GetFeatureRequest request = createGetFeature(q, query, type);
+                request.setStartIndex(start);
+                request.setMaxFeatures(count);
+                final List<Feature> features = new ArrayList<>(count);
+                try (FeatureReader page = requestFeature(request, type)) {
+                    while (page.hasNext()) {
+                        features.add(page.next());
+                    }
+                }
+                return features;
+            }, () -> requestAll(q, query, type),
+            PAGE_EXECUTOR, startIndex, (max == null) ? -1 : max, pageSize, PAGE_DEPTH);
+        } else {
+            reader = requestAll(q, query, type);
         }
 
         //we handle reprojection ourself, too complex or never done properly for a large
@@ -342,6 +390,59 @@ public class WFSFeatureStore extends AbstractFeatureStore{
         return reader;
     }
 
+    /**
+     * Request all features of the query at once, start index is applied client side.
+     */
+    private FeatureReader requestAll(final QName q, final Query query, final FeatureType type) throws DataStoreException {
+        final int startIndex = query.getStartIndex();
+        final Integer max = query.getMaxFeatures();
+        final GetFeatureRequest request = createGetFeature(q, query, type);
+        if (max != null) {
+            request.setMaxFeatures((int) Math.min((long) startIndex + max, Integer.MAX_VALUE));
+        }
+        FeatureReader reader;
+        try {
+            reader = requestFeature(request, type);
+        } catch (IOException ex) {
+            throw new DataStoreException(ex);
+        }
+        if (startIndex > 0) {
+            //servers are not required to support STARTINDEX
+            reader = FeatureStreams.skip(reader, startIndex);
+        }
+        return reader;
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * The number of features is requested with resultType=hits, the default
+     * implementation is used if the server does not answer it.
+     */
+    @Override
+    public long getCount(final Query query) throws DataStoreException {
+        final FeatureType sft = getFeatureType(query.getTypeName());
+        final GetFeatureRequest request = createGetFeature(toQName(sft), query, sft);
+        request.setResultType(ResultTypeType.HITS);
+
+        long hits = -1;
+        try (InputStream stream = openStream(request)) {
+            hits = readHits(stream);
+        } catch (IOException | XMLStreamException ex) {
+            getLogger().log(Level.FINE, ex.getMessage(), ex);
+        }
+        if (hits < 0) {
+            return super.getCount(query);
+        }
+
+        hits = Math.max(0, hits - query.getStartIndex());
+        final Integer max = query.getMaxFeatures();
+        if (max != null) {
+            hits = Math.min(hits, max);
+        }
+        return hits;
+    }
+
     /**
      * Writer that fall back on add,remove, update methods.
      */
@@ -494,77 +595,149 @@ public class WFSFeatureStore extends AbstractFeatureStore{
 
     }
 
-    private FeatureCollection requestFeature(final QName typeName, final Query query) throws IOException, IllegalNameException {
-        final GenericName name = NamesExt.create(typeName);
-        FeatureType type = types.get(this, name.toString());
-        type = FeatureTypeExt.createSubType(type, query.getPropertyNames());
+    private QName toQName(final FeatureType type) {
+        final String ns = NamesExt.getNamespace(type.getName());
+        return new QName(ns, type.getName().tip().toString(), prefixes.get(ns));
+    }
 
+    /**
+     * Create a GetFeature request for the query filter and properties.
+     * Start index and maximum number of features are left to the caller.
+     */
+    private GetFeatureRequest createGetFeature(final QName typeName, final Query query, final FeatureType type) {
         final GetFeatureRequest request = server.createGetFeature();
         request.setTypeName(typeName);
 
-        if(query != null){
+        final Filter filter = query.getFilter();
+        if(filter == null){
+            request.setFilter(Filter.INCLUDE);
+        }else{
+            request.setFilter(filter);
+        }
 
-            final Filter filter = query.getFilter();
-            if(filter == null){
-                request.setFilter(Filter.INCLUDE);
-            }else{
-                request.setFilter(filter);
+        final String[] propertyNames = query.getPropertyNames();
+        GenericName[] names = null;
+        if (propertyNames!=null) {
+            names = new GenericName[propertyNames.length];
+            for(int i=0;i<propertyNames.length;i++) {
+                names[i] = type.getProperty(propertyNames[i]).getName();
             }
+        }
+        request.setPropertyNames(names);
+        return request;
+    }
 
-            final Integer max = query.getMaxFeatures();
-            if(max != null){
-                request.setMaxFeatures(max);
-            }
+    private InputStream openStream(final GetFeatureRequest request) throws IOException {
+        if (getUsePost()) {
+            getLogger().log(Level.INFO, "[WFS Client] request feature by POST.");
+            return request.getResponseStream();
+        } else {
+            final URL url = request.getURL();
+            getLogger().log(Level.INFO, "[WFS Client] request feature : {0}", url);
+            return url.openStream();
+        }
+    }
 
-            final String[] propertyNames = query.getPropertyNames();
-            GenericName[] names = null;
-            if (propertyNames!=null) {
-                names = new GenericName[propertyNames.length];
-                for(int i=0;i<propertyNames.length;i++) {
-                    names[i] = type.getProperty(propertyNames[i]).getName();
+    /**
+     * Send the request and parse the features while they are received.
+     * The returned reader must be closed to release the connection.
+     */
+    private FeatureReader requestFeature(final GetFeatureRequest request, final FeatureType type) throws IOException {
+        final InputStream stream = openStream(request);
+        final XmlFeatureReader reader = new JAXPStreamFeatureReader(type);
+        reader.getProperties().put(JAXPStreamFeatureReader.SKIP_UNEXPECTED_PROPERTY_TAGS, true);
+        try {
+            return new StreamedFeatureReader(reader.readAsStream(stream), type, reader, stream);
+        } catch (XMLStreamException | IllegalArgumentException | IOException ex) {
+            //not a feature collection, the server may have returned an exception report
+            reader.dispose();
+            stream.close();
+            throw (ex instanceof IOException) ? (IOException) ex : new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Read the number of features of a resultType=hits response.
+     *
+     * @return number of features or -1 if unknown
+     */
+    private static long readHits(final InputStream stream) throws XMLStreamException {
+        final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(stream);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamReader.START_ELEMENT) {
+                    if (!"FeatureCollection".equals(reader.getLocalName())) return -1;
+                    //numberMatched in 2.0.0, numberOfFeatures in 1.1.0
+                    String value = reader.getAttributeValue(null, "numberMatched");
+                    if (value == null) value = reader.getAttributeValue(null, "numberOfFeatures");
+                    try {
+                        return (value == null) ? -1 : Long.parseLong(value.trim());
+                    } catch (NumberFormatException ex) {
+                        //value can be 'unknown'
+                        return -1;
+                    }
                 }
             }
+            return -1;
+        } finally {
+            reader.close();
+        }
+    }
 
-            request.setPropertyNames(names);
+    /**
+     * Feature reader closing the response stream.
+     */
+    private static final class StreamedFeatureReader implements FeatureReader {
+
+        private final FeatureReader reader;
+        private final FeatureType type;
+        private final XmlFeatureReader xmlReader;
+        private final InputStream stream;
+
+        private StreamedFeatureReader(final FeatureReader reader, final FeatureType type,
+                final XmlFeatureReader xmlReader, final InputStream stream) {
+            this.reader = reader;
+            this.type = type;
+            this.xmlReader = xmlReader;
+            this.stream = stream;
         }
 
-        XmlFeatureReader reader = null;
-        try {
-            reader = new JAXPStreamFeatureReader(type);
-            reader.getProperties().put(JAXPStreamFeatureReader.SKIP_UNEXPECTED_PROPERTY_TAGS, true);
-            final InputStream stream;
-            if (getUsePost()) {
-                getLogger().log(Level.INFO, "[WFS Client] request feature by POST.");
-                stream = request.getResponseStream();
-            } else {
-                final URL url = request.getURL();
-                getLogger().log(Level.INFO, "[WFS Client] request feature : {0}", url);
-                stream = url.openStream();
-            }
-            final Object result = reader.read(stream);
+        @Override
+        public FeatureType getFeatureType() {
+            return type;
+        }
 
+        @Override
+        public boolean hasNext() throws FeatureStoreRuntimeException {
+            return reader.hasNext();
+        }
 
-            if(result instanceof Feature){
-                final Feature sf = (Feature) result;
-                final FeatureCollection col = FeatureStoreUtilities.collection("id", type);
-                col.add(sf);
-                return col;
-            }else if(result instanceof FeatureCollection){
-                final FeatureCollection col = (FeatureCollection) result;
-                return col;
-            }else{
-                final FeatureCollection col = FeatureStoreUtilities.collection("", type);
-                return col;
+        @Override
+        public Feature next() throws FeatureStoreRuntimeException {
+            if (!reader.hasNext()) {
+                throw new NoSuchElementException("No more features.");
             }
+            return reader.next();
+        }
 
-        }catch (XMLStreamException ex) {
-            throw new IOException(ex);
-        }finally{
-            if(reader != null){
-                reader.dispose();
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } finally {
+                xmlReader.dispose();
+                try {
+                    stream.close();
+                } catch (IOException ex) {
+                    throw new FeatureStoreRuntimeException(ex);
+                }
             }
         }
 
+        @Override
+        public void remove() {
+            throw new FeatureStoreRuntimeException("Not supported.");
+        }
     }
 
     @Override
@@ -89,10 +89,24 @@ public class WFSFeatureStoreFactory extends AbstractFeatureStoreFactory implemen
             .setRequired(false)
             .create(Boolean.class, Boolean.FALSE);
 
+    /**
+     * Optional number of features requested by page.
+     * Pages are requested with the STARTINDEX parameter, several pages being
+     * downloaded at the same time. 0 to request all features at once.
+     * If the server ignores STARTINDEX, which is detected when the first two
+     * pages start with the same feature, all features are requested at once.
+     */
+    public static final ParameterDescriptor<Integer> PAGE_SIZE = new ParameterBuilder()
+            .addName("pageSize")
+            .addName(Bundle.formatInternational(Bundle.Keys.pageSize))
+            .setRemarks(Bundle.formatInternational(Bundle.Keys.pageSizeRemarks))
+            .setRequired(false)
+            .createBounded(0, Integer.MAX_VALUE, 0);
+
     public static final ParameterDescriptorGroup PARAMETERS_DESCRIPTOR =
             new ParameterBuilder().addName("WFSParameters").createGroup(
                 IDENTIFIER, AbstractClientFactory.URL, VERSION, AbstractClientFactory.SECURITY,
-                LONGITUDE_FIRST,POST_REQUEST,AbstractClientFactory.TIMEOUT);
+                LONGITUDE_FIRST,POST_REQUEST,PAGE_SIZE,AbstractClientFactory.TIMEOUT);
 
     @Override
     public Identification getIdentification() {
@@ -0,0 +1,250 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.wfs;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.data.wfs.WFSFeatureStore;
+import org.geotoolkit.data.wfs.WFSFeatureStoreFactory;
+import org.geotoolkit.data.wfs.WebFeatureClient;
+import org.geotoolkit.wfs.xml.WFSVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test feature requests against an in-process server.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class WFSFeatureStoreTest extends org.geotoolkit.test.TestBase {
+
+    private static final String TYPE = "{http://test.geotoolkit.org}city";
+    private static final int NB_FEATURE = 95;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private URL url;
+    private final AtomicInteger getFeatureCount = new AtomicInteger();
+    private final AtomicInteger hitsCount = new AtomicInteger();
+    private volatile boolean ignoreStartIndex = false;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/wfs", this::handle);
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/wfs");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private WFSFeatureStore createStore(final int pageSize) throws Exception {
+        final WebFeatureClient client = new WebFeatureClient(url, null, WFSVersion.v110, false);
+        client.getOpenParameters().getOrCreate(WFSFeatureStoreFactory.PAGE_SIZE).setValue(pageSize);
+        return new WFSFeatureStore(client);
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        final WFSFeatureStore store = createStore(0);
+        assertEquals(NB_FEATURE, read(store, QueryBuilder.all(TYPE), 0));
+        assertEquals(1, getFeatureCount.get());
+    }
+
+    @Test
+    public void pagedTest() throws Exception {
+        final WFSFeatureStore store = createStore(10);
+        assertEquals(NB_FEATURE, read(store, QueryBuilder.all(TYPE), 0));
+        //10 pages, the last one is incomplete, some following pages may have been requested ahead
+        assertTrue(getFeatureCount.get() >= 10);
+    }
+
+    @Test
+    public void pagedRangeTest() throws Exception {
+        final WFSFeatureStore store = createStore(10);
+        final QueryBuilder qb = new QueryBuilder(TYPE);
+        qb.setStartIndex(17);
+        qb.setMaxFeatures(25);
+        assertEquals(25, read(store, qb.buildQuery(), 17));
+        //pages 17-26, 27-36, 37-41
+        assertEquals(3, getFeatureCount.get());
+    }
+
+    @Test
+    public void pagedNoStartIndexTest() throws Exception {
+        ignoreStartIndex = true;
+        final WFSFeatureStore store = createStore(10);
+        assertEquals(NB_FEATURE, read(store, QueryBuilder.all(TYPE), 0));
+
+        final QueryBuilder qb = new QueryBuilder(TYPE);
+        qb.setStartIndex(17);
+        qb.setMaxFeatures(25);
+        assertEquals(25, read(store, qb.buildQuery(), 17));
+    }
+
+    @Test
+    public void rangeTest() throws Exception {
+        final WFSFeatureStore store = createStore(0);
+        final QueryBuilder qb = new QueryBuilder(TYPE);
+        qb.setStartIndex(90);
+        qb.setMaxFeatures(25);
+        assertEquals(5, read(store, qb.buildQuery(), 90));
+    }
+
+    @Test
+    public void countTest() throws Exception {
+        final WFSFeatureStore store = createStore(0);
+        assertEquals(NB_FEATURE, store.getCount(QueryBuilder.all(TYPE)));
+        final QueryBuilder qb = new QueryBuilder(TYPE);
+        qb.setStartIndex(90);
+        assertEquals(5, store.getCount(qb.buildQuery()));
+        assertEquals(2, hitsCount.get());
+        assertEquals(0, getFeatureCount.get());
+    }
+
+    /**
+     * Read all features, checking they are in server order.
+     */
+    private static int read(final WFSFeatureStore store, final Query query, final int start) throws Exception {
+        int count = 0;
+        try (FeatureReader reader = store.getFeatureReader(query)) {
+            while (reader.hasNext()) {
+                final Feature feature = reader.next();
+                assertEquals("city" + (start + count), feature.getPropertyValue("label"));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // stub server /////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final Map<String,String> params = new HashMap<>();
+        final String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String kvp : query.split("&")) {
+                final int idx = kvp.indexOf('=');
+                if (idx > 0) {
+                    params.put(kvp.substring(0, idx).toUpperCase(), URLDecoder.decode(kvp.substring(idx+1), "UTF-8"));
+                }
+            }
+        }
+
+        final String request = String.valueOf(params.get("REQUEST")).toUpperCase();
+        final String response;
+        if ("GETCAPABILITIES".equals(request)) {
+            response = CAPABILITIES;
+        } else if ("DESCRIBEFEATURETYPE".equals(request)) {
+            response = SCHEMA;
+        } else if ("GETFEATURE".equals(request)) {
+            final int start = (!ignoreStartIndex && params.containsKey("STARTINDEX")) ? Integer.parseInt(params.get("STARTINDEX")) : 0;
+            final int max = params.containsKey("MAXFEATURES") ? Integer.parseInt(params.get("MAXFEATURES")) : Integer.MAX_VALUE;
+            final int end = (int) Math.min(NB_FEATURE, (long) start + max);
+            if ("hits".equalsIgnoreCase(params.get("RESULTTYPE"))) {
+                hitsCount.incrementAndGet();
+                response = "<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" numberOfFeatures=\"" + NB_FEATURE + "\"/>";
+            } else {
+                getFeatureCount.incrementAndGet();
+                final StringBuilder sb = new StringBuilder();
+                sb.append("<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\"")
+                  .append(" xmlns:tst=\"http://test.geotoolkit.org\" numberOfFeatures=\"").append(Math.max(0, end - start)).append("\">\n");
+                for (int i = start; i < end; i++) {
+                    sb.append("<gml:featureMember><tst:city gml:id=\"city.").append(i).append("\">")
+                      .append("<tst:label>city").append(i).append("</tst:label>")
+                      .append("<tst:rank>").append(i).append("</tst:rank>")
+                      .append("</tst:city></gml:featureMember>\n");
+                }
+                sb.append("</wfs:FeatureCollection>");
+                response = sb.toString();
+            }
+        } else {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+            return;
+        }
+
+        final byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/xml");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final String CAPABILITIES =
+            "<wfs:WFS_Capabilities version=\"1.1.0\" xmlns:wfs=\"http://www.opengis.net/wfs\"\n"
+          + "    xmlns:ows=\"http://www.opengis.net/ows\" xmlns:tst=\"http://test.geotoolkit.org\">\n"
+          + "  <wfs:FeatureTypeList>\n"
+          + "    <wfs:FeatureType>\n"
+          + "      <wfs:Name>tst:city</wfs:Name>\n"
+          + "      <wfs:Title>city</wfs:Title>\n"
+          + "      <wfs:DefaultSRS>CRS:84</wfs:DefaultSRS>\n"
+          + "      <ows:WGS84BoundingBox>\n"
+          + "        <ows:LowerCorner>-180 -90</ows:LowerCorner>\n"
+          + "        <ows:UpperCorner>180 90</ows:UpperCorner>\n"
+          + "      </ows:WGS84BoundingBox>\n"
+          + "    </wfs:FeatureType>\n"
+          + "  </wfs:FeatureTypeList>\n"
+          + "</wfs:WFS_Capabilities>";
+
+    private static final String SCHEMA =
+            "<xsd:schema elementFormDefault=\"qualified\" targetNamespace=\"http://test.geotoolkit.org\"\n"
+          + "    xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" xmlns:gml=\"http://www.opengis.net/gml\"\n"
+          + "    xmlns:tst=\"http://test.geotoolkit.org\">\n"
+          + "  <xsd:import namespace=\"http://www.opengis.net/gml\" schemaLocation=\"http://schemas.opengis.net/gml/3.1.1/base/gml.xsd\"/>\n"
+          + "  <xsd:element name=\"city\" type=\"tst:cityType\" substitutionGroup=\"gml:_Feature\"/>\n"
+          + "  <xsd:complexType name=\"cityType\">\n"
+          + "    <xsd:complexContent>\n"
+          + "      <xsd:extension base=\"gml:AbstractFeatureType\">\n"
+          + "        <xsd:sequence>\n"
+          + "          <xsd:element name=\"label\" type=\"xsd:string\" minOccurs=\"0\"/>\n"
+          + "          <xsd:element name=\"rank\" type=\"xsd:int\" minOccurs=\"0\"/>\n"
+          + "        </xsd:sequence>\n"
+          + "      </xsd:extension>\n"
+          + "    </xsd:complexContent>\n"
+          + "  </xsd:complexType>\n"
+          + "</xsd:schema>";
+
+}
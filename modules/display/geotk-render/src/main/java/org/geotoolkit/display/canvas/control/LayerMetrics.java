@@ -0,0 +1,170 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display.canvas.control;
+
+/**
+ * Timings and counters of a layer rendering.
+ * <p>
+ * Time spent in the layer which is not recorded for a specific phase is
+ * accounted as {@link RenderingPhase#SYMBOLIZE} when the layer is finished.
+ * <p>
+ * A layer is painted by a single thread, this class is not thread safe.
+ * Values can be read safely once the layer is reported to the
+ * {@link RenderingMetricsListener}.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class LayerMetrics {
+
+    private static final RenderingPhase[] PHASES = RenderingPhase.values();
+
+    private final String name;
+    private final long[] times = new long[PHASES.length];
+    private final long startTime;
+    private long totalTime;
+    private long features;
+    private long vertices;
+    private long tiles;
+    private long bytesRead;
+
+    /**
+     * @param name layer name, may be null
+     */
+    public LayerMetrics(final String name) {
+        this.name = name;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * @return layer name, may be null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Add time spent in a phase.
+     *
+     * @param phase rendering phase
+     * @param nanos time in nanoseconds
+     */
+    public void addTime(final RenderingPhase phase, final long nanos) {
+        times[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * @param phase rendering phase
+     * @return time spent in the phase, in nanoseconds
+     */
+    public long getTime(final RenderingPhase phase) {
+        return times[phase.ordinal()];
+    }
+
+    /**
+     * @return total time spent in the layer, in nanoseconds, zero if the layer is not finished.
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * @param count number of features read
+     */
+    public void addFeatures(final long count) {
+        features += count;
+    }
+
+    /**
+     * @return number of features read
+     */
+    public long getFeatures() {
+        return features;
+    }
+
+    /**
+     * @param count number of vertices projected
+     */
+    public void addVertices(final long count) {
+        vertices += count;
+    }
+
+    /**
+     * @return number of vertices projected
+     */
+    public long getVertices() {
+        return vertices;
+    }
+
+    /**
+     * @param count number of tiles read
+     */
+    public void addTiles(final long count) {
+        tiles += count;
+    }
+
+    /**
+     * @return number of tiles read
+     */
+    public long getTiles() {
+        return tiles;
+    }
+
+    /**
+     * @param count number of bytes read from the data source
+     */
+    public void addBytesRead(final long count) {
+        bytesRead += count;
+    }
+
+    /**
+     * @return number of bytes read from the data source, if reported by the source
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Compute the total time and the symbolizer time.
+     */
+    void finish() {
+        totalTime = System.nanoTime() - startTime;
+        long other = 0;
+        for (int i = 0; i < times.length; i++) {
+            if (i != RenderingPhase.SYMBOLIZE.ordinal()) other += times[i];
+        }
+        times[RenderingPhase.SYMBOLIZE.ordinal()] += Math.max(0, totalTime - other);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LayerMetrics[");
+        sb.append(name).append(" total=").append(totalTime / 1000000).append("ms");
+        for (RenderingPhase phase : PHASES) {
+            if (times[phase.ordinal()] != 0) {
+                sb.append(' ').append(phase.name().toLowerCase()).append('=')
+                  .append(times[phase.ordinal()] / 1000000).append("ms");
+            }
+        }
+        sb.append(" features=").append(features);
+        sb.append(" vertices=").append(vertices);
+        sb.append(" tiles=").append(tiles);
+        sb.append(" bytes=").append(bytesRead);
+        return sb.append(']').toString();
+    }
+
+}
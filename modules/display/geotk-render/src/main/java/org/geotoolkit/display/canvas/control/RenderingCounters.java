@@ -0,0 +1,191 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display.canvas.control;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative counters of all renderings made in the JVM.
+ * <p>
+ * Counters are striped and can be incremented concurrently at a very low cost.
+ * They are not registered automatically, this instance can be registered in the
+ * platform MBean server since it implements {@link RenderingCountersMXBean} :
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *      RenderingCounters.getInstance(), new ObjectName("org.geotoolkit:type=RenderingCounters"));
+ * </pre>
+ * Other metric libraries can read the values with {@link #snapshot() }.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public final class RenderingCounters implements RenderingCountersMXBean {
+
+    private static final RenderingCounters INSTANCE = new RenderingCounters();
+
+    private static final RenderingPhase[] PHASES = RenderingPhase.values();
+
+    private final LongAdder renderings = new LongAdder();
+    private final LongAdder layers = new LongAdder();
+    private final LongAdder features = new LongAdder();
+    private final LongAdder vertices = new LongAdder();
+    private final LongAdder tiles = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder[] times = new LongAdder[PHASES.length];
+
+    private RenderingCounters() {
+        for (int i = 0; i < times.length; i++) {
+            times[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return global rendering counters
+     */
+    public static RenderingCounters getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Add the values of a finished layer.
+     *
+     * @param metrics layer metrics
+     */
+    void add(final LayerMetrics metrics) {
+        layers.increment();
+        features.add(metrics.getFeatures());
+        vertices.add(metrics.getVertices());
+        tiles.add(metrics.getTiles());
+        bytesRead.add(metrics.getBytesRead());
+        for (RenderingPhase phase : PHASES) {
+            times[phase.ordinal()].add(metrics.getTime(phase));
+        }
+    }
+
+    /**
+     * Add time spent in a phase which is not related to a layer, like image encoding.
+     *
+     * @param phase rendering phase
+     * @param nanos time in nanoseconds
+     */
+    public void addTime(final RenderingPhase phase, final long nanos) {
+        times[phase.ordinal()].add(nanos);
+    }
+
+    void renderingFinished() {
+        renderings.increment();
+    }
+
+    /**
+     * @param phase rendering phase
+     * @return cumulated time spent in the phase, in nanoseconds
+     */
+    public long getTime(final RenderingPhase phase) {
+        return times[phase.ordinal()].sum();
+    }
+
+    @Override
+    public long getRenderingCount() {
+        return renderings.sum();
+    }
+
+    @Override
+    public long getLayerCount() {
+        return layers.sum();
+    }
+
+    @Override
+    public long getFeatureCount() {
+        return features.sum();
+    }
+
+    @Override
+    public long getVertexCount() {
+        return vertices.sum();
+    }
+
+    @Override
+    public long getTileCount() {
+        return tiles.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getQueryTime() {
+        return getTime(RenderingPhase.QUERY);
+    }
+
+    @Override
+    public long getProjectionTime() {
+        return getTime(RenderingPhase.PROJECTION);
+    }
+
+    @Override
+    public long getSymbolizeTime() {
+        return getTime(RenderingPhase.SYMBOLIZE);
+    }
+
+    @Override
+    public long getLabelTime() {
+        return getTime(RenderingPhase.LABEL);
+    }
+
+    @Override
+    public long getEncodeTime() {
+        return getTime(RenderingPhase.ENCODE);
+    }
+
+    @Override
+    public void reset() {
+        renderings.reset();
+        layers.reset();
+        features.reset();
+        vertices.reset();
+        tiles.reset();
+        bytesRead.reset();
+        for (LongAdder adder : times) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * Returns the current values, keys are stable names like {@code "rendering.count"}
+     * or {@code "time.query"}, times are in nanoseconds.
+     *
+     * @return counter values
+     */
+    public Map<String,Long> snapshot() {
+        final Map<String,Long> map = new LinkedHashMap<>();
+        map.put("rendering.count", getRenderingCount());
+        map.put("layer.count", getLayerCount());
+        map.put("feature.count", getFeatureCount());
+        map.put("vertex.count", getVertexCount());
+        map.put("tile.count", getTileCount());
+        map.put("bytes.read", getBytesRead());
+        for (RenderingPhase phase : PHASES) {
+            map.put("time." + phase.name().toLowerCase(), getTime(phase));
+        }
+        return map;
+    }
+
+}
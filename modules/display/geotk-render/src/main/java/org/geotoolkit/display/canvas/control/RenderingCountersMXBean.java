@@ -0,0 +1,55 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display.canvas.control;
+
+/**
+ * Management interface of the global {@link RenderingCounters}.
+ * Times are in nanoseconds.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public interface RenderingCountersMXBean {
+
+    long getRenderingCount();
+
+    long getLayerCount();
+
+    long getFeatureCount();
+
+    long getVertexCount();
+
+    long getTileCount();
+
+    long getBytesRead();
+
+    long getQueryTime();
+
+    long getProjectionTime();
+
+    long getSymbolizeTime();
+
+    long getLabelTime();
+
+    long getEncodeTime();
+
+    /**
+     * Reset all counters to zero.
+     */
+    void reset();
+
+}
@@ -0,0 +1,145 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display.canvas.control;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.util.logging.Logging;
+
+/**
+ * Metrics of a rendering process : the {@link LayerMetrics} of each painted layer
+ * plus the time spent in phases which are not related to a layer, like labeling.
+ * <p>
+ * Metrics are also added to the global {@link RenderingCounters}.
+ * This class is thread safe, layers may be painted concurrently.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class RenderingMetrics {
+
+    private static final Logger LOGGER = Logging.getLogger("org.geotoolkit.display.canvas.control");
+
+    private final List<RenderingMetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<LayerMetrics> layers = new ArrayList<>();
+    private final long[] times = new long[RenderingPhase.values().length];
+
+    /**
+     * Register a listener.
+     * @param listener listener to add, not null
+     */
+    public void addListener(final RenderingMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregister a listener.
+     * @param listener listener to remove
+     */
+    public void removeListener(final RenderingMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Clear the metrics of the previous rendering. Listeners are preserved.
+     */
+    public synchronized void renderingStarted() {
+        layers.clear();
+        Arrays.fill(times, 0);
+    }
+
+    /**
+     * Create the metrics for a layer about to be painted.
+     *
+     * @param name layer name, may be null
+     * @return layer metrics, to give back with {@link #layerFinished(LayerMetrics)}
+     */
+    public LayerMetrics layerStarted(final String name) {
+        return new LayerMetrics(name);
+    }
+
+    /**
+     * Record the metrics of a painted layer and notify the listeners.
+     *
+     * @param metrics layer metrics created by {@link #layerStarted(String)}
+     */
+    public void layerFinished(final LayerMetrics metrics) {
+        metrics.finish();
+        synchronized (this) {
+            layers.add(metrics);
+        }
+        RenderingCounters.getInstance().add(metrics);
+        for (RenderingMetricsListener listener : listeners) {
+            try {
+                listener.layerRendered(metrics);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Add time spent in a phase which is not related to a layer.
+     *
+     * @param phase rendering phase
+     * @param nanos time in nanoseconds
+     */
+    public void addTime(final RenderingPhase phase, final long nanos) {
+        synchronized (this) {
+            times[phase.ordinal()] += nanos;
+        }
+        RenderingCounters.getInstance().addTime(phase, nanos);
+    }
+
+    /**
+     * Notify the listeners the rendering is finished.
+     */
+    public void renderingFinished() {
+        RenderingCounters.getInstance().renderingFinished();
+        for (RenderingMetricsListener listener : listeners) {
+            try {
+                listener.renderingFinished(this);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * @return metrics of the layers painted so far, in painting end order.
+     */
+    public synchronized List<LayerMetrics> getLayers() {
+        return new ArrayList<>(layers);
+    }
+
+    /**
+     * @param phase rendering phase
+     * @return time spent in the phase by all layers and the rendering itself, in nanoseconds
+     */
+    public synchronized long getTime(final RenderingPhase phase) {
+        long time = times[phase.ordinal()];
+        for (LayerMetrics layer : layers) {
+            time += layer.getTime(phase);
+        }
+        return time;
+    }
+
+}
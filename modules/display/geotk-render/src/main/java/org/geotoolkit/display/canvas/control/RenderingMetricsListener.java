@@ -0,0 +1,45 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display.canvas.control;
+
+import java.util.EventListener;
+
+/**
+ * Listener notified of the rendering metrics.
+ * Methods may be invoked from the rendering threads, implementations should
+ * return quickly and must be thread safe.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public interface RenderingMetricsListener extends EventListener {
+
+    /**
+     * Invoked when a layer has been painted.
+     *
+     * @param metrics metrics of the painted layer
+     */
+    void layerRendered(LayerMetrics metrics);
+
+    /**
+     * Invoked when the rendering process finished.
+     *
+     * @param metrics metrics of the whole rendering
+     */
+    void renderingFinished(RenderingMetrics metrics);
+
+}
@@ -0,0 +1,47 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display.canvas.control;
+
+/**
+ * Phases of the rendering process for which timings are recorded.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ * @see LayerMetrics
+ */
+public enum RenderingPhase {
+    /**
+     * Querying the data source and iterating over the results.
+     */
+    QUERY,
+    /**
+     * Transforming geometries from data to display CRS.
+     */
+    PROJECTION,
+    /**
+     * Painting symbolizers, everything which is not part of an other phase.
+     */
+    SYMBOLIZE,
+    /**
+     * Placing and painting the labels.
+     */
+    LABEL,
+    /**
+     * Encoding the rendered image in the output format.
+     */
+    ENCODE
+}
@@ -174,6 +174,56 @@ public final class GO2Hints extends Static {
     public static final Object BEHAVIOR_KEEP_TILE = new Object();
     public static final Object BEHAVIOR_ON_FINISH = new Object();
 
+    /**
+     * Configure the display space simplification applied on geometries before
+     * they are painted. Coordinates are snapped on a sub-pixel grid and duplicated
+     * or collinear points are removed, this has no visible effect.
+     *
+     * Default value is true.
+     */
+    public static final Key KEY_DISPLAY_SIMPLIFY = new NamedKey(Boolean.class, "GO2 - Display simplify");
+
+    /**
+     * Configure the Visvalingam tolerance, in display unit (pixel most of the time),
+     * applied after the display space simplification. Points forming a triangle which
+     * area is smaller than tolerance&sup2; are removed.
+     *
+     * Default value is 0, Visvalingam simplification is disabled.
+     */
+    public static final Key KEY_DISPLAY_SIMPLIFY_TOLERANCE = new NamedKey(Number.class, "GO2 - Display simplify tolerance");
+
+    /**
+     * Configure how lines and polygons smaller than a pixel are painted.
+     * SUBPIXEL_KEEP : paint the geometry as is
+     * SUBPIXEL_PIXEL : replace the geometry by the pixel it covers
+     * SUBPIXEL_CULL : do not paint the geometry
+     *
+     * Default value is SUBPIXEL_PIXEL.
+     */
+    public static final Key KEY_SUBPIXEL_GEOMETRY = new NamedKey(Object.class, "GO2 - Sub-pixel geometry");
+    public static final Object SUBPIXEL_KEEP = new Object();
+    public static final Object SUBPIXEL_PIXEL = new Object();
+    public static final Object SUBPIXEL_CULL = new Object();
+
+    /**
+     * Configure the number of entries of the lookup tables used to apply raster
+     * color maps on int, float and double data. Byte and short data always use
+     * one entry per sample value.
+     *
+     * Default value is 4096.
+     */
+    public static final Key KEY_COLOR_MAP_RESOLUTION = new NamedKey(Integer.class, "GO2 - Color map resolution");
+
+    /**
+     * Configure the maximum memory, in megabytes, used by each feature layer to
+     * keep features and projected geometries between two paints. Features are
+     * queried on an area larger than the view and only newly exposed areas are
+     * queried when panning. Useful for interactive map viewers.
+     *
+     * Default value is 0, features are not cached.
+     */
+    public static final Key KEY_FEATURE_CACHE = new NamedKey(Number.class, "GO2 - Feature cache");
+
     public static final Boolean MULTI_THREAD_ON = Boolean.TRUE;
     public static final Boolean MULTI_THREAD_OFF = Boolean.FALSE;
     public static final Boolean GENERALIZE_ON = Boolean.TRUE;
@@ -186,6 +236,8 @@ public final class GO2Hints extends Static {
     public static final Boolean PARALLAL_BUFFER_OFF = Boolean.FALSE;
     public static final Boolean VIEW_TILE_ON  = Boolean.TRUE;
     public static final Boolean VIEW_TILE_OFF = Boolean.FALSE;
+    public static final Boolean DISPLAY_SIMPLIFY_ON  = Boolean.TRUE;
+    public static final Boolean DISPLAY_SIMPLIFY_OFF = Boolean.FALSE;
 
     /**
      * A value of 1.3 looks like the best average generalisation.
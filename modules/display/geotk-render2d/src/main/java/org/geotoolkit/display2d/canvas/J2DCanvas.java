@@ -26,6 +26,8 @@ import java.util.List;
 import java.util.logging.Level;
 import org.geotoolkit.display2d.GraphicVisitor;
 import org.geotoolkit.display.canvas.RenderingContext;
+import org.geotoolkit.display.canvas.control.RenderingMetrics;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
@@ -71,6 +73,17 @@ public abstract class J2DCanvas extends AbstractCanvas2D{
         return painter;
     }
 
+    /**
+     * Get the metrics of the last rendering.
+     * Listeners added on the returned object are notified for each rendering.
+     *
+     * @return RenderingMetrics, never null
+     * @see RenderingContext2D#addMetricsListener(org.geotoolkit.display.canvas.control.RenderingMetricsListener)
+     */
+    public RenderingMetrics getRenderingMetrics() {
+        return context2D.getMetrics();
+    }
+
     @Override
     public void dispose() {
         super.dispose();
@@ -169,33 +182,41 @@ public abstract class J2DCanvas extends AbstractCanvas2D{
 //            }
 //        }
 
-        /*
-         * Draw all graphics, starting with the one with the lowest <var>z</var> value. Before
-         * to start the actual drawing,  we will notify all graphics that they are about to be
-         * drawn. Some graphics may spend one or two threads for pre-computing data.
-         */
-        for(final Graphic graphic : graphics){
-            if(monitor.stopRequested()){
-                return;
-            }
+        final RenderingMetrics metrics = context2D.getMetrics();
+        metrics.renderingStarted();
+        try {
+            /*
+             * Draw all graphics, starting with the one with the lowest <var>z</var> value. Before
+             * to start the actual drawing,  we will notify all graphics that they are about to be
+             * drawn. Some graphics may spend one or two threads for pre-computing data.
+             */
+            for(final Graphic graphic : graphics){
+                if(monitor.stopRequested()){
+                    return;
+                }
 
-            if(graphic instanceof GraphicJ2D){
-                ((GraphicJ2D) graphic).paint(context2D);
+                if(graphic instanceof GraphicJ2D){
+                    ((GraphicJ2D) graphic).paint(context2D);
+                }
             }
-        }
 
-        if(monitor.stopRequested()){
-            return;
-        }
+            if(monitor.stopRequested()){
+                return;
+            }
 
-        //draw the labels
-        final LabelRenderer labelRenderer = context2D.getLabelRenderer(false);
-        if(labelRenderer != null){
-            try {
-                labelRenderer.portrayLabels();
-            } catch (TransformException ex) {
-                monitor.exceptionOccured(ex, Level.WARNING);
+            //draw the labels
+            final LabelRenderer labelRenderer = context2D.getLabelRenderer(false);
+            if(labelRenderer != null){
+                final long before = System.nanoTime();
+                try {
+                    labelRenderer.portrayLabels();
+                } catch (TransformException ex) {
+                    monitor.exceptionOccured(ex, Level.WARNING);
+                }
+                metrics.addTime(RenderingPhase.LABEL, System.nanoTime() - before);
             }
+        } finally {
+            metrics.renderingFinished();
         }
 
     }
@@ -43,6 +43,9 @@ import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.display.canvas.CanvasUtilities;
 import org.geotoolkit.display.canvas.RenderingContext;
 import org.geotoolkit.display.canvas.control.CanvasMonitor;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display.canvas.control.RenderingMetrics;
+import org.geotoolkit.display.canvas.control.RenderingMetricsListener;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import org.geotoolkit.display2d.style.labeling.LabelRenderer;
@@ -138,6 +141,16 @@ public class RenderingContext2D implements RenderingContext{
 
     private CanvasMonitor monitor = null;
 
+    /**
+     * Rendering metrics, shared by the contexts created with {@link #create(java.awt.Graphics2D) }.
+     */
+    private RenderingMetrics metrics = new RenderingMetrics();
+
+    /**
+     * Metrics of the layer currently painted, null if none.
+     */
+    private LayerMetrics layerMetrics = null;
+
     private AffineTransform2D objectiveToDisplay = null;
     private AffineTransform2D displayToObjective = null;
 
@@ -640,6 +653,8 @@ public class RenderingContext2D implements RenderingContext{
         context.initGraphic(g2d);
         g2d.setRenderingHints(this.graphics.getRenderingHints());
         context.labelRenderer = getLabelRenderer(true);
+        context.metrics = metrics;
+        context.layerMetrics = layerMetrics;
         return context;
     }
 
@@ -675,6 +690,53 @@ public class RenderingContext2D implements RenderingContext{
         return monitor;
     }
 
+    /**
+     * Get the metrics of the rendering process.
+     * Metrics are cleared at the beginning of each rendering, listeners are preserved.
+     *
+     * @return RenderingMetrics, never null
+     */
+    public RenderingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Register a listener notified of each painted layer and rendering metrics.
+     *
+     * @param listener listener to add
+     */
+    public void addMetricsListener(final RenderingMetricsListener listener) {
+        metrics.addListener(listener);
+    }
+
+    /**
+     * Unregister a metrics listener.
+     *
+     * @param listener listener to remove
+     */
+    public void removeMetricsListener(final RenderingMetricsListener listener) {
+        metrics.removeListener(listener);
+    }
+
+    /**
+     * Get the metrics of the layer currently painted.
+     *
+     * @return LayerMetrics, null if no layer is being painted
+     */
+    public LayerMetrics getLayerMetrics() {
+        return layerMetrics;
+    }
+
+    /**
+     * Set the metrics of the layer currently painted.
+     * Graphic objects update it while iterating and projecting their datas.
+     *
+     * @param layerMetrics current layer metrics, can be null
+     */
+    public void setLayerMetrics(final LayerMetrics layerMetrics) {
+        this.layerMetrics = layerMetrics;
+    }
+
 
 
     // Informations related to scale datas -------------------------------------
@@ -0,0 +1,306 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.container.stateless;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.query.Query;
+import org.geotoolkit.display.PortrayalException;
+import org.geotoolkit.display2d.canvas.RenderingContext2D;
+import org.geotoolkit.factory.HintsPending;
+import org.geotoolkit.feature.FeatureExt;
+import org.geotoolkit.geometry.DefaultBoundingBox;
+import org.geotoolkit.map.FeatureMapLayer;
+import org.opengis.feature.AttributeType;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.feature.PropertyType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.expression.Expression;
+import org.opengis.geometry.BoundingBox;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.style.Rule;
+
+/**
+ * Features of a layer kept between paints, with their objective geometries.
+ * <p>
+ * Features are queried on the view area expanded by half its size on each side.
+ * While the view stays in this area no query is made, when it goes out only the
+ * features of the newly covered area are queried and those which are too far are
+ * dropped. The cache is reset when the style rules, requested properties, layer
+ * query, objective crs or resolution band change, and by the layer on content
+ * events. Query resolution is rounded to the power of 2 below so the same features
+ * are used for all scales of a band.
+ * <p>
+ * If the features exceed the memory limit the cache is not used until the cache key
+ * changes.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class FeatureLayerCache {
+
+    /**
+     * Fraction of the view size added on each side of the queried area.
+     */
+    private static final double EXPAND = 0.5;
+
+    /**
+     * Estimated memory of a feature without geometry, in bytes.
+     */
+    private static final long FEATURE_WEIGHT = 200;
+
+    /**
+     * Estimated memory of a coordinate in data and objective geometries, in bytes.
+     */
+    private static final long COORDINATE_WEIGHT = 100;
+
+    private final long maxMemory;
+
+    //current content
+    private FeatureCollection collection;
+    private List<Object> key;
+    private FeatureType type;
+    private Envelope area;
+    private final List<Entry> entries = new ArrayList<>();
+    private long memory;
+
+    //last key which exceeded the memory limit
+    private FeatureCollection overflowCollection;
+    private List<Object> overflowKey;
+
+    /**
+     * @param maxMemory maximum estimated memory, in bytes
+     */
+    FeatureLayerCache(final long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    long getMaxMemory() {
+        return maxMemory;
+    }
+
+    synchronized void clear() {
+        collection = null;
+        key = null;
+        type = null;
+        area = null;
+        entries.clear();
+        memory = 0;
+        overflowCollection = null;
+        overflowKey = null;
+    }
+
+    /**
+     * Get the features to paint, querying the layer collection if needed.
+     *
+     * @return features intersecting the view, or null if the cache can not be used
+     */
+    synchronized Selection select(final RenderingContext2D context, final FeatureMapLayer layer,
+            final Set<String> names, final List<Rule> rules, final double symbolsMargin)
+            throws PortrayalException, DataStoreException {
+
+        if (!layer.getExtraDimensions().isEmpty()) return null;
+        final Filter selectionFilter = layer.getSelectionFilter();
+        if (selectionFilter != null && !Filter.EXCLUDE.equals(selectionFilter)) {
+            //selection rules are recreated on each paint
+            return null;
+        }
+
+        final BoundingBox bbox = StatelessFeatureLayerJ2D.optimizeBBox(context, layer, symbolsMargin);
+        if (bbox == null) return null;
+        final Envelope view = new Envelope(bbox.getMinX(), bbox.getMaxX(), bbox.getMinY(), bbox.getMaxY());
+        if (view.isNull() || !Double.isFinite(view.getWidth()) || !Double.isFinite(view.getHeight())) {
+            return null;
+        }
+
+        final FeatureCollection col = layer.getCollection();
+        final CoordinateReferenceSystem layerCRS = FeatureExt.getCRS(col.getType());
+        final double[] res = (layerCRS == null) ? null : StatelessFeatureLayerJ2D.getQueryResolution(context, layerCRS);
+        final List<Object> newKey = Arrays.asList(
+                layer.getQuery(),
+                (names == null) ? null : new HashSet<>(names),
+                new ArrayList<>(rules),
+                context.getObjectiveCRS2D(),
+                (res == null) ? null : Math.getExponent(res[0]),
+                (res == null) ? null : Math.getExponent(res[1]));
+
+        final boolean sameKey = (col == collection) && newKey.equals(key);
+        if (sameKey && area.contains(view)) {
+            return new Selection(type, entries, view);
+        }
+        if (col == overflowCollection && newKey.equals(overflowKey)) {
+            return null;
+        }
+
+        final Envelope expanded = new Envelope(view);
+        expanded.expandBy(view.getWidth() * EXPAND, view.getHeight() * EXPAND);
+        BoundingBox exclude = null;
+        if (sameKey && area.intersects(expanded)) {
+            //query only the newly covered area
+            exclude = toBoundingBox(bbox, area);
+            for (Iterator<Entry> ite = entries.iterator(); ite.hasNext();) {
+                final Entry entry = ite.next();
+                if (!expanded.intersects(entry.bounds)) {
+                    memory -= entry.weight;
+                    ite.remove();
+                }
+            }
+        } else {
+            clear();
+        }
+
+        try {
+            final Query query = StatelessFeatureLayerJ2D.prepareQuery(context, layer, names, rules,
+                    toBoundingBox(bbox, expanded), exclude, true);
+            query.getHints().put(HintsPending.FEATURE_DETACHED, Boolean.TRUE);
+            final FeatureCollection result = col.subset(query);
+            final String[] geometries = getGeometryNames(result.getType());
+
+            final FeatureIterator ite = result.iterator();
+            try {
+                while (ite.hasNext()) {
+                    final Feature feature = ite.next();
+                    long weight = FEATURE_WEIGHT;
+                    Envelope bounds = null;
+                    for (String name : geometries) {
+                        final Object value = feature.getPropertyValue(name);
+                        if (value instanceof Geometry) {
+                            final Geometry geom = (Geometry) value;
+                            if (bounds == null) {
+                                bounds = new Envelope(geom.getEnvelopeInternal());
+                            } else {
+                                bounds.expandToInclude(geom.getEnvelopeInternal());
+                            }
+                            weight += geom.getNumPoints() * COORDINATE_WEIGHT;
+                        }
+                    }
+                    if (bounds == null) continue;
+
+                    entries.add(new Entry(feature, bounds, weight));
+                    memory += weight;
+                    if (memory > maxMemory) {
+                        clear();
+                        overflowCollection = col;
+                        overflowKey = newKey;
+                        return null;
+                    }
+                }
+            } finally {
+                ite.close();
+            }
+
+            if (type == null) type = result.getType();
+        } catch (PortrayalException | DataStoreException | FeatureStoreRuntimeException ex) {
+            clear();
+            throw ex;
+        }
+
+        collection = col;
+        key = newKey;
+        area = expanded;
+        return new Selection(type, entries, view);
+    }
+
+    private static String[] getGeometryNames(final FeatureType type) {
+        final List<String> names = new ArrayList<>();
+        for (PropertyType pt : type.getProperties(true)) {
+            if (pt instanceof AttributeType && Geometry.class.isAssignableFrom(((AttributeType) pt).getValueClass())) {
+                names.add(pt.getName().toString());
+            }
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    private static BoundingBox toBoundingBox(final BoundingBox base, final Envelope env) {
+        final GeneralEnvelope ge = new GeneralEnvelope(base);
+        ge.setRange(0, env.getMinX(), env.getMaxX());
+        ge.setRange(1, env.getMinY(), env.getMaxY());
+        return new DefaultBoundingBox(ge);
+    }
+
+    /**
+     * A cached feature.
+     */
+    static final class Entry {
+
+        final Feature feature;
+        /**
+         * Envelope of the feature geometries in layer crs.
+         */
+        final Envelope bounds;
+        final long weight;
+        /**
+         * Objective geometries, by geometry expression.
+         */
+        final Map<Expression,Geometry> objective = Collections.synchronizedMap(new HashMap<>(2));
+
+        private Entry(final Feature feature, final Envelope bounds, final long weight) {
+            this.feature = feature;
+            this.bounds = bounds;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Cached features intersecting the view.
+     */
+    static final class Selection extends AbstractCollection<Entry> {
+
+        private final FeatureType type;
+        private final Entry[] entries;
+
+        private Selection(final FeatureType type, final List<Entry> all, final Envelope view) {
+            this.type = type;
+            final List<Entry> visible = new ArrayList<>();
+            for (Entry entry : all) {
+                if (view.intersects(entry.bounds)) visible.add(entry);
+            }
+            this.entries = visible.toArray(new Entry[visible.size()]);
+        }
+
+        FeatureType getType() {
+            return type;
+        }
+
+        @Override
+        public Iterator<Entry> iterator() {
+            return Arrays.asList(entries).iterator();
+        }
+
+        @Override
+        public int size() {
+            return entries.length;
+        }
+    }
+
+}
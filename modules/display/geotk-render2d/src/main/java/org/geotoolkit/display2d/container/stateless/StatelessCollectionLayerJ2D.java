@@ -32,6 +32,8 @@ import java.util.logging.Level;
 import org.geotoolkit.display.canvas.RenderingContext;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.canvas.control.CanvasMonitor;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
 import org.geotoolkit.display.PortrayalException;
 import org.geotoolkit.display.SearchArea;
 import org.geotoolkit.display2d.GO2Hints;
@@ -572,20 +574,33 @@ public class StatelessCollectionLayerJ2D<T extends CollectionMapLayer> extends S
 
         private final Iterator<?> ite;
         private final DefaultProjectedObject projected;
+        private final LayerMetrics metrics;
 
         public GraphicIterator(final Iterator<?> ite, final DefaultProjectedObject projected) {
             this.ite = ite;
             this.projected = projected;
+            this.metrics = projected.getParameters().layerMetrics;
         }
 
         @Override
         public boolean hasNext() {
-            return ite.hasNext();
+            if (metrics == null) return ite.hasNext();
+            final long before = System.nanoTime();
+            final boolean next = ite.hasNext();
+            metrics.addTime(RenderingPhase.QUERY, System.nanoTime() - before);
+            return next;
         }
 
         @Override
         public ProjectedObject next() {
-            projected.setCandidate(ite.next());
+            if (metrics == null) {
+                projected.setCandidate(ite.next());
+            } else {
+                final long before = System.nanoTime();
+                projected.setCandidate(ite.next());
+                metrics.addTime(RenderingPhase.QUERY, System.nanoTime() - before);
+                metrics.addFeatures(1);
+            }
             return projected;
         }
 
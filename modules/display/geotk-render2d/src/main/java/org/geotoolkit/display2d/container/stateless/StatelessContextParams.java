@@ -17,9 +17,13 @@
 package org.geotoolkit.display2d.container.stateless;
 
 import com.vividsolutions.jts.geom.Polygon;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
+import org.geotoolkit.display2d.primitive.jts.DisplaySimplifier;
 import org.geotoolkit.geometry.jts.transform.CoordinateSequenceMathTransformer;
 import org.geotoolkit.geometry.jts.transform.GeometryCSTransformer;
 import org.geotoolkit.map.MapLayer;
@@ -61,6 +65,23 @@ public class StatelessContextParams<T extends MapLayer> {
     public Rectangle2D displayClipRect;
     public Polygon displayClip;
 
+    /**
+     * Display space simplification, null if disabled.
+     * @see GO2Hints#KEY_DISPLAY_SIMPLIFY
+     */
+    public DisplaySimplifier displaySimplifier;
+
+    /**
+     * Painting policy of geometries smaller than a pixel.
+     * @see GO2Hints#KEY_SUBPIXEL_GEOMETRY
+     */
+    public Object subPixelPolicy = GO2Hints.SUBPIXEL_PIXEL;
+
+    /**
+     * Metrics of the layer being painted, null if none.
+     */
+    public LayerMetrics layerMetrics;
+
     public StatelessContextParams(final AbstractCanvas2D canvas, final T layer){
         this.canvas = canvas;
         this.layer = layer;
@@ -77,6 +98,7 @@ public class StatelessContextParams<T extends MapLayer> {
 
     public void update(final RenderingContext2D context){
         this.context = context;
+        this.layerMetrics = context.getLayerMetrics();
         this.objectiveCRS = context.getObjectiveCRS2D();
         this.displayCRS = context.getDisplayCRS();
         if(context.wraps!=null){
@@ -97,6 +119,18 @@ public class StatelessContextParams<T extends MapLayer> {
                 displayClipRect.getWidth()+2*CLIP_PIXEL_MARGIN,
                 displayClipRect.getHeight()+2*CLIP_PIXEL_MARGIN);
         displayClip = JTS.toGeometry(context.getCanvasDisplayBounds());
+
+        final RenderingHints hints = context.getRenderingHints();
+        Object value = (hints == null) ? null : hints.get(GO2Hints.KEY_SUBPIXEL_GEOMETRY);
+        subPixelPolicy = (value == null) ? GO2Hints.SUBPIXEL_PIXEL : value;
+        value = (hints == null) ? null : hints.get(GO2Hints.KEY_DISPLAY_SIMPLIFY);
+        if (GO2Hints.DISPLAY_SIMPLIFY_OFF.equals(value)) {
+            displaySimplifier = null;
+        } else {
+            value = (hints == null) ? null : hints.get(GO2Hints.KEY_DISPLAY_SIMPLIFY_TOLERANCE);
+            final double tolerance = (value instanceof Number) ? ((Number) value).doubleValue() : 0.0;
+            displaySimplifier = new DisplaySimplifier(tolerance);
+        }
     }
 
 }
@@ -17,10 +17,13 @@
 package org.geotoolkit.display2d.container.stateless;
 
 import java.awt.RenderingHints;
+import java.beans.PropertyChangeEvent;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EventObject;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -47,6 +50,8 @@ import org.geotoolkit.display.SearchArea;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.canvas.RenderingContext;
 import org.geotoolkit.display.canvas.control.CanvasMonitor;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import static org.geotoolkit.display2d.GO2Utilities.*;
@@ -73,10 +78,13 @@ import org.geotoolkit.filter.binaryspatial.UnreprojectedLooseBBox;
 import org.geotoolkit.geometry.DefaultBoundingBox;
 import org.geotoolkit.map.FeatureMapLayer;
 import org.geotoolkit.map.GraphicBuilder;
+import org.geotoolkit.map.LayerListener;
+import org.geotoolkit.map.MapItem;
 import org.geotoolkit.map.MapLayer;
 import org.geotoolkit.referencing.operation.matrix.XAffineTransform;
 import org.geotoolkit.style.MutableRule;
 import org.geotoolkit.style.StyleUtilities;
+import org.geotoolkit.util.collection.CollectionChangeEvent;
 import org.opengis.display.primitive.Graphic;
 import org.opengis.feature.MismatchedFeatureException;
 import org.opengis.filter.Filter;
@@ -114,15 +122,64 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
     // symbols margins, in objective CRS units, used to expand query and intersection enveloppes.
     private double symbolsMargin = 0.0;
 
+    // features kept between paints, null if disabled
+    private FeatureLayerCache cache = null;
+    private final LayerListener styleListener = new LayerListener() {
+        @Override
+        public void styleChange(MapLayer source, EventObject event) {
+            //rules may have been modified
+            clearCache();
+        }
+
+        @Override
+        public void itemChange(CollectionChangeEvent<MapItem> event) {
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent event) {
+        }
+    };
+    private final LayerListener.Weak weakStyleListener = new LayerListener.Weak(styleListener);
+
 
     public StatelessFeatureLayerJ2D(final J2DCanvas canvas, final FeatureMapLayer layer){
         super(canvas, layer);
         final Session session = layer.getCollection().getSession();
         weakSessionListener.registerSource(session);
+        weakStyleListener.registerSource(layer);
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        weakStyleListener.dispose();
+        clearCache();
+    }
+
+    private synchronized void clearCache() {
+        if(cache != null) cache.clear();
+    }
+
+    /**
+     * Get the feature cache configured by {@link GO2Hints#KEY_FEATURE_CACHE}.
+     *
+     * @return cache or null if disabled
+     */
+    private synchronized FeatureLayerCache getCache(final RenderingContext2D context) {
+        final RenderingHints hints = context.getRenderingHints();
+        final Object value = (hints == null) ? null : hints.get(GO2Hints.KEY_FEATURE_CACHE);
+        final long maxMemory = (value instanceof Number) ? ((Number) value).longValue() * 1024 * 1024 : 0;
+        if(maxMemory <= 0){
+            cache = null;
+        }else if(cache == null || cache.getMaxMemory() != maxMemory){
+            cache = new FeatureLayerCache(maxMemory);
+        }
+        return cache;
     }
 
     @Override
     public void structureChanged(FeatureStoreManagementEvent event) {
+        clearCache();
         if(item.isVisible() && getCanvas().isAutoRepaint()){
             //TODO should call a repaint only on this graphic
             getCanvas().repaint();
@@ -131,6 +188,7 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
 
     @Override
     public void contentChanged(FeatureStoreContentEvent event) {
+        clearCache();
         if(item.isVisible() && getCanvas().isAutoRepaint()){
             //TODO should call a repaint only on this graphic
             getCanvas().repaint();
@@ -202,17 +260,18 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         }
 
 
-        final FeatureCollection candidates;
+        final Collection<?> candidates;
         try {
             //optimize
-            candidates = (FeatureCollection)optimizeCollection(renderingContext, names, validRules);
+            candidates = optimizeCollection(renderingContext, names, validRules);
         } catch (Exception ex) {
             renderingContext.getMonitor().exceptionOccured(ex, Level.WARNING);
             return;
         }
 
         //get the expected result type
-        final FeatureType expected = candidates.getType();
+        final FeatureType expected = (candidates instanceof FeatureLayerCache.Selection) ?
+                ((FeatureLayerCache.Selection)candidates).getType() : ((FeatureCollection)candidates).getType();
 
         //calculate optimized rules and included filter + expressions
         final CachedRule[] rules = toCachedRules(validRules, expected);
@@ -277,6 +336,12 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
     @Override
     protected Collection<?> optimizeCollection(final RenderingContext2D context,
             final Set<String> requieredAtts, final List<Rule> rules) throws Exception {
+        final FeatureLayerCache cache = getCache(context);
+        if(cache != null){
+            final Collection<?> selection = cache.select(context, item, requieredAtts, rules, symbolsMargin);
+            if(selection != null) return selection;
+        }
+
         currentQuery = prepareQuery(context, item, requieredAtts, rules, symbolsMargin);
         //we detach feature since we are going to use a cache.
         currentQuery.getHints().put(HintsPending.FEATURE_DETACHED,Boolean.TRUE);
@@ -305,6 +370,9 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
     @Override
     protected RenderingIterator getIterator(final Collection<?> features,
             final RenderingContext2D renderingContext, final StatelessContextParams params) {
+        if(features instanceof FeatureLayerCache.Selection){
+            return new CachedGraphicIterator((FeatureLayerCache.Selection)features, new ProjectedFeature(params));
+        }
         final Hints iteHints = new Hints(HintsPending.FEATURE_DETACHED, Boolean.FALSE);
         final FeatureIterator iterator = ((FeatureCollection)features).iterator(iteHints);
         final ProjectedFeature projectedFeature = new ProjectedFeature(params);
@@ -442,6 +510,20 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
      */
     protected static Query prepareQuery(final RenderingContext2D renderingContext, final FeatureMapLayer layer,
             final Set<String> styleRequieredAtts, final List<Rule> rules, double symbolsMargin) throws PortrayalException{
+        return prepareQuery(renderingContext, layer, styleRequieredAtts, rules,
+                optimizeBBox(renderingContext, layer, symbolsMargin), null, false);
+    }
+
+    /**
+     * Creates an optimal query to send to the datastore.
+     *
+     * @param bbox searched area, in layer crs
+     * @param exclude area to exclude, features which intersect it are not returned, may be null
+     * @param snapResolution true to round the query resolution to the power of 2 below
+     */
+    static Query prepareQuery(final RenderingContext2D renderingContext, final FeatureMapLayer layer,
+            final Set<String> styleRequieredAtts, final List<Rule> rules, final BoundingBox bbox,
+            final BoundingBox exclude, final boolean snapResolution) throws PortrayalException{
 
         final FeatureCollection fs               = layer.getCollection();
         final FeatureType schema                 = fs.getType();
@@ -449,9 +531,7 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         try {
             geomDesc = schema.getProperty(AttributeConvention.GEOMETRY_PROPERTY.toString());
         } catch(PropertyNotFoundException ex){};
-        final BoundingBox bbox                   = optimizeBBox(renderingContext, layer, symbolsMargin);
         final CoordinateReferenceSystem layerCRS = FeatureExt.getCRS(schema);
-        final RenderingHints hints               = renderingContext.getRenderingHints();
 
         //search used geometries
         boolean allDefined = true;
@@ -486,22 +566,10 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         //}else{
         //make a bbox filter
         if(!geomProperties.isEmpty()){
-            if(geomProperties.size()==1){
-                final String geomAttName = geomProperties.iterator().next();
-                if (layerCRS != null) {
-                    filter = new UnreprojectedLooseBBox(FILTER_FACTORY.property(geomAttName),new DefaultLiteral<>(bbox));
-                } else {
-                    filter = new LooseBBox(FILTER_FACTORY.property(geomAttName),new DefaultLiteral<>(bbox));
-                }
-            }else{
-                //make an OR filter with all geometries
-                final List<Filter> geomFilters = new ArrayList<>();
-                for(String geomAttName : geomProperties){
-                    geomFilters.add(new LooseBBox(FILTER_FACTORY.property(geomAttName),new DefaultLiteral<>(bbox)));
-                }
-                filter = FILTER_FACTORY.or(geomFilters);
+            filter = toBBoxFilter(geomProperties, layerCRS, bbox);
+            if(exclude != null){
+                filter = FILTER_FACTORY.and(filter, FILTER_FACTORY.not(toBBoxFilter(geomProperties, layerCRS, exclude)));
             }
-
         }else{
             filter = Filter.EXCLUDE;
         }
@@ -659,21 +727,12 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         //resampling and ignore flag only works when we know the layer crs
         if(layerCRS != null){
             //add resampling -------------------------------------------------------
-            Boolean resample = (hints == null) ? null : (Boolean) hints.get(GO2Hints.KEY_GENERALIZE);
-            if(!Boolean.FALSE.equals(resample)){
-                //we only disable resampling if it is explictly specified
-                final double[] res = renderingContext.getResolution(layerCRS);
-
-                //adjust with the generalization factor
-                final Number n =  (hints==null) ? null : (Number)hints.get(GO2Hints.KEY_GENERALIZE_FACTOR);
-                final double factor;
-                if(n != null){
-                    factor = n.doubleValue();
-                }else{
-                    factor = GO2Hints.GENERALIZE_FACTOR_DEFAULT.doubleValue();
+            final double[] res = getQueryResolution(renderingContext, layerCRS);
+            if(res != null){
+                if(snapResolution){
+                    res[0] = Math.scalb(1.0, Math.getExponent(res[0]));
+                    res[1] = Math.scalb(1.0, Math.getExponent(res[1]));
                 }
-                res[0] *= factor;
-                res[1] *= factor;
                 qb.setResolution(res);
             }
 
@@ -814,7 +873,52 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         return qb.buildQuery();
     }
 
-    private static BoundingBox optimizeBBox(RenderingContext2D renderingContext, FeatureMapLayer layer, double symbolsMargin){
+    private static Filter toBBoxFilter(final Set<String> geomProperties, final CoordinateReferenceSystem layerCRS, final BoundingBox bbox){
+        if(geomProperties.size()==1){
+            final String geomAttName = geomProperties.iterator().next();
+            if (layerCRS != null) {
+                return new UnreprojectedLooseBBox(FILTER_FACTORY.property(geomAttName),new DefaultLiteral<>(bbox));
+            } else {
+                return new LooseBBox(FILTER_FACTORY.property(geomAttName),new DefaultLiteral<>(bbox));
+            }
+        }else{
+            //make an OR filter with all geometries
+            final List<Filter> geomFilters = new ArrayList<>();
+            for(String geomAttName : geomProperties){
+                geomFilters.add(new LooseBBox(FILTER_FACTORY.property(geomAttName),new DefaultLiteral<>(bbox)));
+            }
+            return FILTER_FACTORY.or(geomFilters);
+        }
+    }
+
+    /**
+     * Resolution of the query in layer crs, adjusted with the generalization factor.
+     *
+     * @return resolution or null if resampling is disabled
+     */
+    static double[] getQueryResolution(final RenderingContext2D renderingContext, final CoordinateReferenceSystem layerCRS){
+        final RenderingHints hints = renderingContext.getRenderingHints();
+        Boolean resample = (hints == null) ? null : (Boolean) hints.get(GO2Hints.KEY_GENERALIZE);
+        if(Boolean.FALSE.equals(resample)){
+            //we only disable resampling if it is explictly specified
+            return null;
+        }
+        final double[] res = renderingContext.getResolution(layerCRS);
+
+        //adjust with the generalization factor
+        final Number n =  (hints==null) ? null : (Number)hints.get(GO2Hints.KEY_GENERALIZE_FACTOR);
+        final double factor;
+        if(n != null){
+            factor = n.doubleValue();
+        }else{
+            factor = GO2Hints.GENERALIZE_FACTOR_DEFAULT.doubleValue();
+        }
+        res[0] *= factor;
+        res[1] *= factor;
+        return res;
+    }
+
+    static BoundingBox optimizeBBox(RenderingContext2D renderingContext, FeatureMapLayer layer, double symbolsMargin){
         BoundingBox bbox                                         = renderingContext.getPaintingObjectiveBounds2D();
         final CoordinateReferenceSystem bboxCRS                  = bbox.getCoordinateReferenceSystem();
         final CanvasMonitor monitor                              = renderingContext.getMonitor();
@@ -882,20 +986,33 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
 
         private final FeatureIterator ite;
         private final ProjectedFeature projected;
+        private final LayerMetrics metrics;
 
         public GraphicIterator(final FeatureIterator ite, final ProjectedFeature projected) {
             this.ite = ite;
             this.projected = projected;
+            this.metrics = projected.getParameters().layerMetrics;
         }
 
         @Override
         public boolean hasNext() {
-            return ite.hasNext();
+            if (metrics == null) return ite.hasNext();
+            final long before = System.nanoTime();
+            final boolean next = ite.hasNext();
+            metrics.addTime(RenderingPhase.QUERY, System.nanoTime() - before);
+            return next;
         }
 
         @Override
         public ProjectedFeature next() {
-            projected.setCandidate(ite.next());
+            if (metrics == null) {
+                projected.setCandidate(ite.next());
+            } else {
+                final long before = System.nanoTime();
+                projected.setCandidate(ite.next());
+                metrics.addTime(RenderingPhase.QUERY, System.nanoTime() - before);
+                metrics.addFeatures(1);
+            }
             return projected;
         }
 
@@ -911,4 +1028,42 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
 
     }
 
+    private static class CachedGraphicIterator implements RenderingIterator{
+
+        private final Iterator<FeatureLayerCache.Entry> ite;
+        private final ProjectedFeature projected;
+        private final LayerMetrics metrics;
+
+        public CachedGraphicIterator(final FeatureLayerCache.Selection selection, final ProjectedFeature projected) {
+            this.ite = selection.iterator();
+            this.projected = projected;
+            this.metrics = projected.getParameters().layerMetrics;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ite.hasNext();
+        }
+
+        @Override
+        public ProjectedFeature next() {
+            final FeatureLayerCache.Entry entry = ite.next();
+            projected.setCandidate(entry.feature, entry.objective);
+            if (metrics != null) {
+                metrics.addFeatures(1);
+            }
+            return projected;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+
+    }
+
 }
@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.EventObject;
 import java.util.List;
 import org.geotoolkit.display.canvas.RenderingContext;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.SearchArea;
 import org.geotoolkit.display2d.canvas.J2DCanvas;
@@ -104,25 +105,32 @@ public class StatelessMapLayerJ2D<T extends MapLayer> extends StatelessMapItemJ2
         if(opacity < 1e-6) return;
 
 
-        if(1-opacity < 1e-6){
-            //we are very close to opacity one, no need to create a intermediate image
-            paintLayer(context);
-        }else{
-            //create an intermediate layer which will be painted on the main context
-            //after with the given opacity
-            final Rectangle rect = context.getCanvasDisplayBounds();
-            final BufferedImage inter = createBufferedImage(ColorModel.getRGBdefault(),
-                    ColorModel.getRGBdefault().createCompatibleSampleModel(rect.width, rect.height));
-            final Graphics2D g2d = inter.createGraphics();
-            final RenderingContext2D interContext = context.create(g2d);
-            paintLayer(interContext);
-
-            //paint intermediate image
-            context.switchToDisplayCRS();
-            final Graphics2D g = context.getGraphics();
-            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float)opacity));
-            g.drawImage(inter, 0, 0, null);
-            recycleBufferedImage(inter);
+        final LayerMetrics layerMetrics = context.getMetrics().layerStarted(item.getName());
+        context.setLayerMetrics(layerMetrics);
+        try {
+            if(1-opacity < 1e-6){
+                //we are very close to opacity one, no need to create a intermediate image
+                paintLayer(context);
+            }else{
+                //create an intermediate layer which will be painted on the main context
+                //after with the given opacity
+                final Rectangle rect = context.getCanvasDisplayBounds();
+                final BufferedImage inter = createBufferedImage(ColorModel.getRGBdefault(),
+                        ColorModel.getRGBdefault().createCompatibleSampleModel(rect.width, rect.height));
+                final Graphics2D g2d = inter.createGraphics();
+                final RenderingContext2D interContext = context.create(g2d);
+                paintLayer(interContext);
+
+                //paint intermediate image
+                context.switchToDisplayCRS();
+                final Graphics2D g = context.getGraphics();
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float)opacity));
+                g.drawImage(inter, 0, 0, null);
+                recycleBufferedImage(inter);
+            }
+        } finally {
+            context.setLayerMetrics(null);
+            context.getMetrics().layerFinished(layerMetrics);
         }
 
     }
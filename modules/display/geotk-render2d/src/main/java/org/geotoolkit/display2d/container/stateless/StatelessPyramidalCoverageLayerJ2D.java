@@ -35,6 +35,8 @@ import org.geotoolkit.display.SearchArea;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.canvas.RenderingContext;
 import org.geotoolkit.display.canvas.control.CanvasMonitor;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import org.geotoolkit.display2d.canvas.J2DCanvas;
@@ -159,13 +161,19 @@ public class StatelessPyramidalCoverageLayerJ2D extends StatelessMapLayerJ2D<Cov
 
         final StatelessContextParams params = new StatelessContextParams(getCanvas(), getUserObject());
         params.update(context2D);
+        final LayerMetrics metrics = params.layerMetrics;
         while(true){
             Object obj = null;
+            final long before = System.nanoTime();
             try {
                 obj = queue.poll(50, TimeUnit.MILLISECONDS);
             } catch (InterruptedException ex) {
                 monitor.exceptionOccured(ex, Level.INFO);
             }
+            if(metrics != null){
+                //waiting for the tiles is the query time of this layer
+                metrics.addTime(RenderingPhase.QUERY, System.nanoTime() - before);
+            }
 
             if(monitor.stopRequested()){
                 if(queue instanceof Cancellable){
@@ -180,6 +188,7 @@ public class StatelessPyramidalCoverageLayerJ2D extends StatelessMapLayerJ2D<Cov
 
             if(obj instanceof TileReference){
                 final TileReference tile = (TileReference)obj;
+                if(metrics != null) metrics.addTiles(1);
                 try {
                     paintTile(context2D, params, result.rules, result.pyramid.getId(), result.mosaic.getId(), tile);
                 } catch (Exception e) {
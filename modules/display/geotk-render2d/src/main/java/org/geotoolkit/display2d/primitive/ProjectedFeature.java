@@ -17,6 +17,7 @@
 package org.geotoolkit.display2d.primitive;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.logging.Level;
 import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.internal.feature.AttributeConvention;
@@ -54,6 +55,7 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 public class ProjectedFeature extends DefaultProjectedObject<Feature> {
 
     private final boolean fullFeature;
+    private Map<Expression,com.vividsolutions.jts.geom.Geometry> objectiveCache;
 
     public ProjectedFeature(final J2DCanvas canvas, final FeatureMapLayer layer, final Feature feature){
         super(new StatelessContextParams(canvas,layer),feature);
@@ -74,6 +76,27 @@ public class ProjectedFeature extends DefaultProjectedObject<Feature> {
         fullFeature = false;
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void setCandidate(final Feature candidate) {
+        super.setCandidate(candidate);
+        objectiveCache = null;
+    }
+
+    /**
+     * Set the feature and the map where its objective geometries are kept
+     * between paints.
+     *
+     * @param candidate feature
+     * @param objectiveCache objective geometry cache, may be null
+     */
+    public void setCandidate(final Feature candidate, final Map<Expression,com.vividsolutions.jts.geom.Geometry> objectiveCache) {
+        setCandidate(candidate);
+        this.objectiveCache = objectiveCache;
+    }
+
     /**
      * Get the feature itself.
      *
@@ -128,6 +151,7 @@ public class ProjectedFeature extends DefaultProjectedObject<Feature> {
         //check that the geometry is set
         if(!proj.isSet()){
             proj.setDataGeometry(GO2Utilities.getGeometry(candidate, geomExp),dataCRS);
+            proj.setObjectiveCache(objectiveCache, geomExp);
         }
 
         return proj;
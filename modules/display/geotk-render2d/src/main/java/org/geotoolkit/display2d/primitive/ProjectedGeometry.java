@@ -18,9 +18,15 @@ package org.geotoolkit.display2d.primitive;
 
 import com.bric.geom.Clipper;
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Puntal;
 import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.logging.Level;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
+import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.container.stateless.StatelessContextParams;
 import org.geotoolkit.display2d.primitive.jts.JTSGeometryJ2D;
 import org.geotoolkit.geometry.isoonjts.JTSUtils;
@@ -30,6 +36,7 @@ import org.geotoolkit.geometry.jts.transform.CoordinateSequenceWrapTransformer;
 import org.geotoolkit.geometry.jts.transform.GeometryCSTransformer;
 import org.geotoolkit.internal.referencing.CRSUtilities;
 import org.apache.sis.referencing.CRS;
+import org.opengis.filter.expression.Expression;
 import org.opengis.geometry.Geometry;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform2D;
@@ -71,6 +78,10 @@ public class ProjectedGeometry  {
 
     private CoordinateReferenceSystem dataCRS = null;
 
+    //objective geometries kept between paints, may be null
+    private Map<Expression,com.vividsolutions.jts.geom.Geometry> objectiveCache = null;
+    private Expression objectiveCacheKey = null;
+
     public ProjectedGeometry(final StatelessContextParams params){
         this.params = params;
     }
@@ -112,6 +123,19 @@ public class ProjectedGeometry  {
         }
     }
 
+    /**
+     * Set a map where the objective geometry, before wrap around duplication,
+     * is read from or stored once calculated. The map is reset when the data
+     * geometry changes.
+     *
+     * @param cache objective geometry cache, may be null
+     * @param key geometry expression
+     */
+    public void setObjectiveCache(final Map<Expression,com.vividsolutions.jts.geom.Geometry> cache, final Expression key){
+        this.objectiveCache = cache;
+        this.objectiveCacheKey = key;
+    }
+
     public MathTransform2D getDataToDisplay() {
         return dataToDisplay;
     }
@@ -130,6 +154,7 @@ public class ProjectedGeometry  {
 
     public void clearDataCache(){
         clearObjectiveCache();
+        objectiveCache = null;
         dataGeometryISO = null;
         dataGeometryJTS = null;
         dataShape = null;
@@ -175,13 +200,26 @@ public class ProjectedGeometry  {
 
             objectiveGeometryJTS = new com.vividsolutions.jts.geom.Geometry[1];
 
-            com.vividsolutions.jts.geom.Geometry objBase;
-            if(dataToObjective == null){
-                //we assume data and objective are in the same crs
-                objBase = dataGeometryJTS;
-            }else{
-                final GeometryCSTransformer transformer = new GeometryCSTransformer(new CoordinateSequenceMathTransformer(dataToObjective));
-                objBase = transformer.transform(getDataGeometryJTS());
+            final LayerMetrics metrics = params.layerMetrics;
+            com.vividsolutions.jts.geom.Geometry objBase = (objectiveCache == null) ? null : objectiveCache.get(objectiveCacheKey);
+            if(objBase == null){
+                if(dataToObjective == null){
+                    //we assume data and objective are in the same crs
+                    objBase = dataGeometryJTS;
+                }else{
+                    final long before = (metrics != null) ? System.nanoTime() : 0;
+                    final GeometryCSTransformer transformer = new GeometryCSTransformer(new CoordinateSequenceMathTransformer(dataToObjective));
+                    objBase = transformer.transform(getDataGeometryJTS());
+                    if(metrics != null){
+                        metrics.addTime(RenderingPhase.PROJECTION, System.nanoTime() - before);
+                    }
+                    if(objectiveCache != null){
+                        objectiveCache.put(objectiveCacheKey, objBase);
+                    }
+                }
+            }
+            if(metrics != null){
+                metrics.addVertices(objBase.getNumPoints());
             }
 
 
@@ -269,10 +307,15 @@ public class ProjectedGeometry  {
     public com.vividsolutions.jts.geom.Geometry[] getDisplayGeometryJTS() throws TransformException{
         if(displayGeometryJTS == null && geomSet){
             getObjectiveGeometryJTS();
+            final LayerMetrics metrics = params.layerMetrics;
+            final long before = (metrics != null) ? System.nanoTime() : 0;
             displayGeometryJTS = new com.vividsolutions.jts.geom.Geometry[objectiveGeometryJTS.length];
             for(int i=0;i<displayGeometryJTS.length;i++){
                 displayGeometryJTS[i] = params.objToDisplayTransformer.transform(objectiveGeometryJTS[i]);
             }
+            if(metrics != null){
+                metrics.addTime(RenderingPhase.PROJECTION, System.nanoTime() - before);
+            }
         }
         return displayGeometryJTS;
     }
@@ -296,6 +339,8 @@ public class ProjectedGeometry  {
 
     /**
      * Get a Java2D representation of the geometry in display CRS.
+     * Shapes are simplified in display space and lines or polygons smaller than
+     * a pixel are replaced or removed, as configured by the rendering hints.
      *
      * @return Java2D shape
      * @throws TransformException if geometry could not be reprojected.
@@ -304,20 +349,40 @@ public class ProjectedGeometry  {
         if(displayShape == null && geomSet){
             getDisplayGeometryJTS();
             displayShape = new Shape[displayGeometryJTS.length];
-            for(int i=0;i<displayShape.length;i++){
-                displayShape[i] = new JTSGeometryJ2D(displayGeometryJTS[i]);
+            int n = 0;
+            for(int i=0;i<displayGeometryJTS.length;i++){
+                com.vividsolutions.jts.geom.Geometry geom = displayGeometryJTS[i];
+                final Envelope env = geom.getEnvelopeInternal();
+
+                if(!env.isNull() && env.getWidth()<1 && env.getHeight()<1
+                        && !(geom instanceof Puntal) && params.subPixelPolicy != GO2Hints.SUBPIXEL_KEEP){
+                    //geometry is smaller than a pixel, stroking it is a waste of time
+                    if(params.subPixelPolicy != GO2Hints.SUBPIXEL_CULL){
+                        displayShape[n++] = new Rectangle2D.Double(
+                                Math.floor(env.getMinX()), Math.floor(env.getMinY()), 1, 1);
+                    }
+                    continue;
+                }
+
+                if(params.displaySimplifier!=null){
+                    geom = params.displaySimplifier.simplify(geom);
+                }
+                displayShape[n] = new JTSGeometryJ2D(geom);
                 if(params.displayClipRect!=null){
                     //check envelopes
-                    final Envelope env = displayGeometryJTS[i].getEnvelopeInternal();
                     if(!env.isNull() && !params.displayClip.getEnvelopeInternal().contains(env)){
                         //clip to display bounds
-                        displayShape[i] = Clipper.clipToRect(displayShape[i], params.displayClipRect);
+                        displayShape[n] = Clipper.clipToRect(displayShape[n], params.displayClipRect);
                     }
 
                 }
+                n++;
                 //TODO find a way to reactive curves is there is no transformation
                 //displayShape = ProjectedShape.wrap(shape, dataToDisplay);
             }
+            if(n != displayShape.length){
+                displayShape = Arrays.copyOf(displayShape, n);
+            }
         }
         return displayShape;
     }
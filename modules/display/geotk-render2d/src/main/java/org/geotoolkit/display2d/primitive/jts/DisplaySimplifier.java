@@ -0,0 +1,273 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.primitive.jts;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.Puntal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Simplifies geometries already transformed in display space, before they are stroked or filled.
+ * <p>
+ * Coordinates are snapped on a sub-pixel grid of {@link #SNAP_STEP} pixel, then consecutive
+ * duplicated points and points lying on a straight segment are removed. Those changes are not
+ * visible on the rendered image but can remove most vertices of over-detailed geometries.
+ * Optionally, a Visvalingam-Whyatt simplification removes the points whose effective area
+ * is below the square of a tolerance in pixels.
+ * <p>
+ * Rings are never reduced below 4 points and lines below 2 points, if the simplification
+ * would collapse a component the original component is kept.
+ * Geometries which are not modified are returned unchanged, without copy.
+ * <p>
+ * A work buffer is reused between calls, concurrent calls are serialized.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class DisplaySimplifier {
+
+    /**
+     * Sub-pixel grid size : 1/8 of pixel.
+     */
+    public static final double SNAP_STEP = 0.125;
+
+    /**
+     * Visvalingam effective area threshold, in square pixels. Zero if disabled.
+     */
+    private final double areaTolerance;
+
+    /**
+     * Work buffer of interleaved x,y snapped coordinates.
+     */
+    private double[] buffer = new double[64];
+
+    /**
+     * Number of ordinates in the work buffer.
+     */
+    private int length;
+
+    /**
+     * Creates a simplifier only doing snapping, duplicate and collinear points removal.
+     */
+    public DisplaySimplifier() {
+        this(0.0);
+    }
+
+    /**
+     * @param tolerance Visvalingam tolerance in pixels, zero or negative to disable.
+     *        Points which effective triangle area is under tolerance&sup2; are removed.
+     */
+    public DisplaySimplifier(final double tolerance) {
+        this.areaTolerance = (tolerance > 0) ? tolerance * tolerance : 0.0;
+    }
+
+    /**
+     * Simplify the given display geometry.
+     *
+     * @param geom geometry in display coordinates, not null
+     * @return simplified geometry, or the same instance if no point could be removed.
+     */
+    public synchronized Geometry simplify(final Geometry geom) {
+        if (geom.isEmpty() || geom instanceof Puntal) {
+            return geom;
+        } else if (geom instanceof LineString) {
+            return simplify((LineString) geom);
+        } else if (geom instanceof Polygon) {
+            return simplify((Polygon) geom);
+        } else if (geom instanceof GeometryCollection) {
+            final int nb = geom.getNumGeometries();
+            final Geometry[] parts = new Geometry[nb];
+            boolean changed = false;
+            for (int i = 0; i < nb; i++) {
+                final Geometry part = geom.getGeometryN(i);
+                parts[i] = simplify(part);
+                changed |= (parts[i] != part);
+            }
+            if (!changed) return geom;
+            final GeometryFactory gf = geom.getFactory();
+            if (geom instanceof MultiPolygon) {
+                return gf.createMultiPolygon(copy(parts, new Polygon[nb]));
+            } else if (geom instanceof MultiLineString) {
+                return gf.createMultiLineString(copy(parts, new LineString[nb]));
+            } else {
+                return gf.createGeometryCollection(parts);
+            }
+        }
+        return geom;
+    }
+
+    private static <T> T[] copy(final Geometry[] source, final T[] target) {
+        System.arraycopy(source, 0, target, 0, source.length);
+        return target;
+    }
+
+    private Geometry simplify(final LineString line) {
+        final boolean ring = (line instanceof LinearRing);
+        final CoordinateSequence cs = line.getCoordinateSequence();
+        final int nb = reduce(cs, ring ? 4 : 2);
+        if (nb < 0) return line;
+        final GeometryFactory gf = line.getFactory();
+        return ring ? gf.createLinearRing(toCoordinates()) : gf.createLineString(toCoordinates());
+    }
+
+    private Geometry simplify(final Polygon poly) {
+        final LinearRing shell = (LinearRing) poly.getExteriorRing();
+        final LinearRing newShell = (LinearRing) simplify(shell);
+        final int nbHoles = poly.getNumInteriorRing();
+        final List<LinearRing> holes = new ArrayList<>(nbHoles);
+        boolean changed = (newShell != shell);
+        for (int i = 0; i < nbHoles; i++) {
+            final LinearRing hole = (LinearRing) poly.getInteriorRingN(i);
+            final LinearRing newHole = (LinearRing) simplify(hole);
+            changed |= (newHole != hole);
+            holes.add(newHole);
+        }
+        if (!changed) return poly;
+        return poly.getFactory().createPolygon(newShell, holes.toArray(new LinearRing[nbHoles]));
+    }
+
+    /**
+     * Snap, remove duplicates and collinear points, then apply Visvalingam if enabled.
+     * Result is stored in the work buffer.
+     *
+     * @param cs coordinates to simplify
+     * @param minPoints minimum number of points to preserve
+     * @return number of points in work buffer, or -1 if the sequence is unchanged
+     *         or would collapse under the minimum number of points.
+     */
+    private int reduce(final CoordinateSequence cs, final int minPoints) {
+        final int size = cs.size();
+        if (buffer.length < size * 2) {
+            buffer = new double[size * 2];
+        }
+        final double[] b = buffer;
+        boolean snapped = false;
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            final double ox = cs.getX(i);
+            final double oy = cs.getY(i);
+            final double x = Math.rint(ox / SNAP_STEP) * SNAP_STEP;
+            final double y = Math.rint(oy / SNAP_STEP) * SNAP_STEP;
+            snapped |= (x != ox || y != oy);
+            if (k > 0 && x == b[k-2] && y == b[k-1]) {
+                //duplicated point
+                continue;
+            }
+            if (k >= 4) {
+                //remove previous point if it lies on segment between the one before and this one.
+                //snapped values are multiples of a power of 2, so the cross product is exact.
+                final double ax = b[k-4], ay = b[k-3];
+                final double bx = b[k-2], by = b[k-1];
+                final double cross = (bx - ax) * (y - ay) - (by - ay) * (x - ax);
+                if (cross == 0.0 && (bx - ax) * (x - bx) + (by - ay) * (y - by) >= 0.0) {
+                    k -= 2;
+                }
+            }
+            b[k++] = x;
+            b[k++] = y;
+        }
+        length = k;
+        if (areaTolerance > 0) {
+            visvalingam(minPoints);
+        }
+        final int nb = length / 2;
+        if (nb < minPoints || (nb == size && !snapped)) {
+            return -1;
+        }
+        return nb;
+    }
+
+    /**
+     * Visvalingam-Whyatt simplification of the work buffer.
+     * First and last points are always preserved.
+     */
+    private void visvalingam(final int minPoints) {
+        final int nb = length / 2;
+        if (nb <= Math.max(minPoints, 2)) return;
+        final double[] b = buffer;
+        final int[] prev = new int[nb];
+        final int[] next = new int[nb];
+        final double[] area = new double[nb];
+        //queue entries are {area, index, version}
+        final PriorityQueue<double[]> queue = new PriorityQueue<>(nb, (o1, o2) -> Double.compare(o1[0], o2[0]));
+        for (int i = 0; i < nb; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+        }
+        area[0] = area[nb-1] = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < nb - 1; i++) {
+            area[i] = triangleArea(b, i-1, i, i+1);
+            queue.add(new double[]{area[i], i, 0});
+        }
+        final int[] version = new int[nb];
+        int remaining = nb;
+        double maxArea = 0;
+        while (remaining > minPoints && !queue.isEmpty()) {
+            final double[] entry = queue.poll();
+            final int i = (int) entry[1];
+            if (entry[2] != version[i]) continue; //outdated entry
+            if (area[i] >= areaTolerance) break;
+            //ensure areas are monotonic, a point can not be less significant than a removed one
+            maxArea = Math.max(maxArea, area[i]);
+            final int p = prev[i], n = next[i];
+            next[p] = n;
+            prev[n] = p;
+            remaining--;
+            if (p > 0) {
+                area[p] = Math.max(maxArea, triangleArea(b, prev[p], p, n));
+                queue.add(new double[]{area[p], p, ++version[p]});
+            }
+            if (n < nb - 1) {
+                area[n] = Math.max(maxArea, triangleArea(b, p, n, next[n]));
+                queue.add(new double[]{area[n], n, ++version[n]});
+            }
+        }
+        if (remaining == nb) return;
+        //compact the buffer
+        int k = 0;
+        for (int i = 0; i < nb; i = next[i]) {
+            b[k++] = b[i*2];
+            b[k++] = b[i*2+1];
+        }
+        length = k;
+    }
+
+    private static double triangleArea(final double[] b, final int i0, final int i1, final int i2) {
+        final double ax = b[i0*2], ay = b[i0*2+1];
+        return Math.abs((b[i1*2] - ax) * (b[i2*2+1] - ay) - (b[i2*2] - ax) * (b[i1*2+1] - ay)) / 2.0;
+    }
+
+    private Coordinate[] toCoordinates() {
+        final Coordinate[] coords = new Coordinate[length / 2];
+        for (int i = 0, k = 0; i < coords.length; i++) {
+            coords[i] = new Coordinate(buffer[k++], buffer[k++]);
+        }
+        return coords;
+    }
+
+}
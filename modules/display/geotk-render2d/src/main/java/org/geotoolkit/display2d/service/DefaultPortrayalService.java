@@ -67,6 +67,8 @@ import org.geotoolkit.coverage.processing.Operations;
 import org.geotoolkit.display.PortrayalException;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.canvas.control.CanvasMonitor;
+import org.geotoolkit.display.canvas.control.RenderingCounters;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import static org.geotoolkit.display2d.GO2Utilities.*;
@@ -859,11 +861,13 @@ public final class DefaultPortrayalService implements PortrayalService{
                 output = ImageIO.createImageOutputStream(output);
             }
             writer.setOutput(output);
+            final long before = System.nanoTime();
             try{
                 writer.write(null,new IIOImage(image, null, null),param);
             }catch(IIOException ex){
                 throw new IOException(ex.getLocalizedMessage()+toImageInformation(image), ex);
             }
+            RenderingCounters.getInstance().addTime(RenderingPhase.ENCODE, System.nanoTime() - before);
         }finally{
             XImageIO.dispose(writer);
         }
@@ -49,14 +49,12 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
     private CachedMark cachedMark = null;
     private CachedExternal cachedExternal = null;
 
-    //we cant use buffer for images seens they can be symbolizer UOM relative
-//    protected static final short ID_SUBBUFFER = 6;
-//    protected static final short ID_BUFFER = 7;
-
-
+    //hash code of the style element, used for the sprite cache keys
+    private final int graphicHash;
 
     protected CachedGraphic(final C graphic){
         super(graphic);
+        this.graphicHash = graphic.hashCode();
         this.cachedAnchor = CachedAnchorPoint.cache(graphic.getAnchorPoint());
         this.cachedDisplacement = CachedDisplacement.cache(graphic.getDisplacement());
     }
@@ -205,15 +203,9 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
                         return false;
                     }
 
-//                    //if size is static and external static visible, we can cache the symbol graphic
-//                    if(!Float.isNaN(cachedSize) && cachedExternal.isStatic() && cachedExternal.isStaticVisible() == VisibilityState.VISIBLE){
-//                        BufferedImage buffer = cachedExternal.getImage(cachedSize);
-//                        cachedValues.put(ID_SUBBUFFER, buffer);
-//                    }else{
-                        if(isStaticVisible != VisibilityState.UNVISIBLE) isStaticVisible = VisibilityState.DYNAMIC;
-                        isStatic = false;
-                        this.cachedExternal = candidateExternal;
-//                    }
+                    if(isStaticVisible != VisibilityState.UNVISIBLE) isStaticVisible = VisibilityState.DYNAMIC;
+                    isStatic = false;
+                    this.cachedExternal = candidateExternal;
 
                     candidateExternal.getRequieredAttributsName(requieredAttributs);
                     found = true;
@@ -229,57 +221,8 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
             cachedMark = CachedMark.cache(mark);
 
             if(isStaticVisible == VisibilityState.NOT_DEFINED) isStaticVisible = VisibilityState.VISIBLE;
-
-//            //if size is static, we can cache the symbol graphic
-//            if(!Float.isNaN(cachedSize)){
-//                BufferedImage buffer = cachedMark.getImage(null, cachedSize);
-//                cachedValues.put(ID_SUBBUFFER, buffer);
-//            }else{
-//            }
         }
 
-
-//        //if static we can cache the stroke directly
-//        if(isStatic){
-//
-//            //no operation to append to image, erase all cache and cache the subbuffer as the main buffer
-//            if(cachedRotation ==0 && cachedOpacity==1){
-//                BufferedImage buffer = (BufferedImage) cachedValues.get(ID_SUBBUFFER);
-//                cachedValues.clear();
-//                cachedValues.put(ID_BUFFER, buffer);
-//            }
-//            //or we have to apply a new opacity and rotation to the subbuffer
-//            else{
-//                final BufferedImage buffer = (BufferedImage) cachedValues.get(ID_SUBBUFFER);
-//                final Float j2dRotation = new Float(Math.toRadians(cachedRotation));
-//                final Composite j2dComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, cachedOpacity);
-//                final int maxSizeX;
-//                final int maxSizeY;
-//                if(j2dRotation == 0){
-//                    maxSizeX = buffer.getWidth();
-//                    maxSizeY = buffer.getHeight();
-//                }else{
-//                    Rectangle rect = new Rectangle(buffer.getWidth(), buffer.getHeight());
-//                    TransformedShape trs = new TransformedShape();
-//                    trs.shape = rect;
-//                    trs.rotate(j2dRotation);
-//                    maxSizeX = (int) trs.getBounds2D().getWidth();
-//                    maxSizeY = (int) trs.getBounds2D().getHeight();
-//                }
-//
-//                BufferedImage img = new BufferedImage( maxSizeX , maxSizeY, BufferedImage.TYPE_INT_ARGB);
-//                Graphics2D g2 = (Graphics2D) img.getGraphics();
-//
-//                g2.setComposite(j2dComposite);
-//                g2.rotate(j2dRotation, maxSizeX/2f, maxSizeY/2f);
-//                final int translateX = (int)((maxSizeX-buffer.getWidth())/2 );
-//                final int translateY = (int)((maxSizeY-buffer.getHeight())/2 );
-//                g2.drawImage(buffer, translateX, translateY, null);
-//                g2.dispose();
-//            }
-//
-//        }
-
         return true;
     }
 
@@ -306,12 +249,6 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
     public BufferedImage getImage(final Object candidate, final Float forcedSize, final float coeff, boolean withRotation, final RenderingHints hints) {
         evaluate();
 
-
-//        //we have a cached buffer ---------------------------------------------------------------
-//        if(cachedValues.containsKey(ID_BUFFER)){
-//            return (BufferedImage) cachedValues.get(ID_BUFFER);
-//        }
-
         //-------- grab the cached parameters ----------------------------------------------------
         float candidateOpacity = cachedOpacity;
         float candidateRotation = cachedRotation;
@@ -333,14 +270,43 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
             candidateSize = GO2Utilities.evaluate(expSize, candidate, Number.class, Float.NaN).floatValue();
         }
 
+        if(!withRotation){
+            candidateRotation = 0f;
+        }
+
+        //use a pre-rasterized sprite when the symbol itself does not depend on the feature,
+        //size, rotation and opacity are quantized to keep a bounded number of sprites
+        if(!candidateSize.isNaN() && isSpriteCacheable()){
+            final SpriteCache.Key key = new SpriteCache.Key(styleElement, graphicHash,
+                    candidateSize, coeff, candidateRotation, candidateOpacity, hints);
+            if(key.isCacheable()){
+                return SpriteCache.INSTANCE.getSprite(key, () -> createImage(candidate,
+                        key.getSize(), coeff, key.getRotation(), key.getOpacity(), hints));
+            }
+        }
+
+        return createImage(candidate, candidateSize, coeff, candidateRotation, candidateOpacity, hints);
+    }
+
+    /**
+     * @return true if the symbol image only depends on size, rotation and opacity,
+     *         in which case images can be shared between features.
+     */
+    private boolean isSpriteCacheable(){
+        return (cachedMark != null && cachedMark.isStatic()) || cachedExternal != null;
+    }
+
+    /**
+     * Rasterize the graphic symbol with the given parameters.
+     *
+     * @return BufferedImage, may be null if the image is too small
+     */
+    private BufferedImage createImage(final Object candidate, final Float candidateSize, final float coeff,
+            final float candidateRotation, final float candidateOpacity, final RenderingHints hints){
+
         //the subbuffer image
         BufferedImage subBuffer = null;
 
-//        //we have a cached subbuffer ------------------------------------------------------------
-//        if(cachedValues.containsKey(ID_SUBBUFFER)){
-//            subBuffer = (BufferedImage) cachedValues.get(ID_SUBBUFFER);
-//        }
-
         //we have a cached mark ------------------------------------------------------------------
         if(cachedMark != null){
             if(candidateSize.isNaN()){
@@ -350,7 +316,6 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
             }
         }
 
-
         //we have a cached external --------------------------------------------------------------
         if(cachedExternal != null){
             subBuffer = cachedExternal.getImage(candidateSize,coeff,hints);
@@ -362,13 +327,13 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
         }
 
         //no operation to append to image, return the buffer directly ----------------------------
-        if( (candidateRotation == 0 || !withRotation) && candidateOpacity == 1 ) return subBuffer;
+        if(candidateRotation == 0 && candidateOpacity == 1) return subBuffer;
 
 
         // we must change opacity or rotation ----------------------------------------------------
         final int maxSizeX;
         final int maxSizeY;
-        if(candidateRotation == 0 && withRotation){
+        if(candidateRotation == 0){
             maxSizeX = subBuffer.getWidth();
             maxSizeY = subBuffer.getHeight();
         }else{
@@ -435,12 +400,6 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
 
         final boolean noFeature = (candidate == null);
 
-//        //we have a cachedImage, we return it's bigest attribut
-//        BufferedImage img = (BufferedImage)cachedValues.get(ID_BUFFER);
-//        if(img != null){
-//            return (img.getHeight()*coeff > img.getWidth()*coeff) ? img.getHeight()*coeff : img.getWidth()*coeff;
-//        }
-
         //get the displacement margin
         final float maxDisplacement = cachedDisplacement.getMargin(candidate,coeff);
         if(Float.isNaN(maxDisplacement)) return Float.NaN;
@@ -486,11 +445,6 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
         //the subbuffer image
         BufferedImage subBuffer = null;
 
-//        //we have a cached subbuffer ------------------------------------------------------------
-//        if(cachedValues.containsKey(ID_SUBBUFFER)){
-//            subBuffer = (BufferedImage) cachedValues.get(ID_SUBBUFFER);
-//        }
-
         //we have a cached mark ------------------------------------------------------------------
         if(cachedMark != null){
             if(noFeature){
@@ -554,12 +508,6 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
         }else{
             //dynamic visibility
 
-//            if(cachedValues.get(ID_BUFFER) != null){
-//                //should normaly not happen, if we have a buffer
-//                // Visibility should always be VISIBLE
-//                return true;
-//            }
-
             //test dynamic opacity
             if(Float.isNaN(cachedOpacity)){
                 final Expression expopacity = styleElement.getOpacity();
@@ -574,21 +522,16 @@ public class CachedGraphic<C extends Graphic> extends Cache<C>{
                 if(j2dSize <= 0) return false;
             }
 
-//            if(cachedValues.get(ID_SUBBUFFER) == null){
-            if(true){
-
-
-                //test dynamic mark
-                if(cachedMark != null){
-                    boolean visible = cachedMark.isVisible(candidate);
-                    if(!visible) return false;
-                }
+            //test dynamic mark
+            if(cachedMark != null){
+                boolean visible = cachedMark.isVisible(candidate);
+                if(!visible) return false;
+            }
 
-                //test dynamic external
-                if(cachedExternal != null){
-                    boolean visible = cachedExternal.isVisible(candidate);
-                    if(!visible) return false;
-                }
+            //test dynamic external
+            if(cachedExternal != null){
+                boolean visible = cachedExternal.isVisible(candidate);
+                if(!visible) return false;
             }
 
             return true;
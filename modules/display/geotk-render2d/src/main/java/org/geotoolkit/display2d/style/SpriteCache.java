@@ -0,0 +1,205 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.apache.sis.util.collection.Cache;
+import org.opengis.style.Graphic;
+
+/**
+ * Cache of pre-rasterized graphic images, shared by all point symbolizers.
+ * Sprites are keyed by graphic style, size, rotation, opacity and unit coefficient
+ * (which includes the DPI). Rotation, size and opacity are quantized so that
+ * data-driven values produce a bounded number of distinct sprites.
+ * <p>
+ * Sprites are stored as premultiplied ARGB images, which is the fastest format
+ * for Java2D to blit over the usual rendering targets.
+ * <p>
+ * The cache keeps strong references up to {@link #COST_LIMIT} pixels, then
+ * falls back on weak references, letting the garbage collector reclaim the
+ * least used sprites.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class SpriteCache extends Cache<SpriteCache.Key, BufferedImage> {
+
+    /**
+     * Number of pixels retained by strong references : 4 millions pixels, 16Mb.
+     */
+    private static final int COST_LIMIT = 4 * 1024 * 1024;
+
+    /**
+     * Sprites bigger than this size are not cached, they are likely rare
+     * and would consume too much of the cache.
+     */
+    static final int MAX_SPRITE_SIZE = 256;
+
+    /**
+     * Size quantum : 1/4 of pixel.
+     */
+    private static final float SIZE_STEP = 4f;
+
+    /**
+     * Rotation quantum : 1 degree.
+     */
+    private static final double ROTATION_STEP = Math.PI / 180.0;
+
+    /**
+     * Shared instance.
+     */
+    static final SpriteCache INSTANCE = new SpriteCache();
+
+    private SpriteCache() {
+        super(64, COST_LIMIT, false);
+    }
+
+    /**
+     * Cost of a sprite is its number of pixels.
+     */
+    @Override
+    protected int cost(final BufferedImage value) {
+        return value.getWidth() * value.getHeight();
+    }
+
+    /**
+     * Returns the sprite for the given key, creating it if needed.
+     * The created image is converted to premultiplied ARGB before being cached.
+     *
+     * @param key sprite key
+     * @param rasterizer creates the sprite image if not in the cache, may return null
+     * @return sprite image, may be null
+     */
+    BufferedImage getSprite(final Key key, final Supplier<BufferedImage> rasterizer) {
+        BufferedImage sprite = peek(key);
+        if (sprite == null) {
+            final Handler<BufferedImage> handler = lock(key);
+            try {
+                sprite = handler.peek();
+                if (sprite == null) {
+                    sprite = toPremultiplied(rasterizer.get());
+                }
+            } finally {
+                handler.putAndUnlock(sprite);
+            }
+        }
+        return sprite;
+    }
+
+    /**
+     * Converts the given image to a premultiplied ARGB image.
+     */
+    static BufferedImage toPremultiplied(final BufferedImage image) {
+        if (image == null || image.getType() == BufferedImage.TYPE_INT_ARGB_PRE) {
+            return image;
+        }
+        final BufferedImage sprite = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+        final Graphics2D g = sprite.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return sprite;
+    }
+
+    /**
+     * Sprite key. Values are stored in their quantized form.
+     */
+    static final class Key {
+
+        private final Graphic graphic;
+        private final int graphicHash;
+        private final int size;
+        private final int rotation;
+        private final int opacity;
+        private final float coeff;
+        private final RenderingHints hints;
+
+        /**
+         * @param graphic the graphic style
+         * @param graphicHash precomputed hash code of the graphic style
+         * @param size graphic size, before applying the unit coefficient
+         * @param coeff unit coefficient
+         * @param rotation rotation in radians
+         * @param opacity opacity between 0 and 1
+         * @param hints rendering hints, may be null
+         */
+        Key(final Graphic graphic, final int graphicHash, final float size, final float coeff,
+                final float rotation, final float opacity, final RenderingHints hints) {
+            this.graphic = graphic;
+            this.graphicHash = graphicHash;
+            this.size = Math.round(size * SIZE_STEP);
+            this.coeff = coeff;
+            int rot = (int) Math.round(rotation / ROTATION_STEP) % 360;
+            if (rot < 0) rot += 360;
+            this.rotation = rot;
+            this.opacity = Math.round(opacity * 255f);
+            this.hints = hints;
+        }
+
+        /**
+         * @return true if this sprite is small enough to be cached.
+         */
+        boolean isCacheable() {
+            final float displaySize = getSize() * coeff;
+            return displaySize > 0 && displaySize <= MAX_SPRITE_SIZE;
+        }
+
+        /**
+         * @return quantized size
+         */
+        float getSize() {
+            return size / SIZE_STEP;
+        }
+
+        /**
+         * @return quantized rotation in radians
+         */
+        float getRotation() {
+            return (float) (rotation * ROTATION_STEP);
+        }
+
+        /**
+         * @return quantized opacity
+         */
+        float getOpacity() {
+            return opacity / 255f;
+        }
+
+        @Override
+        public int hashCode() {
+            return graphicHash + 31 * (size + 31 * (rotation + 31 * (opacity + 31 * Float.floatToIntBits(coeff))));
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) return true;
+            if (!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return size == other.size
+                && rotation == other.rotation
+                && opacity == other.opacity
+                && Float.floatToIntBits(coeff) == Float.floatToIntBits(other.coeff)
+                && graphicHash == other.graphicHash
+                && (graphic == other.graphic || graphic.equals(other.graphic))
+                && Objects.equals(hints, other.hints);
+        }
+    }
+
+}
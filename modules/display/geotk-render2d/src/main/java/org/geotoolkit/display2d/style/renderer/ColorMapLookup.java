@@ -0,0 +1,305 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style.renderer;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.util.Arrays;
+import java.util.Map;
+import org.apache.sis.util.collection.Cache;
+import org.geotoolkit.image.RecolorRenderedImage;
+import org.geotoolkit.image.color.ColorUtilities;
+import org.geotoolkit.style.function.Categorize;
+import org.geotoolkit.style.function.Interpolate;
+import org.geotoolkit.style.function.InterpolationPoint;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Function;
+
+import static org.geotoolkit.style.StyleConstants.CATEGORIZE_LESS_INFINITY;
+
+/**
+ * Sample to ARGB lookup table of a color map function.
+ * <p>
+ * Evaluating an {@link Interpolate} or {@link Categorize} function for each pixel is slow.
+ * This class evaluates the function once for each possible sample value of byte and short
+ * images, or for a fixed number of values between the function thresholds for int, float
+ * and double images. For float images the lookup is quantized, the resolution is the
+ * number of table entries between the lowest and highest thresholds. No-data values are
+ * matched exactly.
+ * <p>
+ * Byte and unsigned short images are recolored by swapping the color model, other images
+ * are converted to an ARGB image in a single pass.
+ * <p>
+ * Lookup tables are cached by function, data type, no-data values and resolution.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class ColorMapLookup {
+
+    /**
+     * Default number of entries of quantized lookup tables.
+     */
+    static final int DEFAULT_RESOLUTION = 4096;
+
+    private static final Cache<Key,ColorMapLookup> CACHE = new Cache<>(12, 50, true);
+
+    /**
+     * Color of samples for which the function returns no color.
+     */
+    private static final int TRANSLUCENT = new Color(255, 255, 255, 0).getRGB();
+
+    /**
+     * Sample value to ARGB table.
+     */
+    private final int[] lut;
+
+    /**
+     * True if the table contains one entry for each integer sample value.
+     */
+    private final boolean exact;
+
+    /**
+     * Sample value of the first table entry.
+     */
+    private final double min;
+
+    /**
+     * Sample value of the last table entry.
+     */
+    private final double max;
+
+    /**
+     * Number of table entries by sample unit.
+     */
+    private final double scale;
+
+    /**
+     * Colors of values under and above the table range, and of NaN.
+     */
+    private final int below, above, nan;
+
+    /**
+     * No-data values and their colors, used by quantized tables only.
+     */
+    private final double[] noData;
+    private final int[] noDataColors;
+
+    private ColorMapLookup(final Function function, final int dataType, final double[] noData, final int resolution) {
+        final double[] range;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE   : range = new double[]{0, 255}; exact = true; break;
+            case DataBuffer.TYPE_USHORT : range = new double[]{0, 65535}; exact = true; break;
+            case DataBuffer.TYPE_SHORT  : range = new double[]{Short.MIN_VALUE, Short.MAX_VALUE}; exact = true; break;
+            default : range = getRange(function); exact = false; break;
+        }
+        min = range[0];
+        max = range[1];
+        final int size = exact ? (int) (max - min) + 1 : (max > min ? resolution : 1);
+        scale = (size > 1) ? (size - 1) / (max - min) : 0.0;
+        lut = new int[size];
+        for (int i = 0; i < size; i++) {
+            lut[i] = evaluate(function, exact ? min + i : (i == size - 1 ? max : min + i / scale));
+        }
+        below = evaluate(function, Math.nextDown(min));
+        above = evaluate(function, Math.nextUp(max));
+        nan   = evaluate(function, Double.NaN);
+        if (exact || noData == null) {
+            this.noData = new double[0];
+        } else {
+            this.noData = noData.clone();
+        }
+        noDataColors = new int[this.noData.length];
+        for (int i = 0; i < noDataColors.length; i++) {
+            noDataColors[i] = evaluate(function, this.noData[i]);
+        }
+    }
+
+    /**
+     * Returns the lookup table for the given function.
+     *
+     * @param function color map function
+     * @param dataType image data type, one of {@link DataBuffer} constants
+     * @param noData no-data values, may be null
+     * @param resolution number of entries of quantized tables
+     * @return lookup table, or null if the function or data type is not supported.
+     */
+    static ColorMapLookup get(final Function function, final int dataType, final double[] noData, final int resolution) {
+        if (!(function instanceof Interpolate || function instanceof Categorize)) {
+            return null;
+        }
+        if (dataType != DataBuffer.TYPE_BYTE && dataType != DataBuffer.TYPE_USHORT
+                && dataType != DataBuffer.TYPE_SHORT && getRange(function) == null) {
+            return null;
+        }
+        final Key key = new Key(function, dataType, noData, resolution);
+        ColorMapLookup lookup = CACHE.peek(key);
+        if (lookup == null) {
+            final Cache.Handler<ColorMapLookup> handler = CACHE.lock(key);
+            try {
+                lookup = handler.peek();
+                if (lookup == null) {
+                    lookup = new ColorMapLookup(function, dataType, noData, resolution);
+                }
+            } finally {
+                handler.putAndUnlock(lookup);
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * Recolor the given band of an image.
+     *
+     * @param image image to recolor, sample type must match the one given at creation
+     * @param band band to recolor
+     * @return recolored image, or null if the image layout is not supported.
+     */
+    RenderedImage apply(final RenderedImage image, final int band) {
+        final SampleModel sm = image.getSampleModel();
+        final int dataType = sm.getDataType();
+        if (exact && (dataType == DataBuffer.TYPE_BYTE || dataType == DataBuffer.TYPE_USHORT)
+                && sm instanceof ComponentSampleModel) {
+            //no pixel copy, java2d uses the table directly
+            return new RecolorRenderedImage(image, ColorUtilities.getIndexColorModel(lut, sm.getNumBands(), band, -1));
+        }
+        if (image.getMinX() != 0 || image.getMinY() != 0) {
+            return null;
+        }
+        final int width = image.getWidth();
+        final BufferedImage result = new BufferedImage(width, image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        final int[] target = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        final Rectangle bounds = new Rectangle(0, 0, width, image.getHeight());
+        final int offset = (int) min;
+        int[] isamples = null;
+        double[] dsamples = null;
+
+        for (int ty = image.getMinTileY(), nty = ty + image.getNumYTiles(); ty < nty; ty++) {
+            for (int tx = image.getMinTileX(), ntx = tx + image.getNumXTiles(); tx < ntx; tx++) {
+                final Raster tile = image.getTile(tx, ty);
+                final Rectangle area = bounds.intersection(tile.getBounds());
+                if (area.isEmpty()) continue;
+                for (int y = area.y, maxy = area.y + area.height; y < maxy; y++) {
+                    int idx = y * width + area.x;
+                    if (exact) {
+                        isamples = tile.getSamples(area.x, y, area.width, 1, band, isamples);
+                        for (int i = 0; i < area.width; i++) {
+                            target[idx++] = lut[isamples[i] - offset];
+                        }
+                    } else {
+                        dsamples = tile.getSamples(area.x, y, area.width, 1, band, dsamples);
+                        for (int i = 0; i < area.width; i++) {
+                            target[idx++] = lookup(dsamples[i]);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the color of a sample, for quantized tables.
+     */
+    private int lookup(final double value) {
+        for (int i = 0; i < noData.length; i++) {
+            if (value == noData[i]) return noDataColors[i];
+        }
+        if (value >= min) {
+            if (value <= max) {
+                return lut[(int) ((value - min) * scale + 0.5)];
+            }
+            return above;
+        } else if (value < min) {
+            return below;
+        }
+        return nan;
+    }
+
+    /**
+     * Returns the lowest and highest finite thresholds of the function, or null if none.
+     */
+    private static double[] getRange(final Function function) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        if (function instanceof Interpolate) {
+            for (InterpolationPoint point : ((Interpolate) function).getInterpolationPoints()) {
+                final double v = point.getData().doubleValue();
+                if (Double.isFinite(v)) {
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+        } else if (function instanceof Categorize) {
+            for (Map.Entry<Expression,Expression> entry : ((Categorize) function).getThresholds().entrySet()) {
+                if (entry.getKey() == CATEGORIZE_LESS_INFINITY) continue;
+                final Double v = entry.getKey().evaluate(null, Double.class);
+                if (v != null && Double.isFinite(v)) {
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+        }
+        return (min <= max) ? new double[]{min, max} : null;
+    }
+
+    private static int evaluate(final Function function, final double value) {
+        final Color color = function.evaluate(value, Color.class);
+        return (color == null) ? TRANSLUCENT : color.getRGB();
+    }
+
+    /**
+     * Cache key, functions are compared by identity.
+     */
+    private static final class Key {
+
+        private final Function function;
+        private final int dataType;
+        private final double[] noData;
+        private final int resolution;
+
+        Key(final Function function, final int dataType, final double[] noData, final int resolution) {
+            this.function = function;
+            this.dataType = dataType;
+            this.noData = (noData != null) ? noData.clone() : null;
+            this.resolution = resolution;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(function) + 31 * (dataType + 31 * (Arrays.hashCode(noData) + 31 * resolution));
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return function == other.function
+                && dataType == other.dataType
+                && resolution == other.resolution
+                && Arrays.equals(noData, other.noData);
+        }
+    }
+
+}
@@ -238,7 +238,6 @@ public class DefaultPointSymbolizerRenderer extends AbstractSymbolizerRenderer<C
         Object candidate;
         final float[] disps = new float[2];
         final float[] anchor = new float[2];
-        final AffineTransform imgTrs = new AffineTransform();
 
         final double rot = AffineTransforms2D.getRotation(renderingContext.getObjectiveToDisplay());
         final AffineTransform mapRotationTrs = new AffineTransform();
@@ -285,10 +284,12 @@ public class DefaultPointSymbolizerRenderer extends AbstractSymbolizerRenderer<C
                     for(int i=0, n = coords.length; i<n ; i++){
                         final Coordinate coord = coords[i];
                         if(rot==0){
-                            imgTrs.setToTranslation(
-                                    -img.getWidth()*anchor[0] + coord.x + disps[0],
-                                    -img.getHeight()*anchor[1] + coord.y - disps[1]);
-                            g2d.drawRenderedImage(img, imgTrs);
+                            //integer blit of the sprite, faster than a transformed draw.
+                            //we use Math.floor and not a cast, for negative values this ensure
+                            //a regular displacement and avoid tile border artifacts
+                            g2d.drawImage(img,
+                                    (int)Math.floor(-img.getWidth()*anchor[0] + coord.x + disps[0]),
+                                    (int)Math.floor(-img.getHeight()*anchor[1] + coord.y - disps[1]), null);
                         }else{
                             final int postx = (int) (-img.getWidth()*anchor[0] + disps[0]);
                             final int posty = (int) (-img.getHeight()*anchor[1] - disps[1]);
@@ -312,10 +313,9 @@ public class DefaultPointSymbolizerRenderer extends AbstractSymbolizerRenderer<C
                         pcoord = geom.getCoordinate();
                     }
                     if(rot==0){
-                        imgTrs.setToTranslation(
-                                    -img.getWidth()*anchor[0] + pcoord.x + disps[0],
-                                    -img.getHeight()*anchor[1] + pcoord.y - disps[1]);
-                        g2d.drawRenderedImage(img, imgTrs);
+                        g2d.drawImage(img,
+                                (int)Math.floor(-img.getWidth()*anchor[0] + pcoord.x + disps[0]),
+                                (int)Math.floor(-img.getHeight()*anchor[1] + pcoord.y - disps[1]), null);
                     }else{
                         final int postx = (int) (-img.getWidth()*anchor[0] + disps[0]);
                         final int posty = (int) (-img.getHeight()*anchor[1] - disps[1]);
@@ -19,6 +19,7 @@ package org.geotoolkit.display2d.style.renderer;
 import com.vividsolutions.jts.geom.Geometry;
 import java.awt.Color;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.*;
 import java.awt.image.renderable.ParameterBlock;
@@ -49,6 +50,7 @@ import org.geotoolkit.coverage.io.GridCoverageReadParam;
 import org.geotoolkit.coverage.io.GridCoverageReader;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.display.PortrayalException;
+import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.display2d.GO2Utilities;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
 import org.geotoolkit.display2d.primitive.ProjectedCoverage;
@@ -64,6 +66,7 @@ import org.geotoolkit.image.interpolation.Resample;
 import org.geotoolkit.image.interpolation.Rescaler;
 import org.geotoolkit.image.iterator.PixelIterator;
 import org.geotoolkit.image.iterator.PixelIteratorFactory;
+import org.geotoolkit.internal.coverage.CoverageUtilities;
 import org.geotoolkit.internal.referencing.CRSUtilities;
 import org.geotoolkit.map.CoverageMapLayer;
 import org.geotoolkit.map.DefaultCoverageMapLayer;
@@ -218,7 +221,7 @@ public class DefaultRasterSymbolizerRenderer extends AbstractCoverageSymbolizerR
             ////////////////////////////////////////////////////////////////////
 
 //            RenderedImage dataImage = dataCoverage.getRenderedImage();
-            RenderedImage dataImage = applyStyle(ref, dataCoverage, elevationCoverage, sourceSymbol);
+            RenderedImage dataImage = applyStyle(ref, dataCoverage, elevationCoverage, sourceSymbol, renderingContext.getRenderingHints());
             final MathTransform2D trs2D = dataCoverage.getGridGeometry().getGridToCRS2D(PixelOrientation.UPPER_LEFT);
 
             ////////////////////////////////////////////////////////////////////
@@ -331,8 +334,31 @@ public class DefaultRasterSymbolizerRenderer extends AbstractCoverageSymbolizerR
             final RasterSymbolizer styleElement)
             throws ProcessException, FactoryException, TransformException, PortrayalException, IOException
              {
+        return applyStyle(ref, coverage, elevationCoverage, styleElement, null);
+    }
 
-        RenderedImage image = applyColorMapStyle(ref, coverage, styleElement);
+    /**
+     * Apply style on current coverage.
+     *
+     * @param ref needed to compute statistics from internal metadata in case where missing informations.
+     * @param coverage current styled coverage.
+     * @param elevationCoverage needed object to generate shaded relief, {@code null} if none.
+     * @param styleElement the {@link RasterSymbolizer} which contain styles properties.
+     * @param hints rendering hints, used for {@link GO2Hints#KEY_COLOR_MAP_RESOLUTION}, may be {@code null}.
+     * @return styled coverage representation.
+     * @throws ProcessException if problem during apply Color map or shaded relief styles.
+     * @throws FactoryException if problem during apply shaded relief style.
+     * @throws TransformException if problem during apply shaded relief style.
+     * @throws PortrayalException if problem during apply contrast enhancement style.
+     * @throws java.io.IOException if problem during style application
+     * @see #applyStyle(CoverageResource, GridCoverage2D, GridCoverage2D, RasterSymbolizer)
+     */
+    public static RenderedImage applyStyle(CoverageResource ref, GridCoverage2D coverage,
+            GridCoverage2D elevationCoverage, final RasterSymbolizer styleElement, final RenderingHints hints)
+            throws ProcessException, FactoryException, TransformException, PortrayalException, IOException
+             {
+
+        RenderedImage image = applyColorMapStyle(ref, coverage, styleElement, hints);
         image = applyShadedRelief(image, coverage, elevationCoverage, styleElement);
         image = applyContrastEnhancement(image, styleElement);
         return image;
@@ -447,11 +473,13 @@ public class DefaultRasterSymbolizerRenderer extends AbstractCoverageSymbolizerR
      * @param ref needed to compute statistics from internal metadata in case where missing informations.
      * @param coverage color map style apply on this object.
      * @param styleElement the {@link RasterSymbolizer} which contain color map properties.
+     * @param hints rendering hints, may be {@code null}.
      * @return image which is the coverage exprimate into {@link ViewType#PHOTOGRAPHIC}.
      * @throws ProcessException if problem during statistic problem.
      */
     private static RenderedImage applyColorMapStyle(final CoverageResource ref,
-            GridCoverage2D coverage,final RasterSymbolizer styleElement) throws ProcessException, IOException {
+            GridCoverage2D coverage,final RasterSymbolizer styleElement, final RenderingHints hints)
+            throws ProcessException, IOException {
         ArgumentChecks.ensureNonNull("CoverageReference", ref);
         ArgumentChecks.ensureNonNull("coverage", coverage);
         ArgumentChecks.ensureNonNull("styleElement", styleElement);
@@ -602,7 +630,11 @@ public class DefaultRasterSymbolizerRenderer extends AbstractCoverageSymbolizerR
             //color map is applied on geophysics view
             //if there is no geophysic, the same coverage is returned
             coverage = hasQuantitativeCategory(coverage) ? coverage.view(ViewType.GEOPHYSICS) : coverage;
-            resultImage        = recolor.getFunction().evaluate(coverage.getRenderedImage(), RenderedImage.class);
+            final RenderedImage source = coverage.getRenderedImage();
+            resultImage = applyColorMapLookup(source, coverage, recolor.getFunction(), hints);
+            if (resultImage == null) {
+                resultImage = recolor.getFunction().evaluate(source, RenderedImage.class);
+            }
         } else {
             //no color map, used the default image rendered view
             // coverage = coverage.view(ViewType.RENDERED);
@@ -624,6 +656,37 @@ public class DefaultRasterSymbolizerRenderer extends AbstractCoverageSymbolizerR
         return resultImage;
     }
 
+    /**
+     * Recolor image using a precomputed lookup table of the color map function.
+     *
+     * @param image image to recolor.
+     * @param coverage coverage of the image, used to find no-data values.
+     * @param function color map function.
+     * @param hints rendering hints, may be {@code null}.
+     * @return recolored image, or {@code null} if the lookup table can not be used.
+     * @see ColorMapLookup
+     */
+    private static RenderedImage applyColorMapLookup(final RenderedImage image, final GridCoverage2D coverage,
+            final Function function, final RenderingHints hints) {
+        final int band = CoverageUtilities.getVisibleBand(image);
+        final Object value = (hints == null) ? null : hints.get(GO2Hints.KEY_COLOR_MAP_RESOLUTION);
+        final int resolution = (value instanceof Number) ?
+                Math.max(2, ((Number) value).intValue()) : ColorMapLookup.DEFAULT_RESOLUTION;
+
+        double[] noData = null;
+        if (band < coverage.getNumSampleDimensions()) {
+            try {
+                noData = coverage.getSampleDimension(band).getNoDataValues();
+            } catch (IllegalStateException ex) {
+                //no-data categories with non integer ranges, can not be matched exactly
+                return null;
+            }
+        }
+
+        final ColorMapLookup lookup = ColorMapLookup.get(function, image.getSampleModel().getDataType(), noData, resolution);
+        return (lookup == null) ? null : lookup.apply(image, band);
+    }
+
     /**
      * Returns {@code true} if the given {@link GridCoverage2D} contain an interpretable geophysic {@link Category},
      * else {@code false}.
@@ -0,0 +1,128 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.canvas;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.sis.feature.builder.AttributeRole;
+import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.display.canvas.control.LayerMetrics;
+import org.geotoolkit.display.canvas.control.RenderingCounters;
+import org.geotoolkit.display.canvas.control.RenderingMetrics;
+import org.geotoolkit.display.canvas.control.RenderingMetricsListener;
+import org.geotoolkit.display.canvas.control.RenderingPhase;
+import org.geotoolkit.display2d.container.ContextContainer2D;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.map.MapBuilder;
+import org.geotoolkit.map.MapContext;
+import org.geotoolkit.map.MapLayer;
+import org.geotoolkit.style.DefaultStyleFactory;
+import org.geotoolkit.style.MutableStyleFactory;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test rendering metrics are collected for each layer.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class RenderingMetricsTest extends org.geotoolkit.test.TestBase {
+
+    private static final GeometryFactory GF = new GeometryFactory();
+    private static final MutableStyleFactory SF = new DefaultStyleFactory();
+
+    @Test
+    public void testLayerMetrics() throws Exception {
+        final CoordinateReferenceSystem crs = CommonCRS.WGS84.normalizedGeographic();
+
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("lines");
+        ftb.addAttribute(LineString.class).setName("geom").setCRS(crs).addRole(AttributeRole.DEFAULT_GEOMETRY);
+        final FeatureType ft = ftb.build();
+
+        final FeatureCollection col = FeatureStoreUtilities.collection("id", ft);
+        final List<Feature> features = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final LineString line = GF.createLineString(new Coordinate[]{
+                new Coordinate(-170, -80 + i * 10),
+                new Coordinate(   0, -75 + i * 10),
+                new Coordinate( 170, -80 + i * 10)
+            });
+            JTS.setCRS(line, crs);
+            final Feature feature = ft.newInstance();
+            feature.setPropertyValue("geom", line);
+            features.add(feature);
+        }
+        col.addAll(features);
+
+        final MapLayer layer = MapBuilder.createFeatureLayer(col, SF.style(SF.lineSymbolizer()));
+        layer.setName("lines");
+        final MapContext context = MapBuilder.createContext(crs);
+        context.layers().add(layer);
+
+        final J2DCanvasBuffered canvas = new J2DCanvasBuffered(crs, new Dimension(360, 180));
+        final ContextContainer2D container = new ContextContainer2D(canvas, false);
+        canvas.setContainer(container);
+        container.setContext(context);
+        final GeneralEnvelope env = new GeneralEnvelope(crs);
+        env.setRange(0, -180, 180);
+        env.setRange(1, -90, 90);
+        canvas.setVisibleArea(env);
+
+        final List<LayerMetrics> layers = new ArrayList<>();
+        final List<RenderingMetrics> renderings = new ArrayList<>();
+        canvas.getRenderingMetrics().addListener(new RenderingMetricsListener() {
+            @Override
+            public void layerRendered(LayerMetrics metrics) {
+                layers.add(metrics);
+            }
+            @Override
+            public void renderingFinished(RenderingMetrics metrics) {
+                renderings.add(metrics);
+            }
+        });
+
+        final long before = RenderingCounters.getInstance().getFeatureCount();
+        canvas.repaint();
+        canvas.dispose();
+
+        assertEquals(1, renderings.size());
+        assertEquals(1, layers.size());
+        final LayerMetrics metrics = layers.get(0);
+        assertEquals("lines", metrics.getName());
+        assertEquals(10, metrics.getFeatures());
+        assertEquals(30, metrics.getVertices());
+        assertTrue(metrics.getTotalTime() > 0);
+        assertTrue(metrics.getTime(RenderingPhase.SYMBOLIZE) <= metrics.getTotalTime());
+        assertEquals(layers, renderings.get(0).getLayers());
+        assertTrue(RenderingCounters.getInstance().getFeatureCount() >= before + 10);
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.container.stateless;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.sis.feature.builder.AttributeRole;
+import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureStoreUtilities;
+import org.geotoolkit.display2d.GO2Hints;
+import org.geotoolkit.display2d.canvas.J2DCanvasBuffered;
+import org.geotoolkit.display2d.container.ContextContainer2D;
+import org.geotoolkit.display2d.style.MokSymbolizer;
+import org.geotoolkit.display2d.style.MokSymbolizerRenderer;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.map.MapBuilder;
+import org.geotoolkit.map.MapContext;
+import org.geotoolkit.style.DefaultStyleFactory;
+import org.geotoolkit.style.MutableStyleFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test features kept between paints are painted once and only when visible.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class FeatureLayerCacheTest extends org.geotoolkit.test.TestBase {
+
+    private static final GeometryFactory GF = new GeometryFactory();
+    private static final MutableStyleFactory SF = new DefaultStyleFactory();
+    private static final CoordinateReferenceSystem CRS = CommonCRS.WGS84.normalizedGeographic();
+
+    private FeatureType type;
+    private FeatureCollection col;
+    private final List<Coordinate> points = new ArrayList<>();
+    private J2DCanvasBuffered canvas;
+
+    @Before
+    public void setUp() throws Exception {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("points");
+        ftb.addAttribute(Point.class).setName("geom").setCRS(CRS).addRole(AttributeRole.DEFAULT_GEOMETRY);
+        type = ftb.build();
+        col = FeatureStoreUtilities.collection("id", type);
+
+        //one point in the middle of each 10x10 degrees cell
+        final List<Feature> features = new ArrayList<>();
+        for (int x = -175; x < 180; x += 10) {
+            for (int y = -85; y < 90; y += 10) {
+                features.add(createFeature(x, y));
+            }
+        }
+        col.addAll(features);
+
+        final MapContext context = MapBuilder.createContext(CRS);
+        context.layers().add(MapBuilder.createFeatureLayer(col, SF.style(new MokSymbolizer())));
+
+        canvas = new J2DCanvasBuffered(CRS, new Dimension(100, 100));
+        canvas.setRenderingHint(GO2Hints.KEY_MULTI_THREAD, GO2Hints.MULTI_THREAD_OFF);
+        canvas.setRenderingHint(GO2Hints.KEY_FEATURE_CACHE, 10);
+        final ContextContainer2D container = new ContextContainer2D(canvas, false);
+        canvas.setContainer(container);
+        container.setContext(context);
+    }
+
+    @After
+    public void tearDown() {
+        canvas.dispose();
+    }
+
+    private Feature createFeature(final double x, final double y) {
+        final Point point = GF.createPoint(new Coordinate(x, y));
+        JTS.setCRS(point, CRS);
+        final Feature feature = type.newInstance();
+        feature.setPropertyValue("geom", point);
+        points.add(point.getCoordinate());
+        return feature;
+    }
+
+    /**
+     * Pan inside the cached area, then outside of it, each visible feature
+     * must be painted exactly once.
+     */
+    @Test
+    public void testPan() throws Exception {
+        assertPainted(0, 0);
+        //inside the expanded area, no query
+        assertPainted(10, 10);
+        assertPainted(-15, 15);
+        //partly outside, only the new area is queried
+        assertPainted(40, 0);
+        assertPainted(65, -30);
+        //far away, cache is reset
+        assertPainted(-170, -80);
+        assertPainted(-150, -60);
+    }
+
+    /**
+     * Features added to the store must be painted on the next paint.
+     */
+    @Test
+    public void testContentEvent() throws Exception {
+        assertPainted(0, 0);
+        col.add(createFeature(22, 22));
+        assertPainted(0, 0);
+        assertPainted(10, 10);
+    }
+
+    /**
+     * Paint a 40x40 degrees area and check painted features are those inside it.
+     */
+    private void assertPainted(final double minX, final double minY) throws Exception {
+        final GeneralEnvelope env = new GeneralEnvelope(CRS);
+        env.setRange(0, minX, minX + 40);
+        env.setRange(1, minY, minY + 40);
+        canvas.setVisibleArea(env);
+
+        MokSymbolizerRenderer.painted.clear();
+        canvas.repaint();
+
+        final List<Coordinate> expected = new ArrayList<>();
+        for (Coordinate c : points) {
+            if (c.x > minX && c.x < minX + 40 && c.y > minY && c.y < minY + 40) expected.add(c);
+        }
+        final List<Coordinate> painted = new ArrayList<>();
+        synchronized (MokSymbolizerRenderer.painted) {
+            for (Object candidate : MokSymbolizerRenderer.painted) {
+                painted.add(((Point) ((Feature) candidate).getPropertyValue("geom")).getCoordinate());
+            }
+        }
+        final Comparator<Coordinate> order = Comparator.comparingDouble((Coordinate c) -> c.x).thenComparingDouble(c -> c.y);
+        Collections.sort(expected, order);
+        Collections.sort(painted, order);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, painted);
+    }
+
+}
@@ -29,6 +29,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
 import static java.awt.geom.PathIterator.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
@@ -181,6 +182,69 @@ public class ProjectedGeometryTest extends org.geotoolkit.test.TestBase {
     }
 
 
+    /**
+     * Test collinear points are removed from the display shape only.
+     */
+    @Test
+    public void testDisplaySimplification() throws Exception {
+
+        final Polygon poly = GF.createPolygon(new Coordinate[]{
+            new Coordinate( 0,  0),
+            new Coordinate( 0,  5),
+            new Coordinate( 0, 10),
+            new Coordinate(20, 10),
+            new Coordinate(20, 10),
+            new Coordinate(20,  0),
+            new Coordinate( 0,  0)
+        });
+
+        final ProjectedGeometry pg = createProjectedGeometry(poly,
+                new Dimension(360, 180),
+                new AffineTransform(1, 0, 0, -1, +180, 90));
+
+        testArray(pg.getDisplayGeometryJTS(),
+                GF.createPolygon(new Coordinate[]{
+                    new Coordinate(180, 90),
+                    new Coordinate(180, 85),
+                    new Coordinate(180, 80),
+                    new Coordinate(200, 80),
+                    new Coordinate(200, 80),
+                    new Coordinate(200, 90),
+                    new Coordinate(180, 90)
+                }));
+        testArray(pg.getDisplayShape(),
+                createPath(new int[][]{
+                    {SEG_MOVETO, 180, 90},
+                    {SEG_LINETO, 180, 80},
+                    {SEG_LINETO, 200, 80},
+                    {SEG_LINETO, 200, 90},
+                    {SEG_CLOSE}
+                }));
+    }
+
+    /**
+     * Test polygons smaller than a pixel are replaced by the pixel they cover.
+     */
+    @Test
+    public void testSubPixel() throws Exception {
+
+        final Polygon poly = GF.createPolygon(new Coordinate[]{
+            new Coordinate(0.2, 0.2),
+            new Coordinate(0.2, 0.4),
+            new Coordinate(0.4, 0.4),
+            new Coordinate(0.4, 0.2),
+            new Coordinate(0.2, 0.2)
+        });
+
+        final ProjectedGeometry pg = createProjectedGeometry(poly,
+                new Dimension(360, 180),
+                new AffineTransform(1, 0, 0, -1, +180, 90));
+
+        final Shape[] shapes = pg.getDisplayShape();
+        assertEquals(1, shapes.length);
+        assertEquals(new Rectangle2D.Double(180, 89, 1, 1), shapes[0]);
+    }
+
 
 
     private void testArray(Geometry[] candidate, Geometry ... expected){
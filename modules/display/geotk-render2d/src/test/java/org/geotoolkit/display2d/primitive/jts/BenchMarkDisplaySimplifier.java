@@ -0,0 +1,88 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.primitive.jts;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Polygon;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Compares the painting time of a large polygon layer with and without
+ * display space simplification. Simplification time is included.
+ *
+ * Use example : java BenchMarkDisplaySimplifier 2000 5000
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkDisplaySimplifier {
+
+    public static void main(String[] args) {
+        final int nbPolygon = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        final int nbPoint = (args.length > 1) ? Integer.parseInt(args[1]) : 5000;
+
+        final Random random = new Random(42);
+        final Polygon[] polygons = new Polygon[nbPolygon];
+        for (int i = 0; i < nbPolygon; i++) {
+            //mix of large polygons and polygons smaller than a pixel
+            final double radius = (i % 4 == 0) ? 0.4 : 5 + random.nextDouble() * 100;
+            polygons[i] = DisplaySimplifierTest.createDensePolygon(random,
+                    random.nextDouble() * 1024, random.nextDouble() * 1024, radius, nbPoint);
+        }
+
+        final BufferedImage target = new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        //warm up
+        paint(polygons, target, null);
+        paint(polygons, target, new DisplaySimplifier());
+
+        long before = System.nanoTime();
+        paint(polygons, target, null);
+        final long raw = System.nanoTime() - before;
+
+        before = System.nanoTime();
+        paint(polygons, target, new DisplaySimplifier());
+        final long snapped = System.nanoTime() - before;
+
+        before = System.nanoTime();
+        paint(polygons, target, new DisplaySimplifier(0.5));
+        final long visvalingam = System.nanoTime() - before;
+
+        System.out.println("Polygons : " + nbPolygon + " of " + nbPoint + " points");
+        System.out.println("No simplification     : " + raw / 1000000 + " ms");
+        System.out.println("Snap and collinear    : " + snapped / 1000000 + " ms");
+        System.out.println("Visvalingam 0.5 pixel : " + visvalingam / 1000000 + " ms");
+    }
+
+    private static void paint(final Polygon[] polygons, final BufferedImage target, final DisplaySimplifier simplifier) {
+        final Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (Polygon poly : polygons) {
+            final Geometry geom = (simplifier == null) ? poly : simplifier.simplify(poly);
+            final JTSGeometryJ2D shape = new JTSGeometryJ2D(geom);
+            g.setColor(Color.BLUE);
+            g.fill(shape);
+            g.setColor(Color.BLACK);
+            g.draw(shape);
+        }
+        g.dispose();
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.primitive.jts;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class DisplaySimplifierTest extends org.geotoolkit.test.TestBase {
+
+    private static final GeometryFactory GF = new GeometryFactory();
+
+    /**
+     * Geometries which can not be simplified must be returned unchanged.
+     */
+    @Test
+    public void testUnchanged() {
+        final Polygon poly = GF.createPolygon(new Coordinate[]{
+            new Coordinate( 0,  0),
+            new Coordinate( 0, 10),
+            new Coordinate(20, 10),
+            new Coordinate(20,  0),
+            new Coordinate( 0,  0)
+        });
+        assertSame(poly, new DisplaySimplifier().simplify(poly));
+
+        final Geometry point = GF.createPoint(new Coordinate(0.3, 0.7));
+        assertSame(point, new DisplaySimplifier().simplify(point));
+    }
+
+    /**
+     * Test snapping, duplicated and collinear points removal.
+     */
+    @Test
+    public void testSnapAndCollinear() {
+        final LineString line = GF.createLineString(new Coordinate[]{
+            new Coordinate(0.01, 0),
+            new Coordinate(0.02, 0),
+            new Coordinate(5, 0.01),
+            new Coordinate(10, 0),
+            new Coordinate(10, 10)
+        });
+        final Geometry result = new DisplaySimplifier().simplify(line);
+        assertTrue(result.equalsExact(GF.createLineString(new Coordinate[]{
+            new Coordinate(0, 0),
+            new Coordinate(10, 0),
+            new Coordinate(10, 10)
+        })));
+
+        //backtracking points must be preserved
+        final LineString spike = GF.createLineString(new Coordinate[]{
+            new Coordinate(0, 0),
+            new Coordinate(10, 0),
+            new Coordinate(5, 0)
+        });
+        assertSame(spike, new DisplaySimplifier().simplify(spike));
+    }
+
+    /**
+     * Rings must not collapse under 4 points.
+     */
+    @Test
+    public void testCollapse() {
+        final Polygon poly = GF.createPolygon(new Coordinate[]{
+            new Coordinate(0.01, 0.01),
+            new Coordinate(0.01, 0.02),
+            new Coordinate(0.02, 0.02),
+            new Coordinate(0.02, 0.01),
+            new Coordinate(0.01, 0.01)
+        });
+        assertSame(poly, new DisplaySimplifier(1).simplify(poly));
+    }
+
+    /**
+     * Test Visvalingam removes the points under the tolerance.
+     */
+    @Test
+    public void testVisvalingam() {
+        final LineString line = GF.createLineString(new Coordinate[]{
+            new Coordinate(0, 0),
+            new Coordinate(5, 0.25),
+            new Coordinate(10, 0),
+            new Coordinate(10, 10)
+        });
+        assertEquals(4, new DisplaySimplifier().simplify(line).getNumPoints());
+        final Geometry result = new DisplaySimplifier(2).simplify(line);
+        assertTrue(result.equalsExact(GF.createLineString(new Coordinate[]{
+            new Coordinate(0, 0),
+            new Coordinate(10, 0),
+            new Coordinate(10, 10)
+        })));
+    }
+
+    /**
+     * Visual regression test, a dense polygon must be rendered almost the same
+     * with and without simplification.
+     */
+    @Test
+    public void testRendering() {
+        final Polygon poly = createDensePolygon(new Random(42), 256, 256, 120, 20000);
+
+        final BufferedImage reference = paint(poly);
+        final BufferedImage snapped = paint(new DisplaySimplifier().simplify(poly));
+        final BufferedImage visvalingam = paint(new DisplaySimplifier(0.5).simplify(poly));
+
+        assertTrue(new DisplaySimplifier(0.5).simplify(poly).getNumPoints() < poly.getNumPoints() / 2);
+        //less than 0.5% and 1% of the image
+        assertTrue(countDifferences(reference, snapped) < 512*512 / 200);
+        assertTrue(countDifferences(reference, visvalingam) < 512*512 / 100);
+    }
+
+    /**
+     * Create a star like polygon with many vertices closer than a pixel.
+     */
+    static Polygon createDensePolygon(final Random random, final double cx, final double cy,
+            final double radius, final int nbPoints) {
+        final Coordinate[] coords = new Coordinate[nbPoints + 1];
+        for (int i = 0; i < nbPoints; i++) {
+            final double angle = 2 * Math.PI * i / nbPoints;
+            final double r = radius * (0.8 + 0.2 * Math.sin(angle * 7)) + random.nextDouble() * 0.3;
+            coords[i] = new Coordinate(cx + r * Math.cos(angle), cy + r * Math.sin(angle));
+        }
+        coords[nbPoints] = coords[0];
+        return GF.createPolygon(coords);
+    }
+
+    private static BufferedImage paint(final Geometry geom) {
+        final BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        final JTSGeometryJ2D shape = new JTSGeometryJ2D(geom);
+        g.setColor(Color.BLUE);
+        g.fill(shape);
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(1));
+        g.draw(shape);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Count pixels where a color component differs by more than 32.
+     */
+    private static int countDifferences(final BufferedImage img1, final BufferedImage img2) {
+        int count = 0;
+        for (int y = 0; y < img1.getHeight(); y++) {
+            for (int x = 0; x < img1.getWidth(); x++) {
+                final int c1 = img1.getRGB(x, y);
+                final int c2 = img2.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    if (Math.abs(((c1 >>> shift) & 0xFF) - ((c2 >>> shift) & 0xFF)) > 32) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+}
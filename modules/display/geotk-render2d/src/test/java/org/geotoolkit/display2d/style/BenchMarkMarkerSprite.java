@@ -0,0 +1,110 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.style.MutableStyleFactory;
+import org.opengis.filter.FilterFactory;
+import org.opengis.style.Graphic;
+import org.opengis.style.GraphicalSymbol;
+import org.opengis.style.Mark;
+
+import static org.geotoolkit.style.StyleConstants.*;
+
+/**
+ * Compares the painting time of point markers rasterized for each point
+ * with markers blitted from the sprite cache.
+ *
+ * Use example : java BenchMarkMarkerSprite 500000
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkMarkerSprite {
+
+    private static final FilterFactory FF = FactoryFinder.getFilterFactory(null);
+    private static final MutableStyleFactory SF = (MutableStyleFactory) FactoryFinder.getStyleFactory(
+                                                   new Hints(Hints.STYLE_FACTORY, MutableStyleFactory.class));
+
+    public static void main(String[] args) {
+        final int nbPoint = (args.length > 0) ? Integer.parseInt(args[0]) : 500000;
+
+        final List<GraphicalSymbol> symbols = new ArrayList<>();
+        final Mark mark = SF.mark(MARK_CIRCLE, SF.fill(Color.RED), SF.stroke(Color.BLACK, 1));
+        symbols.add(mark);
+        final Graphic graphic = SF.graphic(symbols, LITERAL_ONE_FLOAT, FF.literal(8), LITERAL_ZERO_FLOAT, DEFAULT_ANCHOR_POINT, DEFAULT_DISPLACEMENT);
+        final CachedGraphic cachedGraphic = CachedGraphic.cache(graphic);
+        final CachedMark cachedMark = CachedMark.cache(mark);
+
+        final RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        final BufferedImage target = new BufferedImage(1024, 1024, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        //warm up
+        paintRasterized(cachedMark, target, hints, 10000);
+        paintSprites(cachedGraphic, target, hints, 10000);
+
+        long before = System.nanoTime();
+        paintRasterized(cachedMark, target, hints, nbPoint);
+        final long rasterized = System.nanoTime() - before;
+
+        before = System.nanoTime();
+        paintSprites(cachedGraphic, target, hints, nbPoint);
+        final long sprites = System.nanoTime() - before;
+
+        System.out.println("Points : " + nbPoint);
+        System.out.println("Rasterized per point : " + rasterized / 1000000 + " ms");
+        System.out.println("Sprite cache         : " + sprites / 1000000 + " ms");
+    }
+
+    /**
+     * Rasterize the mark for each point, as done before the sprite cache.
+     */
+    private static void paintRasterized(final CachedMark mark, final BufferedImage target,
+            final RenderingHints hints, final int nbPoint) {
+        final Random random = new Random(42);
+        final Graphics2D g = target.createGraphics();
+        for (int i = 0; i < nbPoint; i++) {
+            final float size = 6 + random.nextInt(8);
+            final BufferedImage img = mark.getImage(null, size, hints);
+            g.drawImage(img, random.nextInt(1024), random.nextInt(1024), null);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Use the sprite cache, sizes are data driven.
+     */
+    private static void paintSprites(final CachedGraphic graphic, final BufferedImage target,
+            final RenderingHints hints, final int nbPoint) {
+        final Random random = new Random(42);
+        final Graphics2D g = target.createGraphics();
+        for (int i = 0; i < nbPoint; i++) {
+            final float size = 6 + random.nextInt(8);
+            final BufferedImage img = graphic.getImage(null, size, 1f, hints);
+            g.drawImage(img, random.nextInt(1024), random.nextInt(1024), null);
+        }
+        g.dispose();
+    }
+
+}
@@ -106,4 +106,31 @@ public class CachedPointSymbolizerTest extends org.geotoolkit.test.TestBase {
 
     }
 
+    @Test
+    public void testSpriteCache(){
+
+        final List<GraphicalSymbol> symbols = new ArrayList<>();
+        final Stroke stroke = SF.stroke(Color.BLACK, 1);
+        final Fill fill = SF.fill(Color.RED);
+        final Mark mark = SF.mark(MARK_CIRCLE, fill, stroke);
+        symbols.add(mark);
+        final Graphic graphic = SF.graphic(symbols, LITERAL_ONE_FLOAT, FF.literal(12), LITERAL_ZERO_FLOAT, DEFAULT_ANCHOR_POINT, DEFAULT_DISPLACEMENT);
+
+        final CachedGraphic cached = CachedGraphic.cache(graphic);
+        final BufferedImage img1 = cached.getImage(null, 10.01f, 1f, null);
+        final BufferedImage img2 = cached.getImage(null, 10.02f, 1f, null);
+        assertNotNull(img1);
+        //sizes are quantized to a quarter of pixel, same sprite expected
+        assertSame(img1, img2);
+        assertEquals(BufferedImage.TYPE_INT_ARGB_PRE, img1.getType());
+
+        //different size, different sprite
+        final BufferedImage img3 = cached.getImage(null, 20f, 1f, null);
+        assertNotSame(img1, img3);
+
+        //equal style from another cache share the sprites
+        final CachedGraphic cached2 = CachedGraphic.cache(SF.graphic(symbols, LITERAL_ONE_FLOAT, FF.literal(12), LITERAL_ZERO_FLOAT, DEFAULT_ANCHOR_POINT, DEFAULT_DISPLACEMENT));
+        assertSame(img1, cached2.getImage(null, 10f, 1f, null));
+    }
+
 }
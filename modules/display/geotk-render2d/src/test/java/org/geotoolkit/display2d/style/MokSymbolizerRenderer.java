@@ -17,6 +17,9 @@
 
 package org.geotoolkit.display2d.style;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.geotoolkit.display.VisitFilter;
 import org.geotoolkit.display.PortrayalException;
 import org.geotoolkit.display2d.canvas.RenderingContext2D;
@@ -35,6 +38,7 @@ import org.geotoolkit.display2d.style.renderer.SymbolizerRendererService;
 public class MokSymbolizerRenderer extends AbstractSymbolizerRenderer<CachedMokSymbolizer>{
 
     public static volatile int called = 0;
+    public static final List<Object> painted = Collections.synchronizedList(new ArrayList<>());
 
     public MokSymbolizerRenderer(final SymbolizerRendererService service,final CachedMokSymbolizer cached, final RenderingContext2D ctx){
         super(service,cached,ctx);
@@ -43,6 +47,7 @@ public class MokSymbolizerRenderer extends AbstractSymbolizerRenderer<CachedMokS
     @Override
     public void portray(final ProjectedObject graphic) throws PortrayalException {
         called++;
+        painted.add(graphic.getCandidate());
     }
 
     @Override
@@ -0,0 +1,93 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style.renderer;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+import org.geotoolkit.image.BufferedImages;
+import org.opengis.filter.expression.Function;
+
+/**
+ * Compares the painting time of a coverage styled with a color map function
+ * evaluated for each pixel and with the precomputed lookup table.
+ * Tested on a short DEM like image and a float SST like image.
+ *
+ * Use example : java BenchMarkColorMapLookup 2048
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkColorMapLookup {
+
+    public static void main(String[] args) {
+        final int size = (args.length > 0) ? Integer.parseInt(args[0]) : 2048;
+        final Function function = ColorMapLookupTest.createFunction();
+        final Random random = new Random(42);
+
+        final BufferedImage dem = BufferedImages.createImage(size, size, 1, DataBuffer.TYPE_SHORT);
+        final BufferedImage sst = BufferedImages.createImage(size, size, 1, DataBuffer.TYPE_FLOAT);
+        final WritableRaster demRaster = dem.getRaster();
+        final WritableRaster sstRaster = sst.getRaster();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                demRaster.setSample(x, y, 0, random.nextInt(1100) - 100);
+                sstRaster.setSample(x, y, 0, random.nextFloat() * 1100 - 100);
+            }
+        }
+
+        final BufferedImage target = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+
+        //warm up
+        paintFunction(function, dem, target);
+        paintLookup(function, dem, target);
+
+        for (BufferedImage image : new BufferedImage[]{dem, sst}) {
+            long before = System.nanoTime();
+            paintFunction(function, image, target);
+            final long fct = System.nanoTime() - before;
+
+            before = System.nanoTime();
+            paintLookup(function, image, target);
+            final long lut = System.nanoTime() - before;
+
+            System.out.println((image == dem ? "DEM short " : "SST float ") + size + "x" + size);
+            System.out.println("Function per pixel : " + fct / 1000000 + " ms");
+            System.out.println("Lookup table       : " + lut / 1000000 + " ms");
+        }
+    }
+
+    private static void paintFunction(final Function function, final RenderedImage image, final BufferedImage target) {
+        final RenderedImage colored = function.evaluate(image, RenderedImage.class);
+        final Graphics2D g = target.createGraphics();
+        g.drawRenderedImage(colored, new AffineTransform());
+        g.dispose();
+    }
+
+    private static void paintLookup(final Function function, final RenderedImage image, final BufferedImage target) {
+        final ColorMapLookup lookup = ColorMapLookup.get(function, image.getSampleModel().getDataType(),
+                null, ColorMapLookup.DEFAULT_RESOLUTION);
+        final RenderedImage colored = lookup.apply(image, 0);
+        final Graphics2D g = target.createGraphics();
+        g.drawRenderedImage(colored, new AffineTransform());
+        g.dispose();
+    }
+
+}
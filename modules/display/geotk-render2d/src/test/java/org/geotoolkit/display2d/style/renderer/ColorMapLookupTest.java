@@ -0,0 +1,130 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.style.renderer;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import org.geotoolkit.image.BufferedImages;
+import org.geotoolkit.style.DefaultStyleFactory;
+import org.geotoolkit.style.MutableStyleFactory;
+import org.geotoolkit.style.function.InterpolationPoint;
+import org.geotoolkit.style.function.Method;
+import org.geotoolkit.style.function.Mode;
+import org.junit.Test;
+import org.opengis.filter.expression.Function;
+
+import static org.geotoolkit.style.StyleConstants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Test color map lookup tables give the same colors as the color map function.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class ColorMapLookupTest extends org.geotoolkit.test.TestBase {
+
+    private static final MutableStyleFactory SF = new DefaultStyleFactory();
+
+    static Function createFunction() {
+        final List<InterpolationPoint> values = new ArrayList<>();
+        values.add(SF.interpolationPoint(Float.NaN, SF.literal(new Color(0, 0, 0, 0))));
+        values.add(SF.interpolationPoint(-100, SF.literal(Color.BLUE)));
+        values.add(SF.interpolationPoint(0, SF.literal(Color.WHITE)));
+        values.add(SF.interpolationPoint(1000, SF.literal(Color.RED)));
+        return SF.interpolateFunction(DEFAULT_CATEGORIZE_LOOKUP, values, Method.COLOR, Mode.LINEAR, DEFAULT_FALLBACK);
+    }
+
+    /**
+     * Short images use one entry per sample value, colors must match exactly.
+     */
+    @Test
+    public void testShort() {
+        final Function function = createFunction();
+        final BufferedImage image = BufferedImages.createImage(400, 1, 1, DataBuffer.TYPE_SHORT);
+        final WritableRaster raster = image.getRaster();
+        for (int x = 0; x < 400; x++) {
+            raster.setSample(x, 0, 0, x * 5 - 200);
+        }
+
+        final ColorMapLookup lookup = ColorMapLookup.get(function, DataBuffer.TYPE_SHORT, null, ColorMapLookup.DEFAULT_RESOLUTION);
+        assertNotNull(lookup);
+        assertSame(lookup, ColorMapLookup.get(function, DataBuffer.TYPE_SHORT, null, ColorMapLookup.DEFAULT_RESOLUTION));
+        final RenderedImage result = lookup.apply(image, 0);
+        for (int x = 0; x < 400; x++) {
+            final Color expected = function.evaluate(x * 5 - 200, Color.class);
+            assertEquals(expected.getRGB(), ((BufferedImage) result).getRGB(x, 0));
+        }
+    }
+
+    /**
+     * Unsigned short images are recolored with an index color model.
+     */
+    @Test
+    public void testUShort() {
+        final Function function = createFunction();
+        final BufferedImage image = BufferedImages.createImage(100, 1, 1, DataBuffer.TYPE_USHORT);
+        final WritableRaster raster = image.getRaster();
+        for (int x = 0; x < 100; x++) {
+            raster.setSample(x, 0, 0, x * 20);
+        }
+
+        final RenderedImage result = ColorMapLookup.get(function, DataBuffer.TYPE_USHORT, null,
+                ColorMapLookup.DEFAULT_RESOLUTION).apply(image, 0);
+        assertTrue(result.getColorModel() instanceof IndexColorModel);
+        for (int x = 0; x < 100; x++) {
+            final Color expected = function.evaluate(x * 20, Color.class);
+            assertEquals(expected.getRGB(), result.getColorModel().getRGB(x * 20));
+        }
+    }
+
+    /**
+     * Float images use a quantized table, no-data values and NaN must match exactly.
+     */
+    @Test
+    public void testFloat() {
+        final Function function = createFunction();
+        final BufferedImage image = BufferedImages.createImage(1300, 1, 1, DataBuffer.TYPE_FLOAT);
+        final WritableRaster raster = image.getRaster();
+        for (int x = 0; x < 1300; x++) {
+            raster.setSample(x, 0, 0, x * 1.001f - 200);
+        }
+        raster.setSample(0, 0, 0, Float.NaN);
+        raster.setSample(1, 0, 0, -9999);
+
+        final ColorMapLookup lookup = ColorMapLookup.get(function, DataBuffer.TYPE_FLOAT, new double[]{-9999}, 4096);
+        final BufferedImage result = (BufferedImage) lookup.apply(image, 0);
+
+        assertEquals(0, result.getRGB(0, 0) >>> 24);
+        assertEquals(function.evaluate(-9999, Color.class).getRGB(), result.getRGB(1, 0));
+        for (int x = 2; x < 1300; x++) {
+            final Color expected = function.evaluate(raster.getSampleFloat(x, 0, 0), Color.class);
+            final Color color = new Color(result.getRGB(x, 0), true);
+            assertEquals(expected.getRed(), color.getRed(), 1);
+            assertEquals(expected.getGreen(), color.getGreen(), 1);
+            assertEquals(expected.getBlue(), color.getBlue(), 1);
+            assertEquals(expected.getAlpha(), color.getAlpha());
+        }
+    }
+
+}
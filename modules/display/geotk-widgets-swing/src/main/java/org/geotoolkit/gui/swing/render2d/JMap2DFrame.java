@@ -127,6 +127,7 @@ public class JMap2DFrame extends javax.swing.JFrame {
         guiMap2D.getCanvas().setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         guiMap2D.getCanvas().setRenderingHint(GO2Hints.KEY_GENERALIZE, GO2Hints.GENERALIZE_ON);
         guiMap2D.getCanvas().setRenderingHint(GO2Hints.KEY_BEHAVIOR_MODE, GO2Hints.BEHAVIOR_PROGRESSIVE);
+        guiMap2D.getCanvas().setRenderingHint(GO2Hints.KEY_FEATURE_CACHE, 64);
 
         guiChainEditor = new JChainEditor(true);
         panETL.add(BorderLayout.CENTER, guiChainEditor);
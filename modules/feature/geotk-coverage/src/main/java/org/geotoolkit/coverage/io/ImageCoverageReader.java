@@ -1027,6 +1027,14 @@ public class ImageCoverageReader extends GridCoverageReader {
                 sp.setSampleConversionAllowed(SampleConversionType.SHIFT_SIGNED_INTEGERS, true);
             }
             sp.setSampleConversionAllowed(SampleConversionType.REPLACE_FILL_VALUES, true);
+            /*
+             * Same as MosaicImageReader above : readers having reduced resolution images
+             * (e.g. TIFF overviews) can read them instead of the full resolution image.
+             * The grid geometry is updated from the actual subsampling after the read.
+             */
+            if (param == null || !param.isDeferred()) {
+                sp.setSubsamplingChangeAllowed(true);
+            }
             /*
              * If the image does not have its own color palette, provides a palette factory
              * which will create the IndexColorModel (if needed) from the GridSampleDimension.
@@ -138,6 +138,15 @@ public class SpatialImageReadParam extends ImageReadParam implements WarningProd
      */
     private Set<SampleConversionType> allowedConversions;
 
+    /**
+     * If {@code true}, readers having reduced resolution images are allowed to change the
+     * {@linkplain #setSourceSubsampling subsampling} and the source region to some values
+     * matching one of those images.
+     *
+     * @see #isSubsamplingChangeAllowed()
+     */
+    private boolean subsamplingChangeAllowed;
+
     /**
      * The image reader for which this {@code SpatialImageReadParam} instance
      * has been created, or {@code null} if unknown.
@@ -502,6 +511,34 @@ public class SpatialImageReadParam extends ImageReadParam implements WarningProd
         }
     }
 
+    /**
+     * Returns {@code true} if the reader is allowed to change the {@linkplain #setSourceSubsampling
+     * subsampling} and the {@linkplain #setSourceRegion source region} to more efficient values.
+     * The default value is {@code false}.
+     *
+     * @return {@code true} if the reader is allowed to change the subsampling.
+     *
+     * @see org.geotoolkit.image.io.mosaic.MosaicImageReadParam#isSubsamplingChangeAllowed()
+     */
+    public boolean isSubsamplingChangeAllowed() {
+        return subsamplingChangeAllowed;
+    }
+
+    /**
+     * Sets whatever the reader is allowed to change the subsampling and the source region to
+     * more efficient values. Readers of files containing reduced resolution images, like TIFF
+     * overviews, may then read one of those images instead of the full resolution image.
+     * The subsampling actually used is never greater than the requested one, and both the
+     * subsampling and the source region can be queried once the reading is finished.
+     * <p>
+     * This is not the default because it violates the {@link javax.imageio.ImageReader} contract.
+     *
+     * @param allowed {@code true} if the reader is allowed to change the subsampling.
+     */
+    public void setSubsamplingChangeAllowed(final boolean allowed) {
+        subsamplingChangeAllowed = allowed;
+    }
+
     /**
      * Returns the locale used for formatting error messages, or {@code null} if none.
      * The default implementation returns the locale used by the {@link ImageReader}
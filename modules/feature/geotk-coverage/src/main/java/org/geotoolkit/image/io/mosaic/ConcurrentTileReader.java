@@ -0,0 +1,383 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.mosaic;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.ImageReaderSpi;
+
+import org.apache.sis.util.Disposable;
+import org.apache.sis.util.logging.Logging;
+import org.geotoolkit.internal.Threads;
+
+import static org.geotoolkit.image.io.mosaic.Tile.LOGGER;
+
+
+/**
+ * Reads many tiles concurrently on behalf of a {@link MosaicImageReader}. Each worker thread
+ * borrows its own {@link TileReaderPool}, so tile readers are never shared between threads,
+ * and writes the decoded pixels directly in its own sub-raster of the destination image.
+ * Since tiles do not overlap in the destination image, no synchronization is needed on the
+ * pixel data.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class ConcurrentTileReader implements Closeable, Disposable {
+    /**
+     * The executor shared by all mosaic readers. Tile reads are typically I/O bound,
+     * so we allow more threads than the number of processors. Threads are released
+     * after one minute of inactivity.
+     */
+    private static final ExecutorService EXECUTOR;
+    static {
+        final int n = 4 * Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor ex = new ThreadPoolExecutor(n, n, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), Threads.createThreadFactory("MosaicImageReader #"));
+        ex.allowCoreThreadTimeOut(true);
+        EXECUTOR = ex;
+    }
+
+    /**
+     * A tile to read, together with the parameters computed by {@link MosaicImageReader#read}.
+     * Instances of this class are created in the caller thread and consumed by the workers.
+     */
+    static final class Task {
+        /** The tile to read. */
+        final Tile tile;
+
+        /** The region to read, in tile pixel coordinates. */
+        final Rectangle regionToRead;
+
+        /** Where to write the pixels in the destination image. */
+        final Point destinationOffset;
+
+        /** The subsampling to apply when reading the tile. */
+        final Dimension subsampling;
+
+        /** The exception thrown while reading this tile, or {@code null} if none. */
+        Exception failure;
+
+        Task(final Tile tile, final Rectangle regionToRead, final Point destinationOffset, final Dimension subsampling) {
+            this.tile              = tile;
+            this.regionToRead      = new Rectangle(regionToRead);
+            this.destinationOffset = new Point(destinationOffset);
+            this.subsampling       = new Dimension(subsampling);
+        }
+    }
+
+    /**
+     * Marker put in the completion queue by a worker when it terminates.
+     */
+    private static final Task END = new Task(null, new Rectangle(), new Point(), new Dimension());
+
+    /**
+     * The pool from which to copy the set of providers and the locale.
+     */
+    private final TileReaderPool master;
+
+    /**
+     * The pools which are not currently used by a worker.
+     */
+    private final List<TileReaderPool> idle;
+
+    /**
+     * The readers currently under process of reading. Used by {@link #abort()} only.
+     */
+    private final Set<ImageReader> reading;
+
+    /**
+     * Set to {@code true} when the current read operation shall stop as soon as possible.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new concurrent reader using the providers declared in the given pool.
+     */
+    ConcurrentTileReader(final TileReaderPool master) {
+        this.master  = master;
+        this.idle    = new ArrayList<>();
+        this.reading = Collections.newSetFromMap(new IdentityHashMap<ImageReader,Boolean>());
+    }
+
+    /**
+     * Callback through which the workers report to the {@link MosaicImageReader}.
+     */
+    interface Listener {
+        /** Returns {@code true} if the caller requested the read operation to be aborted. */
+        boolean abortRequested();
+
+        /** Invoked in the caller thread after each tile completion. */
+        void tileCompleted(int count, int total);
+    }
+
+    /**
+     * Reads all the given tasks in the given destination image. This method blocks until all
+     * workers have finished, so the destination image can be used safely after this method
+     * returned.
+     *
+     * @param  tasks      The tiles to read.
+     * @param  image      The destination image.
+     * @param  param      The parameters from which to get the concurrency limits and tile parameters.
+     * @param  inPlace    The providers which can write directly in the destination image.
+     * @param  listener   The callback for abort requests and progress reports.
+     * @return {@code true} on success, or {@code false} if the read has been aborted.
+     * @throws IOException if an error occurred while reading a tile.
+     */
+    boolean read(final List<Task> tasks, final BufferedImage image, final MosaicImageReadParam param,
+            final Set<ImageReaderSpi> inPlace, final Listener listener) throws IOException
+    {
+        cancelled = false;
+        final int total = tasks.size();
+        final Map<ImageReaderSpi,Semaphore> permits = new HashMap<>();
+        for (final Task task : tasks) {
+            final ImageReaderSpi provider = task.tile.getImageReaderSpi();
+            if (!permits.containsKey(provider)) {
+                permits.put(provider, new Semaphore(param.getConcurrencyLimit(provider)));
+            }
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final BlockingQueue<Task> done = new LinkedBlockingQueue<>();
+        final int workerCount = Math.min(param.getConcurrentReads(), total);
+        for (int i=0; i<workerCount; i++) {
+            EXECUTOR.execute(new Runnable() {
+                @Override public void run() {
+                    try {
+                        int index;
+                        while (!cancelled && (index = next.getAndIncrement()) < total) {
+                            final Task task = tasks.get(index);
+                            try {
+                                read(task, image, param, inPlace, permits.get(task.tile.getImageReaderSpi()));
+                            } catch (Exception e) {
+                                task.failure = e;
+                            }
+                            done.add(task);
+                        }
+                    } finally {
+                        done.add(END);
+                    }
+                }
+            });
+        }
+        /*
+         * Wait for all workers to finish. Progress and abort requests are handled in this
+         * thread since ImageReader listeners are not required to be thread-safe.
+         */
+        Exception failure = null;
+        int running = workerCount, completed = 0;
+        boolean interrupted = false;
+        while (running != 0) {
+            final Task task;
+            try {
+                task = done.take();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                cancel();
+                continue;
+            }
+            if (task == END) {
+                running--;
+                continue;
+            }
+            if (task.failure != null) {
+                if (failure == null) {
+                    failure = task.failure;
+                    cancel();
+                } else {
+                    failure.addSuppressed(task.failure);
+                }
+            } else {
+                listener.tileCompleted(++completed, total);
+            }
+            if (!cancelled && listener.abortRequested()) {
+                cancel();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) throw (IOException) failure;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            throw new IOException(failure);
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Reads a single tile in the current worker thread.
+     */
+    private void read(final Task task, final BufferedImage image, final MosaicImageReadParam param,
+            final Set<ImageReaderSpi> inPlace, final Semaphore permit) throws IOException, InterruptedException
+    {
+        final Tile tile = task.tile;
+        final Rectangle region = task.regionToRead;
+        final Dimension subsampling = task.subsampling;
+        final int x = task.destinationOffset.x;
+        final int y = task.destinationOffset.y;
+        final int width  = Math.min((region.width  + subsampling.width  - 1) / subsampling.width,  image.getWidth()  - x);
+        final int height = Math.min((region.height + subsampling.height - 1) / subsampling.height, image.getHeight() - y);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final WritableRaster target = image.getRaster().createWritableChild(x, y, width, height, 0, 0, null);
+        permit.acquire();
+        try {
+            final TileReaderPool pool = borrow();
+            try {
+                final long start = System.nanoTime();
+                final ImageReader reader = tile.getImageReader(pool, true, true);
+                final ImageReadParam tileParam = param.getTileParameters(reader);
+                tileParam.setDestinationType(null);
+                BufferedImage destination = null;
+                if (inPlace.contains(reader.getOriginatingProvider())) {
+                    destination = new BufferedImage(image.getColorModel(), target, image.isAlphaPremultiplied(), null);
+                    tileParam.setDestination(destination);
+                }
+                tileParam.setSourceRegion(region);
+                tileParam.setSourceSubsampling(subsampling.width, subsampling.height, 0, 0);
+                final long opened = System.nanoTime();
+                final BufferedImage output;
+                synchronized (reading) {
+                    reading.add(reader);
+                }
+                try {
+                    output = reader.read(tile.getImageIndex(), tileParam);
+                } finally {
+                    synchronized (reading) {
+                        reading.remove(reader);
+                    }
+                }
+                final long decoded = System.nanoTime();
+                if (output != destination) {
+                    /*
+                     * The tile reader ignored our destination image. Copy the data in the
+                     * sub-raster. This is slower but still safe, since tiles do not overlap.
+                     */
+                    target.setRect(output.getRaster());
+                }
+                final TileReadStatistics statistics = param.getReadStatistics();
+                if (statistics != null) {
+                    statistics.record(tile, opened - start, decoded - opened, System.nanoTime() - decoded);
+                }
+            } finally {
+                release(pool);
+            }
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Returns a pool of tile readers for exclusive use by the current worker.
+     */
+    private TileReaderPool borrow() {
+        TileReaderPool pool = null;
+        synchronized (idle) {
+            if (!idle.isEmpty()) {
+                pool = idle.remove(idle.size() - 1);
+            }
+        }
+        if (pool == null) {
+            pool = new TileReaderPool();
+        }
+        pool.setProviders(master.providers);
+        pool.setLocale(master.getLocale());
+        return pool;
+    }
+
+    /**
+     * Gives back a pool obtained by {@link #borrow()}.
+     */
+    private void release(final TileReaderPool pool) {
+        synchronized (idle) {
+            idle.add(pool);
+        }
+    }
+
+    /**
+     * Stops the current read operation as soon as possible.
+     */
+    private void cancel() {
+        cancelled = true;
+        abort();
+    }
+
+    /**
+     * Requests the readers currently working to abort.
+     */
+    void abort() {
+        synchronized (reading) {
+            for (final ImageReader reader : reading) {
+                reader.abort();
+            }
+        }
+    }
+
+    /**
+     * Closes any image input streams held by the idle pools.
+     *
+     * @throws IOException if error occurred while closing a stream.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (idle) {
+            for (final TileReaderPool pool : idle) {
+                pool.close();
+            }
+        }
+    }
+
+    /**
+     * Disposes all idle tile readers.
+     */
+    @Override
+    public void dispose() {
+        synchronized (idle) {
+            for (final TileReaderPool pool : idle) {
+                try {
+                    pool.close();
+                } catch (IOException e) {
+                    Logging.unexpectedException(LOGGER, ConcurrentTileReader.class, "dispose", e);
+                }
+                pool.dispose();
+            }
+            idle.clear();
+        }
+    }
+}
@@ -18,10 +18,14 @@
 package org.geotoolkit.image.io.mosaic;
 
 import java.util.Map;
+import java.util.HashMap;
 import java.util.WeakHashMap;
 import javax.imageio.ImageReader;
 import javax.imageio.ImageReadParam;
 import javax.imageio.IIOParamController;
+import javax.imageio.spi.ImageReaderSpi;
+
+import static org.apache.sis.util.ArgumentChecks.ensureStrictlyPositive;
 
 
 /**
@@ -100,6 +104,26 @@ public class MosaicImageReadParam extends ImageReadParam {
      */
     private Boolean hasController;
 
+    /**
+     * Maximal number of tiles to read concurrently. The default value is 1,
+     * which means that tiles are read sequentially in the caller thread.
+     *
+     * @see #getConcurrentReads()
+     */
+    private int concurrentReads = 1;
+
+    /**
+     * Maximal number of concurrent reads for specific providers, or {@code null} if none.
+     *
+     * @see #getConcurrencyLimit(ImageReaderSpi)
+     */
+    private Map<ImageReaderSpi,Integer> concurrencyLimits;
+
+    /**
+     * Where to record the tile read timings, or {@code null} if none.
+     */
+    private TileReadStatistics statistics;
+
     /**
      * Constructs default parameters for any mosaic image reader. Parameters created by this
      * constructor will not {@linkplain #hasController have controller}. Consider invoking
@@ -179,6 +203,98 @@ public class MosaicImageReadParam extends ImageReadParam {
         nullForEmptyImage = allowed;
     }
 
+    /**
+     * Returns the maximal number of tiles that the {@link MosaicImageReader#read read} method
+     * can read concurrently. The default value is 1, which means that tiles are read one after
+     * the other in the caller thread.
+     *
+     * @return The maximal number of tiles to read concurrently.
+     *
+     * @since 4.0
+     */
+    public int getConcurrentReads() {
+        return concurrentReads;
+    }
+
+    /**
+     * Sets the maximal number of tiles that the {@link MosaicImageReader#read read} method can
+     * read concurrently. Values greater than 1 are useful for mosaics made of many independent
+     * files where the read process is I/O latency bound. Each concurrent read uses its own set
+     * of tile readers and writes its pixels directly in its area of the destination image.
+     * <p>
+     * Note that concurrent reads are disabled when a {@linkplain #getController() controller}
+     * is installed, since controllers are not required to be thread-safe.
+     *
+     * @param count The maximal number of tiles to read concurrently (must be positive).
+     *
+     * @since 4.0
+     */
+    public void setConcurrentReads(final int count) {
+        ensureStrictlyPositive("count", count);
+        concurrentReads = count;
+    }
+
+    /**
+     * Returns the maximal number of tiles using the given provider that can be read concurrently.
+     * This is the value given to {@link #setConcurrencyLimit setConcurrencyLimit} for that provider
+     * if any, or the {@linkplain #getConcurrentReads() global number of concurrent reads} otherwise.
+     *
+     * @param  provider The tile reader provider.
+     * @return The maximal number of concurrent reads for the given provider.
+     *
+     * @since 4.0
+     */
+    public int getConcurrencyLimit(final ImageReaderSpi provider) {
+        if (concurrencyLimits != null) {
+            final Integer limit = concurrencyLimits.get(provider);
+            if (limit != null) {
+                return Math.min(limit, concurrentReads);
+            }
+        }
+        return concurrentReads;
+    }
+
+    /**
+     * Sets the maximal number of tiles using the given provider that can be read concurrently.
+     * This is useful for formats which are expensive to decode, or for readers backed by a
+     * resource allowing only a few simultaneous connections.
+     *
+     * @param provider The tile reader provider.
+     * @param limit    The maximal number of concurrent reads for that provider (must be positive).
+     *
+     * @since 4.0
+     */
+    public void setConcurrencyLimit(final ImageReaderSpi provider, final int limit) {
+        ensureStrictlyPositive("limit", limit);
+        if (concurrencyLimits == null) {
+            concurrencyLimits = new HashMap<>();
+        }
+        concurrencyLimits.put(provider, limit);
+    }
+
+    /**
+     * Returns the object where to record the timing of each tile read, or {@code null} if none.
+     *
+     * @return Where to record the tile read timings, or {@code null}.
+     *
+     * @since 4.0
+     */
+    public TileReadStatistics getReadStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets the object where to record the timing of each tile read. The default value is
+     * {@code null}, which means that no timing is recorded.
+     *
+     * @param statistics Where to record the tile read timings, or {@code null}.
+     *
+     * @since 4.0
+     */
+    public void setReadStatistics(final TileReadStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     /**
      * Returns the policy for {@link MosaicImageReader#getImageTypes computing image types}.
      * If no policy has been specified, then this method returns {@code null}. In the later
@@ -96,6 +96,14 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
      */
     private transient ImageReader reading;
 
+    /**
+     * The helper object for reading tiles concurrently, created when first needed.
+     * Changes must be performed inside a {@code synchronized(this)} block.
+     *
+     * @see MosaicImageReadParam#setConcurrentReads(int)
+     */
+    private transient ConcurrentTileReader concurrent;
+
     /**
      * The image metadata, created when first needed.
      */
@@ -1099,6 +1107,20 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
             startTime = 0;
             status = 0;
         }
+        /*
+         * If the user asked for concurrent reads, the loop below will only compute the regions
+         * to read. The actual reads will be performed after the loop by background threads,
+         * each tile writing directly in its own area of the destination image. Controllers
+         * are not required to be thread-safe, so their presence disables concurrent reads.
+         */
+        final List<ConcurrentTileReader.Task> concurrentTasks;
+        if (image != null && destRegion != null && controller == null &&
+                mosaicParam.getConcurrentReads() > 1 && tiles.size() > 1)
+        {
+            concurrentTasks = new ArrayList<>(tiles.size());
+        } else {
+            concurrentTasks = null;
+        }
         /*
          * Now read every tiles... The log record will be logged in the "finally" block in
          * every case, in order to help debugging in case of failure.
@@ -1211,9 +1233,15 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
                     format(table, subsampling.width,   subsampling.height);
                     table.nextLine();
                 }
+                if (concurrentTasks != null) {
+                    concurrentTasks.add(new ConcurrentTileReader.Task(tile, regionToRead, destinationOffset, subsampling));
+                    continue;
+                }
+                final long openTime = System.nanoTime();
                 final ImageReader reader = getTileReader(tile);
                 final ImageReadParam tileParam = mosaicParam.getCachedTileParameters(reader);
                 final BufferedImage output;
+                final long decodeTime;
                 try {
                     tileParam.setDestinationType(null);
                     if (manager.canWriteInPlace(reader.getOriginatingProvider())) {
@@ -1232,6 +1260,7 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
                     synchronized (this) {  // Same lock than ImageReader.abort()
                         reading = reader;
                     }
+                    decodeTime = System.nanoTime();
                     output = reader.read(tileIndex, tileParam);
                 } finally {
                     synchronized (this) {  // Same lock than ImageReader.abort()
@@ -1242,6 +1271,7 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
                     tileParam.setSourceRegion(null);
                     tileParam.setDestinationOffset(new Point());
                 }
+                final long copyTime = System.nanoTime();
                 if (image == null) {
                     image = output;
                 } else if (output != image) {
@@ -1254,8 +1284,20 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
                     data = Raster.createRaster(data.getSampleModel(), data.getDataBuffer(), destinationOffset);
                     image.setData(data);
                 }
+                final TileReadStatistics statistics = mosaicParam.getReadStatistics();
+                if (statistics != null) {
+                    statistics.record(tile, decodeTime - openTime, copyTime - decodeTime, System.nanoTime() - copyTime);
+                }
+            }
+            if (concurrentTasks != null && status != 1) {
+                if (!readConcurrently(concurrentTasks, image, manager, mosaicParam)) {
+                    processReadAborted();
+                    status = 1;
+                }
+            }
+            if (status != 1) {
+                status = 0; // Success.
             }
-            status = 0; // Success.
         } finally {
             /*
              * Reading is finished, aborted or an exception has been thrown.
@@ -1281,6 +1323,41 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
         return image;
     }
 
+    /**
+     * Reads the given tiles concurrently in the given destination image. This method is invoked
+     * by {@link #read(int, ImageReadParam)} when {@link MosaicImageReadParam#getConcurrentReads()}
+     * is greater than 1, and blocks until all tiles have been read.
+     *
+     * @return {@code true} on success, or {@code false} if the read has been aborted.
+     */
+    private boolean readConcurrently(final List<ConcurrentTileReader.Task> tasks, final BufferedImage image,
+            final TileManager manager, final MosaicImageReadParam param) throws IOException
+    {
+        final Set<ImageReaderSpi> inPlace = new HashSet<>();
+        for (final ConcurrentTileReader.Task task : tasks) {
+            final ImageReaderSpi provider = task.tile.getImageReaderSpi();
+            if (manager.canWriteInPlace(provider)) {
+                inPlace.add(provider);
+            }
+        }
+        final ConcurrentTileReader reader;
+        synchronized (this) {
+            if (concurrent == null) {
+                concurrent = new ConcurrentTileReader(readers);
+            }
+            reader = concurrent;
+        }
+        return reader.read(tasks, image, param, inPlace, new ConcurrentTileReader.Listener() {
+            @Override public boolean abortRequested() {
+                return MosaicImageReader.this.abortRequested();
+            }
+
+            @Override public void tileCompleted(final int count, final int total) {
+                processImageProgress(100f * count / total);
+            }
+        });
+    }
+
     /**
      * Logs the given record to the given logger.
      */
@@ -1333,6 +1410,9 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
         if (reading != null) {
             reading.abort();
         }
+        if (concurrent != null) {
+            concurrent.abort();
+        }
     }
 
     /**
@@ -1344,6 +1424,13 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
     @Override
     public void close() throws IOException {
         readers.close();
+        final ConcurrentTileReader c;
+        synchronized (this) {
+            c = concurrent;
+        }
+        if (c != null) {
+            c.close();
+        }
     }
 
     /**
@@ -1362,6 +1449,12 @@ public class MosaicImageReader extends ImageReader implements LogProducer, Close
             Logging.unexpectedException(LOGGER, MosaicImageReader.class, "dispose", e);
         }
         readers.dispose();
+        synchronized (this) {
+            if (concurrent != null) {
+                concurrent.dispose();
+                concurrent = null;
+            }
+        }
         super.dispose();
     }
 
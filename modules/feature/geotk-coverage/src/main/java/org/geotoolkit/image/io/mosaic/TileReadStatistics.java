@@ -0,0 +1,165 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.mosaic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.sis.io.TableAppender;
+
+
+/**
+ * Timing breakdown of the tiles read by a {@link MosaicImageReader}. An instance of this class
+ * can be given to {@link MosaicImageReadParam#setReadStatistics(TileReadStatistics)}, in which
+ * case the reader will record one {@link Entry} for each tile read. The time spent on each tile
+ * is split in three phases:
+ * <p>
+ * <ul>
+ *   <li><b>open</b>: getting the tile reader and setting its input stream,</li>
+ *   <li><b>decode</b>: the {@link javax.imageio.ImageReader#read(int, javax.imageio.ImageReadParam)} call,</li>
+ *   <li><b>copy</b>: copying the decoded pixels in the destination image, which is zero
+ *       when the tile reader wrote directly in the destination raster.</li>
+ * </ul>
+ * <p>
+ * This class is thread-safe, since tiles may be read concurrently.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class TileReadStatistics {
+    /**
+     * Timing of a single tile read.
+     */
+    public static final class Entry {
+        /** The tile which has been read. */
+        public final Tile tile;
+
+        /** Time spent opening the tile, in nanoseconds. */
+        public final long openTime;
+
+        /** Time spent decoding the tile, in nanoseconds. */
+        public final long decodeTime;
+
+        /** Time spent copying pixels in the destination image, in nanoseconds. */
+        public final long copyTime;
+
+        Entry(final Tile tile, final long openTime, final long decodeTime, final long copyTime) {
+            this.tile       = tile;
+            this.openTime   = openTime;
+            this.decodeTime = decodeTime;
+            this.copyTime   = copyTime;
+        }
+    }
+
+    /**
+     * The recorded entries, in completion order.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates an initially empty set of statistics.
+     */
+    public TileReadStatistics() {
+    }
+
+    /**
+     * Records the timing of a tile read.
+     */
+    final synchronized void record(final Tile tile, final long openTime, final long decodeTime, final long copyTime) {
+        entries.add(new Entry(tile, openTime, decodeTime, copyTime));
+    }
+
+    /**
+     * Returns a snapshot of the recorded entries, in completion order.
+     *
+     * @return The recorded entries.
+     */
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * Returns the number of tiles read so far.
+     *
+     * @return The number of recorded entries.
+     */
+    public synchronized int getTileCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the cumulated time spent opening tiles, in nanoseconds.
+     *
+     * @return Cumulated open time.
+     */
+    public synchronized long getOpenTime() {
+        long sum = 0;
+        for (final Entry entry : entries) sum += entry.openTime;
+        return sum;
+    }
+
+    /**
+     * Returns the cumulated time spent decoding tiles, in nanoseconds.
+     *
+     * @return Cumulated decode time.
+     */
+    public synchronized long getDecodeTime() {
+        long sum = 0;
+        for (final Entry entry : entries) sum += entry.decodeTime;
+        return sum;
+    }
+
+    /**
+     * Returns the cumulated time spent copying pixels, in nanoseconds.
+     *
+     * @return Cumulated copy time.
+     */
+    public synchronized long getCopyTime() {
+        long sum = 0;
+        for (final Entry entry : entries) sum += entry.copyTime;
+        return sum;
+    }
+
+    /**
+     * Forgets all recorded entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns a table of the recorded entries, with times in milliseconds.
+     */
+    @Override
+    public synchronized String toString() {
+        final TableAppender table = new TableAppender();
+        table.appendHorizontalSeparator();
+        table.append("Tile").nextColumn();
+        table.append("Open").nextColumn();
+        table.append("Decode").nextColumn();
+        table.append("Copy").nextLine();
+        table.appendHorizontalSeparator();
+        for (final Entry entry : entries) {
+            table.append(entry.tile.getInputName()).nextColumn();
+            table.append(String.valueOf(entry.openTime   / 1E+6)).nextColumn();
+            table.append(String.valueOf(entry.decodeTime / 1E+6)).nextColumn();
+            table.append(String.valueOf(entry.copyTime   / 1E+6)).nextLine();
+        }
+        table.appendHorizontalSeparator();
+        return table.toString();
+    }
+}
@@ -224,6 +224,13 @@ final class TileReaderPool implements Closeable, Disposable{
         return null;
     }
 
+    /**
+     * Returns the locale given to the image readers in this cache, or {@code null}.
+     */
+    final Locale getLocale() {
+        return locale;
+    }
+
     /**
      * Sets the current locale of image readers in this cache.
      *
@@ -0,0 +1,440 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.stream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.sis.util.ArgumentChecks;
+import org.geotoolkit.internal.Threads;
+
+
+/**
+ * A read only {@link SeekableByteChannel} over an HTTP resource, reading only the
+ * requested parts of the resource with range requests. The resource is divided in
+ * blocks of fixed size kept in a least recently used cache :
+ * <ul>
+ *   <li>adjacent missing blocks are fetched with a single range request,</li>
+ *   <li>non adjacent missing blocks are fetched by parallel requests,</li>
+ *   <li>when the channel is read sequentially, the following blocks are prefetched in background,</li>
+ *   <li>a block requested while already being fetched is not requested twice.</li>
+ * </ul>
+ * Channels created by {@link #duplicate()} have their own position and share the cache.
+ * This class is safe for use by multiple threads as long as each thread uses its own channel.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class HttpRangeChannel implements SeekableByteChannel {
+
+    /**
+     * Default block size, in bytes.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum number of blocks in the cache.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    /**
+     * Default number of blocks prefetched after a sequential read.
+     */
+    public static final int DEFAULT_PREFETCH = 2;
+
+    /**
+     * Executor shared by all channels for parallel and prefetch requests.
+     * Requests are I/O bound, threads are released after one minute of inactivity.
+     */
+    private static final ExecutorService EXECUTOR;
+    static {
+        final ThreadPoolExecutor ex = new ThreadPoolExecutor(8, 8, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), Threads.createThreadFactory("HttpRangeChannel #"));
+        ex.allowCoreThreadTimeOut(true);
+        EXECUTOR = ex;
+    }
+
+    /**
+     * The resource and its cached blocks, shared by duplicated channels.
+     */
+    private final Source source;
+
+    /**
+     * Current position in the resource.
+     */
+    private long position;
+
+    /**
+     * Position after the last read, used to detect sequential reads.
+     */
+    private long lastEnd;
+
+    private volatile boolean open = true;
+
+    /**
+     * Creates a channel with default block size, cache size and prefetch, without proxy.
+     *
+     * @param url HTTP or HTTPS resource.
+     * @throws IOException if the server can not be reached or does not support range requests.
+     */
+    public HttpRangeChannel(final URL url) throws IOException {
+        this(url, Proxy.NO_PROXY, DEFAULT_BLOCK_SIZE, DEFAULT_CACHE_SIZE, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Creates a channel. The first block of the resource is read immediately,
+     * which also checks that the server supports range requests.
+     *
+     * @param url HTTP or HTTPS resource.
+     * @param proxy the proxy to use, {@link Proxy#NO_PROXY} for direct connections.
+     * @param blockSize size of cached blocks, in bytes.
+     * @param cacheSize maximum number of cached blocks.
+     * @param prefetch number of blocks prefetched after a sequential read, 0 for none.
+     * @throws IOException if the server can not be reached or does not support range requests.
+     */
+    public HttpRangeChannel(final URL url, final Proxy proxy, final int blockSize, final int cacheSize,
+            final int prefetch) throws IOException {
+        ArgumentChecks.ensureNonNull("url", url);
+        ArgumentChecks.ensureNonNull("proxy", proxy);
+        ArgumentChecks.ensureStrictlyPositive("blockSize", blockSize);
+        ArgumentChecks.ensureStrictlyPositive("cacheSize", cacheSize);
+        ArgumentChecks.ensurePositive("prefetch", prefetch);
+        source = new Source(url, proxy, blockSize, cacheSize, prefetch);
+    }
+
+    private HttpRangeChannel(final Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns a new channel over the same resource, sharing the cache of this channel.
+     * The new channel position is zero.
+     *
+     * @return new channel over the same resource.
+     */
+    public HttpRangeChannel duplicate() {
+        return new HttpRangeChannel(source);
+    }
+
+    /**
+     * @return the resource read by this channel.
+     */
+    public URL getURL() {
+        return source.url;
+    }
+
+    /**
+     * Reads bytes from the current position. Less bytes than requested may be read
+     * if the request exceeds half of the cache capacity.
+     */
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= source.length) return -1;
+        if (!dst.hasRemaining()) return 0;
+        final int blockSize = source.blockSize;
+        final long first = position / blockSize;
+        final long last = Math.min(Math.min(
+                (position + dst.remaining() - 1) / blockSize,
+                (source.length - 1) / blockSize),
+                first + Math.max(1, source.capacity / 2) - 1);
+        final boolean sequential = (position == lastEnd);
+        source.load(first, last, true);
+
+        int count = 0;
+        for (long b = first; b <= last; b++) {
+            byte[] data = source.get(b);
+            if (data == null) {
+                //-- evicted by concurrent reads, return what we have or load it again
+                if (count > 0) break;
+                source.load(b, b, true);
+                data = source.get(b);
+                if (data == null) throw new IOException("Block " + b + " of " + source.url + " could not be cached.");
+            }
+            final int offset = (int) (position - b * blockSize);
+            final int length = Math.min(data.length - offset, dst.remaining());
+            dst.put(data, offset, length);
+            position += length;
+            count    += length;
+        }
+        lastEnd = position;
+
+        if (sequential && source.prefetch > 0) {
+            final long end = Math.min(last + source.prefetch, (source.length - 1) / blockSize);
+            if (last < end) {
+                source.load(last + 1, end, false);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        ArgumentChecks.ensurePositive("newPosition", newPosition);
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * @return the resource length, given by the server.
+     */
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return source.length;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes this channel. Duplicated channels and the cache are not affected.
+     */
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) throw new ClosedChannelException();
+    }
+
+    /**
+     * An HTTP resource and its cached blocks.
+     */
+    private static final class Source {
+
+        final URL url;
+        final Proxy proxy;
+        final int blockSize;
+        final int capacity;
+        final int prefetch;
+        final long length;
+
+        /**
+         * Cached blocks by index, in access order. Guarded by this.
+         */
+        private final LinkedHashMap<Long, byte[]> cache;
+
+        /**
+         * Requests in progress by block index. Guarded by this.
+         */
+        private final Map<Long, Future<Void>> loading = new HashMap<>();
+
+        Source(final URL url, final Proxy proxy, final int blockSize, final int capacity, final int prefetch)
+                throws IOException {
+            this.url       = url;
+            this.proxy     = proxy;
+            this.blockSize = blockSize;
+            this.capacity  = capacity;
+            this.prefetch  = prefetch;
+            this.cache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, byte[]> eldest) {
+                    return size() > capacity;
+                }
+            };
+
+            //-- first block, the response gives the resource length
+            final HttpURLConnection connection = connect(0, blockSize - 1);
+            try {
+                final String range = connection.getHeaderField("Content-Range");
+                final int split = (range != null) ? range.lastIndexOf('/') : -1;
+                if (split < 0 || range.endsWith("*")) {
+                    throw new IOException("Server does not give the length of " + url);
+                }
+                length = Long.parseLong(range.substring(split + 1).trim());
+                read(connection, 0, 0);
+            } catch (NumberFormatException ex) {
+                throw new IOException("Invalid content range for " + url, ex);
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        synchronized byte[] get(final long block) {
+            return cache.get(block);
+        }
+
+        /**
+         * Ensures that the given blocks are cached or being fetched. Adjacent missing
+         * blocks are fetched by a single request, each request in its own thread except
+         * the last one which is run by the caller if it waits.
+         *
+         * @param first first block index, inclusive.
+         * @param last last block index, inclusive.
+         * @param wait true to wait until all blocks are fetched.
+         */
+        void load(final long first, final long last, final boolean wait) throws IOException {
+            final List<Future<Void>> pending = new ArrayList<>();
+            final List<FutureTask<Void>> requests = new ArrayList<>();
+            synchronized (this) {
+                long start = -1;
+                for (long b = first; b <= last + 1; b++) {
+                    boolean missing = false;
+                    if (b <= last && !cache.containsKey(b)) {
+                        final Future<Void> future = loading.get(b);
+                        if (future == null) {
+                            missing = true;
+                        } else if (!pending.contains(future)) {
+                            pending.add(future);
+                        }
+                    }
+                    if (missing) {
+                        if (start < 0) start = b;
+                    } else if (start >= 0) {
+                        final long from = start;
+                        final long to   = b - 1;
+                        final FutureTask<Void> task = new FutureTask<>(() -> {
+                            fetch(from, to);
+                            return null;
+                        });
+                        for (long i = from; i <= to; i++) {
+                            loading.put(i, task);
+                        }
+                        requests.add(task);
+                        start = -1;
+                    }
+                }
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                final FutureTask<Void> task = requests.get(i);
+                if (wait && i == requests.size() - 1) {
+                    task.run();
+                } else {
+                    EXECUTOR.execute(task);
+                }
+            }
+            if (wait) {
+                pending.addAll(requests);
+                for (Future<Void> future : pending) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException ex) {
+                        throw new IOException(ex.getMessage(), ex);
+                    } catch (ExecutionException ex) {
+                        final Throwable cause = ex.getCause();
+                        if (cause instanceof IOException) throw (IOException) cause;
+                        throw new IOException(cause != null ? cause.getMessage() : null, cause);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Fetches the given blocks with one range request.
+         */
+        private void fetch(final long first, final long last) throws IOException {
+            try {
+                final long from = first * blockSize;
+                final long to   = Math.min(length, (last + 1) * blockSize) - 1;
+                final HttpURLConnection connection = connect(from, to);
+                try {
+                    read(connection, first, last);
+                } finally {
+                    connection.disconnect();
+                }
+            } finally {
+                synchronized (this) {
+                    for (long b = first; b <= last; b++) {
+                        loading.remove(b);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Opens a range request for the given bytes, inclusive.
+         */
+        private HttpURLConnection connect(final long from, final long to) throws IOException {
+            final URLConnection c = Proxy.NO_PROXY.equals(proxy) ? url.openConnection() : url.openConnection(proxy);
+            if (!(c instanceof HttpURLConnection)) {
+                throw new IOException("Not an HTTP resource : " + url);
+            }
+            final HttpURLConnection connection = (HttpURLConnection) c;
+            connection.setRequestProperty("Range", "bytes=" + from + '-' + to);
+            connection.setRequestProperty("Accept-Encoding", "identity");
+            final int code = connection.getResponseCode();
+            if (code != HttpURLConnection.HTTP_PARTIAL) {
+                connection.disconnect();
+                throw new IOException("Range request on " + url + " returned HTTP code " + code
+                        + ", partial content (206) was expected.");
+            }
+            return connection;
+        }
+
+        /**
+         * Reads the response body of a range request into the cache.
+         * The body length is known from the block indices, except for the first request
+         * for which the resource length is only known once the headers are read.
+         */
+        private void read(final HttpURLConnection connection, final long first, final long last) throws IOException {
+            try (InputStream in = connection.getInputStream()) {
+                for (long b = first; b <= last; b++) {
+                    final byte[] data = new byte[(int) (Math.min(length, (b + 1) * blockSize) - b * blockSize)];
+                    for (int n = 0; n < data.length;) {
+                        final int r = in.read(data, n, data.length - n);
+                        if (r < 0) throw new EOFException("Unexpected end of " + url);
+                        n += r;
+                    }
+                    synchronized (this) {
+                        cache.put(b, data);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.stream;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import javax.imageio.stream.ImageInputStream;
+import org.apache.sis.internal.storage.io.ChannelImageInputStream;
+
+
+/**
+ * An {@linkplain ImageInputStream Image Input Stream} over an HTTP resource, seeking
+ * with range requests instead of downloading the resource. Only the parts of the
+ * resource actually read are transfered, which allows to read some tiles of a remote
+ * tiled image (for example a cloud optimized GeoTIFF).
+ * <p>
+ * The beginning of the stream is marked at creation, as expected by image readers
+ * which rewind their input.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ *
+ * @see HttpRangeChannel
+ */
+public class HttpRangeImageInputStream extends ChannelImageInputStream {
+
+    /**
+     * The resource given to the constructor.
+     */
+    public final URL url;
+
+    private final HttpRangeChannel rangeChannel;
+
+    /**
+     * Creates a new image input stream for the given resource with default cache settings.
+     *
+     * @param  url The HTTP resource for which to create an image input stream.
+     * @throws IOException If the server can not be reached or does not support range requests.
+     */
+    public HttpRangeImageInputStream(final URL url) throws IOException {
+        this(new HttpRangeChannel(url));
+    }
+
+    /**
+     * Creates a new image input stream reading the given channel.
+     *
+     * @param  channel The range request channel to read.
+     * @throws IOException If an error occurred while reading the channel.
+     */
+    public HttpRangeImageInputStream(final HttpRangeChannel channel) throws IOException {
+        super(channel.getURL().toString(), channel, ByteBuffer.allocate(8192), false);
+        this.url = channel.getURL();
+        this.rangeChannel = channel;
+        mark();
+    }
+
+    /**
+     * Returns a new channel over the same resource, positioned at the beginning of the
+     * resource and sharing the block cache of this stream.
+     *
+     * @return new channel over the same resource.
+     */
+    public HttpRangeChannel newChannel() {
+        return rangeChannel.duplicate();
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.sis.util.logging.Logging;
 
 /**
  * A service provider for creating {@link ImageInputStream}s from {@link URL}s.
+ * HTTP resources are read with range requests when the server supports them.
  *
  * @author Martin Desruisseaux (IRD)
  * @version 3.00
@@ -89,15 +90,29 @@ public class UrlInputSpi extends ImageInputStreamSpi {
     }
 
     /**
-     * Constructs an input stream for an URL.
+     * Constructs an input stream for an URL. HTTP resources are read with range requests
+     * if the server supports them, other resources are copied in a cache file while read.
      *
      * @throws IOException If the stream can not be created.
+     *
+     * @see HttpRangeImageInputStream
      */
     @Override
     public ImageInputStream createInputStreamInstance(final Object input,
             final boolean useCache, final File cacheDir) throws IOException
     {
         final URL url = (URL) input;
+        final String protocol = url.getProtocol();
+        if ("http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol)) {
+            try {
+                return new HttpRangeImageInputStream(new HttpRangeChannel(url, proxy,
+                        HttpRangeChannel.DEFAULT_BLOCK_SIZE, HttpRangeChannel.DEFAULT_CACHE_SIZE,
+                        HttpRangeChannel.DEFAULT_PREFETCH));
+            } catch (IOException exception) {
+                // Range requests not supported, fallback on a sequential download.
+                Logging.recoverableException(null, UrlInputSpi.class, "createInputStreamInstance", exception);
+            }
+        }
         final URLConnection connection = Proxy.NO_PROXY.equals(proxy) ? null : url.openConnection(proxy);
         int retry = RETRY;
         InputStream stream;
@@ -19,7 +19,9 @@
 /**
  * Services provider for {@linkplain javax.imageio.stream.ImageInputStream image input streams}.
  * This package adds a service provider for creating input stream from URL. The default service
- * provider assumes no {@linkplain java.net.Proxy proxy}.
+ * provider assumes no {@linkplain java.net.Proxy proxy}. HTTP resources are read with range
+ * requests through {@link org.geotoolkit.image.io.stream.HttpRangeChannel}, which caches the
+ * blocks read, so only the parts of a remote image actually used are transfered.
  *
  * @author Martin Desruisseaux (IRD)
  * @version 3.00
@@ -163,6 +163,30 @@ public final strictfp class MosaicReadWriteTest extends ImageTestBase {
         }
     }
 
+    /**
+     * Reads the whole mosaic with concurrent tile reads enabled, and compares with the
+     * checksum of the sequential read. Also verifies that a timing has been recorded
+     * for every tiles.
+     *
+     * @throws IOException If an I/O error occurred.
+     */
+    @Test
+    public void testConcurrentRead() throws IOException {
+        final MosaicImageReader reader = new MosaicImageReader();
+        reader.setInput(sourceMosaic);
+        final MosaicImageReadParam param = reader.getDefaultReadParam();
+        final TileReadStatistics statistics = new TileReadStatistics();
+        param.setConcurrentReads(4);
+        param.setConcurrencyLimit(Formats.getReaderByFormatName("png", null), 3);
+        param.setReadStatistics(statistics);
+        image = reader.read(0, param);
+        assertEquals("Width",  4*S, image.getWidth ());
+        assertEquals("Height", 2*S, image.getHeight());
+        assertCurrentChecksumEquals("testConcurrentRead", IMAGE_CHECKSUMS);
+        assertEquals("Tile count", 8, statistics.getTileCount());
+        reader.dispose();
+    }
+
     /**
      * Creates an image reader from the input mosaic and test reading the image.
      * First we read the image as a whole. Then we read each individual tile.
@@ -0,0 +1,235 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.stream.ImageInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link HttpRangeChannel} and {@link HttpRangeImageInputStream} against a local HTTP server.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class HttpRangeChannelTest {
+
+    private static final int LENGTH = 10000;
+
+    private final byte[] data = new byte[LENGTH];
+
+    /**
+     * Ranges requested to the server, as "from-to".
+     */
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void startServer() throws IOException {
+        new Random(42).nextBytes(data);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/data", this::handle);
+        server.createContext("/norange", (HttpExchange exchange) -> {
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(data);
+            }
+        });
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/data");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Answers range requests with partial content.
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        final String[] bounds = range.substring("bytes=".length()).split("-");
+        final int from = Integer.parseInt(bounds[0]);
+        final int to = Math.min(Integer.parseInt(bounds[1]), LENGTH - 1);
+        requests.add(from + "-" + to);
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + from + '-' + to + '/' + LENGTH);
+        exchange.sendResponseHeaders(206, to - from + 1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(data, from, to - from + 1);
+        }
+    }
+
+    private HttpRangeChannel open(final int cacheSize, final int prefetch) throws IOException {
+        return new HttpRangeChannel(url, Proxy.NO_PROXY, 1000, cacheSize, prefetch);
+    }
+
+    private void assertRead(final HttpRangeChannel channel, final int position, final int length) throws IOException {
+        channel.position(position);
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+        for (int i = 0; i < buffer.position(); i++) {
+            assertEquals("Byte " + (position + i), data[position + i], buffer.get(i));
+        }
+        assertEquals(Math.min(length, LENGTH - position), buffer.position());
+    }
+
+    /**
+     * Random reads must return the resource bytes, each block being requested once.
+     */
+    @Test
+    public void testRead() throws IOException {
+        final HttpRangeChannel channel = open(16, 0);
+        assertEquals(LENGTH, channel.size());
+        assertEquals(Collections.singletonList("0-999"), requests);
+        assertRead(channel, 10, 20);
+        assertRead(channel, 5500, 100);
+        assertRead(channel, 5400, 200);
+        assertRead(channel, 9990, 100);
+        assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+        assertEquals(3, requests.size());
+
+        //-- duplicated channels share the cache
+        final HttpRangeChannel copy = channel.duplicate();
+        assertEquals(0, copy.position());
+        assertRead(copy, 5600, 10);
+        assertEquals(3, requests.size());
+    }
+
+    /**
+     * Adjacent missing blocks must be fetched with a single request.
+     */
+    @Test
+    public void testCoalescing() throws IOException {
+        final HttpRangeChannel channel = open(16, 0);
+        assertRead(channel, 2500, 100);
+        assertRead(channel, 500, 4000);
+        assertEquals(4, requests.size());
+        assertTrue(requests.contains("1000-1999"));
+        assertTrue(requests.contains("3000-4999"));
+    }
+
+    /**
+     * Least recently used blocks must be evicted.
+     */
+    @Test
+    public void testEviction() throws IOException {
+        final HttpRangeChannel channel = open(2, 0);
+        assertRead(channel, 1000, 10);
+        assertRead(channel, 0, 10);
+        assertRead(channel, 2000, 10);
+        assertEquals(3, requests.size());
+        assertRead(channel, 0, 10);
+        assertEquals(3, requests.size());
+        assertRead(channel, 1000, 10);
+        assertEquals(4, requests.size());
+    }
+
+    /**
+     * Sequential reads prefetch the following blocks, each block being requested once.
+     */
+    @Test
+    public void testPrefetch() throws IOException {
+        final HttpRangeChannel channel = open(16, 2);
+        final ByteBuffer buffer = ByteBuffer.allocate(500);
+        int position = 0;
+        int n;
+        while ((n = channel.read(buffer)) >= 0) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(data[position + i], buffer.get(i));
+            }
+            position += n;
+            buffer.clear();
+        }
+        assertEquals(LENGTH, position);
+        final List<Integer> blocks = new ArrayList<>();
+        synchronized (requests) {
+            for (String range : requests) {
+                final String[] bounds = range.split("-");
+                for (int b = Integer.parseInt(bounds[0]) / 1000; b <= Integer.parseInt(bounds[1]) / 1000; b++) {
+                    assertFalse("Block " + b + " requested twice.", blocks.contains(b));
+                    blocks.add(b);
+                }
+            }
+        }
+        assertEquals(10, blocks.size());
+    }
+
+    /**
+     * The image input stream must seek without reading the skipped bytes.
+     */
+    @Test
+    public void testImageInputStream() throws IOException {
+        final HttpRangeImageInputStream stream = new HttpRangeImageInputStream(open(16, 0));
+        try {
+            final ByteBuffer expected = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            stream.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+            stream.seek(4);
+            assertEquals(expected.getInt(4), stream.readInt());
+            stream.seek(9000);
+            assertEquals(expected.getLong(9000), stream.readLong());
+            synchronized (requests) {
+                for (String range : requests) {
+                    final String[] bounds = range.split("-");
+                    assertFalse("Skipped block was read.",
+                            Integer.parseInt(bounds[0]) <= 8000 && Integer.parseInt(bounds[1]) >= 8999);
+                }
+            }
+            stream.reset();
+            assertEquals(0, stream.getStreamPosition());
+            assertEquals(data[0], stream.readByte());
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Servers without range requests support must be rejected,
+     * the URL stream provider then falls back on a sequential download.
+     */
+    @Test
+    public void testNoRangeSupport() throws IOException {
+        final URL noRange = new URL(url, "/norange");
+        try {
+            new HttpRangeChannel(noRange);
+            fail("Server does not support range requests.");
+        } catch (IOException ex) {
+            // expected
+        }
+        try (ImageInputStream stream = new UrlInputSpi().createInputStreamInstance(noRange, true, null)) {
+            assertFalse(stream instanceof HttpRangeImageInputStream);
+            assertEquals(data[0], stream.readByte());
+        }
+    }
+}
@@ -16,11 +16,13 @@
  */
 package org.geotoolkit.geometry.jts.transform;
 
-import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.CoordinateSequenceFactory;
 import com.vividsolutions.jts.geom.impl.CoordinateArraySequenceFactory;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import java.util.Arrays;
+import org.geotoolkit.geometry.jts.coordinatesequence.LiteCoordinateSequence;
+import org.geotoolkit.geometry.jts.coordinatesequence.LiteCoordinateSequenceFactory;
 
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.referencing.operation.MathTransform;
@@ -31,8 +33,15 @@ import org.opengis.referencing.operation.TransformException;
  * transformer}. This transformer applies the coordinate transformations immediately (which
  * means that caller are immediately notified if a transformation fails).
  * <p>
- * This transformer support {@linkplain MathTransform math transform} with up to 3 source
- * or target dimensions. This transformer is not thread-safe.
+ * This transformer support {@linkplain MathTransform math transform} with up to 3 target
+ * dimensions. Coordinates are copied in a packed array which is transformed in place when
+ * source and target dimensions are the same, no {@code Coordinate} object is created.
+ * With the default factory, two dimensional results are returned as {@link LiteCoordinateSequence}
+ * wrapping the transformed array and three dimensional results as {@link PackedCoordinateSequence}.
+ * <p>
+ * This transformer is thread-safe, all working arrays are created for each call.
+ * Several sequences can be transformed with a single {@link MathTransform} call
+ * using {@link #transform(com.vividsolutions.jts.geom.CoordinateSequence[]) }.
  *
  * @module
  * @since 2.1
@@ -46,19 +55,10 @@ public class CoordinateSequenceMathTransformer implements CoordinateSequenceTran
      * The coordinate sequence factory to use.
      */
     static final CoordinateSequenceFactory DEFAULT_CS_FACTORY = CoordinateArraySequenceFactory.instance();
-    /**
-     * A buffer for coordinate transformations. We choose a length which is divisible by
-     * both 2 and 3, since JTS coordinates may be up to three-dimensional. If the number
-     * of coordinates point to transform is greater than the buffer capacity, then the
-     * buffer will be flushed to the destination array before to continue. We avoid to
-     * create a buffer as large than the number of point to transforms, because it would
-     * consume a large amount of memory for big geometries.
-     */
-    private final transient double[] buffer = new double[96];
 
     private final CoordinateSequenceFactory csf;
 
-    private MathTransform transform = null;
+    private volatile MathTransform transform = null;
 
     /**
      * Constructs a default coordinate sequence transformer.
@@ -79,11 +79,11 @@ public class CoordinateSequenceMathTransformer implements CoordinateSequenceTran
         this.transform =transform;
     }
 
-    public synchronized void setTransform(final MathTransform transform) {
+    public void setTransform(final MathTransform transform) {
         this.transform = transform;
     }
 
-    public synchronized MathTransform getTransform() {
+    public MathTransform getTransform() {
         return transform;
     }
 
@@ -91,64 +91,125 @@ public class CoordinateSequenceMathTransformer implements CoordinateSequenceTran
      * {@inheritDoc}
      */
     @Override
-    public synchronized CoordinateSequence transform(final CoordinateSequence sequence, final int minpoints)
+    public CoordinateSequence transform(final CoordinateSequence sequence, final int minpoints)
             throws TransformException {
+        final MathTransform transform = this.transform;
         final int sourceDim = transform.getSourceDimensions();
         final int targetDim = transform.getTargetDimensions();
+        if (targetDim > 3) {
+            throw new MismatchedDimensionException();
+        }
         final int size = sequence.size();
-        final Coordinate[] tcs = new Coordinate[size];
-        final int bufferCapacity = buffer.length / Math.max(sourceDim, targetDim);
-        int remainingBeforeFlush = Math.min(bufferCapacity, size);
-        int ib = 0; // Index in the buffer array.
-        int it = 0; // Index in the target array.
 
+        final double[] target;
+        if (sourceDim == 2 && sequence instanceof LiteCoordinateSequence
+                && ((LiteCoordinateSequence) sequence).getDimension() == 2) {
+            //read directly from the packed array
+            target = new double[size * targetDim];
+            transform.transform(((LiteCoordinateSequence) sequence).getArray(), 0, target, 0, size);
+        } else {
+            final double[] source = new double[size * Math.max(sourceDim, targetDim)];
+            copy(sequence, source, 0, sourceDim);
+            transform.transform(source, 0, source, 0, size);
+            target = (source.length == size * targetDim) ? source : Arrays.copyOf(source, size * targetDim);
+        }
+        return create(target, 0, size, targetDim);
+    }
+
+    /**
+     * Transform several coordinate sequences with a single {@link MathTransform} call.
+     * This is more efficient than transforming each sequence, for example the rings of
+     * a polygon or the parts of a multi-geometry.
+     *
+     * @param sequences sequences to transform
+     * @return transformed sequences, in the same order
+     * @throws TransformException if at least one coordinate can't be transformed.
+     */
+    public CoordinateSequence[] transform(final CoordinateSequence[] sequences) throws TransformException {
+        final MathTransform transform = this.transform;
+        final int sourceDim = transform.getSourceDimensions();
+        final int targetDim = transform.getTargetDimensions();
+        if (targetDim > 3) {
+            throw new MismatchedDimensionException();
+        }
+        final int maxDim = Math.max(sourceDim, targetDim);
+
+        int total = 0;
+        for (CoordinateSequence cs : sequences) {
+            total += cs.size();
+        }
+
+        final double[] buffer = new double[total * maxDim];
+        int offset = 0;
+        for (CoordinateSequence cs : sequences) {
+            copy(cs, buffer, offset, sourceDim);
+            offset += cs.size() * sourceDim;
+        }
+        transform.transform(buffer, 0, buffer, 0, total);
+
+        final CoordinateSequence[] result = new CoordinateSequence[sequences.length];
+        offset = 0;
+        for (int i = 0; i < sequences.length; i++) {
+            final int size = sequences[i].size();
+            result[i] = create(buffer, offset, size, targetDim);
+            offset += size * targetDim;
+        }
+        return result;
+    }
+
+    /**
+     * Copy sequence coordinates in a packed array.
+     * Missing ordinates are set to NaN.
+     */
+    private static void copy(final CoordinateSequence sequence, final double[] array, int offset, final int sourceDim) {
+        final int size = sequence.size();
+        if (sourceDim == 2 && sequence instanceof LiteCoordinateSequence
+                && ((LiteCoordinateSequence) sequence).getDimension() == 2) {
+            System.arraycopy(((LiteCoordinateSequence) sequence).getArray(), 0, array, offset, size * 2);
+            return;
+        }
+        final boolean hasZ = sequence.getDimension() > 2;
         for (int i = 0; i < size; i++) {
             switch (sourceDim) { // Fall through in every cases.
-                default: Arrays.fill(buffer, ib + 3, ib + sourceDim, Double.NaN);
-                case 3:  buffer[ib + 2] = sequence.getOrdinate(i, 2);
-                case 2:  buffer[ib + 1] = sequence.getY(i);
-                case 1:  buffer[ib] = sequence.getX(i);
+                default: Arrays.fill(array, offset + 3, offset + sourceDim, Double.NaN);
+                case 3:  array[offset + 2] = hasZ ? sequence.getOrdinate(i, 2) : Double.NaN;
+                case 2:  array[offset + 1] = sequence.getY(i);
+                case 1:  array[offset] = sequence.getX(i);
                 case 0:  break;
             }
+            offset += sourceDim;
+        }
+    }
 
-            ib += sourceDim;
-
-            if (--remainingBeforeFlush == 0) {
-                /*
-                 * The buffer is full, or we just copied the last coordinates.
-                 * Transform the coordinates and flush to the destination array.
-                 */
-                assert (ib % sourceDim) == 0;
-
-                final int n = ib / sourceDim;
-                transform.transform(buffer, 0, buffer, 0, n);
-                ib = 0;
-
-                for (int j = 0; j < n; j++) {
-                    switch (targetDim) {
-                        default: throw new MismatchedDimensionException();
-                        case 3:
-                            tcs[it++] = new Coordinate(buffer[ib++], buffer[ib++], buffer[ib++]);
-                            break;
-                        case 2:
-                            tcs[it++] = new Coordinate(buffer[ib++], buffer[ib++]);
-                            break;
-                        case 1:
-                            tcs[it++] = new Coordinate(buffer[ib++], Double.NaN);
-                            break;
-                        case 0:
-                            tcs[it++] = new Coordinate(Double.NaN, Double.NaN);
-                            break;
-                    }
-                }
-                assert ib == (n * targetDim);
-                ib = 0;
-                remainingBeforeFlush = Math.min(bufferCapacity, size - (i + 1));
+    /**
+     * Create a coordinate sequence from a range of the transformed array.
+     * The array is used directly when possible.
+     */
+    private CoordinateSequence create(final double[] array, final int offset, final int size, final int targetDim) {
+        final boolean lite = csf instanceof LiteCoordinateSequenceFactory;
+        if (targetDim == 2 && (lite || csf == DEFAULT_CS_FACTORY)) {
+            return new LiteCoordinateSequence(range(array, offset, size * 2));
+        } else if (targetDim == 3 && csf == DEFAULT_CS_FACTORY) {
+            return new PackedCoordinateSequence.Double(range(array, offset, size * 3), 3);
+        }
+        final CoordinateSequence cs = csf.create(size, (lite || targetDim < 3) ? 2 : 3);
+        final int dim = cs.getDimension();
+        for (int i = 0, k = offset; i < size; i++) {
+            cs.setOrdinate(i, 0, (targetDim > 0) ? array[k]     : Double.NaN);
+            cs.setOrdinate(i, 1, (targetDim > 1) ? array[k + 1] : Double.NaN);
+            if (dim > 2) {
+                cs.setOrdinate(i, 2, (targetDim > 2) ? array[k + 2] : Double.NaN);
             }
+            k += targetDim;
         }
-        assert it == tcs.length : tcs.length - it;
+        return cs;
+    }
 
-        return csf.create(tcs);
+    /**
+     * Returns the given range of the array, without copy if it is the whole array.
+     */
+    private static double[] range(final double[] array, final int offset, final int length) {
+        return (offset == 0 && array.length == length) ? array : Arrays.copyOfRange(array, offset, offset + length);
     }
 
     @Override
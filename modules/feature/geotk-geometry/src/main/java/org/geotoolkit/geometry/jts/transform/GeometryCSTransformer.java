@@ -69,33 +69,54 @@ public class GeometryCSTransformer implements GeometryTransformer{
         if (g instanceof Point) {
             transformed = transformPoint((Point) g, factory);
         } else if (g instanceof MultiPoint) {
-            MultiPoint mp = (MultiPoint) g;
-            Point[] points = new Point[mp.getNumGeometries()];
-
+            final MultiPoint mp = (MultiPoint) g;
+            final CoordinateSequence[] css = new CoordinateSequence[mp.getNumGeometries()];
+            for (int i = 0; i < css.length; i++) {
+                css[i] = ((Point) mp.getGeometryN(i)).getCoordinateSequence();
+            }
+            final CoordinateSequence[] tcss = projectCoordinateSequences(css);
+            final Point[] points = new Point[css.length];
             for (int i = 0; i < points.length; i++) {
-                points[i] = transformPoint((Point) mp.getGeometryN(i), factory);
+                points[i] = factory.createPoint(tcss[i]);
+                points[i].setUserData(mp.getGeometryN(i).getUserData());
             }
 
             transformed = factory.createMultiPoint(points);
         } else if (g instanceof LineString) {
             transformed = transformLineString((LineString) g, factory);
         } else if (g instanceof MultiLineString) {
-            MultiLineString mls = (MultiLineString) g;
-            LineString[] lines = new LineString[mls.getNumGeometries()];
-
+            final MultiLineString mls = (MultiLineString) g;
+            final CoordinateSequence[] css = new CoordinateSequence[mls.getNumGeometries()];
+            for (int i = 0; i < css.length; i++) {
+                css[i] = ((LineString) mls.getGeometryN(i)).getCoordinateSequence();
+            }
+            final CoordinateSequence[] tcss = projectCoordinateSequences(css);
+            final LineString[] lines = new LineString[css.length];
             for (int i = 0; i < lines.length; i++) {
-                lines[i] = transformLineString((LineString) mls.getGeometryN(i), factory);
+                lines[i] = createLineString((LineString) mls.getGeometryN(i), tcss[i], factory);
             }
 
             transformed = factory.createMultiLineString(lines);
         } else if (g instanceof Polygon) {
             transformed = transformPolygon((Polygon) g, factory);
         } else if (g instanceof MultiPolygon) {
-            MultiPolygon mp = (MultiPolygon) g;
-            Polygon[] polygons = new Polygon[mp.getNumGeometries()];
-
-            for (int i = 0; i < polygons.length; i++) {
-                polygons[i] = transformPolygon((Polygon) mp.getGeometryN(i), factory);
+            //transform all rings at once
+            final MultiPolygon mp = (MultiPolygon) g;
+            final int nbPoly = mp.getNumGeometries();
+            int nbRing = 0;
+            for (int i = 0; i < nbPoly; i++) {
+                nbRing += 1 + ((Polygon) mp.getGeometryN(i)).getNumInteriorRing();
+            }
+            final CoordinateSequence[] css = new CoordinateSequence[nbRing];
+            for (int i = 0, k = 0; i < nbPoly; i++) {
+                k = collectRings((Polygon) mp.getGeometryN(i), css, k);
+            }
+            final CoordinateSequence[] tcss = projectCoordinateSequences(css);
+            final Polygon[] polygons = new Polygon[nbPoly];
+            for (int i = 0, k = 0; i < nbPoly; i++) {
+                final Polygon polygon = (Polygon) mp.getGeometryN(i);
+                polygons[i] = createPolygon(polygon, tcss, k, factory);
+                k += 1 + polygon.getNumInteriorRing();
             }
 
             transformed = factory.createMultiPolygon(polygons);
@@ -129,18 +150,7 @@ public class GeometryCSTransformer implements GeometryTransformer{
      */
     public LineString transformLineString(final LineString ls, final GeometryFactory gf)
         throws TransformException {
-        CoordinateSequence cs = projectCoordinateSequence(ls.getCoordinateSequence());
-        final LineString transformed;
-
-        if (ls instanceof LinearRing) {
-            cs = ensureClosed(cs);
-            transformed = gf.createLinearRing(cs);
-        } else {
-            transformed = gf.createLineString(cs);
-        }
-
-        transformed.setUserData( ls.getUserData() );
-        return transformed;
+        return createLineString(ls, projectCoordinateSequence(ls.getCoordinateSequence()), gf);
     }
 
     /**
@@ -166,17 +176,59 @@ public class GeometryCSTransformer implements GeometryTransformer{
         return csTransformer.transform(cs,1);
     }
 
+    /**
+     * Transform several coordinate sequences.
+     * If the transformer is a {@link CoordinateSequenceMathTransformer}, all sequences
+     * are transformed with a single math transform call.
+     *
+     * @param css coordinate sequences
+     * @throws TransformException
+     */
+    public CoordinateSequence[] projectCoordinateSequences(final CoordinateSequence[] css)
+        throws TransformException {
+        if (csTransformer instanceof CoordinateSequenceMathTransformer) {
+            return ((CoordinateSequenceMathTransformer) csTransformer).transform(css);
+        }
+        final CoordinateSequence[] result = new CoordinateSequence[css.length];
+        for (int i = 0; i < css.length; i++) {
+            result[i] = csTransformer.transform(css[i], 1);
+        }
+        return result;
+    }
+
     /**
      * @param polygon
      * @throws TransformException
      */
     public Polygon transformPolygon(final Polygon polygon, final GeometryFactory gf)
         throws TransformException {
-        final LinearRing exterior = (LinearRing) transformLineString(polygon.getExteriorRing(), gf);
+        final CoordinateSequence[] css = new CoordinateSequence[1 + polygon.getNumInteriorRing()];
+        collectRings(polygon, css, 0);
+        return createPolygon(polygon, projectCoordinateSequences(css), 0, gf);
+    }
+
+    /**
+     * Store exterior and interior ring sequences of the polygon in the array.
+     * @return index after the last stored ring
+     */
+    private static int collectRings(final Polygon polygon, final CoordinateSequence[] css, int index) {
+        css[index++] = polygon.getExteriorRing().getCoordinateSequence();
+        for (int i = 0, n = polygon.getNumInteriorRing(); i < n; i++) {
+            css[index++] = polygon.getInteriorRingN(i).getCoordinateSequence();
+        }
+        return index;
+    }
+
+    /**
+     * Create the transformed polygon from the transformed ring sequences.
+     */
+    private static Polygon createPolygon(final Polygon polygon, final CoordinateSequence[] tcss,
+            final int index, final GeometryFactory gf) {
+        final LinearRing exterior = (LinearRing) createLineString(polygon.getExteriorRing(), tcss[index], gf);
         final LinearRing[] interiors = new LinearRing[polygon.getNumInteriorRing()];
 
         for (int i = 0; i < interiors.length; i++) {
-            interiors[i] = (LinearRing) transformLineString(polygon.getInteriorRingN(i), gf);
+            interiors[i] = (LinearRing) createLineString(polygon.getInteriorRingN(i), tcss[index + 1 + i], gf);
         }
 
         final Polygon transformed = gf.createPolygon(exterior, interiors);
@@ -184,6 +236,21 @@ public class GeometryCSTransformer implements GeometryTransformer{
         return transformed;
     }
 
+    /**
+     * Create the transformed line from the transformed sequence.
+     */
+    private static LineString createLineString(final LineString ls, CoordinateSequence cs, final GeometryFactory gf) {
+        final LineString transformed;
+        if (ls instanceof LinearRing) {
+            cs = ensureClosed(cs);
+            transformed = gf.createLinearRing(cs);
+        } else {
+            transformed = gf.createLineString(cs);
+        }
+        transformed.setUserData( ls.getUserData() );
+        return transformed;
+    }
+
     @Override
     public CoordinateSequence transform(final CoordinateSequence sequence, final int minpoints) throws TransformException {
         return csTransformer.transform(sequence,minpoints);
@@ -20,10 +20,12 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Polygon;
 import java.util.HashMap;
 import java.util.Map;
 import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.geometry.jts.coordinatesequence.LiteCoordinateSequence;
 import org.apache.sis.referencing.CRS;
 import org.apache.sis.referencing.CommonCRS;
 import org.geotoolkit.referencing.cs.PredefinedCS;
@@ -73,6 +75,51 @@ public class ReprojectTest extends org.geotoolkit.test.TestBase {
 
     }
 
+    /**
+     * Multi-part geometries are transformed in a single call, results must be the same
+     * as transforming each part.
+     */
+    @Test
+    public void testMultiPartTransform() throws FactoryException, TransformException{
+        final GeometryFactory GF = new GeometryFactory();
+        final Polygon[] polygons = new Polygon[3];
+        for(int i=0;i<polygons.length;i++){
+            final LinearRing outer = GF.createLinearRing(new Coordinate[]{
+                    new Coordinate(i*10+1,  50),
+                    new Coordinate(i*10+1,  58),
+                    new Coordinate(i*10+9,  58),
+                    new Coordinate(i*10+9,  50),
+                    new Coordinate(i*10+1,  50)
+            });
+            final LinearRing inner = GF.createLinearRing(new Coordinate[]{
+                    new Coordinate(i*10+3,  52),
+                    new Coordinate(i*10+3,  54),
+                    new Coordinate(i*10+5,  54),
+                    new Coordinate(i*10+3,  52)
+            });
+            polygons[i] = GF.createPolygon(outer, new LinearRing[]{inner});
+        }
+        final MultiPolygon mp = GF.createMultiPolygon(polygons);
+
+        final MathTransform mt = CRS.findOperation(CommonCRS.WGS84.normalizedGeographic(),
+                getLocalLambertCRS(10, 60), null).getMathTransform();
+        final GeometryCSTransformer trs = new GeometryCSTransformer(new CoordinateSequenceMathTransformer(mt));
+
+        final MultiPolygon result = (MultiPolygon) trs.transform(mp);
+        assertEquals(mp.getNumGeometries(), result.getNumGeometries());
+        for(int i=0;i<polygons.length;i++){
+            final Polygon expected = (Polygon) trs.transform(polygons[i]);
+            final Polygon poly = (Polygon) result.getGeometryN(i);
+            assertTrue(expected.equalsExact(poly));
+            assertTrue(poly.getExteriorRing().getCoordinateSequence() instanceof LiteCoordinateSequence);
+
+            final double[] pt = new double[]{i*10+3, 52};
+            mt.transform(pt, 0, pt, 0, 1);
+            assertEquals(pt[0], poly.getInteriorRingN(0).getCoordinateN(0).x, 0.0);
+            assertEquals(pt[1], poly.getInteriorRingN(0).getCoordinateN(0).y, 0.0);
+        }
+    }
+
     @Test
     public void testLinearRingClosing(){
         final GeometryFactory GF = new GeometryFactory();
@@ -0,0 +1,194 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.processing.coverage.isoline2;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Join the isolines of adjacent image blocks.
+ * <p>
+ * Blocks share their border row and column, so a line crossing a seam ends in one
+ * block and starts in the other on the same interpolated coordinate. Line ends
+ * found exactly twice on a seam point, in two different blocks, are joined.
+ * Other ends (forks on pixels equal to the level) are left as they are.
+ * Lines are returned in the order they were added, so the result does not depend
+ * on the order blocks were computed.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+final class BlockStitcher {
+
+    /**
+     * Isoline computed in one block, in image pixel coordinates.
+     */
+    static final class Line {
+
+        final int block;
+        final double level;
+        final Coordinate[] coords;
+
+        //joined lines at start and end
+        private Line previous, next;
+        private boolean previousAtStart, nextAtStart;
+        private boolean visited;
+
+        Line(final int block, final double level, final Coordinate[] coords) {
+            this.block = block;
+            this.level = level;
+            this.coords = coords;
+        }
+    }
+
+    private final int blockSize;
+    private final int width;
+    private final int height;
+    private final List<Line> lines = new ArrayList<>();
+
+    /**
+     * @param blockSize distance between block origins, in pixels
+     * @param width image width
+     * @param height image height
+     */
+    BlockStitcher(final int blockSize, final int width, final int height) {
+        this.blockSize = blockSize;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Test if one end of the line is on a seam between blocks.
+     * Other lines can be used directly.
+     */
+    boolean isOnSeam(final Line line) {
+        return isOnSeam(line.coords[0]) || isOnSeam(line.coords[line.coords.length-1]);
+    }
+
+    private boolean isOnSeam(final Coordinate c) {
+        return isSeam(c.x, width) || isSeam(c.y, height);
+    }
+
+    private boolean isSeam(final double v, final int size) {
+        return v > 0 && v < size-1 && v == Math.rint(v) && ((long) v) % blockSize == 0;
+    }
+
+    void add(final Line line) {
+        lines.add(line);
+    }
+
+    /**
+     * Join the lines added.
+     *
+     * @return joined lines, each stitched line has the block and level of its first part
+     */
+    List<Line> finish() {
+        //collect the ends on each seam point, by level
+        final Map<Double,Map<Coordinate,List<Object[]>>> nodes = new HashMap<>();
+        for (Line line : lines) {
+            Map<Coordinate,List<Object[]>> levelNodes = nodes.get(line.level);
+            if (levelNodes == null) {
+                levelNodes = new HashMap<>();
+                nodes.put(line.level, levelNodes);
+            }
+            addEnd(levelNodes, line, true);
+            addEnd(levelNodes, line, false);
+        }
+
+        for (Map<Coordinate,List<Object[]>> levelNodes : nodes.values()) {
+            for (List<Object[]> ends : levelNodes.values()) {
+                if (ends.size() != 2) continue;
+                final Line l0 = (Line) ends.get(0)[0];
+                final Line l1 = (Line) ends.get(1)[0];
+                if (l0 == l1 || l0.block == l1.block) continue;
+                final boolean s0 = (Boolean) ends.get(0)[1];
+                final boolean s1 = (Boolean) ends.get(1)[1];
+                link(l0, s0, l1, s1);
+                link(l1, s1, l0, s0);
+            }
+        }
+
+        final List<Line> result = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.visited) continue;
+
+            //go back to the first line of the chain, or stay here if it is a ring
+            Line first = line;
+            boolean forward = true;
+            while (true) {
+                final Line prev = forward ? first.previous : first.next;
+                if (prev == null || prev == line) break;
+                final boolean prevAtStart = forward ? first.previousAtStart : first.nextAtStart;
+                //we enter prev by one of its ends, we walk it toward the other one
+                forward = !prevAtStart;
+                first = prev;
+            }
+
+            if (first.previous == null && first.next == null) {
+                first.visited = true;
+                result.add(first);
+                continue;
+            }
+
+            final List<Coordinate> coords = new ArrayList<>();
+            Line current = first;
+            boolean currentForward = forward;
+            while (current != null && !current.visited) {
+                current.visited = true;
+                final Coordinate[] cs = current.coords;
+                final int start = coords.isEmpty() ? 0 : 1;
+                for (int i = start; i < cs.length; i++) {
+                    coords.add(currentForward ? cs[i] : cs[cs.length-1-i]);
+                }
+                final Line nextLine = currentForward ? current.next : current.previous;
+                final boolean nextAtStart = currentForward ? current.nextAtStart : current.previousAtStart;
+                if (nextLine == first) {
+                    //closed ring, the last point is already the first one
+                    break;
+                }
+                current = nextLine;
+                currentForward = nextAtStart;
+            }
+            result.add(new Line(first.block, first.level, coords.toArray(new Coordinate[coords.size()])));
+        }
+        return result;
+    }
+
+    private void addEnd(final Map<Coordinate,List<Object[]>> levelNodes, final Line line, final boolean atStart) {
+        final Coordinate c = atStart ? line.coords[0] : line.coords[line.coords.length-1];
+        if (!isOnSeam(c)) return;
+        List<Object[]> ends = levelNodes.get(c);
+        if (ends == null) {
+            ends = new ArrayList<>(2);
+            levelNodes.put(c, ends);
+        }
+        ends.add(new Object[]{line, atStart});
+    }
+
+    private static void link(final Line line, final boolean atStart, final Line other, final boolean otherAtStart) {
+        if (atStart) {
+            line.previous = other;
+            line.previousAtStart = otherAtStart;
+        } else {
+            line.next = other;
+            line.nextAtStart = otherAtStart;
+        }
+    }
+
+}
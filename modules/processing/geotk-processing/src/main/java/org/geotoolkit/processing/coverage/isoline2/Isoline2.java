@@ -22,14 +22,17 @@ import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageReader;
@@ -72,6 +75,10 @@ import static org.geotoolkit.processing.coverage.isoline2.IsolineDescriptor2.*;
 
 
 /**
+ * Isolines are computed by blocks of the image, or by pyramid tiles, in tasks of the
+ * common fork join pool. Image blocks share their border pixels and the lines crossing
+ * block seams are joined once all blocks are done. Features are added in block order,
+ * the result does not depend on the number of threads.
  *
  * @author Johann Sorel (Geomatys)
  * @author Quentin Boileau (Geomatys)
@@ -82,11 +89,17 @@ public class Isoline2 extends AbstractProcess {
     private static final GeometryFactory GF = new GeometryFactory();
     private static final boolean DEBUG = false;
 
+    /**
+     * Distance between image block origins, in pixels.
+     */
+    static final int BLOCK_SIZE = 64;
+
     //iteration informations
     private CoordinateReferenceSystem crs;
     private FeatureType type;
     private FeatureCollection col;
     private double[] intervals;
+    int blockSize = BLOCK_SIZE;
 
     public Isoline2(ProcessDescriptor desc, ParameterValueGroup input) {
         super(desc, input);
@@ -138,12 +151,7 @@ public class Isoline2 extends AbstractProcess {
                     image = coverage.getRenderedImage();
                 }
 
-                final PixelIterator ite = PixelIteratorFactory.createDefaultIterator(image);
-                final int width = image.getWidth();
-                final int height = image.getHeight();
-
-                final BlockRunnable runnable = new BlockRunnable(gridtoCRS, ite, width, height, 0);
-                runnable.run();
+                computeIsolineFromImage(image, gridtoCRS);
             }
             coverageRef.recycle(reader);
 
@@ -153,63 +161,119 @@ public class Isoline2 extends AbstractProcess {
         outputParameters.parameter("outFeatureCollection").setValue(col);
     }
 
-    private void computeIsolineFromPM(PyramidalCoverageResource pm) throws DataStoreException, ProcessException, InterruptedException{
-
-        final PyramidSet set = pm.getPyramidSet();
-        final Collection<Pyramid> pyramids = set.getPyramids();
-
-        final ExecutorService exec = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        for (Pyramid pyramid : pyramids) {
+    /**
+     * Compute isolines by blocks of the image. Blocks are shared by the border row and column,
+     * lines which do not touch a seam are added as soon as their block and the previous ones are done.
+     */
+    private void computeIsolineFromImage(final RenderedImage image, final MathTransform gridtoCRS)
+            throws MismatchedDimensionException, TransformException {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+
+        final List<Block> blocks = new ArrayList<>();
+        for (int y = 0; y == 0 || y < height-1; y += blockSize) {
+            for (int x = 0; x == 0 || x < width-1; x += blockSize) {
+                final Rectangle area = new Rectangle(image.getMinX()+x, image.getMinY()+y,
+                        Math.min(blockSize, width-1-x)+1, Math.min(blockSize, height-1-y)+1);
+                final PixelIterator ite = PixelIteratorFactory.createRowMajorIterator(image, area);
+                final Block block = new Block(blocks.size(), ite, x, y, area.width, area.height);
+                blocks.add(block);
+                block.fork();
+            }
+        }
 
-            //analyse mosaics in order to count all not missing tiles.
-            int tiles = 0;
-            for (final GridMosaic mosaic : pyramid.getMosaics()) {
-                for (int y=0; y<mosaic.getGridSize().height; y++) {
-                    for (int x=0; x<mosaic.getGridSize().width; x++) {
-                        if ( !mosaic.isMissing(x,y)) tiles++;
-                    }
+        final BlockStitcher stitcher = new BlockStitcher(blockSize, width, height);
+        for (Block block : blocks) {
+            for (BlockStitcher.Line line : block.join()) {
+                if (stitcher.isOnSeam(line)) {
+                    stitcher.add(line);
+                } else {
+                    pushGeometry(line, gridtoCRS, 0);
                 }
             }
+        }
+        for (BlockStitcher.Line line : stitcher.finish()) {
+            pushGeometry(line, gridtoCRS, 0);
+        }
+    }
 
-            for (final GridMosaic mosaic : pyramid.getMosaics()) {
-                final GridMosaicRenderedImage gridImage = new GridMosaicRenderedImage(mosaic);
-
-                for (int y=0; y<gridImage.getNumYTiles(); y++) {
-                    for (int x=0; x<gridImage.getNumXTiles(); x++) {
-                        if (!mosaic.isMissing(x,y)) {
-                            try{
-                                final TileReference ref = mosaic.getTile(x, y, null);
-                                MathTransform gridtoCRS = AbstractGridMosaic.getTileGridToCRS(mosaic, new Point(x, y));
-                                gridtoCRS = PixelTranslation.translate(gridtoCRS, PixelInCell.CELL_CORNER, PixelInCell.CELL_CENTER);
-                                final Object obj = ref.getInput();
-                                final RenderedImage image;
-                                if (obj instanceof RenderedImage) {
-                                    image = (RenderedImage) obj;
-                                } else {
-                                    //final RenderedImage image = new LargeRenderedImage(imgReader, imgIndex);
-                                    //final PixelIterator ite = PixelIteratorFactory.createDefaultIterator(image);
-                                    final ImageReader imgReader = ref.getImageReader();
-                                    if(imgReader==null){
-                                        LOGGER.log(Level.WARNING, "Can't compute isoline, ImageReader can't be found.");
-                                        return;
+    private void computeIsolineFromPM(PyramidalCoverageResource pm) throws DataStoreException, ProcessException,
+            MismatchedDimensionException, TransformException {
+
+        final PyramidSet set = pm.getPyramidSet();
+        final Collection<Pyramid> pyramids = set.getPyramids();
+
+        //tiles in computation, results are added in tile order
+        final int parallelism = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        final ArrayDeque<Block> pending = new ArrayDeque<>();
+        try {
+            tiles:
+            for (Pyramid pyramid : pyramids) {
+                for (final GridMosaic mosaic : pyramid.getMosaics()) {
+                    final GridMosaicRenderedImage gridImage = new GridMosaicRenderedImage(mosaic);
+
+                    for (int y=0; y<gridImage.getNumYTiles(); y++) {
+                        for (int x=0; x<gridImage.getNumXTiles(); x++) {
+                            if (!mosaic.isMissing(x,y)) {
+                                try{
+                                    final TileReference ref = mosaic.getTile(x, y, null);
+                                    MathTransform gridtoCRS = AbstractGridMosaic.getTileGridToCRS(mosaic, new Point(x, y));
+                                    gridtoCRS = PixelTranslation.translate(gridtoCRS, PixelInCell.CELL_CORNER, PixelInCell.CELL_CENTER);
+                                    final Object obj = ref.getInput();
+                                    final RenderedImage image;
+                                    if (obj instanceof RenderedImage) {
+                                        image = (RenderedImage) obj;
+                                    } else {
+                                        final ImageReader imgReader = ref.getImageReader();
+                                        if(imgReader==null){
+                                            LOGGER.log(Level.WARNING, "Can't compute isoline, ImageReader can't be found.");
+                                            break tiles;
+                                        }
+                                        image = imgReader.read(0);
+                                    }
+                                    final PixelIterator ite = PixelIteratorFactory.createRowMajorIterator(image);
+                                    final Block block = new Block(0, ite, 0, 0, image.getWidth(), image.getHeight());
+                                    block.gridtoCRS = gridtoCRS;
+                                    pending.add(block);
+                                    block.fork();
+                                    if (pending.size() > 2*parallelism) {
+                                        pushTile(pending.poll());
                                     }
-                                    image = imgReader.read(0);
+                                } catch(IOException ex) {
+                                    throw new ProcessException(ex.getMessage(), this, ex);
                                 }
-                                final PixelIterator ite = PixelIteratorFactory.createDefaultIterator(image);
-                                final int width = image.getWidth();
-                                final int height = image.getHeight();
-                                final BlockRunnable runnable = new BlockRunnable(gridtoCRS, ite, width, height, 0);
-                                exec.submit(runnable);
-                            } catch(IOException ex) {
-                                throw new ProcessException(ex.getMessage(), this, ex);
                             }
                         }
                     }
                 }
             }
+            while (!pending.isEmpty()) {
+                pushTile(pending.poll());
+            }
+        } catch (Exception ex) {
+            for (Block block : pending) {
+                block.cancel(true);
+            }
+            throw ex;
+        }
+    }
+
+    private void pushTile(final Block block) throws MismatchedDimensionException, TransformException {
+        for (BlockStitcher.Line line : block.join()) {
+            pushGeometry(line, block.gridtoCRS, 0);
         }
-        exec.shutdown();
-        exec.awaitTermination(1, TimeUnit.DAYS);
+    }
+
+    private void pushGeometry(final BlockStitcher.Line line, final MathTransform gridtoCRS, final double scale)
+            throws MismatchedDimensionException, TransformException {
+        final Feature f = type.newInstance();
+        f.setPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString(), "0");
+        final Geometry geom = JTS.transform(GF.createLineString(line.coords), gridtoCRS);
+        JTS.setCRS(geom, crs);
+        f.setPropertyValue(AttributeConvention.GEOMETRY_PROPERTY.toString(), geom);
+        f.setPropertyValue("scale", scale);
+        f.setPropertyValue("value", line.level);
+        col.add(f);
     }
 
     private static Coordinate interpolate(double candidate, Coordinate start, Coordinate end){
@@ -264,13 +328,21 @@ public class Isoline2 extends AbstractProcess {
         return ftb.build();
     }
 
-    private class BlockRunnable implements Runnable {
+    /**
+     * Compute the isolines of an image block.
+     * Coordinates are in image pixels, offset by the block position.
+     */
+    private class Block extends RecursiveTask<List<BlockStitcher.Line>> {
 
-        private final MathTransform gridtoCRS;
+        private final int index;
         private final PixelIterator ite;
+        private final int offsetX;
+        private final int offsetY;
         private final int width;
         private final int height;
-        private final double scale;
+        private final List<BlockStitcher.Line> lines = new ArrayList<>();
+        //pyramid tile transform
+        private MathTransform gridtoCRS;
 
         //previous triangles informations
         private Boundary[][] line0TopNeighbor; // [level][X] for previous line
@@ -283,21 +355,23 @@ public class Isoline2 extends AbstractProcess {
         private final Coordinate BL = new Coordinate();
         private final Coordinate BR = new Coordinate();
 
-        public BlockRunnable(MathTransform gridtoCRS, PixelIterator ite, int width, int height, double scale) {
+        private Block(int index, PixelIterator ite, int offsetX, int offsetY, int width, int height) {
+            this.index = index;
             this.ite = ite;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
             this.width = width;
             this.height = height;
-            this.scale = scale;
-            this.gridtoCRS = gridtoCRS;
         }
 
         @Override
-        public void run() {
+        protected List<BlockStitcher.Line> compute() {
             try {
                 computeIsoligne();
             } catch (ProcessException ex) {
-                LOGGER.log(Level.SEVERE, null, ex);
+                throw new IllegalStateException(ex.getMessage(), ex);
             }
+            return lines;
         }
 
         private void computeIsoligne() throws ProcessException{
@@ -317,10 +391,12 @@ public class Isoline2 extends AbstractProcess {
                         //calculate lines
                         if (y>0 && x>0) {
                             //set the 4 corner values
-                            UL.x = x-1;  UL.y = y-1;  UL.z = line0[x-1];
-                            UR.x = x  ;  UR.y = y-1;  UR.z = line0[x  ];
-                            BL.x = x-1;  BL.y = y  ;  BL.z = line1[x-1];
-                            BR.x = x  ;  BR.y = y  ;  BR.z = line1[x  ];
+                            final int gx = offsetX + x;
+                            final int gy = offsetY + y;
+                            UL.x = gx-1;  UL.y = gy-1;  UL.z = line0[x-1];
+                            UR.x = gx  ;  UR.y = gy-1;  UR.z = line0[x  ];
+                            BL.x = gx-1;  BL.y = gy  ;  BL.z = line1[x-1];
+                            BR.x = gx  ;  BR.y = gy  ;  BR.z = line1[x  ];
 
                             for (int k=0; k < intervals.length; k++){
                                 final double level = intervals[k];
@@ -335,8 +411,8 @@ public class Isoline2 extends AbstractProcess {
 
                     if(y>0){
                         //filter the constructions which are not used
-                        final Set<Construction> oldinconstructions = new HashSet<>();
-                        final Set<Construction> newinconstructions = new HashSet<>();
+                        final Set<Construction> oldinconstructions = new LinkedHashSet<>();
+                        final Set<Construction> newinconstructions = new LinkedHashSet<>();
                         for (int x=1; x<width; x++) {
                             for (int k=0; k < intervals.length; k++) {
                                 if (line0TopNeighbor[k][x] != null) {
@@ -366,7 +442,7 @@ public class Isoline2 extends AbstractProcess {
                 }
 
                 //loop on the last line to push the remaining geometries
-                final Set<Construction> oldinconstructions = new HashSet<>();
+                final Set<Construction> oldinconstructions = new LinkedHashSet<>();
                 for (int x=1; x<width; x++) {
                     for (int k=0; k < intervals.length; k++){
                         line0TopNeighbor[k][x].getConstructions(oldinconstructions);
@@ -976,16 +1052,9 @@ public class Isoline2 extends AbstractProcess {
             return newBoundary;
         }
 
-        private void pushGeometry(Geometry geom, double level) throws MismatchedDimensionException, TransformException{
+        private void pushGeometry(Geometry geom, double level) {
             if (geom == null) return;
-            final Feature f = type.newInstance();
-            f.setPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString(), "0");
-            geom = JTS.transform(geom, gridtoCRS);
-            JTS.setCRS(geom, crs);
-            f.setPropertyValue(AttributeConvention.GEOMETRY_PROPERTY.toString(), geom);
-            f.setPropertyValue("scale", scale);
-            f.setPropertyValue("value", level);
-            col.add(f);
+            lines.add(new BlockStitcher.Line(index, level, geom.getCoordinates()));
         }
     }
 }
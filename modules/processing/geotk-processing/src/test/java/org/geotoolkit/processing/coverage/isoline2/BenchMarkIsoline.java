@@ -0,0 +1,86 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.processing.coverage.isoline2;
+
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CommonCRS;
+import org.geotoolkit.coverage.grid.GridCoverageBuilder;
+import org.geotoolkit.coverage.memory.MemoryCoverageStore;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.process.ProcessDescriptor;
+import org.geotoolkit.process.ProcessFinder;
+import org.geotoolkit.processing.GeotkProcessingRegistry;
+import org.geotoolkit.storage.coverage.CoverageResource;
+import org.opengis.parameter.ParameterValueGroup;
+
+/**
+ * Compares the isoline computation time on the whole image and by blocks
+ * on the common fork join pool.
+ *
+ * Use example : java BenchMarkIsoline 2000
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkIsoline {
+
+    public static void main(String[] args) throws Exception {
+        final int size = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+
+        final float[][] matrix = new float[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                matrix[y][x] = (float) (Math.sin(x*0.021) * Math.cos(y*0.017) * 100);
+            }
+        }
+        final GeneralEnvelope env = new GeneralEnvelope(CommonCRS.WGS84.normalizedGeographic());
+        env.setRange(0, -180, 180);
+        env.setRange(1, -90, 90);
+        final GridCoverageBuilder gcb = new GridCoverageBuilder();
+        gcb.setEnvelope(env);
+        gcb.setRenderedImage(matrix);
+        final MemoryCoverageStore store = new MemoryCoverageStore(gcb.getGridCoverage2D());
+        final CoverageResource ref = store.findResource(store.getNames().iterator().next());
+        final double[] intervals = new double[]{-75, -50, -25, 0, 25, 50, 75};
+
+        //warm up
+        run(ref, intervals, Isoline2.BLOCK_SIZE);
+
+        long before = System.nanoTime();
+        final int whole = run(ref, intervals, size);
+        final long wholeTime = System.nanoTime() - before;
+
+        before = System.nanoTime();
+        final int blocks = run(ref, intervals, Isoline2.BLOCK_SIZE);
+        final long blockTime = System.nanoTime() - before;
+
+        System.out.println("Image " + size + "x" + size + ", " + intervals.length + " levels");
+        System.out.println("Whole image : " + wholeTime / 1000000 + " ms, " + whole + " lines");
+        System.out.println("Blocks      : " + blockTime / 1000000 + " ms, " + blocks + " lines");
+    }
+
+    private static int run(CoverageResource ref, double[] intervals, int blockSize) throws Exception {
+        final ProcessDescriptor desc = ProcessFinder.getProcessDescriptor(GeotkProcessingRegistry.NAME, IsolineDescriptor2.NAME);
+        final ParameterValueGroup procparams = desc.getInputDescriptor().createValue();
+        procparams.parameter("inCoverageRef").setValue(ref);
+        procparams.parameter("inIntervals").setValue(intervals);
+        final Isoline2 process = (Isoline2) desc.createProcess(procparams);
+        process.blockSize = blockSize;
+        final ParameterValueGroup result = process.call();
+        return ((FeatureCollection) result.parameter("outFeatureCollection").getValue()).size();
+    }
+
+}
@@ -20,6 +20,8 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.LineString;
+import java.util.ArrayList;
+import java.util.List;
 import org.geotoolkit.coverage.grid.GridCoverage2D;
 import org.geotoolkit.coverage.grid.GridCoverageBuilder;
 import org.geotoolkit.coverage.memory.MemoryCoverageStore;
@@ -213,4 +215,63 @@ public class IsolineTest extends org.geotoolkit.test.TestBase {
         }
     }
 
+    /**
+     * Isolines computed by blocks must be the same as computed on the whole image,
+     * and must not change between executions.
+     */
+    @Test
+    public void blocksTest() throws Exception{
+        final float[][] matrix = new float[60][80];
+        for (int y = 0; y < matrix.length; y++) {
+            for (int x = 0; x < matrix[0].length; x++) {
+                matrix[y][x] = (float) (Math.sin(x*0.21) * Math.cos(y*0.17) * 100);
+            }
+        }
+        final GeneralEnvelope env = new GeneralEnvelope(CommonCRS.WGS84.normalizedGeographic());
+        env.setRange(0, 0, 80);
+        env.setRange(1, 0, 60);
+
+        final GridCoverageBuilder gcb = new GridCoverageBuilder();
+        gcb.setEnvelope(env);
+        gcb.setRenderedImage(matrix);
+        final MemoryCoverageStore store = new MemoryCoverageStore(gcb.getGridCoverage2D());
+        final CoverageResource ref = store.findResource(store.getNames().iterator().next());
+
+        final List<Geometry> whole = computeIsolines(ref, 1000);
+        final List<Geometry> blocks = computeIsolines(ref, 7);
+        assertEquals(33, whole.size());
+        assertEquals(whole.size(), blocks.size());
+        int wholePoints = 0, blockPoints = 0;
+        double wholeLength = 0, blockLength = 0;
+        for (int i = 0; i < whole.size(); i++) {
+            wholePoints += whole.get(i).getNumPoints();
+            blockPoints += blocks.get(i).getNumPoints();
+            wholeLength += whole.get(i).getLength();
+            blockLength += blocks.get(i).getLength();
+        }
+        assertEquals(wholePoints, blockPoints);
+        assertEquals(wholeLength, blockLength, 0.000001);
+
+        final List<Geometry> again = computeIsolines(ref, 7);
+        for (int i = 0; i < blocks.size(); i++) {
+            assertTrue(blocks.get(i).equalsExact(again.get(i)));
+        }
+    }
+
+    private static List<Geometry> computeIsolines(CoverageResource ref, int blockSize) throws Exception {
+        final ProcessDescriptor desc = ProcessFinder.getProcessDescriptor(GeotkProcessingRegistry.NAME, IsolineDescriptor2.NAME);
+        final ParameterValueGroup procparams = desc.getInputDescriptor().createValue();
+        procparams.parameter("inCoverageRef").setValue(ref);
+        procparams.parameter("inIntervals").setValue(new double[]{12.345, -40.5, 0});
+        final Isoline2 process = (Isoline2) desc.createProcess(procparams);
+        process.blockSize = blockSize;
+        final ParameterValueGroup result = process.call();
+        final FeatureCollection col = (FeatureCollection) result.parameter("outFeatureCollection").getValue();
+        final List<Geometry> geoms = new ArrayList<>();
+        for (Feature f : col) {
+            geoms.add((Geometry) f.getPropertyValue(AttributeConvention.GEOMETRY_PROPERTY.toString()));
+        }
+        return geoms;
+    }
+
 }
@@ -0,0 +1,300 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.IIOException;
+import org.apache.sis.internal.storage.io.ChannelImageOutputStream;
+
+import static org.geotoolkit.metadata.geotiff.GeoTiffConstants.*;
+
+/**
+ * Copies a tiled TIFF file with the cloud optimized GeoTIFF layout :
+ * <ul>
+ *   <li>a "ghost" area after the header describing the layout, as written by GDAL,</li>
+ *   <li>all image file directories and their values,</li>
+ *   <li>the tiles of the last directory (smallest overview) up to the tiles of the
+ *       first directory (full resolution image), each in row major order.</li>
+ * </ul>
+ * A client can then read all directories with one request of a few kilobytes,
+ * and read any tile with one range request.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class CloudOptimizedLayout {
+
+    /**
+     * Size in bytes of tiff types, indexed by type code.
+     */
+    private static final int[] TYPE_SIZE = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8, 4, 0, 0, 8, 8, 8};
+
+    private static final short TYPE_LONG  = 4;
+    private static final short TYPE_LONG8 = 16;
+
+    private static final String GHOST = "LAYOUT=IFDS_BEFORE_DATA\n"
+                                      + "BLOCK_ORDER=ROW_MAJOR\n"
+                                      + "KNOWN_INCOMPATIBLE_EDITION=NO\n";
+
+    /**
+     * A tiff tag and its raw value, in the byte order of the file.
+     */
+    private static final class Entry {
+        int tag;
+        short type;
+        long count;
+        byte[] value;
+        long position;
+    }
+
+    /**
+     * An image file directory.
+     */
+    private static final class Directory {
+        final List<Entry> entries = new ArrayList<>();
+        Entry offsets;
+        Entry byteCounts;
+        long position;
+    }
+
+    private CloudOptimizedLayout() {
+    }
+
+    /**
+     * Copy the given tiff file in the output stream with the cloud optimized layout.
+     * The output must already contain the tiff header, in the same byte order and
+     * format (tiff or BigTIFF) as the source file, and be positioned after it.
+     *
+     * @param source tiff file written by {@link TiffImageWriter}.
+     * @param out destination stream, positioned after the tiff header.
+     * @return position in the output of the next IFD offset of the last directory.
+     * @throws IOException if the source can not be read or the output written.
+     */
+    static long write(final Path source, final ChannelImageOutputStream out) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            //-- header
+            ByteBuffer buffer = read(in, 0, 8, ByteOrder.BIG_ENDIAN);
+            final ByteOrder order = (buffer.get(0) == 'I') ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            buffer.order(order);
+            final boolean bigTiff = buffer.getShort(2) == 43;
+            if (!order.equals(out.getByteOrder())) {
+                throw new IIOException("Source and destination byte orders differ.");
+            }
+            final int sizeCount  = bigTiff ? 8 : 2;
+            final int sizeEntry  = bigTiff ? 20 : 12;
+            final int sizeOffset = bigTiff ? 8 : 4;
+            long ifd = bigTiff ? read(in, 8, 8, order).getLong(0) : buffer.getInt(4) & 0xFFFFFFFFL;
+
+            //-- read all directories
+            final List<Directory> directories = new ArrayList<>();
+            while (ifd != 0) {
+                buffer = read(in, ifd, sizeCount, order);
+                final long n = bigTiff ? buffer.getLong(0) : buffer.getShort(0) & 0xFFFF;
+                buffer = read(in, ifd + sizeCount, n * sizeEntry + sizeOffset, order);
+                final Directory dir = new Directory();
+                for (long i = 0; i < n; i++) {
+                    final Entry entry = new Entry();
+                    entry.tag   = buffer.getShort() & 0xFFFF;
+                    entry.type  = buffer.getShort();
+                    entry.count = bigTiff ? buffer.getLong() : buffer.getInt() & 0xFFFFFFFFL;
+                    final long size = entry.count * typeSize(entry.type);
+                    if (size <= sizeOffset) {
+                        entry.value = new byte[(int) size];
+                        final int pos = buffer.position();
+                        buffer.get(entry.value);
+                        buffer.position(pos + sizeOffset);
+                    } else {
+                        final long offset = bigTiff ? buffer.getLong() : buffer.getInt() & 0xFFFFFFFFL;
+                        entry.value = read(in, offset, size, order).array();
+                    }
+                    if (entry.tag == TileOffsets || entry.tag == StripOffsets) {
+                        dir.offsets = entry;
+                    } else if (entry.tag == TileByteCounts || entry.tag == StripByteCounts) {
+                        dir.byteCounts = entry;
+                    }
+                    dir.entries.add(entry);
+                }
+                if (dir.offsets == null || dir.byteCounts == null || dir.offsets.count != dir.byteCounts.count) {
+                    throw new IIOException("Image file directory without valid offsets and byte counts.");
+                }
+                //-- offsets are rewritten as LONG or LONG8, their size must be known before the layout
+                encode(dir.offsets, decode(dir.offsets, order), order);
+                directories.add(dir);
+                ifd = bigTiff ? buffer.getLong() : buffer.getInt() & 0xFFFFFFFFL;
+            }
+
+            //-- compute directories positions then data positions
+            final String size = "GDAL_STRUCTURAL_METADATA_SIZE=" + String.format("%06d", GHOST.length()) + " bytes\n";
+            final byte[] ghost = (size + GHOST).getBytes(StandardCharsets.US_ASCII);
+            long position = out.getStreamPosition() + ghost.length;
+            for (Directory dir : directories) {
+                position += position & 1;
+                dir.position = position;
+                position += sizeCount + dir.entries.size() * (long) sizeEntry + sizeOffset;
+                for (Entry entry : dir.entries) {
+                    if (entry.value.length > sizeOffset) {
+                        position += position & 1;
+                        entry.position = position;
+                        position += entry.value.length;
+                    }
+                }
+            }
+            final long[][] sourceOffsets = new long[directories.size()][];
+            for (int d = directories.size() - 1; d >= 0; d--) {
+                final Directory dir = directories.get(d);
+                final long[] offsets    = decode(dir.offsets, order);
+                final long[] byteCounts = decode(dir.byteCounts, order);
+                sourceOffsets[d] = offsets.clone();
+                final int length = dir.offsets.value.length;
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = (byteCounts[i] > 0) ? position : 0;
+                    position += byteCounts[i];
+                }
+                encode(dir.offsets, offsets, order);
+                assert dir.offsets.value.length == length;
+            }
+
+            //-- write ghost area and directories
+            out.write(ghost);
+            long nextPosition = 0;
+            for (int d = 0; d < directories.size(); d++) {
+                final Directory dir = directories.get(d);
+                pad(out, dir.position);
+                if (bigTiff) out.writeLong(dir.entries.size());
+                else out.writeShort(dir.entries.size());
+                for (Entry entry : dir.entries) {
+                    out.writeShort(entry.tag);
+                    out.writeShort(entry.type);
+                    if (bigTiff) out.writeLong(entry.count);
+                    else out.writeInt((int) entry.count);
+                    if (entry.value.length > sizeOffset) {
+                        if (bigTiff) out.writeLong(entry.position);
+                        else out.writeInt((int) entry.position);
+                    } else {
+                        out.write(entry.value);
+                        for (int i = entry.value.length; i < sizeOffset; i++) out.writeByte(0);
+                    }
+                }
+                nextPosition = out.getStreamPosition();
+                final long next = (d + 1 < directories.size()) ? directories.get(d + 1).position : 0;
+                if (bigTiff) out.writeLong(next);
+                else out.writeInt((int) next);
+                for (Entry entry : dir.entries) {
+                    if (entry.value.length > sizeOffset) {
+                        pad(out, entry.position);
+                        out.write(entry.value);
+                    }
+                }
+            }
+
+            //-- copy tiles, smallest overview first
+            for (int d = directories.size() - 1; d >= 0; d--) {
+                final long[] byteCounts = decode(directories.get(d).byteCounts, order);
+                for (int i = 0; i < byteCounts.length; i++) {
+                    if (byteCounts[i] > 0) {
+                        out.write(read(in, sourceOffsets[d][i], byteCounts[i], order).array());
+                    }
+                }
+            }
+            final long end = out.getStreamPosition();
+
+            //-- first directory offset in header
+            out.seek(bigTiff ? 8 : 4);
+            if (bigTiff) out.writeLong(directories.get(0).position);
+            else out.writeInt((int) directories.get(0).position);
+            out.seek(end);
+            return nextPosition;
+        }
+    }
+
+    private static int typeSize(final short type) throws IIOException {
+        if (type <= 0 || type >= TYPE_SIZE.length || TYPE_SIZE[type] == 0) {
+            throw new IIOException("Unsupported tiff type : " + type);
+        }
+        return TYPE_SIZE[type];
+    }
+
+    /**
+     * Write zeros up to the given position, used for word alignment.
+     */
+    private static void pad(final ChannelImageOutputStream out, final long position) throws IOException {
+        for (long p = out.getStreamPosition(); p < position; p++) {
+            out.writeByte(0);
+        }
+        assert out.getStreamPosition() == position;
+    }
+
+    private static ByteBuffer read(final FileChannel in, long position, final long length, final ByteOrder order) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IIOException("Tiff value too large : " + length + " bytes.");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) length).order(order);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decode an unsigned integer array value (SHORT, LONG or LONG8).
+     */
+    private static long[] decode(final Entry entry, final ByteOrder order) throws IIOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(entry.value).order(order);
+        final long[] values = new long[(int) entry.count];
+        for (int i = 0; i < values.length; i++) {
+            switch (entry.type) {
+                case 3           : values[i] = buffer.getShort() & 0xFFFF; break;
+                case TYPE_LONG   : values[i] = buffer.getInt() & 0xFFFFFFFFL; break;
+                case TYPE_LONG8  : values[i] = buffer.getLong(); break;
+                default : throw new IIOException("Unsupported offsets type : " + entry.type);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Encode offsets, as LONG8 values in BigTIFF files and LONG values otherwise.
+     */
+    private static void encode(final Entry entry, final long[] values, final ByteOrder order) throws IIOException {
+        if (entry.type != TYPE_LONG8) {
+            entry.type = TYPE_LONG;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(values.length * TYPE_SIZE[entry.type]).order(order);
+        for (long value : values) {
+            if (entry.type == TYPE_LONG8) {
+                buffer.putLong(value);
+            } else if (value > 0xFFFFFFFFL) {
+                throw new IIOException("Tiff file exceeds 4 Go, BigTIFF format is required.");
+            } else {
+                buffer.putInt((int) value);
+            }
+        }
+        entry.value = buffer.array();
+    }
+}
@@ -33,6 +33,7 @@ import java.nio.ByteBuffer;
 
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.awt.image.SampleModel;
@@ -81,6 +82,7 @@ import org.geotoolkit.image.io.InputStreamAdapter;
 import org.geotoolkit.image.io.SpatialImageReader;
 import org.geotoolkit.image.io.UnsupportedImageFormatException;
 import org.geotoolkit.image.io.metadata.SpatialMetadata;
+import org.geotoolkit.image.io.stream.HttpRangeImageInputStream;
 import org.geotoolkit.image.internal.ImageUtils;
 import org.geotoolkit.image.io.SpatialImageReadParam;
 import org.geotoolkit.internal.image.io.SupportFiles;
@@ -1069,7 +1071,86 @@ public class TiffImageReader extends SpatialImageReader {
     @Override
     public BufferedImage read(final int imageIndex, final ImageReadParam param) throws IOException {
         checkLayers();
-        return readLayer(getLayerIndex(imageIndex), param);
+        final int layerIndex = getLayerIndex(imageIndex);
+        if (param instanceof SpatialImageReadParam && ((SpatialImageReadParam) param).isSubsamplingChangeAllowed()) {
+            final BufferedImage image = readOverview(layerIndex, param);
+            if (image != null) return image;
+        }
+        return readLayer(layerIndex, param);
+    }
+
+    /**
+     * Reads the reduced resolution layer (overview) of the given image which best matches the
+     * requested subsampling, if any. Overviews are the layers marked by {@link GeoTiffConstants#NewSubfileType}
+     * which follow the image, with same samples and a size of the image size divided by an integer factor.
+     * On success the subsampling and the source region of the given parameters are updated to the
+     * values actually read, expressed in full resolution image coordinates.
+     *
+     * @param layerIndex full resolution layer index.
+     * @param param parameters which allow subsampling change.
+     * @return read image or {@code null} if no overview can be used.
+     * @throws IOException If an error occurred while reading the image.
+     */
+    private BufferedImage readOverview(final int layerIndex, final ImageReadParam param) throws IOException {
+        final int sx = param.getSourceXSubsampling();
+        final int sy = param.getSourceYSubsampling();
+        final List<Integer> overviews = imgAndThumbs.get(layerIndex);
+        if ((sx == 1 && sy == 1) || overviews == null || overviews.isEmpty()
+                || param.getSubsamplingXOffset() != 0 || param.getSubsamplingYOffset() != 0
+                || param.getDestination() != null) {
+            return null;
+        }
+        selectLayer(layerIndex);
+        final int width  = imageWidth;
+        final int height = imageHeight;
+        final int spp    = samplesPerPixel;
+        final long[] bps = bitsPerSample;
+        final int maxFactor = Math.min(sx, sy);
+        int overview = -1;
+        int factor   = 1;
+        for (int layer : overviews) {
+            selectLayer(layer);
+            final int f = (int) Math.round(width / (double) imageWidth);
+            if (f > factor && f <= maxFactor
+                    && (width  + f - 1) / f == imageWidth
+                    && (height + f - 1) / f == imageHeight
+                    && samplesPerPixel == spp && Arrays.equals(bitsPerSample, bps)) {
+                overview = layer;
+                factor   = f;
+            }
+        }
+        if (overview < 0) return null;
+
+        final Rectangle region = new Rectangle(width, height);
+        final Rectangle requested = param.getSourceRegion();
+        if (requested != null) {
+            Rectangle2D.intersect(region, requested, region);
+            if (region.isEmpty()) return null;
+        }
+        //-- overview pixel (i, j) covers full resolution pixels from (i * factor, j * factor)
+        final int minX = region.x / factor;
+        final int minY = region.y / factor;
+        final int maxX = Math.min((region.x + region.width  + factor - 1) / factor, (width  + factor - 1) / factor);
+        final int maxY = Math.min((region.y + region.height + factor - 1) / factor, (height + factor - 1) / factor);
+        final Rectangle overviewRegion = new Rectangle(minX, minY, maxX - minX, maxY - minY);
+        final int osx = sx / factor;
+        final int osy = sy / factor;
+
+        param.setSourceRegion(overviewRegion);
+        param.setSourceSubsampling(osx, osy, 0, 0);
+        final BufferedImage image;
+        try {
+            image = readLayer(overview, param);
+        } catch (IOException | RuntimeException ex) {
+            param.setSourceRegion(requested);
+            param.setSourceSubsampling(sx, sy, 0, 0);
+            throw ex;
+        }
+        param.setSourceRegion(new Rectangle(minX * factor, minY * factor,
+                Math.min(overviewRegion.width  * factor, width  - minX * factor),
+                Math.min(overviewRegion.height * factor, height - minY * factor)));
+        param.setSourceSubsampling(osx * factor, osy * factor, 0, 0);
+        return image;
     }
 
     /**
@@ -3876,6 +3957,9 @@ public class TiffImageReader extends SpatialImageReader {
         } else if (input instanceof InputStream) {
             if (!(input instanceof FileInputStream)) ((InputStream) input).reset();
             return Channels.newChannel((InputStream) input);
+        } else if (input instanceof HttpRangeImageInputStream) {
+            //-- seekable channel sharing the stream cache, tiles are read by range requests
+            return ((HttpRangeImageInputStream) input).newChannel();
         } else if (input instanceof ImageInputStream) {
             final ImageInputStream IIS = (ImageInputStream) input;
             IIS.reset(); IIS.mark();
@@ -29,12 +29,163 @@ import org.geotoolkit.image.io.SpatialImageWriteParam;
  */
 public class TiffImageWriteParam extends SpatialImageWriteParam {
 
+    /**
+     * Tiles compressed with LZW or Deflate are encoded concurrently by default.
+     */
+    private boolean concurrentEncoding = true;
+
+    /**
+     * Tiff predictor : 1 none, 2 horizontal differencing, 3 floating point.
+     */
+    private int predictor = 1;
+
+    /**
+     * Deflate compression level, from 0 to 9.
+     */
+    private int deflateLevel = 6;
+
+    /**
+     * Force BigTIFF output.
+     */
+    private boolean bigTIFF;
+
+    /**
+     * Subsampling factors of the reduced resolution images (overviews), or {@code null}.
+     */
+    private int[] overviews;
+
+    /**
+     * Write a cloud optimized GeoTIFF.
+     */
+    private boolean cloudOptimized;
+
     public TiffImageWriteParam(ImageWriter writer) {
         super(writer);
         canOffsetTiles      = false;
         canWriteCompressed  = true;
         canWriteProgressive = false;
         canWriteTiles       = true;
-        compressionTypes    = new String[]{"LZW", "PackBits"};
+        compressionTypes    = new String[]{"LZW", "PackBits", "Deflate"};
+    }
+
+    /**
+     * @return true if tiles compressed with LZW or Deflate are encoded concurrently.
+     */
+    public boolean isConcurrentEncoding() {
+        return concurrentEncoding;
+    }
+
+    /**
+     * Set to true to encode tiles compressed with LZW or Deflate concurrently.
+     * Tiles are still written in order. This parameter has no effect on images
+     * written by strips.
+     *
+     * @param concurrentEncoding true for concurrent tile encoding
+     */
+    public void setConcurrentEncoding(boolean concurrentEncoding) {
+        this.concurrentEncoding = concurrentEncoding;
+    }
+
+    /**
+     * @return tiff predictor, 1 none, 2 horizontal differencing, 3 floating point
+     */
+    public int getPredictor() {
+        return predictor;
+    }
+
+    /**
+     * Set the predictor applied before LZW or Deflate compression.
+     * Images written with a predictor are always written by tiles.
+     * The floating point predictor is only allowed for float and double samples.
+     *
+     * @param predictor 1 none, 2 horizontal differencing, 3 floating point
+     */
+    public void setPredictor(int predictor) {
+        if (predictor < 1 || predictor > 3) {
+            throw new IllegalArgumentException("Predictor must be 1, 2 or 3, found : "+predictor);
+        }
+        this.predictor = predictor;
+    }
+
+    /**
+     * @return deflate compression level, from 0 to 9
+     */
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    /**
+     * Set the Deflate compression level, 1 is the fastest, 9 the smallest.
+     *
+     * @param deflateLevel compression level, from 0 to 9
+     */
+    public void setDeflateLevel(int deflateLevel) {
+        if (deflateLevel < 0 || deflateLevel > 9) {
+            throw new IllegalArgumentException("Deflate level must be between 0 and 9, found : "+deflateLevel);
+        }
+        this.deflateLevel = deflateLevel;
+    }
+
+    /**
+     * @return true if the image is written in BigTIFF format regardless of its size.
+     */
+    public boolean isBigTIFF() {
+        return bigTIFF;
+    }
+
+    /**
+     * Set to true to write the image in BigTIFF format regardless of its size.
+     * Otherwise BigTIFF is used when the uncompressed image exceeds 1 Go,
+     * which is needed when the file may exceed 4 Go.
+     *
+     * @param bigTIFF true to force BigTIFF output
+     */
+    public void setBigTIFF(boolean bigTIFF) {
+        this.bigTIFF = bigTIFF;
+    }
+
+    /**
+     * @return subsampling factors of the overviews written after the image, or {@code null}.
+     */
+    public int[] getOverviews() {
+        return (overviews != null) ? overviews.clone() : null;
+    }
+
+    /**
+     * Set the subsampling factors of the reduced resolution images (overviews) written
+     * after the image, for example {2, 4, 8}. Overviews are built by taking one pixel
+     * every factor pixels, with the same tiling and compression as the image.
+     *
+     * @param overviews strictly increasing factors greater than 1, or {@code null} for none.
+     */
+    public void setOverviews(int... overviews) {
+        if (overviews != null) {
+            overviews = overviews.clone();
+            for (int i = 0; i < overviews.length; i++) {
+                if (overviews[i] < 2 || (i > 0 && overviews[i] <= overviews[i-1])) {
+                    throw new IllegalArgumentException("Overview factors must be strictly increasing and greater than 1.");
+                }
+            }
+        }
+        this.overviews = overviews;
+    }
+
+    /**
+     * @return true if a cloud optimized GeoTIFF is written.
+     */
+    public boolean isCloudOptimized() {
+        return cloudOptimized;
+    }
+
+    /**
+     * Set to true to write a cloud optimized GeoTIFF : the image is tiled, all image file
+     * directories are written at the beginning of the file, followed by the tiles of the
+     * smallest overview up to the tiles of the full resolution image, row by row.
+     * If no overviews are defined, overviews are added until the image fits in one tile.
+     *
+     * @param cloudOptimized true to write a cloud optimized GeoTIFF
+     */
+    public void setCloudOptimized(boolean cloudOptimized) {
+        this.cloudOptimized = cloudOptimized;
     }
 }
@@ -31,6 +31,7 @@ import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -39,6 +40,7 @@ import java.lang.reflect.Array;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
@@ -120,6 +122,19 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private final static String packbits = "PackBits";
 
+    /**
+     * String use to determinate deflate compression type.
+     *
+     * @see TiffImageWriteParam#compressionTypes
+     */
+    private final static String deflate  = "Deflate";
+
+    /**
+     * Tile size used when the compression or the predictor requires a tiled image
+     * and no tiling has been requested.
+     */
+    private static final int DEFAULT_TILE_SIZE = 256;
+
     /**
      * Size of data structures in standard TIFF files ({@code SIZE_*}) and in big TIFF files
      * ({@code SIZE_BIG_*}). In standard TIFF, the size of structures for counting the number
@@ -310,6 +325,11 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private int compression;
 
+    /**
+     * Predictor value of current image writing.
+     */
+    private int predictor = 1;
+
     /**
      * {@code Rectangle} which define boundary of the current written image.<br/>
      * See {@linkplain #computeRegions(java.awt.image.RenderedImage, javax.imageio.ImageWriteParam) }.
@@ -471,7 +491,22 @@ public class TiffImageWriter extends SpatialImageWriter {
     @Override
     public void write(final IIOMetadata streamMetadata, final IIOImage image, final ImageWriteParam param) throws IOException {
         ArgumentChecks.ensureNonNull("IIOImage image", image);
+        if (param instanceof TiffImageWriteParam && ((TiffImageWriteParam) param).isCloudOptimized()) {
+            writeCloudOptimized(streamMetadata, image, param);
+        } else {
+            writeLayers(streamMetadata, image, param);
+        }
+    }
 
+    /**
+     * Write the image, its overviews and its thumbnails, each one after the other.
+     *
+     * @param streamMetadata metadatas.
+     * @param image
+     * @param param properties to write image or null.
+     * @throws IOException if problem during image writing.
+     */
+    private void writeLayers(final IIOMetadata streamMetadata, final IIOImage image, final ImageWriteParam param) throws IOException {
         if (param != null && param.getSourceBands() != null) {
             LOGGER.log(Level.WARNING, "Tiff Image writer does not manage source band selection. ImageWriteParam.sourceBands parameter will be ignored.");
         }
@@ -507,6 +542,7 @@ public class TiffImageWriter extends SpatialImageWriter {
             addMetadataProperties(iioNode, headProperties);
         }
         write(img, headProperties, param, ifdPosition);
+        writeOverviews(img, param);
         final List<? extends BufferedImage> thumbnails = image.getThumbnails();
         if (thumbnails != null) {
             for (BufferedImage buff : thumbnails) {
@@ -520,6 +556,88 @@ public class TiffImageWriter extends SpatialImageWriter {
         }
     }
 
+    /**
+     * Write the reduced resolution images (overviews) requested by {@link TiffImageWriteParam#getOverviews()}
+     * after the image last written. Overviews are written with the same parameters as the image,
+     * the source subsampling being multiplied by each overview factor.
+     * If no overviews are requested for a cloud optimized GeoTIFF, overviews are added
+     * until the image fits in one tile.
+     *
+     * @param image image last written.
+     * @param param properties used to write image or null.
+     * @throws IOException if problem during writing.
+     */
+    private void writeOverviews(final RenderedImage image, final ImageWriteParam param) throws IOException {
+        if (!(param instanceof TiffImageWriteParam)) return;
+        final TiffImageWriteParam tiffParam = (TiffImageWriteParam) param;
+        int[] factors = tiffParam.getOverviews();
+        if (factors == null) {
+            if (!tiffParam.isCloudOptimized() || currentImgTW == 0 || currentImgTH == 0) return;
+            factors = new int[0];
+            for (int f = 1; (destRegion.width  + f - 1) / f > currentImgTW
+                         || (destRegion.height + f - 1) / f > currentImgTH;) {
+                f <<= 1;
+                factors = ArraysExt.append(factors, f);
+            }
+        }
+        final int subsampleX = param.getSourceXSubsampling();
+        final int subsampleY = param.getSourceYSubsampling();
+        final int offsetX    = param.getSubsamplingXOffset();
+        final int offsetY    = param.getSubsamplingYOffset();
+        try {
+            for (int factor : factors) {
+                assert headProperties == null;
+                //-- a new distinct map for each layer --//
+                headProperties = new TreeMap<>();
+                //-- reduced resolution image --//
+                if (isBigTIFF) {
+                    addProperty(NewSubfileType, TYPE_ULONG, 1, new long[]{1}, headProperties);
+                } else {
+                    addProperty(NewSubfileType, TYPE_UINT, 1, new int[]{1}, headProperties);
+                }
+                param.setSourceSubsampling(subsampleX * factor, subsampleY * factor, offsetX, offsetY);
+                write(image, headProperties, param, ifdPosition);
+            }
+        } finally {
+            param.setSourceSubsampling(subsampleX, subsampleY, offsetX, offsetY);
+        }
+    }
+
+    /**
+     * Write a cloud optimized GeoTIFF : the image and its overviews are first written in a
+     * temporary file, which is then copied in the output with the directories at the beginning
+     * of the file and the tiles of the smallest overview first.
+     *
+     * @param streamMetadata metadatas.
+     * @param image
+     * @param param properties to write image.
+     * @throws IOException if problem during image writing.
+     * @see CloudOptimizedLayout
+     */
+    private void writeCloudOptimized(final IIOMetadata streamMetadata, final IIOImage image, final ImageWriteParam param) throws IOException {
+        if (channel != null) {
+            throw new IllegalStateException("A cloud optimized GeoTIFF must be the first image of the file.");
+        }
+        final Path temp = Files.createTempFile("cog", ".tiff");
+        try {
+            final TiffImageWriter writer = new TiffImageWriter((Spi) originatingProvider);
+            try {
+                writer.setOutput(temp);
+                writer.writeLayers(streamMetadata, image, param);
+            } finally {
+                writer.dispose();
+            }
+            isBigTIFF = writer.isBigTIFF;
+            currentSizeEntry     = writer.currentSizeEntry;
+            currentSizeTagNumber = writer.currentSizeTagNumber;
+            currentSizeNextIFD   = writer.currentSizeNextIFD;
+            open(ifdPosition);
+            ifdPosition[1] = CloudOptimizedLayout.write(temp, channel);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     /**
      * {@inheritDoc }.
      *
@@ -585,6 +703,7 @@ public class TiffImageWriter extends SpatialImageWriter {
             addMetadataProperties(iioNode, headProperties);
         }
         write(img, headProperties, param, ifdPosition);
+        writeOverviews(img, param);
         for (BufferedImage buff : image.getThumbnails()) {
             assert headProperties == null;
             //-- a new distinct map for each layer --//
@@ -1009,7 +1128,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                        final ImageWriteParam param, final long[] ifdPosition) throws IOException {
         if (channel != null) {
             //-- We authorize to write none big tiff image after big tiff already writen but not the inverse --//
-            if (isBigTIFF != isBigTiff(image)) {
+            if (isBigTIFF != isBigTiff(image, param)) {
                 if (!isBigTIFF)
                 throw new IllegalArgumentException("You can't write a bigtiff image when you have already writen none bigtiff image.");
             }
@@ -1029,7 +1148,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                 ifdPosition[0] = offset;
             }
         } else {
-            isBigTIFF = isBigTiff(image);
+            isBigTIFF = isBigTiff(image, param);
             if (isBigTIFF) {
                 currentSizeEntry     = SIZE_BIG_ENTRY;
                 currentSizeTagNumber = Long.SIZE / Byte.SIZE; // long
@@ -1221,11 +1340,16 @@ public class TiffImageWriter extends SpatialImageWriter {
     /**
      * Return {@code true} if image as a weight over than 4 Go else {@code false}.<br/>
      * In tiff specification an image is considered as a BigTiff when its weight exceed 4Go.
+     * BigTiff output may also be forced by {@link TiffImageWriteParam#setBigTIFF(boolean)}.
      *
      * @param image source image which will be written.
+     * @param param properties to write image or null.
      * @return {@code true} if image is a {@code BigTiff} else {@code false}.
      */
-    private boolean isBigTiff(final RenderedImage image) {
+    private boolean isBigTiff(final RenderedImage image, final ImageWriteParam param) {
+        if (param instanceof TiffImageWriteParam && ((TiffImageWriteParam) param).isBigTIFF()) {
+            return true;
+        }
         final int imgWidth     = image.getWidth();
         final int imgHeight    = image.getHeight();
         final SampleModel sm   = image.getSampleModel();
@@ -1367,6 +1491,7 @@ public class TiffImageWriter extends SpatialImageWriter {
         //-- compression --//
         compression = extractCompression(param);
         addProperty(Compression, TYPE_USHORT, 1, new short[]{(short) compression}, properties);
+        predictor = 1;
 
         //-- planar configuration
         final short planarConfig = getPlanarConfiguration(sm);
@@ -1500,6 +1625,12 @@ public class TiffImageWriter extends SpatialImageWriter {
         compression = extractCompression(param);
         addProperty(Compression, TYPE_USHORT, 1, new short[]{(short) compression}, properties);
 
+        //-- predictor --//
+        predictor = extractPredictor(param, compression, sm.getDataType());
+        if (predictor != 1) {
+            addProperty(Predictor, TYPE_USHORT, 1, new short[]{(short) predictor}, properties);
+        }
+
         /*
          * Some globals class attribut have been already initialized to define writing made.
          * See method computeRegion.
@@ -1523,6 +1654,8 @@ public class TiffImageWriter extends SpatialImageWriter {
                     compression = 5;
                 } else if (packbits.equalsIgnoreCase(comp)) {
                     compression = 32773;
+                } else if (deflate.equalsIgnoreCase(comp)) {
+                    compression = 8;
                 } else {
                     throw new IllegalStateException("the compression type : "+comp+". Is not known. Impossible to write image.");
                 }
@@ -1532,6 +1665,31 @@ public class TiffImageWriter extends SpatialImageWriter {
         return compression;
     }
 
+    /**
+     * Internal method used to extract tiff predictor from image write parameters.
+     * Predictors only apply to LZW and Deflate compressions.
+     */
+    private static int extractPredictor(final ImageWriteParam param, final int compression, final int dataType) {
+        if (!(param instanceof TiffImageWriteParam) || (compression != 5 && compression != 8)) return 1;
+        final int predictor = ((TiffImageWriteParam) param).getPredictor();
+        if (predictor == 3 && dataType != DataBuffer.TYPE_FLOAT && dataType != DataBuffer.TYPE_DOUBLE) {
+            throw new IllegalStateException("Floating point predictor is only allowed for float and double samples.");
+        }
+        return predictor;
+    }
+
+    /**
+     * Returns {@code true} if the image must be written by tiles : Deflate compression
+     * and predictors are only supported for tiled images, cloud optimized GeoTIFF are tiled.
+     */
+    private static boolean requiresTiles(final ImageWriteParam param) {
+        final int compression = extractCompression(param);
+        if (compression == 8) return true;
+        if (!(param instanceof TiffImageWriteParam)) return false;
+        final TiffImageWriteParam tiffParam = (TiffImageWriteParam) param;
+        return tiffParam.isCloudOptimized() || (compression == 5 && tiffParam.getPredictor() != 1);
+    }
+
     /**
      * Add appropriate tag in {@link #headProperties} adapted to strip offset writing of current image.<br/>
      * Note : in this current implementation we admit one row for one strip.
@@ -2051,210 +2209,298 @@ public class TiffImageWriter extends SpatialImageWriter {
         lastByte32773     = destTileByteCount - 1;
         precLastByte32773 = lastByte32773     - 1;
 
+        /*
+         * Deflate, predictors and concurrent LZW : each tile is written uncompressed in memory,
+         * then encoded, possibly concurrently, and the encoded tiles are written in tile order.
+         */
+        final TiffImageWriteParam tiffParam = (param instanceof TiffImageWriteParam) ? (TiffImageWriteParam) param : null;
+        TiffTileEncoder encoder = null;
+        if (compression == 8 || predictor != 1
+         || (compression == 5 && tiffParam != null && tiffParam.isConcurrentEncoding())) {
+            encoder = new TiffTileEncoder(compression, predictor, (tiffParam != null) ? tiffParam.getDeflateLevel() : 6,
+                    bitPerSample, (planarConf == 2) ? 1 : samplePerPixel, currentImgTW, currentBO,
+                    tiffParam == null || tiffParam.isConcurrentEncoding());
+        }
+        final int sampleCompression = (encoder != null) ? 1 : compression;
+        final ChannelImageOutputStream fileChannel = channel;
+        final ByteArrayOutputStream tileBytes;
+        if (encoder != null) {
+            tileBytes = new ByteArrayOutputStream((int) Math.min(destTileByteCount, Integer.MAX_VALUE - 8));
+            final ByteBuffer tileBuffer = ByteBuffer.allocate(8196);
+            tileBuffer.order(currentBO);
+            channel = new ChannelImageOutputStream("TiffTile", Channels.newChannel(tileBytes), tileBuffer);
+        } else {
+            tileBytes = null;
+        }
+
         // initialize tile offset
         long tileOffsetBeg = channel.getStreamPosition();//-- position in bytes
         int tileOffsetID = 0;
+        int encodedTileID = 0;
 
-        for (int bank = 0; bank < numbanks; bank++) {
-            for (int cty = 0; cty < currentNumYT; cty++) {
-                for (int ctx = 0; ctx < currentNumXT; ctx++) {
-                    assert channel.getBitOffset() == 0;
-
-                    //-- compute current destination tile coordinates
-                    final int ctRminy = miny + cty * subsampletileHeight;
-                    final int ctRmaxy = ctRminy + subsampletileHeight;
-                    final int ctRminx = minx + ctx * subsampletileWidth;
-                    final int ctRmaxx = ctRminx + subsampletileWidth;
-
-                    //-- intersection on Y axis --//
-                    final int interMinY = Math.max(ctRminy, srcRegion.y);
-                    final int interMaxY = Math.min(ctRmaxy, srcRegionMaxY);
+        try {
+            for (int bank = 0; bank < numbanks; bank++) {
+                for (int cty = 0; cty < currentNumYT; cty++) {
+                    for (int ctx = 0; ctx < currentNumXT; ctx++) {
+                        assert channel.getBitOffset() == 0;
 
-                    //-- intersection on X axis --//
-                    final int interMinX = Math.max(ctRminx, srcRegion.x);
-                    final int interMaxX = Math.min(ctRmaxx, srcRegionMaxX);
+                        //-- compute current destination tile coordinates
+                        final int ctRminy = miny + cty * subsampletileHeight;
+                        final int ctRmaxy = ctRminy + subsampletileHeight;
+                        final int ctRminx = minx + ctx * subsampletileWidth;
+                        final int ctRmaxx = ctRminx + subsampletileWidth;
 
-                    /*
-                     * No intersection.
-                     * Means destination offset greater than tile width or height.
-                     */
-                    if (interMaxX <= interMinX || interMaxY <= interMinY) {
+                        //-- intersection on Y axis --//
+                        final int interMinY = Math.max(ctRminy, srcRegion.y);
+                        final int interMaxY = Math.min(ctRmaxy, srcRegionMaxY);
 
-                        //-- ecrire tuile vierge --//
-                        write(dstOffYArray, dataType, 0, destTileStride, bitPerSample, compression, sm.getNumBands(), sm.getNumDataElements(), null);//-- padding offset array, dataoffset has no impact write empty samples
-
-                        //-- Use during packBit compression --//
-                        lastByte32773     += destTileByteCount;
-                        precLastByte32773 += destTileByteCount;
+                        //-- intersection on X axis --//
+                        final int interMinX = Math.max(ctRminx, srcRegion.x);
+                        final int interMaxX = Math.min(ctRmaxx, srcRegionMaxX);
 
                         /*
-                         * To stipulate end of current destination tile.
-                         * Moreover in this current algorithm channel is automaticaly
-                         * flushed when we write LZW end of file value.
+                         * No intersection.
+                         * Means destination offset greater than tile width or height.
                          */
-                        if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
-
-                        final long currentOffset = channel.getStreamPosition();
-                        final long currentTileByteCount = currentOffset - tileOffsetBeg;
-
-                        if (compression == 1)
-                            assert currentTileByteCount == currentImgTW * currentImgTH * pixelLength * sampleByteCount :"expected currentByteCount = "+(currentImgTW * currentImgTH * pixelLength * sampleByteCount)+" found = "+currentTileByteCount+" at tile ("+ctx+", "+cty+").";
-
-                        if (isBigTIFF) {
-                            Array.setLong(offsetArray, tileOffsetID, tileOffsetBeg);
-                            Array.setLong(byteCountArray, tileOffsetID++, currentTileByteCount);
-                        } else {
-                            Array.setInt(offsetArray, tileOffsetID, (int) tileOffsetBeg);
-                            Array.setInt(byteCountArray, tileOffsetID++, (int) currentTileByteCount);
-                        }
-                        tileOffsetBeg = currentOffset;
-                        continue;
-                    }
-
-                    //-- destination offset point in Y direction --//
-                    for (int r = ctRminy; r < interMinY; r += subsampleY) {
-                        write(dstOffYArray, dataType, 0, currentImgTW * pixelLength, bitPerSample, compression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
-                    }
-
-                    //-- we looking for which tiles from image will be used to fill destination tile.
-                    final int imageminTy = imageTileGridYOffset + (interMinY - imageMinY) / imageTileHeight;
-                    int imagemaxTy = imageTileGridYOffset + (interMaxY - imageMinY + imageTileHeight - 1) / imageTileHeight;
-                    // -- in cause of padding imagemaxTy should exceed max tile grid offset from image.
-                    imagemaxTy = Math.min(imagemaxTy, imageMaxTileGridYOffset);
-
-                    final int imageminTx = imageTileGridXOffset + (interMinX - imageMinX) / imageTileWidth;
-                    int imagemaxTx = imageTileGridXOffset + (interMaxX - imageMinX + imageTileWidth - 1) / imageTileWidth;
-                    // -- in cause of padding imagemaxTx should exceed max tile grid offset from image.
-                    imagemaxTx = Math.min(imagemaxTx, imageMaxTileGridXOffset);
-
-                    int cuImgTileMinY = imageMinY + (imageminTy - imageTileGridYOffset) * imageTileHeight;
-                    int cuImgTileMaxY = StrictMath.min(cuImgTileMinY + imageTileHeight, imageMinY + image.getHeight());
-                    for (int imgTy = imageminTy; imgTy < imagemaxTy; imgTy++) {
-
-                        final int deby  = Math.max(cuImgTileMinY, interMinY);
-                        final int tendy = Math.min(cuImgTileMaxY, interMaxY);
-                        final int endy  = Math.min(srcRegionMaxY, tendy);
+                        if (interMaxX <= interMinX || interMaxY <= interMinY) {
+
+                            //-- ecrire tuile vierge --//
+                            write(dstOffYArray, dataType, 0, destTileStride, bitPerSample, sampleCompression, sm.getNumBands(), sm.getNumDataElements(), null);//-- padding offset array, dataoffset has no impact write empty samples
+
+                            //-- Use during packBit compression --//
+                            lastByte32773     += destTileByteCount;
+                            precLastByte32773 += destTileByteCount;
+
+                            /*
+                             * To stipulate end of current destination tile.
+                             * Moreover in this current algorithm channel is automaticaly
+                             * flushed when we write LZW end of file value.
+                             */
+                            if (encoder != null) {
+                                encodedTileID = encodeTile(encoder, tileBytes, fileChannel, encodedTileID, offsetArray, byteCountArray);
+                                tileOffsetID++;
+                                continue;
+                            }
+                            if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
 
-                        for (int y = deby; y < endy; y += subsampleY) {
+                            final long currentOffset = channel.getStreamPosition();
+                            final long currentTileByteCount = currentOffset - tileOffsetBeg;
 
-                            //-- destination offset in X direction --//
-                            int dstOffWriteLength = Math.min(interMinX - ctRminx, subsampletileWidth);
+                            if (compression == 1)
+                                assert currentTileByteCount == currentImgTW * currentImgTH * pixelLength * sampleByteCount :"expected currentByteCount = "+(currentImgTW * currentImgTH * pixelLength * sampleByteCount)+" found = "+currentTileByteCount+" at tile ("+ctx+", "+cty+").";
 
-                            if (dstOffWriteLength > 0) {
-                                assert dstOffWriteLength % subsampleX == 0 : "dstOffWriteLength = "+dstOffWriteLength+" , subsampleX = "+subsampleX;
-                                dstOffWriteLength /= subsampleX;
-                                dstOffWriteLength *= pixelLength;
-                                write(dstOffYArray, dataType, 0, dstOffWriteLength, bitPerSample, compression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
+                            if (isBigTIFF) {
+                                Array.setLong(offsetArray, tileOffsetID, tileOffsetBeg);
+                                Array.setLong(byteCountArray, tileOffsetID++, currentTileByteCount);
+                            } else {
+                                Array.setInt(offsetArray, tileOffsetID, (int) tileOffsetBeg);
+                                Array.setInt(byteCountArray, tileOffsetID++, (int) currentTileByteCount);
                             }
+                            tileOffsetBeg = currentOffset;
+                            continue;
+                        }
 
-                            // -- current image tile coordinates in X direction
-                            int cuImgTileMinX = imageMinX + (imageminTx - imageTileGridXOffset) * imageTileWidth;
-                            int cuImgTileMaxX = cuImgTileMinX + imageTileWidth;
-
-                            //-- travel tile on X direction --//
-                            for (int imgTx = imageminTx; imgTx < imagemaxTx; imgTx++) {
-
-                                // -- get the following image raster
-                                final Raster imageTile        = image.getTile(imgTx, imgTy);
-                                final DataBuffer rasterBuffer = imageTile.getDataBuffer();
+                        //-- destination offset point in Y direction --//
+                        for (int r = ctRminy; r < interMinY; r += subsampleY) {
+                            write(dstOffYArray, dataType, 0, currentImgTW * pixelLength, bitPerSample, sampleCompression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
+                        }
 
+                        //-- we looking for which tiles from image will be used to fill destination tile.
+                        final int imageminTy = imageTileGridYOffset + (interMinY - imageMinY) / imageTileHeight;
+                        int imagemaxTy = imageTileGridYOffset + (interMaxY - imageMinY + imageTileHeight - 1) / imageTileHeight;
+                        // -- in cause of padding imagemaxTy should exceed max tile grid offset from image.
+                        imagemaxTy = Math.min(imagemaxTy, imageMaxTileGridYOffset);
 
-                                // offset in pixels number in source image currently tile
-                                final int stepOffsetBeforeY = (deby - cuImgTileMinY) * imageTile.getWidth();
+                        final int imageminTx = imageTileGridXOffset + (interMinX - imageMinX) / imageTileWidth;
+                        int imagemaxTx = imageTileGridXOffset + (interMaxX - imageMinX + imageTileWidth - 1) / imageTileWidth;
+                        // -- in cause of padding imagemaxTx should exceed max tile grid offset from image.
+                        imagemaxTx = Math.min(imagemaxTx, imageMaxTileGridXOffset);
 
-                                // -- offset in y direction
-                                final int stepY = (y - deby) * imageTile.getWidth();
+                        int cuImgTileMinY = imageMinY + (imageminTy - imageTileGridYOffset) * imageTileHeight;
+                        int cuImgTileMaxY = StrictMath.min(cuImgTileMinY + imageTileHeight, imageMinY + image.getHeight());
+                        for (int imgTy = imageminTy; imgTy < imagemaxTy; imgTy++) {
 
-                                //-- to crop last image raster on higher border index
-                                //-- which not necessary same size of other tile. (It is in contradiction of renderedImage but not false)
-                                cuImgTileMaxX = StrictMath.min(cuImgTileMaxX, cuImgTileMinX + imageTile.getWidth());
+                            final int deby  = Math.max(cuImgTileMinY, interMinY);
+                            final int tendy = Math.min(cuImgTileMaxY, interMaxY);
+                            final int endy  = Math.min(srcRegionMaxY, tendy);
 
-                                final Object sourceArray;
-                                switch (dataType) {
-                                    case DataBuffer.TYPE_BYTE   : sourceArray = ((DataBufferByte)   rasterBuffer).getData(bank); break;
-                                    case DataBuffer.TYPE_USHORT : sourceArray = ((DataBufferUShort) rasterBuffer).getData(bank); break;
-                                    case DataBuffer.TYPE_SHORT  : sourceArray = ((DataBufferShort)  rasterBuffer).getData(bank); break;
-                                    case DataBuffer.TYPE_INT    : sourceArray = ((DataBufferInt)    rasterBuffer).getData(bank); break;
-                                    case DataBuffer.TYPE_FLOAT  : sourceArray = ((DataBufferFloat)  rasterBuffer).getData(bank); break;
-                                    case DataBuffer.TYPE_DOUBLE : sourceArray = ((DataBufferDouble) rasterBuffer).getData(bank); break;
-                                    default: throw new AssertionError(dataType);
-                                }
+                            for (int y = deby; y < endy; y += subsampleY) {
 
-                                //-- intersection --//
-                                final int debx  = Math.max(cuImgTileMinX, interMinX);
-                                final int tendx = Math.min(cuImgTileMaxX, interMaxX);
-                                final int endx  = Math.min(srcRegionMaxX, tendx);
+                                //-- destination offset in X direction --//
+                                int dstOffWriteLength = Math.min(interMinX - ctRminx, subsampletileWidth);
 
-                                final int currentXSubSample;
-                                final int writeSize;
-                                if (subsampleX == 1) {
-                                    currentXSubSample = endx - debx;
-                                    writeSize         = currentXSubSample * pixelLength;
-                                } else {
-                                    currentXSubSample = subsampleX;
-                                    writeSize         = pixelLength;
+                                if (dstOffWriteLength > 0) {
+                                    assert dstOffWriteLength % subsampleX == 0 : "dstOffWriteLength = "+dstOffWriteLength+" , subsampleX = "+subsampleX;
+                                    dstOffWriteLength /= subsampleX;
+                                    dstOffWriteLength *= pixelLength;
+                                    write(dstOffYArray, dataType, 0, dstOffWriteLength, bitPerSample, sampleCompression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
                                 }
 
-                                for (int x = debx; x < endx; x += currentXSubSample) {
-                                    final int writeArrayOffset = (stepOffsetBeforeY + stepY + (x-cuImgTileMinX)) * pixelLength;
-                                    write(sourceArray, dataType, writeArrayOffset, writeSize, bitPerSample, compression, sm.getNumBands(), sm.getNumDataElements(),dataOffsets);
-                                }
+                                // -- current image tile coordinates in X direction
+                                int cuImgTileMinX = imageMinX + (imageminTx - imageTileGridXOffset) * imageTileWidth;
+                                int cuImgTileMaxX = cuImgTileMinX + imageTileWidth;
 
-                                // -- padding in x direction
-                                if (ctRmaxx > srcRegionMaxX) {
-                                    assert ((endx - debx + subsampleX - 1) / subsampleX + paddingXLength / pixelLength + dstOffWriteLength / pixelLength) == currentImgTW : "write width = "+((endx - debx + subsampleX - 1) / subsampleX + paddingXLength / pixelLength + dstOffWriteLength / pixelLength);
-                                    write(paddingXArray, dataType, 0, paddingXLength, bitPerSample, compression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
+                                //-- travel tile on X direction --//
+                                for (int imgTx = imageminTx; imgTx < imagemaxTx; imgTx++) {
+
+                                    // -- get the following image raster
+                                    final Raster imageTile        = image.getTile(imgTx, imgTy);
+                                    final DataBuffer rasterBuffer = imageTile.getDataBuffer();
+
+
+                                    // offset in pixels number in source image currently tile
+                                    final int stepOffsetBeforeY = (deby - cuImgTileMinY) * imageTile.getWidth();
+
+                                    // -- offset in y direction
+                                    final int stepY = (y - deby) * imageTile.getWidth();
+
+                                    //-- to crop last image raster on higher border index
+                                    //-- which not necessary same size of other tile. (It is in contradiction of renderedImage but not false)
+                                    cuImgTileMaxX = StrictMath.min(cuImgTileMaxX, cuImgTileMinX + imageTile.getWidth());
+
+                                    final Object sourceArray;
+                                    switch (dataType) {
+                                        case DataBuffer.TYPE_BYTE   : sourceArray = ((DataBufferByte)   rasterBuffer).getData(bank); break;
+                                        case DataBuffer.TYPE_USHORT : sourceArray = ((DataBufferUShort) rasterBuffer).getData(bank); break;
+                                        case DataBuffer.TYPE_SHORT  : sourceArray = ((DataBufferShort)  rasterBuffer).getData(bank); break;
+                                        case DataBuffer.TYPE_INT    : sourceArray = ((DataBufferInt)    rasterBuffer).getData(bank); break;
+                                        case DataBuffer.TYPE_FLOAT  : sourceArray = ((DataBufferFloat)  rasterBuffer).getData(bank); break;
+                                        case DataBuffer.TYPE_DOUBLE : sourceArray = ((DataBufferDouble) rasterBuffer).getData(bank); break;
+                                        default: throw new AssertionError(dataType);
+                                    }
+
+                                    //-- intersection --//
+                                    final int debx  = Math.max(cuImgTileMinX, interMinX);
+                                    final int tendx = Math.min(cuImgTileMaxX, interMaxX);
+                                    final int endx  = Math.min(srcRegionMaxX, tendx);
+
+                                    final int currentXSubSample;
+                                    final int writeSize;
+                                    if (subsampleX == 1) {
+                                        currentXSubSample = endx - debx;
+                                        writeSize         = currentXSubSample * pixelLength;
+                                    } else {
+                                        currentXSubSample = subsampleX;
+                                        writeSize         = pixelLength;
+                                    }
+
+                                    for (int x = debx; x < endx; x += currentXSubSample) {
+                                        final int writeArrayOffset = (stepOffsetBeforeY + stepY + (x-cuImgTileMinX)) * pixelLength;
+                                        write(sourceArray, dataType, writeArrayOffset, writeSize, bitPerSample, sampleCompression, sm.getNumBands(), sm.getNumDataElements(),dataOffsets);
+                                    }
+
+                                    // -- padding in x direction
+                                    if (ctRmaxx > srcRegionMaxX) {
+                                        assert ((endx - debx + subsampleX - 1) / subsampleX + paddingXLength / pixelLength + dstOffWriteLength / pixelLength) == currentImgTW : "write width = "+((endx - debx + subsampleX - 1) / subsampleX + paddingXLength / pixelLength + dstOffWriteLength / pixelLength);
+                                        write(paddingXArray, dataType, 0, paddingXLength, bitPerSample, sampleCompression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
+                                    }
+
+                                    // -- next tile X coordinates
+                                    cuImgTileMinX += imageTileWidth;
+                                    cuImgTileMaxX += imageTileWidth;
                                 }
+                            }
 
-                                // -- next tile X coordinates
-                                cuImgTileMinX += imageTileWidth;
-                                cuImgTileMaxX += imageTileWidth;
+                            //-- padding in y direction.
+                            if (ctRmaxy > srcRegionMaxY) {
+                                write(paddingYArray, dataType, 0, paddingYLength, bitPerSample, sampleCompression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
                             }
-                        }
 
-                        //-- padding in y direction.
-                        if (ctRmaxy > srcRegionMaxY) {
-                            write(paddingYArray, dataType, 0, paddingYLength, bitPerSample, compression, sm.getNumBands(), sm.getNumDataElements(),null);//-- padding offset array, dataoffset has no impact write empty samples
+                            //-- next tile Y coordinates.
+                            cuImgTileMinY += imageTileHeight;
+                            cuImgTileMaxY += imageTileHeight;
                         }
 
-                        //-- next tile Y coordinates.
-                        cuImgTileMinY += imageTileHeight;
-                        cuImgTileMaxY += imageTileHeight;
-                    }
-
-                    //-- Use during packBit compression --//
-                    lastByte32773     += destTileByteCount;
-                    precLastByte32773 += destTileByteCount;
+                        //-- Use during packBit compression --//
+                        lastByte32773     += destTileByteCount;
+                        precLastByte32773 += destTileByteCount;
 
-                    /*
-                     * To stipulate end of current destination tile.
-                     * Moreover in this current algorithm channel is automaticaly
-                     * flushed when we write LZW end of file value.
-                     */
-                    if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
+                        /*
+                         * To stipulate end of current destination tile.
+                         * Moreover in this current algorithm channel is automaticaly
+                         * flushed when we write LZW end of file value.
+                         */
+                        if (encoder != null) {
+                            encodedTileID = encodeTile(encoder, tileBytes, fileChannel, encodedTileID, offsetArray, byteCountArray);
+                            tileOffsetID++;
+                            continue;
+                        }
+                        if (compression == 5) writeWithLZWCompression(LZW_EOI_CODE);
 
-                    final long currentOffset = channel.getStreamPosition();
-                    final long currentTileByteCount = currentOffset - tileOffsetBeg;
+                        final long currentOffset = channel.getStreamPosition();
+                        final long currentTileByteCount = currentOffset - tileOffsetBeg;
 
-                    if (compression == 1)
-                        assert currentTileByteCount == currentImgTW * currentImgTH * pixelLength * sampleByteCount :"expected currentByteCount = "+(currentImgTW * currentImgTH * pixelLength * sampleByteCount)+" found = "+currentTileByteCount+" at tile ("+ctx+", "+cty+").";
+                        if (compression == 1)
+                            assert currentTileByteCount == currentImgTW * currentImgTH * pixelLength * sampleByteCount :"expected currentByteCount = "+(currentImgTW * currentImgTH * pixelLength * sampleByteCount)+" found = "+currentTileByteCount+" at tile ("+ctx+", "+cty+").";
 
-                    if (isBigTIFF) {
-                        Array.setLong(offsetArray, tileOffsetID, tileOffsetBeg);
-                        Array.setLong(byteCountArray, tileOffsetID++, currentTileByteCount);
-                    } else {
-                        Array.setInt(offsetArray, tileOffsetID, (int) tileOffsetBeg);
-                        Array.setInt(byteCountArray, tileOffsetID++, (int) currentTileByteCount);
+                        if (isBigTIFF) {
+                            Array.setLong(offsetArray, tileOffsetID, tileOffsetBeg);
+                            Array.setLong(byteCountArray, tileOffsetID++, currentTileByteCount);
+                        } else {
+                            Array.setInt(offsetArray, tileOffsetID, (int) tileOffsetBeg);
+                            Array.setInt(byteCountArray, tileOffsetID++, (int) currentTileByteCount);
+                        }
+                        tileOffsetBeg = currentOffset;
                     }
-                    tileOffsetBeg = currentOffset;
                 }
             }
+            if (encoder != null) {
+                while (encoder.pending() > 0) {
+                    writeEncodedTile(fileChannel, encoder.take(), encodedTileID++, offsetArray, byteCountArray);
+                }
+                assert encodedTileID == tileOffsetID;
+            }
+        } finally {
+            channel = fileChannel;
+            if (encoder != null) encoder.cancel();
         }
         writeByteCountAndOffsets(byteCountTagPosition, arrayType, byteCountArray, offsetTagPosition, arrayType, offsetArray);
         //-- add current offset array in current headProperties --//
         addProperty(TileOffsets, arrayType, Array.getLength(offsetArray), offsetArray, headProperties);
     }
 
+    /**
+     * Submit the tile written in memory to the encoder, then write the oldest encoded
+     * tiles in the file while too many tiles are pending.
+     *
+     * @param encoder encoder of the current image.
+     * @param tileBytes uncompressed samples of the current tile, {@linkplain #channel} destination.
+     * @param fileChannel stream of the written file.
+     * @param encodedTileID index of the next encoded tile to write in the file.
+     * @param offsetArray tile offsets of the current image.
+     * @param byteCountArray tile byte counts of the current image.
+     * @return index of the next encoded tile to write in the file.
+     * @throws IOException if problem during tile encoding or writing.
+     */
+    private int encodeTile(final TiffTileEncoder encoder, final ByteArrayOutputStream tileBytes,
+            final ChannelImageOutputStream fileChannel, int encodedTileID,
+            final Object offsetArray, final Object byteCountArray) throws IOException {
+        channel.flush();
+        encoder.submit(tileBytes.toByteArray());
+        tileBytes.reset();
+        final int window = encoder.window();
+        while (encoder.pending() >= window) {
+            writeEncodedTile(fileChannel, encoder.take(), encodedTileID++, offsetArray, byteCountArray);
+        }
+        return encodedTileID;
+    }
+
+    /**
+     * Write an encoded tile at the current file position and record its offset and byte count.
+     */
+    private void writeEncodedTile(final ChannelImageOutputStream fileChannel, final byte[] data,
+            final int tileID, final Object offsetArray, final Object byteCountArray) throws IOException {
+        final long offset = fileChannel.getStreamPosition();
+        fileChannel.write(data);
+        if (isBigTIFF) {
+            Array.setLong(offsetArray, tileID, offset);
+            Array.setLong(byteCountArray, tileID, data.length);
+        } else {
+            Array.setInt(offsetArray, tileID, (int) offset);
+            Array.setInt(byteCountArray, tileID, data.length);
+        }
+    }
+
     /**
      * Write directly data from sourceArray, which is an array of datatype type,
      * in writebuffer at arrayOffset position with a length of arrayLength.<br/>
@@ -2578,6 +2824,14 @@ public class TiffImageWriter extends SpatialImageWriter {
                     currentImgTH    = srcImgTileHeight;
                     currentImgNumXT = srcRegion.width  / currentImgTW;
                     currentImgNumYT = srcRegion.height / currentImgTH;
+                } else if (requiresTiles(param)) {
+                    //-- deflate and predictors are only written by tiles
+                    currentImgTW    = currentImgTH = DEFAULT_TILE_SIZE;
+                    final int cuImgTW = currentImgTW * srcXsubsampling;
+                    final int cuImgTH = currentImgTH * srcYsubsampling;
+                    currentImgNumXT = (srcOffX + srcRegion.width  + cuImgTW - 1) / cuImgTW;
+                    currentImgNumYT = (srcOffY + srcRegion.height + cuImgTH - 1) / cuImgTH;
+                    tileRegion = new Rectangle(srcRegion.x - srcOffX, srcRegion.y - srcOffY, currentImgNumXT * cuImgTW, currentImgNumYT * cuImgTH);
                 } else {
                     currentImgTW = currentImgTH = currentImgNumXT = currentImgNumYT = 0;
                 }
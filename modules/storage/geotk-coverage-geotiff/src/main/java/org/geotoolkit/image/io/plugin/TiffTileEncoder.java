@@ -0,0 +1,342 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import javax.imageio.IIOException;
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Applies the predictor and compresses uncompressed TIFF tiles.
+ * <p>
+ * Tiles are submitted in file order and taken back in the same order, the
+ * encoding itself may run concurrently on a shared executor. Supported
+ * compressions are LZW (5) and Deflate (8), supported predictors are none (1),
+ * horizontal differencing (2) and floating point (3).
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class TiffTileEncoder {
+
+    /**
+     * Executor shared by all tiff writers. Encoding is CPU bound, one thread per processor.
+     * Threads are released after one minute of inactivity.
+     */
+    private static final ExecutorService EXECUTOR;
+    static {
+        final int n = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor ex = new ThreadPoolExecutor(n, n, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), Threads.createThreadFactory("TiffTileEncoder #"));
+        ex.allowCoreThreadTimeOut(true);
+        EXECUTOR = ex;
+    }
+
+    private static final int LZW_CLEAR_CODE   = 256;
+    private static final int LZW_EOI_CODE     = 257;
+    private static final int LZW_DEFAULT_CODE = 258;
+    /** libtiff resets the table before the code 4094 to stay within 12 bits. */
+    private static final int LZW_MAX_CODE     = 4094;
+
+    private final int compression;
+    private final int predictor;
+    private final int level;
+    private final int sampleSize;
+    private final int samplesPerPixel;
+    private final int rowLength;
+    private final boolean littleEndian;
+    private final boolean concurrent;
+
+    /**
+     * Encoded tiles not yet taken, in file order.
+     */
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    /**
+     * @param compression tiff compression, 5 or 8
+     * @param predictor tiff predictor, 1, 2 or 3
+     * @param level deflate level, from 0 to 9
+     * @param bitsPerSample sample size in bits, must be a multiple of 8 if a predictor is used
+     * @param samplesPerPixel number of samples per pixel in each tile (1 for planar tiles)
+     * @param tileWidth tile width in pixels
+     * @param order byte order of the samples
+     * @param concurrent true to encode tiles on the shared executor
+     */
+    TiffTileEncoder(final int compression, final int predictor, final int level, final int bitsPerSample,
+            final int samplesPerPixel, final int tileWidth, final ByteOrder order, final boolean concurrent) {
+        if (compression != 5 && compression != 8) {
+            throw new IllegalArgumentException("Unsupported compression : " + compression);
+        }
+        if (predictor < 1 || predictor > 3) {
+            throw new IllegalArgumentException("Unsupported predictor : " + predictor);
+        }
+        if (predictor != 1 && bitsPerSample % Byte.SIZE != 0) {
+            throw new IllegalArgumentException("Predictor requires samples of 8, 16, 32 or 64 bits, found : " + bitsPerSample);
+        }
+        this.compression     = compression;
+        this.predictor       = predictor;
+        this.level           = level;
+        this.sampleSize      = bitsPerSample / Byte.SIZE;
+        this.samplesPerPixel = samplesPerPixel;
+        this.rowLength       = (tileWidth * samplesPerPixel * bitsPerSample + Byte.SIZE - 1) / Byte.SIZE;
+        this.littleEndian    = ByteOrder.LITTLE_ENDIAN.equals(order);
+        this.concurrent      = concurrent;
+    }
+
+    /**
+     * Maximum number of tiles which should be pending before the caller takes some,
+     * to bound memory while keeping all workers busy.
+     */
+    int window() {
+        return concurrent ? 2 * Runtime.getRuntime().availableProcessors() : 1;
+    }
+
+    /**
+     * @return number of submitted tiles not yet taken
+     */
+    int pending() {
+        return pending.size();
+    }
+
+    /**
+     * Submit an uncompressed tile. The given array is modified by the predictor.
+     */
+    void submit(final byte[] tile) {
+        if (concurrent) {
+            pending.add(EXECUTOR.submit(() -> encode(tile)));
+        } else {
+            pending.add(CompletableFuture.completedFuture(encode(tile)));
+        }
+    }
+
+    /**
+     * Returns the oldest submitted tile, encoded. Waits for its encoding if needed.
+     */
+    byte[] take() throws IOException {
+        try {
+            return pending.poll().get();
+        } catch (InterruptedException | ExecutionException ex) {
+            cancel();
+            throw new IIOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Cancel all pending tiles.
+     */
+    void cancel() {
+        for (Future<byte[]> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Apply the predictor and compress a tile.
+     */
+    byte[] encode(final byte[] tile) {
+        if (predictor == 2) {
+            horizontalDifferencing(tile);
+        } else if (predictor == 3) {
+            floatingPointDifferencing(tile);
+        }
+        return (compression == 8) ? deflate(tile, level) : lzw(tile);
+    }
+
+    /**
+     * Replace each sample by its difference with the same sample of the previous pixel, row by row.
+     */
+    private void horizontalDifferencing(final byte[] tile) {
+        final int stride = samplesPerPixel * sampleSize;
+        for (int row = 0; row + rowLength <= tile.length; row += rowLength) {
+            if (sampleSize == 1) {
+                for (int i = row + rowLength - 1, min = row + stride; i >= min; i--) {
+                    tile[i] -= tile[i - stride];
+                }
+            } else {
+                for (int i = row + rowLength - sampleSize, min = row + stride; i >= min; i -= sampleSize) {
+                    set(tile, i, get(tile, i) - get(tile, i - stride));
+                }
+            }
+        }
+    }
+
+    /**
+     * Floating point predictor from Adobe technical note 3 : the bytes of each row are
+     * regrouped by significance, most significant bytes first, then differenced.
+     */
+    private void floatingPointDifferencing(final byte[] tile) {
+        final int count = rowLength / sampleSize;
+        final byte[] buffer = new byte[rowLength];
+        for (int row = 0; row + rowLength <= tile.length; row += rowLength) {
+            for (int i = 0; i < count; i++) {
+                final int offset = row + i * sampleSize;
+                for (int b = 0; b < sampleSize; b++) {
+                    //-- byte b is the b-th most significant byte of the sample
+                    buffer[b * count + i] = tile[offset + (littleEndian ? sampleSize - 1 - b : b)];
+                }
+            }
+            for (int i = rowLength - 1; i >= samplesPerPixel; i--) {
+                buffer[i] -= buffer[i - samplesPerPixel];
+            }
+            System.arraycopy(buffer, 0, tile, row, rowLength);
+        }
+    }
+
+    private long get(final byte[] data, final int offset) {
+        long value = 0;
+        if (littleEndian) {
+            for (int i = sampleSize - 1; i >= 0; i--) value = (value << Byte.SIZE) | (data[offset + i] & 0xFF);
+        } else {
+            for (int i = 0; i < sampleSize; i++) value = (value << Byte.SIZE) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private void set(final byte[] data, final int offset, long value) {
+        if (littleEndian) {
+            for (int i = 0; i < sampleSize; i++, value >>>= Byte.SIZE) data[offset + i] = (byte) value;
+        } else {
+            for (int i = sampleSize - 1; i >= 0; i--, value >>>= Byte.SIZE) data[offset + i] = (byte) value;
+        }
+    }
+
+    /**
+     * Compress with zlib format, as expected by tiff compression 8 (Adobe Deflate).
+     */
+    static byte[] deflate(final byte[] data, final int level) {
+        final Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, data.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length << 1);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compress with tiff LZW : codes are written most significant bit first, code length
+     * grows one code early and the table is cleared before reaching 12 bits, like libtiff.
+     */
+    static byte[] lzw(final byte[] data) {
+        final LZWOutput out = new LZWOutput(data.length / 2 + 16);
+        //-- open addressing table of (prefix code << 8 | byte) -> code
+        final int[] keys = new int[8192];
+        final short[] codes = new short[8192];
+        Arrays.fill(keys, -1);
+        int length = 9;
+        int next = LZW_DEFAULT_CODE;
+        out.write(LZW_CLEAR_CODE, length);
+        if (data.length == 0) {
+            out.write(LZW_EOI_CODE, length);
+            return out.toByteArray();
+        }
+        int prefix = data[0] & 0xFF;
+        for (int i = 1; i < data.length; i++) {
+            final int c = data[i] & 0xFF;
+            final int key = (prefix << 8) | c;
+            int slot = (key * 0x9E3779B1) >>> 19;
+            while (keys[slot] != -1 && keys[slot] != key) {
+                slot = (slot + 1) & 8191;
+            }
+            if (keys[slot] == key) {
+                prefix = codes[slot];
+                continue;
+            }
+            out.write(prefix, length);
+            keys[slot] = key;
+            codes[slot] = (short) next++;
+            if (next == LZW_MAX_CODE) {
+                out.write(LZW_CLEAR_CODE, length);
+                Arrays.fill(keys, -1);
+                length = 9;
+                next = LZW_DEFAULT_CODE;
+            } else if (next >= (1 << length)) {
+                length++;
+            }
+            prefix = c;
+        }
+        out.write(prefix, length);
+        //-- the decoder adds an entry for the last code before reading the end code
+        next++;
+        if (next == LZW_MAX_CODE) {
+            out.write(LZW_CLEAR_CODE, length);
+            length = 9;
+        } else if (next >= (1 << length)) {
+            length++;
+        }
+        out.write(LZW_EOI_CODE, length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Bit output, most significant bit first.
+     */
+    private static final class LZWOutput {
+        private byte[] buffer;
+        private int length;
+        private int bits;
+        private int nbBits;
+
+        LZWOutput(final int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void write(final int code, final int codeLength) {
+            bits = (bits << codeLength) | code;
+            nbBits += codeLength;
+            while (nbBits >= Byte.SIZE) {
+                nbBits -= Byte.SIZE;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length << 1);
+                }
+                buffer[length++] = (byte) (bits >>> nbBits);
+            }
+            bits &= (1 << nbBits) - 1;
+        }
+
+        byte[] toByteArray() {
+            if (nbBits > 0) {
+                final byte[] result = Arrays.copyOf(buffer, length + 1);
+                result[length] = (byte) (bits << (Byte.SIZE - nbBits));
+                return result;
+            }
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriteParam;
+
+/**
+ * Writes the same tiled image with the different compressions of the tiff writer :
+ * LZW encoded sequentially as before, LZW and Deflate encoded concurrently,
+ * with and without horizontal differencing predictor.
+ *
+ * Use example : java BenchMarkTiffTileEncoding 8192 256
+ * for a 8192x8192 RGB image written by 256x256 tiles.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkTiffTileEncoding {
+
+    public static void main(String[] args) throws Exception {
+        final int size     = (args.length > 0) ? Integer.parseInt(args[0]) : 8192;
+        final int tileSize = (args.length > 1) ? Integer.parseInt(args[1]) : 256;
+
+        final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_3BYTE_BGR);
+        final WritableRaster raster = image.getRaster();
+        final int[] pixel = new int[3];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                pixel[0] = (x + y) & 0xFF;
+                pixel[1] = (int) (128 + 127 * Math.sin(x / 40.0));
+                pixel[2] = (x * y / 512) & 0xFF;
+                raster.setPixel(x, y, pixel);
+            }
+        }
+
+        //-- warm up
+        write(image, tileSize, "LZW", false, 1, 6);
+
+        test("LZW sequential        ", image, tileSize, "LZW",     false, 1, 6);
+        test("LZW concurrent        ", image, tileSize, "LZW",     true,  1, 6);
+        test("LZW predictor 2       ", image, tileSize, "LZW",     true,  2, 6);
+        test("Deflate level 1       ", image, tileSize, "Deflate", true,  1, 1);
+        test("Deflate level 6       ", image, tileSize, "Deflate", true,  1, 6);
+        test("Deflate 6, predictor 2", image, tileSize, "Deflate", true,  2, 6);
+        System.exit(0);
+    }
+
+    private static void test(final String name, final BufferedImage image, final int tileSize, final String compression,
+            final boolean concurrent, final int predictor, final int level) throws Exception {
+        final long before = System.nanoTime();
+        final long length = write(image, tileSize, compression, concurrent, predictor, level);
+        final long time = System.nanoTime() - before;
+        System.out.println(name + " : " + time / 1000000 + " ms, " + length / 1024 + " KB");
+    }
+
+    private static long write(final BufferedImage image, final int tileSize, final String compression,
+            final boolean concurrent, final int predictor, final int level) throws Exception {
+        final File file = File.createTempFile("encoding", ".tiff");
+        try {
+            final TiffImageWriter writer = new TiffImageWriter(null);
+            final TiffImageWriteParam param = (TiffImageWriteParam) writer.getDefaultWriteParam();
+            param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setTiling(tileSize, tileSize, 0, 0);
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType(compression);
+            param.setConcurrentEncoding(concurrent);
+            param.setPredictor(predictor);
+            param.setDeflateLevel(level);
+            writer.setOutput(file);
+            writer.write(null, new IIOImage(image, null, null), param);
+            writer.dispose();
+            return file.length();
+        } finally {
+            file.delete();
+        }
+    }
+
+}
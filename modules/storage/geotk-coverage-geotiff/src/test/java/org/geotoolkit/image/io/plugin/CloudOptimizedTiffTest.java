@@ -0,0 +1,228 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriteParam;
+import org.geotoolkit.image.io.SpatialImageReadParam;
+import org.geotoolkit.image.io.stream.HttpRangeChannel;
+import org.geotoolkit.image.io.stream.HttpRangeImageInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the cloud optimized GeoTIFF layout and the reading of internal overviews.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class CloudOptimizedTiffTest {
+
+    private static final int WIDTH  = 600;
+    private static final int HEIGHT = 500;
+    private static final int TILE   = 128;
+
+    private Path file;
+    private BufferedImage image;
+
+    @Before
+    public void writeImage() throws IOException {
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        final WritableRaster raster = image.getRaster();
+        final Random random = new Random(42);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.setSample(x, y, 0, random.nextInt(256));
+            }
+        }
+        file = Files.createTempFile("cog", ".tiff");
+        final TiffImageWriter writer = new TiffImageWriter(null);
+        final TiffImageWriteParam param = (TiffImageWriteParam) writer.getDefaultWriteParam();
+        param.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setTiling(TILE, TILE, 0, 0);
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionType("Deflate");
+        param.setCloudOptimized(true);
+        try {
+            writer.setOutput(file);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Directories must be at the beginning of the file, after the GDAL ghost area,
+     * and the tiles of the smallest overview before the tiles of the full resolution image.
+     */
+    @Test
+    public void testLayout() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        buffer.order(buffer.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        assertEquals(42, buffer.getShort(2));
+        final String ghost = new String(buffer.array(), 8, 30, StandardCharsets.US_ASCII);
+        assertEquals("GDAL_STRUCTURAL_METADATA_SIZE=", ghost);
+
+        long ifd = buffer.getInt(4) & 0xFFFFFFFFL;
+        long lastDirectoryEnd = 0;
+        long previousDataStart = Long.MAX_VALUE;
+        int count = 0;
+        while (ifd != 0) {
+            assertTrue("Directories must be ordered.", ifd > lastDirectoryEnd);
+            final int n = buffer.getShort((int) ifd) & 0xFFFF;
+            long dataStart = Long.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                final int entry = (int) ifd + 2 + i * 12;
+                if ((buffer.getShort(entry) & 0xFFFF) == 324) {      // TileOffsets
+                    assertEquals(4, buffer.getShort(entry + 2));
+                    final int nb = buffer.getInt(entry + 4);
+                    final int position = (nb == 1) ? entry + 8 : buffer.getInt(entry + 8);
+                    for (int t = 0; t < nb; t++) {
+                        dataStart = Math.min(dataStart, buffer.getInt(position + 4 * t) & 0xFFFFFFFFL);
+                    }
+                }
+            }
+            assertTrue("Tiles of a directory must follow the tiles of the next one.", dataStart < previousDataStart);
+            previousDataStart = dataStart;
+            lastDirectoryEnd = ifd + 2 + n * 12;
+            ifd = buffer.getInt((int) lastDirectoryEnd) & 0xFFFFFFFFL;
+            count++;
+        }
+        //-- full resolution and overviews 2, 4 and 8 (75x63 fits in one tile)
+        assertEquals(4, count);
+        assertTrue("Tiles must follow all directories.", previousDataStart > lastDirectoryEnd);
+    }
+
+    /**
+     * The full resolution image and overviews must be read back.
+     */
+    @Test
+    public void testRead() throws IOException {
+        final TiffImageReader reader = new TiffImageReader(null);
+        try {
+            reader.setInput(file);
+            assertEquals(1, reader.getNumImages(true));
+            assertEquals(3, reader.getNumThumbnails(0));
+            assertEquals(WIDTH  / 4, reader.getThumbnailWidth(0, 1));
+            assertRasterEquals(image.getRaster(), reader.read(0).getRaster(), 1, 0, 0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * A subsampled read allowed to change the subsampling must read the best overview
+     * and update the parameters accordingly.
+     */
+    @Test
+    public void testReadOverview() throws IOException {
+        final TiffImageReader reader = new TiffImageReader(null);
+        try {
+            reader.setInput(file);
+            final SpatialImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(100, 60, 300, 200));
+            param.setSourceSubsampling(5, 5, 0, 0);
+            param.setSubsamplingChangeAllowed(true);
+            final BufferedImage result = reader.read(0, param);
+            assertEquals(4, param.getSourceXSubsampling());
+            assertEquals(4, param.getSourceYSubsampling());
+            assertEquals(new Rectangle(100, 60, 300, 200), param.getSourceRegion());
+            assertRasterEquals(image.getRaster(), result.getRaster(), 4, 100, 60);
+
+            //-- without the change allowed, the full resolution image is subsampled
+            param.setSourceRegion(null);
+            param.setSourceSubsampling(5, 5, 0, 0);
+            param.setSubsamplingChangeAllowed(false);
+            final BufferedImage subsampled = reader.read(0, param);
+            assertEquals(5, param.getSourceXSubsampling());
+            assertRasterEquals(image.getRaster(), subsampled.getRaster(), 5, 0, 0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * A tile of a remote cloud optimized GeoTIFF must be read without downloading the file.
+     */
+    @Test
+    public void testRemoteRead() throws IOException {
+        final byte[] content = Files.readAllBytes(file);
+        final AtomicLong transfered = new AtomicLong();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/cog.tiff", (HttpExchange exchange) -> {
+            final String[] range = exchange.getRequestHeaders().getFirst("Range").substring(6).split("-");
+            final int from = Integer.parseInt(range[0]);
+            final int to = Math.min(Integer.parseInt(range[1]), content.length - 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + from + '-' + to + '/' + content.length);
+            exchange.sendResponseHeaders(206, to - from + 1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content, from, to - from + 1);
+            }
+            transfered.addAndGet(to - from + 1);
+        });
+        server.start();
+        final TiffImageReader reader = new TiffImageReader(null);
+        try {
+            final URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/cog.tiff");
+            reader.setInput(new HttpRangeImageInputStream(new HttpRangeChannel(url, Proxy.NO_PROXY, 1024, 64, 0)));
+            final SpatialImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(256, 256, TILE, TILE));
+            final BufferedImage result = reader.read(0, param);
+            assertRasterEquals(image.getRaster(), result.getRaster(), 1, 256, 256);
+            assertTrue("Whole file was downloaded.", transfered.get() < content.length / 2);
+        } finally {
+            reader.dispose();
+            server.stop(0);
+        }
+    }
+
+    private static void assertRasterEquals(final Raster expected, final Raster result,
+            final int subsampling, final int x0, final int y0) {
+        for (int y = 0; y < result.getHeight(); y++) {
+            for (int x = 0; x < result.getWidth(); x++) {
+                assertEquals("Sample at (" + x + ", " + y + ')',
+                        expected.getSample(x0 + x * subsampling, y0 + y * subsampling, 0),
+                        result.getSample(result.getMinX() + x, result.getMinY() + y, 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin.TiffWriter;
+
+import javax.imageio.ImageWriteParam;
+import java.io.IOException;
+import org.geotoolkit.image.io.plugin.TiffImageWriteParam;
+
+/**
+ * {@link DeflateTiffWriterTest} implementation which write image by compressed tiles
+ * with horizontal differencing predictor.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class DeflateTiledWriterTest extends DeflateTiffWriterTest {
+
+    public DeflateTiledWriterTest() throws IOException {
+        super();
+        writerParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+
+        final int tileWidth  = (random.nextInt(7) + 1) * 16;
+        final int tileHeight = (random.nextInt(7) + 1) * 16;
+        writerParam.setTiling(tileWidth, tileHeight, 0, 0);
+        ((TiffImageWriteParam) writerParam).setPredictor(2);
+    }
+}
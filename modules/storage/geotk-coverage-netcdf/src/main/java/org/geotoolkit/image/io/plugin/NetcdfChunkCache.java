@@ -0,0 +1,393 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.MAMath;
+import ucar.ma2.Range;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+import ucar.nc2.dataset.NetcdfDataset;
+
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Cache of decompressed NetCDF-4 chunks, shared by all {@link NetcdfImageReader} instances.
+ * <p>
+ * Slices are read by whole chunks, as declared by the {@code _ChunkSizes} attribute of the
+ * variable. The chunks are kept in a least recently used cache bounded by a memory budget,
+ * so reading an other slice of the same chunks (an other depth level stored in the same chunk,
+ * an other band, a neighbour tile) does not inflate them again. The budget is given in megabytes
+ * by the {@code geotk.netcdf.chunk.cache} system property, default is 1/16 of the maximum heap size.
+ * <p>
+ * The chunks missing from the cache are read in parallel. The UCAR library does not support
+ * concurrent reads on the same {@link NetcdfFile}, so each worker acquires its own instance
+ * from the NetCDF file cache.
+ * <p>
+ * Chunks are identified by the file location, size and modification date. Variables which
+ * are not read from a local file (aggregations, remote datasets) are not cached.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class NetcdfChunkCache {
+
+    /**
+     * Attribute names of the chunk shape, the name changed between UCAR library versions.
+     */
+    private static final String[] CHUNK_SIZES = {"_ChunkSizes", "_ChunkSize"};
+
+    /**
+     * The cache shared by all readers.
+     */
+    static final NetcdfChunkCache INSTANCE = new NetcdfChunkCache(getBudget());
+
+    /**
+     * Executor for chunk reads. Decompression is CPU bound, one thread per processor.
+     * Threads are released after one minute of inactivity.
+     */
+    private static final ExecutorService EXECUTOR;
+    static {
+        final int n = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor ex = new ThreadPoolExecutor(n, n, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), Threads.createThreadFactory("NetcdfChunkReader #"));
+        ex.allowCoreThreadTimeOut(true);
+        EXECUTOR = ex;
+    }
+
+    /**
+     * Cached chunks in access order.
+     */
+    private final LinkedHashMap<Key,Array> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Maximum size of the cached chunks, in bytes.
+     */
+    private final long budget;
+
+    /**
+     * Current size of the cached chunks, in bytes.
+     */
+    private long size;
+
+    NetcdfChunkCache(final long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Read the memory budget from {@code geotk.netcdf.chunk.cache} system property.
+     *
+     * @return budget in bytes
+     */
+    private static long getBudget() {
+        final String property = System.getProperty("geotk.netcdf.chunk.cache");
+        if (property != null) {
+            return Long.parseLong(property.trim()) << 20;
+        }
+        return Runtime.getRuntime().maxMemory() / 16;
+    }
+
+    /**
+     * Returns the chunk shape of the given variable, or {@code null} if the variable is not chunked.
+     * Dimensions are in NetCDF order.
+     */
+    static int[] getChunkShape(final Variable variable) {
+        final int rank = variable.getRank();
+        for (String name : CHUNK_SIZES) {
+            final Attribute att = variable.findAttribute(name);
+            if (att != null && att.isNumeric() && att.getLength() == rank) {
+                final int[] shape = new int[rank];
+                for (int i = 0; i < rank; i++) {
+                    final Number n = att.getNumericValue(i);
+                    if (n == null || (shape[i] = n.intValue()) <= 0) {
+                        return null;
+                    }
+                }
+                return shape;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Current size of the cached chunks, in bytes.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Remove all cached chunks.
+     */
+    synchronized void clear() {
+        chunks.clear();
+        size = 0;
+    }
+
+    /**
+     * Reads the given section of a chunked variable. The result is the same as
+     * {@code variable.read(section)}. If the dataset is not a local file, the section is read
+     * directly without cache.
+     *
+     * @param dataset  the dataset which contains the variable, used for identifying the file.
+     * @param variable the variable to read.
+     * @param chunkShape the value returned by {@link #getChunkShape(Variable)}.
+     * @param section  the ranges to read, in NetCDF order.
+     */
+    Array read(final NetcdfDataset dataset, final Variable variable, final int[] chunkShape,
+            final List<Range> section) throws IOException, InvalidRangeException
+    {
+        final String location = dataset.getLocation();
+        final File file = (location != null && dataset.getAggregation() == null) ? new File(location) : null;
+        if (file == null || !file.isFile()) {
+            //chunks could not be told apart from those of an other version of the dataset
+            return variable.read(section);
+        }
+        final long modified = file.lastModified();
+        final long length = file.length();
+
+        final int rank = chunkShape.length;
+        final int[] varShape = variable.getShape();
+        final int[] first  = new int[rank];
+        final int[] last   = new int[rank];
+        final int[] stride = new int[rank];
+        final int[] shape  = new int[rank];
+        final int[] lower  = new int[rank];
+        final int[] upper  = new int[rank];
+        for (int i = 0; i < rank; i++) {
+            final Range r = section.get(i);
+            first[i]  = r.first();
+            last[i]   = r.last();
+            stride[i] = r.stride();
+            shape[i]  = r.length();
+            lower[i]  = first[i] / chunkShape[i];
+            upper[i]  = last[i]  / chunkShape[i];
+        }
+        /*
+         * Plan the read on the chunk grid: only whole chunks which contain at least one
+         * requested sample are read, either from the cache or from the file.
+         */
+        final String name = variable.getFullNameEscaped();
+        final DataType type = variable.getDataType();
+        final List<Key> keys = new ArrayList<>();
+        final List<Array> arrays = new ArrayList<>();
+        final List<Key> missing = new ArrayList<>();
+        final int[] index = lower.clone();
+next:   for (;;) {
+            final int[] origin = new int[rank];
+            final int[] chunk  = new int[rank];
+            boolean empty = false;
+            for (int i = 0; i < rank; i++) {
+                origin[i] = index[i] * chunkShape[i];
+                chunk[i]  = Math.min(chunkShape[i], varShape[i] - origin[i]);
+                if (firstSample(first[i], stride[i], origin[i]) > Math.min(last[i], origin[i] + chunk[i] - 1)) {
+                    empty = true;
+                }
+            }
+            if (!empty) {
+                final Key key = new Key(location, modified, length, name, origin, chunk);
+                final Array array;
+                synchronized (this) {
+                    array = chunks.get(key);
+                }
+                if (array == null) {
+                    missing.add(key);
+                }
+                keys.add(key);
+                arrays.add(array);
+            }
+            for (int i = rank; --i >= 0;) {
+                if (++index[i] <= upper[i]) continue next;
+                index[i] = lower[i];
+            }
+            break;
+        }
+        /*
+         * Read the missing chunks. If more than one chunk is needed, workers read them in
+         * parallel, each worker with its own NetcdfFile instance. Chunks which could not
+         * be read by the workers are read by the caller thread with the given variable.
+         */
+        final Map<Key,Array> loaded = new LinkedHashMap<>();
+        if (missing.size() > 1) {
+            final List<Future<Array>> futures = new ArrayList<>(missing.size());
+            for (final Key key : missing) {
+                futures.add(EXECUTOR.submit(() -> readChunk(location, name, type, key)));
+            }
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    final Array array = futures.get(i).get();
+                    if (array != null) {
+                        loaded.put(missing.get(i), array);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                for (Future<Array> future : futures) future.cancel(true);
+                throw new IOException(ex);
+            } catch (ExecutionException ex) {
+                for (Future<Array> future : futures) future.cancel(true);
+                final Throwable cause = ex.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof InvalidRangeException) throw (InvalidRangeException) cause;
+                throw new IOException(cause);
+            }
+        }
+        for (Key key : missing) {
+            if (!loaded.containsKey(key)) {
+                loaded.put(key, variable.read(key.origin, key.shape));
+            }
+        }
+        for (Map.Entry<Key,Array> entry : loaded.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+        /*
+         * Copy the requested samples of each chunk in the result.
+         */
+        final Array result = Array.factory(type, shape);
+        final List<Range> chunkRanges  = new ArrayList<>(Arrays.asList(new Range[rank]));
+        final List<Range> resultRanges = new ArrayList<>(Arrays.asList(new Range[rank]));
+        for (int k = 0; k < keys.size(); k++) {
+            final Key key = keys.get(k);
+            Array array = arrays.get(k);
+            if (array == null) {
+                array = loaded.get(key);
+            }
+            for (int i = 0; i < rank; i++) {
+                final int start = firstSample(first[i], stride[i], key.origin[i]);
+                final int end   = Math.min(last[i], key.origin[i] + key.shape[i] - 1);
+                final int stop  = end - (end - start) % stride[i];
+                chunkRanges.set(i, new Range(start - key.origin[i], stop - key.origin[i], stride[i]));
+                resultRanges.set(i, new Range((start - first[i]) / stride[i], (stop - first[i]) / stride[i]));
+            }
+            MAMath.copy(result.sectionNoReduce(resultRanges), array.sectionNoReduce(chunkRanges));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first sample of a range starting at {@code first} with the given stride,
+     * which is equal or greater than {@code origin}.
+     */
+    private static int firstSample(final int first, final int stride, final int origin) {
+        if (origin <= first) return first;
+        return first + ((origin - first + stride - 1) / stride) * stride;
+    }
+
+    /**
+     * Reads a chunk in a worker thread.
+     *
+     * @return the chunk, or {@code null} if the variable can not be found in the file
+     *         or does not have the expected type.
+     */
+    private static Array readChunk(final String location, final String name, final DataType type, final Key key)
+            throws IOException, InvalidRangeException
+    {
+        final NetcdfFile file = NetcdfDataset.acquireFile(location, null);
+        try {
+            final Variable variable = file.findVariable(name);
+            if (variable == null || variable.getDataType() != type || variable.getRank() != key.shape.length) {
+                return null;
+            }
+            return variable.read(key.origin, key.shape);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Add a chunk in the cache and remove the least recently used chunks if the budget is exceeded.
+     * Chunks larger than a quarter of the budget are not cached.
+     */
+    private synchronized void put(final Key key, final Array array) {
+        final long length = array.getSize() * array.getDataType().getSize();
+        if (length > budget / 4) {
+            return;
+        }
+        final Array previous = chunks.put(key, array);
+        if (previous != null) {
+            size -= previous.getSize() * previous.getDataType().getSize();
+        }
+        size += length;
+        final Iterator<Array> it = chunks.values().iterator();
+        while (size > budget && it.hasNext()) {
+            final Array eldest = it.next();
+            size -= eldest.getSize() * eldest.getDataType().getSize();
+            it.remove();
+        }
+    }
+
+    /**
+     * Chunk identifier. The file size and modification date are part of the key,
+     * so chunks of a rewritten file are not reused.
+     */
+    private static final class Key {
+        final String location;
+        final long modified;
+        final long length;
+        final String variable;
+        final int[] origin;
+        final int[] shape;
+
+        Key(final String location, final long modified, final long length, final String variable,
+                final int[] origin, final int[] shape) {
+            this.location = location;
+            this.modified = modified;
+            this.length   = length;
+            this.variable = variable;
+            this.origin   = origin;
+            this.shape    = shape;
+        }
+
+        @Override
+        public int hashCode() {
+            return location.hashCode() + 31 * variable.hashCode()
+                    + 961 * Arrays.hashCode(origin) + Long.hashCode(modified) + 7 * Long.hashCode(length);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof Key) {
+                final Key other = (Key) obj;
+                return modified == other.modified
+                    && length == other.length
+                    && variable.equals(other.variable)
+                    && Arrays.equals(origin, other.origin)
+                    && Arrays.equals(shape, other.shape)
+                    && location.equals(other.location);
+            }
+            return false;
+        }
+    }
+
+}
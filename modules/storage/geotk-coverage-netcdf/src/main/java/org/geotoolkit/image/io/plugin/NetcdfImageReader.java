@@ -602,6 +602,42 @@ public class NetcdfImageReader extends FileImageReader implements
         return variable.getDimension(variable.getRank() - (Y_DIMENSION + 1)).getLength();
     }
 
+    /**
+     * Returns {@code true} if the variable is stored by chunks (NetCDF-4). In such case the
+     * tile size is the chunk size, and source regions aligned on tiles are read by whole chunks.
+     *
+     * @throws IOException If an error occurred while reading the NetCDF file.
+     */
+    @Override
+    public boolean isImageTiled(final int imageIndex) throws IOException {
+        prepareVariable(imageIndex);
+        return NetcdfChunkCache.getChunkShape(variable) != null;
+    }
+
+    /**
+     * Returns the chunk width if the variable is stored by chunks, or the image width otherwise.
+     *
+     * @throws IOException If an error occurred while reading the NetCDF file.
+     */
+    @Override
+    public int getTileWidth(final int imageIndex) throws IOException {
+        prepareVariable(imageIndex);
+        final int[] chunkShape = NetcdfChunkCache.getChunkShape(variable);
+        return (chunkShape != null) ? chunkShape[chunkShape.length - (X_DIMENSION + 1)] : getWidth(imageIndex);
+    }
+
+    /**
+     * Returns the chunk height if the variable is stored by chunks, or the image height otherwise.
+     *
+     * @throws IOException If an error occurred while reading the NetCDF file.
+     */
+    @Override
+    public int getTileHeight(final int imageIndex) throws IOException {
+        prepareVariable(imageIndex);
+        final int[] chunkShape = NetcdfChunkCache.getChunkShape(variable);
+        return (chunkShape != null) ? chunkShape[chunkShape.length - (Y_DIMENSION + 1)] : getHeight(imageIndex);
+    }
+
     /**
      * Returns the grid envelope in the image identified by the given index.
      *
@@ -1238,7 +1274,16 @@ public class NetcdfImageReader extends FileImageReader implements
                      */
                     ranges[imageDimension] = new Range(imageIndex, imageIndex, 1);
                 }
-                array = bandVariable.read(sections);
+                /*
+                 * Chunked variables (NetCDF-4) are read by whole chunks through the shared
+                 * chunk cache, so other slices or tiles in the same chunks are not inflated again.
+                 */
+                final int[] chunkShape = NetcdfChunkCache.getChunkShape(bandVariable);
+                if (chunkShape != null) {
+                    array = NetcdfChunkCache.INSTANCE.read(dataset, bandVariable, chunkShape, sections);
+                } else {
+                    array = bandVariable.read(sections);
+                }
             } catch (InvalidRangeException e) {
                 throw netcdfFailure(e);
             }
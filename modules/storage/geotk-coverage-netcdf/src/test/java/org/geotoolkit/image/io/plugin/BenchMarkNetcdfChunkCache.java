@@ -0,0 +1,140 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.Arrays;
+import org.geotoolkit.image.io.DimensionSlice;
+import org.geotoolkit.image.io.SpatialImageReadParam;
+import ucar.ma2.ArrayFloat;
+import ucar.ma2.DataType;
+import ucar.ma2.Range;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+/**
+ * Reads all time steps of a compressed NetCDF-4 variable tile by tile,
+ * directly with the UCAR library and with the NetCDF image reader
+ * (first pass fills the chunk cache, second pass reads from it).
+ *
+ * Use example : java BenchMarkNetcdfChunkCache 2048 12 256
+ * for a synthetic 2048x2048 grid with 12 time steps, read by 256x256 tiles.
+ * The synthetic file requires the native NetCDF-C library, an existing file can
+ * be given instead : java BenchMarkNetcdfChunkCache file.nc variable time 256
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkNetcdfChunkCache {
+
+    public static void main(String[] args) throws Exception {
+        final File file;
+        final String variableName;
+        final String timeName;
+        final int tileSize;
+        if (args.length > 0 && new File(args[0]).isFile()) {
+            file = new File(args[0]);
+            variableName = args[1];
+            timeName = args[2];
+            tileSize = (args.length > 3) ? Integer.parseInt(args[3]) : 256;
+        } else {
+            final int size = (args.length > 0) ? Integer.parseInt(args[0]) : 2048;
+            final int nbTime = (args.length > 1) ? Integer.parseInt(args[1]) : 12;
+            tileSize = (args.length > 2) ? Integer.parseInt(args[2]) : 256;
+            file = File.createTempFile("chunks", ".nc");
+            file.deleteOnExit();
+            variableName = "temperature";
+            timeName = "time";
+            createFile(file, size, nbTime);
+        }
+
+        final int[] shape;
+        long before = System.nanoTime();
+        final NetcdfFile nc = NetcdfFile.open(file.getPath());
+        try {
+            final Variable variable = nc.findVariable(variableName);
+            shape = variable.getShape();
+            System.out.println("Variable " + variableName + Arrays.toString(shape)
+                    + " chunks " + Arrays.toString(NetcdfChunkCache.getChunkShape(variable)));
+            for (int t = 0; t < shape[0]; t++) {
+                for (int y = 0; y < shape[1]; y += tileSize) {
+                    for (int x = 0; x < shape[2]; x += tileSize) {
+                        variable.read(Arrays.asList(new Range(t, t),
+                                new Range(y, Math.min(y + tileSize, shape[1]) - 1),
+                                new Range(x, Math.min(x + tileSize, shape[2]) - 1)));
+                    }
+                }
+            }
+        } finally {
+            nc.close();
+        }
+        final long direct = System.nanoTime() - before;
+
+        final long[] passes = new long[2];
+        for (int p = 0; p < passes.length; p++) {
+            before = System.nanoTime();
+            final NetcdfImageReader reader = new NetcdfImageReader(null);
+            reader.setInput(file);
+            reader.setImageNames(variableName);
+            reader.getDimensionForAPI(DimensionSlice.API.IMAGES).addDimensionId(timeName);
+            final SpatialImageReadParam param = reader.getDefaultReadParam();
+            for (int t = 0; t < shape[0]; t++) {
+                for (int y = 0; y < shape[1]; y += tileSize) {
+                    for (int x = 0; x < shape[2]; x += tileSize) {
+                        param.setSourceRegion(new Rectangle(x, y,
+                                Math.min(tileSize, shape[2] - x), Math.min(tileSize, shape[1] - y)));
+                        reader.readRaster(t, param);
+                    }
+                }
+            }
+            reader.dispose();
+            passes[p] = System.nanoTime() - before;
+        }
+
+        System.out.println("UCAR library : " + direct / 1000000 + " ms");
+        System.out.println("Cold cache   : " + passes[0] / 1000000 + " ms");
+        System.out.println("Warm cache   : " + passes[1] / 1000000 + " ms ("
+                + NetcdfChunkCache.INSTANCE.size() / (1 << 20) + " MB cached)");
+        System.exit(0);
+    }
+
+    /**
+     * Creates a compressed NetCDF-4 file with the default chunking of the UCAR library.
+     */
+    private static void createFile(final File file, final int size, final int nbTime) throws Exception {
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf4, file.getPath());
+        final Dimension time = writer.addDimension(null, "time", nbTime);
+        final Dimension lat = writer.addDimension(null, "lat", size);
+        final Dimension lon = writer.addDimension(null, "lon", size);
+        final Variable variable = writer.addVariable(null, "temperature", DataType.FLOAT,
+                Arrays.asList(time, lat, lon));
+        writer.create();
+        final ArrayFloat.D3 data = new ArrayFloat.D3(1, size, size);
+        for (int t = 0; t < nbTime; t++) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    data.set(0, y, x, (float) (Math.sin((x + t * 10) / 50.0) * Math.cos(y / 50.0) * 20));
+                }
+            }
+            writer.write(variable, new int[]{t, 0, 0}, data);
+        }
+        writer.close();
+    }
+
+}
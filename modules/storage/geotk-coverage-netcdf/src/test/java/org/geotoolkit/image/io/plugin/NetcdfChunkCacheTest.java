@@ -0,0 +1,197 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.ArrayInt;
+import ucar.ma2.DataType;
+import ucar.ma2.Range;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+import ucar.nc2.dataset.NetcdfDataset;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the sections read through the chunk cache with direct reads.
+ * The chunk shape is declared by a {@code _ChunkSizes} attribute on a NetCDF-3 file,
+ * which does not require the native NetCDF-C library. The shape does not divide the
+ * variable shape, so the last chunk of each dimension is partial.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class NetcdfChunkCacheTest extends org.geotoolkit.test.TestBase {
+
+    private static final int[] SHAPE = {3, 7, 10};
+    private static final int[] CHUNKS = {2, 3, 4};
+
+    /**
+     * Size of a whole chunk, in bytes.
+     */
+    private static final int CHUNK_BYTES = 2 * 3 * 4 * 4;
+
+    private File file;
+
+    @Before
+    public void createFile() throws Exception {
+        file = File.createTempFile("chunks", ".nc");
+        write(0, null);
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    /**
+     * Writes the test variable, each sample value is its index plus the given offset.
+     *
+     * @param comment optional global attribute, used to change the file size
+     */
+    private void write(final int offset, final String comment) throws Exception {
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getPath());
+        final Dimension t = writer.addDimension(null, "t", SHAPE[0]);
+        final Dimension y = writer.addDimension(null, "y", SHAPE[1]);
+        final Dimension x = writer.addDimension(null, "x", SHAPE[2]);
+        final Variable variable = writer.addVariable(null, "data", DataType.INT, Arrays.asList(t, y, x));
+        writer.addVariableAttribute(variable, new Attribute("_ChunkSizes", Array.factory(CHUNKS)));
+        if (comment != null) {
+            writer.addGroupAttribute(null, new Attribute("comment", comment));
+        }
+        writer.create();
+        final ArrayInt.D3 data = new ArrayInt.D3(SHAPE[0], SHAPE[1], SHAPE[2]);
+        int n = 0;
+        for (int i = 0; i < SHAPE[0]; i++) {
+            for (int j = 0; j < SHAPE[1]; j++) {
+                for (int k = 0; k < SHAPE[2]; k++) {
+                    data.set(i, j, k, offset + n++);
+                }
+            }
+        }
+        writer.write(variable, data);
+        writer.close();
+    }
+
+    /**
+     * Reads the section with the cache and directly, and compares the results.
+     */
+    private void assertSection(final NetcdfChunkCache cache, final Range... ranges) throws Exception {
+        final List<Range> section = Arrays.asList(ranges);
+        try (NetcdfDataset dataset = NetcdfDataset.openDataset(file.getPath())) {
+            final Variable variable = dataset.findVariable("data");
+            final int[] chunkShape = NetcdfChunkCache.getChunkShape(variable);
+            assertArrayEquals(CHUNKS, chunkShape);
+            final Array expected = variable.read(section);
+            final Array result = cache.read(dataset, variable, chunkShape, section);
+            assertArrayEquals(expected.getShape(), result.getShape());
+            assertArrayEquals((int[]) expected.copyTo1DJavaArray(), (int[]) result.copyTo1DJavaArray());
+        }
+    }
+
+    /**
+     * Reads the section with the cache only.
+     */
+    private int[] readCached(final NetcdfChunkCache cache, final Range... ranges) throws Exception {
+        try (NetcdfDataset dataset = NetcdfDataset.openDataset(file.getPath())) {
+            final Variable variable = dataset.findVariable("data");
+            final Array result = cache.read(dataset, variable, CHUNKS, Arrays.asList(ranges));
+            return (int[]) result.copyTo1DJavaArray();
+        }
+    }
+
+    /**
+     * Tests sections aligned or not on chunks, with strides, and partial edge chunks.
+     */
+    @Test
+    public void testSections() throws Exception {
+        final NetcdfChunkCache cache = new NetcdfChunkCache(1 << 20);
+        //whole variable
+        assertSection(cache, new Range(0, 2), new Range(0, 6), new Range(0, 9));
+        //single chunk
+        assertSection(cache, new Range(0, 1), new Range(0, 2), new Range(0, 3));
+        //partial edge chunks
+        assertSection(cache, new Range(2, 2), new Range(5, 6), new Range(7, 9));
+        //unaligned section over several chunks
+        assertSection(cache, new Range(1, 2), new Range(1, 5), new Range(2, 8));
+        //strides, some chunks do not contain any requested sample
+        assertSection(cache, new Range(0, 2, 2), new Range(0, 6, 3), new Range(1, 9, 5));
+        assertSection(cache, new Range(1, 1), new Range(2, 6, 4), new Range(0, 9, 9));
+        assertSection(cache, new Range(0, 2), new Range(1, 1), new Range(3, 8, 2));
+    }
+
+    /**
+     * Tests chunks are reused, and not reused once the file is rewritten.
+     */
+    @Test
+    public void testCacheHits() throws Exception {
+        final NetcdfChunkCache cache = new NetcdfChunkCache(1 << 20);
+        assertSection(cache, new Range(0, 2), new Range(0, 6), new Range(0, 9));
+        final long size = cache.size();
+        assertEquals(SHAPE[0] * SHAPE[1] * SHAPE[2] * 4, size);
+        //all chunks are already cached
+        assertSection(cache, new Range(1, 2), new Range(1, 5), new Range(2, 8));
+        assertSection(cache, new Range(0, 2, 2), new Range(0, 6, 3), new Range(1, 9, 5));
+        assertEquals(size, cache.size());
+
+        //same size and modification date, the cached chunks are returned
+        final long modified = file.lastModified();
+        write(500, null);
+        assertTrue(file.setLastModified(modified));
+        assertEquals(0, readCached(cache, new Range(0, 2), new Range(0, 6), new Range(0, 9))[0]);
+        assertEquals(size, cache.size());
+
+        //same modification date, different size
+        write(1000, "first comment");
+        assertTrue(file.setLastModified(modified));
+        assertSection(cache, new Range(0, 2), new Range(0, 6), new Range(0, 9));
+        assertEquals(2 * size, cache.size());
+
+        //same size, different modification date
+        write(2000, "other comment");
+        assertTrue(file.setLastModified(modified + 10000));
+        assertSection(cache, new Range(0, 2), new Range(0, 6), new Range(0, 9));
+        assertEquals(3 * size, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests the least recently used chunks are removed when the budget is exceeded.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        final int budget = 4 * CHUNK_BYTES;
+        final NetcdfChunkCache cache = new NetcdfChunkCache(budget);
+        assertSection(cache, new Range(0, 2), new Range(0, 6), new Range(0, 9));
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() <= budget);
+        assertSection(cache, new Range(0, 1), new Range(0, 2), new Range(0, 3));
+        assertSection(cache, new Range(1, 2), new Range(1, 5), new Range(2, 8));
+        assertTrue(cache.size() <= budget);
+    }
+
+}
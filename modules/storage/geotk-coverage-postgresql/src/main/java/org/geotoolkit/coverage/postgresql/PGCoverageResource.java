@@ -404,6 +404,16 @@ public class PGCoverageResource extends AbstractPyramidalCoverageResource {
             insertStmt = cnx.createStatement();
             insertStmt.executeUpdate(query.toString());
 
+            for (Pyramid p : pyramidSet.getPyramids()) {
+                if (p.getId().equals(pyramidId)) {
+                    for (GridMosaic mosaic : p.getMosaics()) {
+                        if (mosaic.getId().equals(mosaicId)) {
+                            ((PGGridMosaic) mosaic).tileWritten(col, row);
+                        }
+                    }
+                }
+            }
+
             final CoverageStoreContentEvent event = fireTileUpdated(pyramidId, mosaicId, Collections.singletonList(new Point(col,row)));
             getStore().forwardContentEvent(event);
         }catch(IOException ex){
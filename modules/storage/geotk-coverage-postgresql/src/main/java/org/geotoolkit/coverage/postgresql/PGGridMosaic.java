@@ -25,6 +25,7 @@ import java.sql.Statement;
 import java.util.Map;
 import org.geotoolkit.storage.coverage.AbstractGridMosaic;
 import org.geotoolkit.storage.coverage.Pyramid;
+import org.geotoolkit.storage.coverage.TileStateBitmap;
 import org.geotoolkit.storage.coverage.TileReference;
 import org.apache.sis.storage.DataStoreException;
 import org.opengis.geometry.DirectPosition;
@@ -45,8 +46,38 @@ public class PGGridMosaic extends AbstractGridMosaic{
         this.id = id;
     }
 
+    /**
+     * Positions of the tiles in database, loaded at first use.
+     */
+    private TileStateBitmap tileExist;
+
     @Override
-    public boolean isMissing(int col, int row) {
+    public synchronized boolean isMissing(int col, int row) {
+        if (tileExist == null) {
+            tileExist = loadTileStates();
+        }
+        return !tileExist.get(getTileIndex(col, row));
+    }
+
+    /**
+     * Update the tile states after a tile has been written.
+     */
+    synchronized void tileWritten(int col, int row) {
+        if (tileExist != null) {
+            tileExist.set(getTileIndex(col, row));
+        }
+    }
+
+    private long getTileIndex(int col, int row) {
+        return (long) row * getGridSize().width + col;
+    }
+
+    /**
+     * Read the positions of all tiles of this mosaic, a single query replaces
+     * a query for each tile test.
+     */
+    private TileStateBitmap loadTileStates() {
+        final TileStateBitmap states = new TileStateBitmap();
         Connection cnx = null;
         Statement stmt = null;
         ResultSet rs = null;
@@ -58,15 +89,15 @@ public class PGGridMosaic extends AbstractGridMosaic{
             final long mosaicId = getDatabaseId();
 
             final StringBuilder query = new StringBuilder();
-            query.append("SELECT count(raster) FROM ");
+            query.append("SELECT \"positionX\",\"positionY\" FROM ");
             query.append(ref.getStore().encodeTableName("Tile"));
             query.append(" WHERE \"mosaicId\"=").append(mosaicId);
-            query.append(" AND \"positionX\"=").append(col);
-            query.append(" AND \"positionY\"=").append(row);
 
             rs = stmt.executeQuery(query.toString());
-            rs.next();
-            return rs.getInt(1) <= 0;
+            while (rs.next()) {
+                states.set(getTileIndex(rs.getInt(1), rs.getInt(2)));
+            }
+            return states;
         }catch(SQLException ex){
             throw new RuntimeException(ex);
         }finally{
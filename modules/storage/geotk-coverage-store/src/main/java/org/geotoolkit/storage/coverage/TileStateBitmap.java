@@ -0,0 +1,818 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.storage.coverage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compressed set of bits indexed by long values, used to store the state of
+ * the tiles of a mosaic grid, tile index is {@code row * gridWidth + column}.
+ * <p>
+ * Bits are grouped by chunks of 65536 bits, in the manner of Roaring bitmaps.
+ * A chunk without any set bit is not stored, a sparse chunk is stored as a
+ * sorted array of values, a dense chunk as a bitmap and a complete chunk
+ * takes no memory. Memory used depends on the number and distribution of set
+ * bits, not on the grid size.
+ * <p>
+ * This class is not thread safe, like {@link BitSet}.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public final class TileStateBitmap {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_WORDS = CHUNK_SIZE / 64;
+    /**
+     * Maximum number of values in an array chunk, above a bitmap is smaller.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    private static final int MAGIC = 0x54534231; //TSB1
+    private static final byte TYPE_ARRAY = 0;
+    private static final byte TYPE_BITMAP = 1;
+    private static final byte TYPE_FULL = 2;
+
+    /** Chunk keys, sorted, index >>> CHUNK_BITS. */
+    private long[] keys = new long[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int size = 0;
+
+    /**
+     * Create an empty bitmap.
+     */
+    public TileStateBitmap() {
+    }
+
+    /**
+     * Copy a bit set.
+     *
+     * @param bits bit set to copy
+     * @return new bitmap with the same set bits
+     */
+    public static TileStateBitmap valueOf(final BitSet bits) {
+        final TileStateBitmap bitmap = new TileStateBitmap();
+        final long[] words = bits.toLongArray();
+        for (int start = 0; start < words.length; start += CHUNK_WORDS) {
+            final long[] chunkWords = Arrays.copyOfRange(words, start, start + CHUNK_WORDS);
+            int card = 0;
+            for (long w : chunkWords) card += Long.bitCount(w);
+            if (card == 0) continue;
+            bitmap.insert(bitmap.size, start / CHUNK_WORDS, new BitmapChunk(chunkWords, card).optimize());
+        }
+        return bitmap;
+    }
+
+    /**
+     * Read a bitmap encoded with {@link #toByteArray() }.
+     *
+     * @param bytes encoded bitmap
+     * @return decoded bitmap
+     * @throws IOException if bytes are not an encoded bitmap
+     */
+    public static TileStateBitmap valueOf(final byte[] bytes) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Bytes are not an encoded tile state bitmap.");
+        }
+        final int nb = in.readInt();
+        final TileStateBitmap bitmap = new TileStateBitmap();
+        long previous = -1;
+        for (int i = 0; i < nb; i++) {
+            final long key = in.readLong();
+            if (key <= previous) {
+                throw new IOException("Tile state bitmap chunks are not sorted.");
+            }
+            bitmap.insert(i, key, readChunk(in));
+            previous = key;
+        }
+        return bitmap;
+    }
+
+    /**
+     * Encode this bitmap, the encoded form has the same size as the bitmap in memory.
+     *
+     * @return encoded bitmap
+     */
+    public byte[] toByteArray() {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(keys[i]);
+                chunks[i].write(out);
+            }
+        } catch (IOException ex) {
+            //can not happen in memory
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @param index bit index
+     * @return value of the bit
+     */
+    public boolean get(final long index) {
+        checkIndex(index);
+        final int i = indexOf(index >>> CHUNK_BITS);
+        return i >= 0 && chunks[i].get((int) index & CHUNK_MASK);
+    }
+
+    /**
+     * Set the bit at given index.
+     *
+     * @param index bit index
+     */
+    public void set(final long index) {
+        checkIndex(index);
+        final long key = index >>> CHUNK_BITS;
+        int i = indexOf(key);
+        if (i < 0) {
+            i = ~i;
+            insert(i, key, new ArrayChunk());
+        }
+        chunks[i] = chunks[i].add((int) index & CHUNK_MASK);
+    }
+
+    /**
+     * @param index bit index
+     * @param value new bit value
+     */
+    public void set(final long index, final boolean value) {
+        if (value) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    /**
+     * Clear the bit at given index.
+     *
+     * @param index bit index
+     */
+    public void clear(final long index) {
+        checkIndex(index);
+        final int i = indexOf(index >>> CHUNK_BITS);
+        if (i >= 0) {
+            update(i, chunks[i].remove((int) index & CHUNK_MASK));
+        }
+    }
+
+    /**
+     * Set the bits in given range.
+     *
+     * @param from first bit index, inclusive
+     * @param to last bit index, exclusive
+     */
+    public void set(long from, final long to) {
+        checkRange(from, to);
+        while (from < to) {
+            final long key = from >>> CHUNK_BITS;
+            final int low = (int) from & CHUNK_MASK;
+            final int high = (int) Math.min(CHUNK_SIZE, low + (to - from));
+            int i = indexOf(key);
+            if (low == 0 && high == CHUNK_SIZE) {
+                if (i >= 0) {
+                    chunks[i] = FULL;
+                } else {
+                    insert(~i, key, FULL);
+                }
+            } else {
+                if (i < 0) {
+                    i = ~i;
+                    insert(i, key, new ArrayChunk());
+                }
+                chunks[i] = chunks[i].addRange(low, high);
+            }
+            from += high - low;
+        }
+    }
+
+    /**
+     * @param from first bit index, inclusive
+     * @param to last bit index, exclusive
+     * @param value new bits value
+     */
+    public void set(final long from, final long to, final boolean value) {
+        if (value) {
+            set(from, to);
+        } else {
+            clear(from, to);
+        }
+    }
+
+    /**
+     * Clear the bits in given range.
+     *
+     * @param from first bit index, inclusive
+     * @param to last bit index, exclusive
+     */
+    public void clear(final long from, final long to) {
+        checkRange(from, to);
+        if (from == to) return;
+        final long lastKey = (to - 1) >>> CHUNK_BITS;
+        int i = indexOf(from >>> CHUNK_BITS);
+        if (i < 0) i = ~i;
+        while (i < size && keys[i] <= lastKey) {
+            final long start = keys[i] << CHUNK_BITS;
+            final int low = (int) Math.max(0, from - start);
+            final int high = (int) Math.min(CHUNK_SIZE, to - start);
+            final Chunk chunk = chunks[i].removeRange(low, high);
+            if (chunk == null) {
+                removeAt(i);
+            } else {
+                chunks[i++] = chunk;
+            }
+        }
+    }
+
+    /**
+     * Clear all bits.
+     */
+    public void clear() {
+        Arrays.fill(chunks, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return true if no bit is set
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return number of set bits
+     */
+    public long cardinality() {
+        long card = 0;
+        for (int i = 0; i < size; i++) {
+            card += chunks[i].cardinality();
+        }
+        return card;
+    }
+
+    /**
+     * @param from first bit index, inclusive
+     * @param to last bit index, exclusive
+     * @return number of set bits in given range
+     */
+    public long cardinality(final long from, final long to) {
+        checkRange(from, to);
+        if (from == to) return 0;
+        final long lastKey = (to - 1) >>> CHUNK_BITS;
+        int i = indexOf(from >>> CHUNK_BITS);
+        if (i < 0) i = ~i;
+        long card = 0;
+        for (; i < size && keys[i] <= lastKey; i++) {
+            final long start = keys[i] << CHUNK_BITS;
+            final int low = (int) Math.max(0, from - start);
+            final int high = (int) Math.min(CHUNK_SIZE, to - start);
+            card += (low == 0 && high == CHUNK_SIZE) ? chunks[i].cardinality() : chunks[i].cardinality(low, high);
+        }
+        return card;
+    }
+
+    /**
+     * @param from first bit index, inclusive
+     * @param to last bit index, exclusive
+     * @return true if at least one bit is set in given range
+     */
+    public boolean intersects(final long from, final long to) {
+        checkRange(from, to);
+        final long next = nextSetBit(from);
+        return next >= 0 && next < to;
+    }
+
+    /**
+     * @param from first bit index to test
+     * @return index of the first set bit at or after given index, -1 if none
+     */
+    public long nextSetBit(final long from) {
+        checkIndex(from);
+        final long key = from >>> CHUNK_BITS;
+        int i = indexOf(key);
+        if (i >= 0) {
+            final int low = chunks[i].nextSetBit((int) from & CHUNK_MASK);
+            if (low >= 0) return (key << CHUNK_BITS) | low;
+            i++;
+        } else {
+            i = ~i;
+        }
+        if (i < size) {
+            return (keys[i] << CHUNK_BITS) | chunks[i].nextSetBit(0);
+        }
+        return -1;
+    }
+
+    /**
+     * @param from first bit index to test
+     * @return index of the first clear bit at or after given index
+     */
+    public long nextClearBit(final long from) {
+        checkIndex(from);
+        long key = from >>> CHUNK_BITS;
+        int i = indexOf(key);
+        if (i < 0) return from;
+        int low = chunks[i].nextClearBit((int) from & CHUNK_MASK);
+        while (low == CHUNK_SIZE) {
+            //chunk is complete after from, search in the next chunk
+            key++;
+            i++;
+            if (i >= size || keys[i] != key) return key << CHUNK_BITS;
+            low = chunks[i].nextClearBit(0);
+        }
+        return (key << CHUNK_BITS) | low;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof TileStateBitmap)) return false;
+        return Arrays.equals(toByteArray(), ((TileStateBitmap) obj).toByteArray());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toByteArray());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String toString() {
+        return "TileStateBitmap[chunks=" + size + ", cardinality=" + cardinality() + "]";
+    }
+
+    private static void checkIndex(final long index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Negative bit index : " + index);
+        }
+    }
+
+    private static void checkRange(final long from, final long to) {
+        checkIndex(from);
+        if (to < from) {
+            throw new IndexOutOfBoundsException("Invalid bit range : " + from + " to " + to);
+        }
+    }
+
+    private int indexOf(final long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(final int i, final long key, final Chunk chunk) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(chunks, i, chunks, i + 1, size - i);
+        keys[i] = key;
+        chunks[i] = chunk;
+        size++;
+    }
+
+    private void update(final int i, final Chunk chunk) {
+        if (chunk == null) {
+            removeAt(i);
+        } else {
+            chunks[i] = chunk;
+        }
+    }
+
+    private void removeAt(final int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(chunks, i + 1, chunks, i, size - i - 1);
+        size--;
+        chunks[size] = null;
+    }
+
+    private static Chunk readChunk(final DataInput in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case TYPE_ARRAY : {
+                final int n = in.readUnsignedShort() + 1;
+                final ArrayChunk chunk = new ArrayChunk(n);
+                for (int i = 0; i < n; i++) {
+                    chunk.values[i] = in.readChar();
+                }
+                chunk.n = n;
+                return chunk;
+            }
+            case TYPE_BITMAP : {
+                final long[] words = new long[CHUNK_WORDS];
+                int card = 0;
+                for (int i = 0; i < CHUNK_WORDS; i++) {
+                    words[i] = in.readLong();
+                    card += Long.bitCount(words[i]);
+                }
+                return new BitmapChunk(words, card);
+            }
+            case TYPE_FULL : return FULL;
+            default : throw new IOException("Unknown tile state bitmap chunk type : " + type);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // chunks //////////////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Bits of a chunk. Modifications return the chunk to use in place of this one,
+     * null if the chunk has no set bit anymore.
+     */
+    private static abstract class Chunk {
+
+        abstract boolean get(int low);
+
+        abstract Chunk add(int low);
+
+        abstract Chunk remove(int low);
+
+        abstract Chunk addRange(int from, int to);
+
+        abstract Chunk removeRange(int from, int to);
+
+        abstract int cardinality();
+
+        abstract int cardinality(int from, int to);
+
+        /**
+         * @return next set bit, -1 if none
+         */
+        abstract int nextSetBit(int from);
+
+        /**
+         * @return next clear bit, CHUNK_SIZE if none
+         */
+        abstract int nextClearBit(int from);
+
+        abstract void write(DataOutput out) throws IOException;
+    }
+
+    /**
+     * Sparse chunk, sorted values.
+     */
+    private static final class ArrayChunk extends Chunk {
+
+        private char[] values;
+        private int n = 0;
+
+        private ArrayChunk() {
+            this(4);
+        }
+
+        private ArrayChunk(final int capacity) {
+            values = new char[capacity];
+        }
+
+        /**
+         * @return index of the first value greater or equal to given value
+         */
+        private int lowerBound(final int value) {
+            if (value >= CHUNK_SIZE) return n;
+            final int i = Arrays.binarySearch(values, 0, n, (char) value);
+            return i < 0 ? ~i : i;
+        }
+
+        @Override
+        boolean get(final int low) {
+            return Arrays.binarySearch(values, 0, n, (char) low) >= 0;
+        }
+
+        @Override
+        Chunk add(final int low) {
+            int i = Arrays.binarySearch(values, 0, n, (char) low);
+            if (i >= 0) return this;
+            if (n == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            i = ~i;
+            if (n == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, n * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, n - i);
+            values[i] = (char) low;
+            n++;
+            return this;
+        }
+
+        @Override
+        Chunk remove(final int low) {
+            final int i = Arrays.binarySearch(values, 0, n, (char) low);
+            if (i < 0) return this;
+            System.arraycopy(values, i + 1, values, i, n - i - 1);
+            n--;
+            return n == 0 ? null : this;
+        }
+
+        @Override
+        Chunk addRange(final int from, final int to) {
+            final int start = lowerBound(from);
+            final int end = lowerBound(to);
+            final int card = n - (end - start) + (to - from);
+            if (card > ARRAY_MAX) {
+                return toBitmap().addRange(from, to);
+            }
+            final char[] result = new char[Math.max(card, 4)];
+            System.arraycopy(values, 0, result, 0, start);
+            int k = start;
+            for (int v = from; v < to; v++) {
+                result[k++] = (char) v;
+            }
+            System.arraycopy(values, end, result, k, n - end);
+            values = result;
+            n = card;
+            return this;
+        }
+
+        @Override
+        Chunk removeRange(final int from, final int to) {
+            final int start = lowerBound(from);
+            final int end = lowerBound(to);
+            System.arraycopy(values, end, values, start, n - end);
+            n -= end - start;
+            return n == 0 ? null : this;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        int cardinality(final int from, final int to) {
+            return lowerBound(to) - lowerBound(from);
+        }
+
+        @Override
+        int nextSetBit(final int from) {
+            final int i = lowerBound(from);
+            return i < n ? values[i] : -1;
+        }
+
+        @Override
+        int nextClearBit(final int from) {
+            int i = lowerBound(from);
+            int v = from;
+            while (i < n && values[i] == v) {
+                i++;
+                v++;
+            }
+            return v;
+        }
+
+        private BitmapChunk toBitmap() {
+            final long[] words = new long[CHUNK_WORDS];
+            for (int i = 0; i < n; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapChunk(words, n);
+        }
+
+        @Override
+        void write(final DataOutput out) throws IOException {
+            out.writeByte(TYPE_ARRAY);
+            out.writeShort(n - 1);
+            for (int i = 0; i < n; i++) {
+                out.writeChar(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Dense chunk, one bit per value.
+     */
+    private static final class BitmapChunk extends Chunk {
+
+        private final long[] words;
+        private int card;
+
+        private BitmapChunk(final long[] words, final int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        /**
+         * @return the smallest chunk for the current bits
+         */
+        private Chunk optimize() {
+            if (card == 0) return null;
+            if (card == CHUNK_SIZE) return FULL;
+            if (card > ARRAY_MAX) return this;
+            final ArrayChunk chunk = new ArrayChunk(card);
+            for (int i = 0; i < CHUNK_WORDS; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    chunk.values[chunk.n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+            return chunk;
+        }
+
+        @Override
+        boolean get(final int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Chunk add(final int low) {
+            final long mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) {
+                words[low >>> 6] |= mask;
+                card++;
+                if (card == CHUNK_SIZE) return FULL;
+            }
+            return this;
+        }
+
+        @Override
+        Chunk remove(final int low) {
+            final long mask = 1L << low;
+            if ((words[low >>> 6] & mask) != 0) {
+                words[low >>> 6] &= ~mask;
+                card--;
+                if (card <= ARRAY_MAX) return optimize();
+            }
+            return this;
+        }
+
+        @Override
+        Chunk addRange(final int from, final int to) {
+            setRange(from, to, true);
+            return card == CHUNK_SIZE ? FULL : this;
+        }
+
+        @Override
+        Chunk removeRange(final int from, final int to) {
+            setRange(from, to, false);
+            return card <= ARRAY_MAX ? optimize() : this;
+        }
+
+        private void setRange(final int from, final int to, final boolean value) {
+            if (from >= to) return;
+            final int first = from >>> 6;
+            final int last = (to - 1) >>> 6;
+            for (int i = first; i <= last; i++) {
+                long mask = -1L;
+                if (i == first) mask &= -1L << from;
+                if (i == last) mask &= -1L >>> (64 - to);
+                final int before = Long.bitCount(words[i]);
+                if (value) {
+                    words[i] |= mask;
+                } else {
+                    words[i] &= ~mask;
+                }
+                card += Long.bitCount(words[i]) - before;
+            }
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int cardinality(final int from, final int to) {
+            if (from >= to) return 0;
+            final int first = from >>> 6;
+            final int last = (to - 1) >>> 6;
+            int count = 0;
+            for (int i = first; i <= last; i++) {
+                long mask = -1L;
+                if (i == first) mask &= -1L << from;
+                if (i == last) mask &= -1L >>> (64 - to);
+                count += Long.bitCount(words[i] & mask);
+            }
+            return count;
+        }
+
+        @Override
+        int nextSetBit(final int from) {
+            int i = from >>> 6;
+            long w = words[i] & (-1L << from);
+            while (true) {
+                if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+                if (++i == CHUNK_WORDS) return -1;
+                w = words[i];
+            }
+        }
+
+        @Override
+        int nextClearBit(final int from) {
+            int i = from >>> 6;
+            long w = ~words[i] & (-1L << from);
+            while (true) {
+                if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+                if (++i == CHUNK_WORDS) return CHUNK_SIZE;
+                w = ~words[i];
+            }
+        }
+
+        @Override
+        void write(final DataOutput out) throws IOException {
+            out.writeByte(TYPE_BITMAP);
+            for (long w : words) {
+                out.writeLong(w);
+            }
+        }
+    }
+
+    /**
+     * Complete chunk, all bits are set.
+     */
+    private static final Chunk FULL = new Chunk() {
+
+        private BitmapChunk toBitmap() {
+            final long[] words = new long[CHUNK_WORDS];
+            Arrays.fill(words, -1L);
+            return new BitmapChunk(words, CHUNK_SIZE);
+        }
+
+        @Override
+        boolean get(final int low) {
+            return true;
+        }
+
+        @Override
+        Chunk add(final int low) {
+            return this;
+        }
+
+        @Override
+        Chunk remove(final int low) {
+            return toBitmap().remove(low);
+        }
+
+        @Override
+        Chunk addRange(final int from, final int to) {
+            return this;
+        }
+
+        @Override
+        Chunk removeRange(final int from, final int to) {
+            return toBitmap().removeRange(from, to);
+        }
+
+        @Override
+        int cardinality() {
+            return CHUNK_SIZE;
+        }
+
+        @Override
+        int cardinality(final int from, final int to) {
+            return Math.max(0, to - from);
+        }
+
+        @Override
+        int nextSetBit(final int from) {
+            return from;
+        }
+
+        @Override
+        int nextClearBit(final int from) {
+            return CHUNK_SIZE;
+        }
+
+        @Override
+        void write(final DataOutput out) throws IOException {
+            out.writeByte(TYPE_FULL);
+        }
+    };
+
+}
@@ -0,0 +1,121 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.storage.coverage;
+
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tile state bitmap tests.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class TileStateBitmapTest extends org.geotoolkit.test.TestBase {
+
+    /**
+     * Compare random operations with a BitSet.
+     */
+    @Test
+    public void randomTest() throws Exception {
+        final Random random = new Random(42);
+        final int length = 400000;
+        final BitSet expected = new BitSet();
+        final TileStateBitmap bitmap = new TileStateBitmap();
+
+        for (int k = 0; k < 20000; k++) {
+            final int op = random.nextInt(10);
+            final int from = random.nextInt(length);
+            final int to = Math.min(length, from + (op < 2 ? random.nextInt(150000) : random.nextInt(100)));
+            switch (op) {
+                case 0 :
+                case 2 : expected.set(from, to); bitmap.set(from, to); break;
+                case 1 :
+                case 3 : expected.clear(from, to); bitmap.clear(from, to); break;
+                case 4 :
+                case 5 :
+                case 6 : expected.set(from); bitmap.set(from); break;
+                default : expected.clear(from); bitmap.clear(from); break;
+            }
+
+            if (k % 500 == 0) {
+                assertBits(expected, bitmap, length);
+            }
+            final int a = random.nextInt(length);
+            final int b = a + random.nextInt(length - a + 1);
+            assertEquals(expected.get(a, b).cardinality(), bitmap.cardinality(a, b));
+            assertEquals(expected.nextSetBit(a), bitmap.nextSetBit(a));
+            assertEquals(expected.nextClearBit(a), bitmap.nextClearBit(a));
+        }
+        assertBits(expected, bitmap, length);
+        assertBits(expected, TileStateBitmap.valueOf(bitmap.toByteArray()), length);
+        assertBits(expected, TileStateBitmap.valueOf(expected), length);
+        assertEquals(bitmap, TileStateBitmap.valueOf(expected));
+    }
+
+    /**
+     * Grids larger than Integer.MAX_VALUE tiles.
+     */
+    @Test
+    public void longIndexTest() throws Exception {
+        final long width = 1L << 21;
+        final TileStateBitmap bitmap = new TileStateBitmap();
+        //a complete row and a few tiles at the end of the grid
+        final long row = 1500000L * width;
+        bitmap.set(row, row + width);
+        final long last = width * width - 1;
+        bitmap.set(last);
+        bitmap.set(last - 10);
+
+        assertEquals(width + 2, bitmap.cardinality());
+        assertTrue(bitmap.get(row));
+        assertTrue(bitmap.get(row + width - 1));
+        assertFalse(bitmap.get(row - 1));
+        assertFalse(bitmap.get(row + width));
+        assertTrue(bitmap.get(last));
+        assertEquals(row, bitmap.nextSetBit(0));
+        assertEquals(row + width, bitmap.nextClearBit(row));
+        assertEquals(last - 10, bitmap.nextSetBit(row + width));
+        assertTrue(bitmap.intersects(last - 20, last - 9));
+        assertFalse(bitmap.intersects(last - 9, last));
+        assertEquals(width / 2, bitmap.cardinality(row + width / 2, last - 10));
+
+        //complete chunks take no memory
+        assertTrue(bitmap.toByteArray().length < 400);
+
+        final TileStateBitmap copy = TileStateBitmap.valueOf(bitmap.toByteArray());
+        assertEquals(bitmap, copy);
+        copy.clear(row + 5);
+        assertFalse(copy.get(row + 5));
+        assertEquals(width + 1, copy.cardinality());
+        copy.clear(0, last + 1);
+        assertTrue(copy.isEmpty());
+    }
+
+    private static void assertBits(final BitSet expected, final TileStateBitmap bitmap, final int length) {
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        assertEquals(expected.isEmpty(), bitmap.isEmpty());
+        for (int i = 0; i < length; i++) {
+            if (expected.get(i) != bitmap.get(i)) {
+                fail("Bit " + i + " differs");
+            }
+        }
+    }
+
+}
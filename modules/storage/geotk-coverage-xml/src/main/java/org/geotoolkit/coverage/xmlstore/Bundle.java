@@ -68,6 +68,16 @@ public final class Bundle extends IndexedResourceBundle {
          * XML coverage
          */
         public static final short coverageXMLTitle = 6;
+
+        /**
+         * Packed tiles
+         */
+        public static final short coverageXMLPackedTiles = 7;
+
+        /**
+         * True to store the tiles of new mosaics in a single pack file instead of a file per tile.
+         */
+        public static final short coverageXMLPackedTilesRemarks = 8;
     }
 
     /**
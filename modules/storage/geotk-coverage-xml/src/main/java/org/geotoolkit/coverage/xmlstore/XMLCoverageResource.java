@@ -774,6 +774,82 @@ public class XMLCoverageResource extends AbstractPyramidalCoverageResource {
         throw new DataStoreException("Not supported yet.");
     }
 
+    /**
+     * Move the tiles of all mosaics stored as a file per tile in a single pack file by mosaic.
+     * The pyramid descriptor is saved before the tile files are deleted, an interrupted
+     * migration leaves the tile files in use.
+     *
+     * @return number of tiles moved, empty tiles included
+     * @throws DataStoreException
+     */
+    public long packTiles() throws DataStoreException {
+        final List<XMLMosaic> toDelete = new ArrayList<>();
+        long nb = 0;
+        for (XMLPyramid pyramid : getPyramidSet().pyramids()) {
+            for (XMLMosaic mosaic : pyramid.mosaics()) {
+                if (!mosaic.isPacked()) {
+                    nb += mosaic.packTiles();
+                    toDelete.add(mosaic);
+                }
+            }
+        }
+        if (toDelete.isEmpty()) return 0;
+        save();
+        for (XMLMosaic mosaic : toDelete) {
+            mosaic.deleteTileFiles();
+        }
+        return nb;
+    }
+
+    /**
+     * Remove the data of rewritten tiles from the pack files of all mosaics.
+     *
+     * @return number of bytes reclaimed
+     * @throws DataStoreException
+     */
+    public long compactTiles() throws DataStoreException {
+        long nb = 0;
+        for (XMLPyramid pyramid : getPyramidSet().pyramids()) {
+            for (XMLMosaic mosaic : pyramid.mosaics()) {
+                nb += mosaic.compactTiles();
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * Write the tile state changes of all mosaics in their journals.
+     * The descriptor is saved if a mosaic made a new tile state snapshot.
+     *
+     * @throws DataStoreException
+     */
+    void flushTileStates() throws DataStoreException {
+        boolean mustSave = false;
+        for (XMLPyramid pyramid : getPyramidSet().pyramids()) {
+            for (XMLMosaic mosaic : pyramid.mosaics()) {
+                mustSave |= mosaic.flushTileState();
+            }
+        }
+        if (mustSave) save();
+    }
+
+    /**
+     * Close the pack and tile state journal files of all mosaics.
+     */
+    void closeFiles() {
+        for (XMLPyramid pyramid : getPyramidSet().pyramids()) {
+            for (XMLMosaic mosaic : pyramid.mosaics()) {
+                try {
+                    mosaic.flushTileState();
+                    mosaic.closeTileStateJournal();
+                    mosaic.closePack();
+                } catch (IOException | DataStoreException ex) {
+                    Logging.getLogger("org.geotoolkit.coverage.xmlstore").log(Level.WARNING, ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
     public Runnable acquireTileWriter(final BlockingQueue<XMLTileWriter.XMLTileInfo> tilesToWrite) {
         return new XMLTileWriter(tilesToWrite, this);
     }
@@ -793,7 +869,7 @@ public class XMLCoverageResource extends AbstractPyramidalCoverageResource {
         checkOrSetSampleColor(image);
 
         mosaic.createTile(col,row,image);
-        if (!mosaic.cacheTileState && mosaic.tileExist != null) {
+        if (mosaic.flushTileState()) {
             save();
         }
     }
@@ -813,7 +889,7 @@ public class XMLCoverageResource extends AbstractPyramidalCoverageResource {
         checkOrSetSampleColor(image);
 
         mosaic.writeTiles(image, area, onlyMissing, monitor);
-        if (!mosaic.cacheTileState && mosaic.tileExist != null) {
+        if (mosaic.flushTileState()) {
             save();
         }
     }
@@ -58,6 +58,7 @@ public class XMLCoverageStore extends AbstractCoverageStore {
     private final DefaultAggregate rootNode = new DefaultAggregate(NamesExt.create("root"));
 
     final boolean cacheTileState;
+    final boolean packedTiles;
 
     @Deprecated
     public XMLCoverageStore(File root) throws URISyntaxException, IOException {
@@ -91,6 +92,7 @@ public class XMLCoverageStore extends AbstractCoverageStore {
         root = Paths.get(rootPath);
         Boolean tmpCacheState = Parameters.castOrWrap(params).getValue(XMLCoverageStoreFactory.CACHE_TILE_STATE);
         cacheTileState = (tmpCacheState == null)? true : tmpCacheState;
+        packedTiles = Boolean.TRUE.equals(Parameters.castOrWrap(params).getValue(XMLCoverageStoreFactory.PACKED_TILES));
         explore();
     }
 
@@ -159,6 +161,11 @@ public class XMLCoverageStore extends AbstractCoverageStore {
 
     @Override
     public void close() {
+        for (Resource res : rootNode.components()) {
+            if (res instanceof XMLCoverageResource) {
+                ((XMLCoverageResource) res).closeFiles();
+            }
+        }
     }
 
     @Override
@@ -75,10 +75,20 @@ public class XMLCoverageStoreFactory extends AbstractCoverageStoreFactory {
             .setRemarks(Bundle.formatInternational(Bundle.Keys.coverageXMLTileStateRemarks))
             .setRequired(false)
             .create(Boolean.class, Boolean.FALSE);
+    /**
+     * A parameter to specify if the tiles of new mosaics are stored in a single pack file
+     * instead of a file per tile (default).
+     */
+    public static final ParameterDescriptor<Boolean> PACKED_TILES = new ParameterBuilder()
+            .addName("packedTiles")
+            .addName(Bundle.formatInternational(Bundle.Keys.coverageXMLPackedTiles))
+            .setRemarks(Bundle.formatInternational(Bundle.Keys.coverageXMLPackedTilesRemarks))
+            .setRequired(false)
+            .create(Boolean.class, Boolean.FALSE);
 
     public static final ParameterDescriptorGroup PARAMETERS_DESCRIPTOR =
             new ParameterBuilder().addName("XMLCoverageStoreParameters").createGroup(
-                IDENTIFIER, PATH, CACHE_TILE_STATE);
+                IDENTIFIER, PATH, CACHE_TILE_STATE, PACKED_TILES);
 
     @Override
     public Identification getIdentification() {
@@ -45,6 +45,7 @@ import javax.imageio.stream.ImageOutputStream;
 import javax.swing.ProgressMonitor;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import net.iharder.Base64;
 import org.apache.sis.geometry.GeneralDirectPosition;
@@ -65,6 +66,7 @@ import org.geotoolkit.internal.referencing.CRSUtilities;
 import org.geotoolkit.storage.coverage.AbstractGridMosaic;
 import org.geotoolkit.storage.coverage.DefaultTileReference;
 import org.geotoolkit.storage.coverage.GridMosaic;
+import org.geotoolkit.storage.coverage.TileStateBitmap;
 import org.geotoolkit.storage.coverage.TileReference;
 import org.opengis.coverage.PointOutsideCoverageException;
 import org.opengis.geometry.DirectPosition;
@@ -116,17 +118,40 @@ public class XMLMosaic implements GridMosaic {
     @XmlElement
     int dataPixelHeight;
 
-    // Use getter /setter to bind those two, because we must perform special operation at flush.
+    /**
+     * Journal size above which a new tile state snapshot is saved in the descriptor,
+     * if the journal is also larger than the snapshot.
+     */
+    private static final int JOURNAL_MIN_SIZE = 1 << 16;
+
+    // Tile states of previous versions, only read.
     String existMask;
     String emptyMask;
 
+    /**
+     * Last tile state snapshot, changes since are in the tile state journal.
+     */
+    @XmlElement
+    XMLTileState tileState;
+
     XMLPyramid pyramid = null;
-    BitSet tileExist;
-    BitSet tileEmpty;
+    TileStateBitmap tileExist;
+    TileStateBitmap tileEmpty;
+    private XMLTileStateJournal journal;
+    /** Tile state changes not written in the journal yet, see XMLTileStateJournal.append. */
+    private final List<long[]> pendingStates = new ArrayList<>();
 
     @XmlElement
     Boolean cacheTileState;
 
+    /**
+     * True if tiles are stored in a single pack file instead of one file per tile.
+     * Tile states are then stored in the pack index.
+     */
+    @XmlElement
+    Boolean packedTiles;
+    private volatile XMLTilePack pack;
+
     Path folder;
 
     final ReentrantReadWriteLock bitsetLock = new ReentrantReadWriteLock();
@@ -169,33 +194,56 @@ public class XMLMosaic implements GridMosaic {
             }
         }
 
+        // Packed tiles are only used for new mosaics, existing ones are migrated with packTiles.
+        if (packedTiles == null) {
+            boolean storePacked;
+            try {
+                storePacked = ((XMLCoverageStore) pyramid.getPyramidSet().getRef().getStore()).packedTiles;
+            } catch (Exception e) {
+                storePacked = false;
+            }
+            packedTiles = storePacked && tileExist == null && tileState == null && !Files.isDirectory(getFolder());
+        }
+        if (packedTiles) {
+            bitsetLock.writeLock().lock();
+            try {
+                tileExist = null;
+                tileEmpty = null;
+            } finally {
+                bitsetLock.writeLock().unlock();
+            }
+            return;
+        }
+
         bitsetLock.writeLock().lock();
         try {
-            if (existMask != null && !existMask.isEmpty()) {
+            if (tileState != null) {
                 try {
-                    tileExist = BitSet.valueOf(Base64.decode(existMask));
-                    /*
-                     * Caching tile state can only be determined at pyramid creation, because a switch of behavior after
-                     * that seems a little bit tricky.
-                     */
-                    cacheTileState = false;
+                    tileExist = decodeTileState(tileState.exist);
+                    tileEmpty = decodeTileState(tileState.empty);
                 } catch (IOException ex) {
                     LOGGER.log(Level.WARNING, ex.getMessage(), ex);
-                    tileExist = new BitSet(gridWidth * gridHeight);
+                    tileExist = new TileStateBitmap();
+                    tileEmpty = new TileStateBitmap();
                 }
-            } else {
-                tileExist = cacheTileState ? null : new BitSet(gridWidth * gridHeight);
-            }
-
-            if (emptyMask != null && !emptyMask.isEmpty()) {
+                journal = new XMLTileStateJournal(pyramid.getFolder(), getId(), tileState.generation);
                 try {
-                    tileEmpty = BitSet.valueOf(Base64.decode(emptyMask));
+                    journal.replay(tileExist, tileEmpty);
                 } catch (IOException ex) {
-                    LOGGER.log(Level.WARNING, ex.getMessage(), ex);
-                    tileEmpty = new BitSet(gridWidth * gridHeight);
+                    LOGGER.log(Level.WARNING, "Tile state journal cannot be read.", ex);
                 }
-            } else {
-                tileEmpty = cacheTileState ? null : new BitSet(gridWidth * gridHeight);
+            }
+            if (tileExist != null && !tileExist.isEmpty()) {
+                /*
+                 * Caching tile state can only be determined at pyramid creation, because a switch of behavior after
+                 * that seems a little bit tricky.
+                 */
+                cacheTileState = false;
+            } else if (tileExist == null) {
+                tileExist = cacheTileState ? null : new TileStateBitmap();
+            }
+            if (tileEmpty == null) {
+                tileEmpty = cacheTileState ? null : new TileStateBitmap();
             }
         } finally {
             bitsetLock.writeLock().unlock();
@@ -231,6 +279,37 @@ public class XMLMosaic implements GridMosaic {
         return isMissingCache;
     }
 
+    boolean isPacked() {
+        return Boolean.TRUE.equals(packedTiles);
+    }
+
+    /**
+     * Get the tile pack of this mosaic, creating it if needed.
+     */
+    XMLTilePack getPack() throws IOException {
+        if (pack == null) {
+            synchronized (this) {
+                //double check
+                if (pack == null) {
+                    final Path pyramidFolder = getPyramid().getFolder();
+                    Files.createDirectories(pyramidFolder);
+                    pack = new XMLTilePack(pyramidFolder.resolve(getId()), (long) gridWidth * gridHeight);
+                }
+            }
+        }
+        return pack;
+    }
+
+    /**
+     * Close the tile pack if it is opened.
+     */
+    synchronized void closePack() throws IOException {
+        if (pack != null) {
+            pack.close();
+            pack = null;
+        }
+    }
+
     private synchronized byte[] createEmptyTile() throws DataStoreException {
         if (emptyTileEncoded == null) {
             XMLCoverageResource ref = pyramid.getPyramidSet().getRef();
@@ -298,10 +377,89 @@ public class XMLMosaic implements GridMosaic {
         return emptyTileEncoded;
     }
 
-    private static String updateCompletionString(BitSet input) throws IOException {
+    private static String encodeTileState(TileStateBitmap input) throws IOException {
         return Base64.encodeBytes(input.toByteArray(), Base64.GZIP);
     }
 
+    private static TileStateBitmap decodeTileState(String input) throws IOException {
+        if (input == null || input.isEmpty()) return new TileStateBitmap();
+        return TileStateBitmap.valueOf(Base64.decode(input));
+    }
+
+    /**
+     * Mark a tile as written, the change is recorded for the tile state journal.
+     */
+    private void setTileState(long index, boolean empty) {
+        bitsetLock.writeLock().lock();
+        try {
+            tileExist.set(index);
+            tileEmpty.set(index, empty);
+
+            //merge with previous change if contiguous
+            final int last = pendingStates.size() - 1;
+            if (last >= 0) {
+                final long[] record = pendingStates.get(last);
+                if (record[1] == index && record[3] == (empty ? 1 : 0)) {
+                    record[1]++;
+                    return;
+                }
+            }
+            pendingStates.add(new long[]{index, index + 1, 1, empty ? 1 : 0});
+        } finally {
+            bitsetLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write tile state changes in the journal. When the journal becomes larger
+     * than the tile state snapshot, a new snapshot is made and the descriptor
+     * must be saved.
+     *
+     * @return true if the descriptor must be saved
+     */
+    boolean flushTileState() throws DataStoreException {
+        bitsetLock.writeLock().lock();
+        try {
+            if (tileExist == null || cacheTileState) {
+                return false;
+            }
+            if (journal == null) {
+                journal = new XMLTileStateJournal(getPyramid().getFolder(), getId(), 0);
+            }
+            journal.append(pendingStates);
+            pendingStates.clear();
+
+            if (tileState != null) {
+                final long snapshotSize = tileState.exist.length() + tileState.empty.length();
+                if (journal.size() < Math.max(JOURNAL_MIN_SIZE, snapshotSize)) {
+                    return false;
+                }
+            }
+            final XMLTileState snapshot = new XMLTileState();
+            snapshot.generation = journal.rollover();
+            snapshot.exist = encodeTileState(tileExist);
+            snapshot.empty = encodeTileState(tileEmpty);
+            tileState = snapshot;
+            return true;
+        } catch (IOException ex) {
+            throw new DataStoreException("Unable to write tile states : "+ex.getLocalizedMessage(), ex);
+        } finally {
+            bitsetLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close the tile state journal if it is opened.
+     */
+    void closeTileStateJournal() throws IOException {
+        bitsetLock.writeLock().lock();
+        try {
+            if (journal != null) journal.close();
+        } finally {
+            bitsetLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Id equals scale string value
      */
@@ -411,6 +569,15 @@ public class XMLMosaic implements GridMosaic {
 
     @Override
     public boolean isMissing(int col, int row) throws PointOutsideCoverageException {
+        if (isPacked()) {
+            checkPosition(col, row);
+            try {
+                return getPack().isMissing(getTileIndex(col, row));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+                return true;
+            }
+        }
         bitsetLock.readLock().lock();
         try {
             if (tileExist == null || tileExist.isEmpty()) {
@@ -429,7 +596,7 @@ public class XMLMosaic implements GridMosaic {
                     return true;
                 }
             } else {
-                final int index = getTileIndex(col, row);
+                final long index = getTileIndex(col, row);
                 if (index < 0) {
                     LOGGER.log(Level.FINE, "You try to request a tile out of mosaic tile boundary at coordinates : X = "+col+", Y = "+row
                     +"Expected grid boundary : [(0, 0) ; ("+getGridSize().width+","+getGridSize().height+")]");
@@ -443,6 +610,14 @@ public class XMLMosaic implements GridMosaic {
     }
 
     private boolean isEmpty(int col, int row){
+        if (isPacked()) {
+            try {
+                return getPack().isEmpty(getTileIndex(col, row));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+                return false;
+            }
+        }
         bitsetLock.readLock().lock();
         try {
             if (tileEmpty == null || tileEmpty.isEmpty()) {
@@ -469,6 +644,16 @@ public class XMLMosaic implements GridMosaic {
             } catch (IOException ex) {
                 throw new DataStoreException(ex);
             }
+        } else if (isPacked()) {
+            checkPosition(col, row);
+            try {
+                final byte[] data = getPack().read(getTileIndex(col, row));
+                if (data == null) return null;
+                tile = new DefaultTileReference(getPyramid().getPyramidSet().getReaderSpi(),
+                        ImageIO.createImageInputStream(new ByteArrayInputStream(data)), 0, new Point(col, row));
+            } catch (IOException ex) {
+                throw new DataStoreException(ex);
+            }
         } else {
             tile = new DefaultTileReference(getPyramid().getPyramidSet().getReaderSpi(),
                     getTileFile(col, row), 0, new Point(col, row));
@@ -610,6 +795,21 @@ public class XMLMosaic implements GridMosaic {
 
     void createTile(final int col, final int row, final RenderedImage image, final ImageWriter writer) throws DataStoreException {
 
+        if (isPacked()) {
+            checkPosition(col, row);
+            try {
+                final long index = getTileIndex(col, row);
+                if (isEmpty(image.getData())) {
+                    getPack().writeEmpty(index);
+                } else {
+                    getPack().write(index, encode(image, writer));
+                }
+            } catch (IOException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+            return;
+        }
+
         try {
             checkMosaicFolderExist();
         } catch (IOException e) {
@@ -618,13 +818,7 @@ public class XMLMosaic implements GridMosaic {
 
         // No empty tile with cached tile state.
         if (tileExist != null && isEmpty(image.getData())) {
-            bitsetLock.writeLock().lock();
-            try {
-                tileExist.set(getTileIndex(col, row), true);
-                tileEmpty.set(getTileIndex(col, row), true);
-            } finally {
-                bitsetLock.writeLock().unlock();
-            }
+            setTileState(getTileIndex(col, row), true);
             return;
         }
 
@@ -647,14 +841,7 @@ public class XMLMosaic implements GridMosaic {
             }
             writer.write(image);
             if (tileExist != null) {
-                final int ti = getTileIndex(col, row);
-                bitsetLock.writeLock().lock();
-                try {
-                    tileExist.set(ti, true);
-                    tileEmpty.set(ti, false);
-                } finally {
-                    bitsetLock.writeLock().unlock();
-                }
+                setTileState(getTileIndex(col, row), false);
             } else {
                 getIsMissingCache().put(new Point(col, row), false);
             }
@@ -676,8 +863,13 @@ public class XMLMosaic implements GridMosaic {
 
      void writeTiles(final RenderedImage image, final Rectangle area, final boolean onlyMissing, final ProgressMonitor monitor) throws DataStoreException{
 
+         final boolean packed = isPacked();
          try {
-             checkMosaicFolderExist();
+             if (packed) {
+                 getPack();
+             } else {
+                 checkMosaicFolderExist();
+             }
          } catch (IOException e) {
              throw new DataStoreException("Unable to create mosaic folder "+e.getLocalizedMessage(), e);
          }
@@ -710,11 +902,14 @@ public class XMLMosaic implements GridMosaic {
                     continue;
                 }
 
-                final int tileIndex = getTileIndex(tx, ty);
+                final long tileIndex = getTileIndex(tx, ty);
                 checkPosition(tx, ty);
 
-                Path tilePath = getTileFile(tx, ty);
-                if (tilePath == null) tilePath = getDefaultTileFile(tx, ty);
+                Path tilePath = null;
+                if (!packed) {
+                    tilePath = getTileFile(tx, ty);
+                    if (tilePath == null) tilePath = getDefaultTileFile(tx, ty);
+                }
 
                 Future fut = TILEWRITEREXECUTOR.submit(new TileWriter(tilePath, image, tx, ty, tileIndex, image.getColorModel(), getPyramid().getPyramidSet().getFormatName(), monitor));
                 futurs.add(fut);
@@ -730,6 +925,130 @@ public class XMLMosaic implements GridMosaic {
             }
         }
 
+        if (packed) {
+            try {
+                getPack().force();
+            } catch (IOException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Encode a tile in memory.
+     *
+     * @param image RenderedImage or IIOImage to write
+     */
+    private static byte[] encode(final Object image, final ImageWriter writer) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(buffer)) {
+            writer.setOutput(out);
+            if (image instanceof IIOImage) {
+                writer.write((IIOImage) image);
+            } else {
+                writer.write((RenderedImage) image);
+            }
+        } finally {
+            writer.setOutput(null);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Move the tile files of this mosaic in a tile pack.
+     * Tile files are left in place, they must be removed with {@link #deleteTileFiles() }
+     * once the pyramid descriptor has been saved.
+     *
+     * @return number of tiles moved, empty tiles included
+     */
+    synchronized long packTiles() throws DataStoreException {
+        if (isPacked()) return 0;
+
+        long nb = 0;
+        try {
+            final XMLTilePack target = getPack();
+            final Path mosaicFolder = getFolder();
+            if (Files.isDirectory(mosaicFolder)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(mosaicFolder)) {
+                    for (Path tileFile : stream) {
+                        final Point position;
+                        try {
+                            position = parsePosition(tileFile.getFileName().toString());
+                        } catch (RuntimeException ex) {
+                            LOGGER.log(Level.FINE, "Not a tile file : {0}", tileFile);
+                            continue;
+                        }
+                        if (position.x < 0 || position.y < 0 || position.x >= gridWidth || position.y >= gridHeight) {
+                            continue;
+                        }
+                        target.write(getTileIndex(position.x, position.y), Files.readAllBytes(tileFile));
+                        nb++;
+                    }
+                }
+            }
+
+            bitsetLock.writeLock().lock();
+            try {
+                if (tileEmpty != null) {
+                    for (long i = tileEmpty.nextSetBit(0); i >= 0; i = tileEmpty.nextSetBit(i+1)) {
+                        target.writeEmpty(i);
+                        nb++;
+                    }
+                }
+                tileExist = null;
+                tileEmpty = null;
+                existMask = null;
+                emptyMask = null;
+                tileState = null;
+                pendingStates.clear();
+                packedTiles = true;
+            } finally {
+                bitsetLock.writeLock().unlock();
+            }
+            target.force();
+        } catch (IOException ex) {
+            throw new DataStoreException("Unable to pack mosaic tiles : "+ex.getLocalizedMessage(), ex);
+        }
+        isMissingCache = null;
+        return nb;
+    }
+
+    /**
+     * Remove the data of rewritten tiles from the tile pack.
+     *
+     * @return number of bytes reclaimed
+     */
+    long compactTiles() throws DataStoreException {
+        if (!isPacked()) return 0;
+        try {
+            return getPack().compact();
+        } catch (IOException ex) {
+            throw new DataStoreException("Unable to compact mosaic tiles : "+ex.getLocalizedMessage(), ex);
+        }
+    }
+
+    /**
+     * Delete the tile folder of a packed mosaic.
+     */
+    void deleteTileFiles() throws DataStoreException {
+        if (!isPacked()) return;
+        try {
+            new XMLTileStateJournal(getPyramid().getFolder(), getId(), 0).delete();
+        } catch (IOException ex) {
+            throw new DataStoreException("Unable to delete tile state journal : "+ex.getLocalizedMessage(), ex);
+        }
+        final Path mosaicFolder = getFolder();
+        if (!Files.isDirectory(mosaicFolder)) return;
+        try {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(mosaicFolder)) {
+                for (Path tileFile : stream) {
+                    Files.delete(tileFile);
+                }
+            }
+            Files.delete(mosaicFolder);
+        } catch (IOException ex) {
+            throw new DataStoreException("Unable to delete mosaic folder : "+ex.getLocalizedMessage(), ex);
+        }
     }
 
     private void checkPosition(int col, int row) throws PointOutsideCoverageException {
@@ -752,67 +1071,65 @@ public class XMLMosaic implements GridMosaic {
         }
     }
 
-    private int getTileIndex(int col, int row){
-        final int index = row*getGridSize().width + col;
-        return index;
+    private long getTileIndex(int col, int row){
+        return (long) row * gridWidth + col;
     }
 
+    /**
+     * Tile states are written in {@link #tileState}, this element is only read
+     * for descriptors of previous versions.
+     */
     @XmlElement
     protected String getExistMask() {
-        // Flush only if user did not specify to cache tile states.
-        bitsetLock.readLock().lock();
-        try {
-            if (tileExist == null || cacheTileState) {
-                return null;
-            }
-            return existMask = updateCompletionString(tileExist);
-        } catch (IOException ex) {
-            LOGGER.log(Level.WARNING, ex.getMessage(), ex);
-            return existMask = null;
-        } finally {
-            bitsetLock.readLock().unlock();
-        }
+        return null;
     }
 
     protected void setExistMask(String newValue) {
         existMask = newValue;
         if (existMask != null && !existMask.isEmpty()) {
             try {
-                tileExist = BitSet.valueOf(Base64.decode(existMask));
+                tileExist = TileStateBitmap.valueOf(BitSet.valueOf(Base64.decode(existMask)));
             } catch (IOException ex) {
                 LOGGER.log(Level.WARNING, ex.getMessage(), ex);
             }
         }
     }
 
+    /**
+     * Tile states are written in {@link #tileState}, this element is only read
+     * for descriptors of previous versions.
+     */
     @XmlElement
     protected String getEmptyMask() {
-        // Flush only if user did not specify to cache tile states.
-        bitsetLock.readLock().lock();
-        try {
-            if (tileEmpty == null || cacheTileState) {
-                return null;
-            }
-            return emptyMask = updateCompletionString(tileEmpty);
-        } catch (IOException ex) {
-            LOGGER.log(Level.WARNING, ex.getMessage(), ex);
-            return existMask = null;
-        } finally {
-            bitsetLock.readLock().unlock();
-        }
+        return null;
     }
 
     protected void setEmptyMask(String newValue) {
         emptyMask = newValue;
         if (emptyMask != null && !emptyMask.isEmpty()) {
             try {
-                tileEmpty = BitSet.valueOf(Base64.decode(emptyMask,Base64.GZIP));
+                tileEmpty = TileStateBitmap.valueOf(BitSet.valueOf(Base64.decode(emptyMask,Base64.GZIP)));
             } catch (IOException ex) {
                 LOGGER.log(Level.WARNING, ex.getMessage(), ex);
             }
         }
     }
 
+    /**
+     * Tile state snapshot, bitmaps are encoded in Base64 of the GZIP compressed
+     * {@link TileStateBitmap#toByteArray() }.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    static final class XMLTileState {
+        /** Generation of the tile state journal following this snapshot. */
+        @XmlAttribute
+        int generation;
+        @XmlElement
+        String exist;
+        @XmlElement
+        String empty;
+    }
+
     /**
      * check if image is empty
      */
@@ -843,13 +1160,13 @@ public class XMLMosaic implements GridMosaic {
         private final RenderedImage image;
         private final int idx;
         private final int idy;
-        private final int tileIndex;
+        private final long tileIndex;
         private final ColorModel cm;
         private final String formatName;
         private final ProgressMonitor monitor;
 
-        public TileWriter(Path tilePath, RenderedImage image, int idx, int idy, int tileIndex, ColorModel cm, String formatName, ProgressMonitor monitor) {
-            ArgumentChecks.ensureNonNull("file", tilePath);
+        public TileWriter(Path tilePath, RenderedImage image, int idx, int idy, long tileIndex, ColorModel cm, String formatName, ProgressMonitor monitor) {
+            if (!isPacked()) ArgumentChecks.ensureNonNull("file", tilePath);
             ArgumentChecks.ensureNonNull("image", image);
             this.tilePath = tilePath;
             this.image = image;
@@ -877,20 +1194,28 @@ public class XMLMosaic implements GridMosaic {
                 Raster raster = image.getTile(offsetX+idx, offsetY+idy);
 
                 //check if image is empty
+                if (isPacked() && (raster == null || isEmpty(raster))) {
+                    getPack().writeEmpty(getTileIndex(idx, idy));
+                    return;
+                }
                 if (tileEmpty != null && (raster == null || isEmpty(raster))) {
-
-                    bitsetLock.writeLock().lock();
-                    try {
-                        tileExist.set(tileIndex, true);
-                        tileEmpty.set(tileIndex, true);
-                    } finally {
-                        bitsetLock.writeLock().unlock();
-                    }
+                    setTileState(tileIndex, true);
                     return;
                 }
 
                 writer = ImageIO.getImageWritersByFormatName(formatName).next();
 
+                if (isPacked()) {
+                    final Object buffer;
+                    if (writer.canWriteRasters()) {
+                        buffer = new IIOImage(raster, null, null);
+                    } else {
+                        buffer = new BufferedImage(cm, (WritableRaster) raster, cm.isAlphaPremultiplied(), null);
+                    }
+                    getPack().write(getTileIndex(idx, idy), encode(buffer, writer));
+                    return;
+                }
+
                 final Class[] outTypes = writer.getOriginatingProvider().getOutputTypes();
                 if (ArraysExt.contains(outTypes, Path.class)) {
                     //writer support files directly, let him handle it
@@ -913,13 +1238,7 @@ public class XMLMosaic implements GridMosaic {
                 }
 
                 if (tileExist != null) {
-                    bitsetLock.writeLock().lock();
-                    try {
-                        tileExist.set(tileIndex, true);
-                        tileEmpty.set(tileIndex, false);
-                    } finally {
-                        bitsetLock.writeLock().unlock();
-                    }
+                    setTileState(tileIndex, false);
                 } else {
                     getIsMissingCache().put(new Point(idx, idy), false);
                 }
@@ -0,0 +1,372 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tiles of a mosaic packed in a single file.
+ * <p>
+ * Encoded tiles are appended to the data file, concurrent writers reserve their
+ * range and write it without locking each other. The index file is memory mapped,
+ * it holds for each tile of the grid the offset (8 bytes) and length (4 bytes)
+ * of its data. A length of zero marks a missing tile, so the index of a new
+ * mosaic is a sparse file. Empty tiles are marked in the index without any data,
+ * they all share the encoded empty tile of the mosaic.
+ * <p>
+ * Rewriting a tile leaves its previous data unused in the data file until
+ * the pack is compacted.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class XMLTilePack implements Closeable {
+
+    static final String DATA_SUFFIX = ".tiles";
+    static final String INDEX_SUFFIX = ".tilesindex";
+
+    private static final int HEADER_SIZE = 16;
+    private static final long MAGIC = 0x4754504B31L; //GTPK1
+    private static final int ENTRY_SIZE = 12;
+    private static final int EMPTY = -1;
+    /**
+     * Number of index entries in one mapped segment.
+     */
+    private static final int SEGMENT_ENTRIES = 1 << 24;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final long nbTiles;
+
+    private FileChannel data;
+    private FileChannel index;
+    /**
+     * Mapped index segments, never modified once published : mapping a segment
+     * publishes a new array.
+     */
+    private volatile MappedByteBuffer[] segments;
+    private final Object segmentLock = new Object();
+    private final AtomicLong end = new AtomicLong();
+
+    /**
+     * Tile reads and writes hold the read lock, compaction holds the write lock.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Open or create a tile pack.
+     *
+     * @param base path of the pack files, without suffix
+     * @param nbTiles number of tiles in the mosaic grid
+     */
+    XMLTilePack(final Path base, final long nbTiles) throws IOException {
+        this.dataPath = base.resolveSibling(base.getFileName() + DATA_SUFFIX);
+        this.indexPath = base.resolveSibling(base.getFileName() + INDEX_SUFFIX);
+        this.nbTiles = nbTiles;
+        open();
+    }
+
+    private void open() throws IOException {
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end.set(data.size());
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (index.size() == 0) {
+            header.putLong(MAGIC).putLong(nbTiles).flip();
+            index.write(header, 0);
+        } else {
+            index.read(header, 0);
+            header.flip();
+            if (header.getLong() != MAGIC) {
+                throw new IOException("File " + indexPath + " is not a tile pack index.");
+            }
+            final long size = header.getLong();
+            if (size != nbTiles) {
+                throw new IOException("Tile pack index " + indexPath + " has " + size + " tiles, expected " + nbTiles);
+            }
+        }
+        segments = new MappedByteBuffer[(int) ((nbTiles + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES)];
+    }
+
+    Path getDataPath() {
+        return dataPath;
+    }
+
+    Path getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * @return size of the data file, including the data of rewritten tiles.
+     */
+    long getDataSize() {
+        return end.get();
+    }
+
+    /**
+     * @param tile tile index, row * gridWidth + column
+     * @return true if the tile has not been written
+     */
+    boolean isMissing(final long tile) throws IOException {
+        lock.readLock().lock();
+        try {
+            return readLength(tile) == 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param tile tile index, row * gridWidth + column
+     * @return true if the tile has been written as an empty tile
+     */
+    boolean isEmpty(final long tile) throws IOException {
+        lock.readLock().lock();
+        try {
+            return readLength(tile) == EMPTY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read the encoded tile.
+     *
+     * @param tile tile index, row * gridWidth + column
+     * @return encoded tile, null if the tile is missing or empty
+     */
+    byte[] read(final long tile) throws IOException {
+        lock.readLock().lock();
+        try {
+            final MappedByteBuffer segment = existingSegment(tile);
+            if (segment == null) return null;
+            final int pos = position(tile);
+            final long offset;
+            final int length;
+            synchronized (segment) {
+                offset = segment.getLong(pos);
+                length = segment.getInt(pos + 8);
+            }
+            if (length <= 0) return null;
+
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (data.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of tile pack " + dataPath);
+                }
+            }
+            return buffer.array();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Append an encoded tile, can be called concurrently.
+     *
+     * @param tile tile index, row * gridWidth + column
+     * @param bytes encoded tile
+     */
+    void write(final long tile, final byte[] bytes) throws IOException {
+        if (bytes.length == 0) {
+            throw new IOException("Encoded tile is empty.");
+        }
+        lock.readLock().lock();
+        try {
+            final long offset = end.getAndAdd(bytes.length);
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                data.write(buffer, offset + buffer.position());
+            }
+            writeEntry(tile, offset, bytes.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mark a tile as empty, no data is stored.
+     *
+     * @param tile tile index, row * gridWidth + column
+     */
+    void writeEmpty(final long tile) throws IOException {
+        lock.readLock().lock();
+        try {
+            writeEntry(tile, 0, EMPTY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the data and index changes to the storage device.
+     */
+    void force() throws IOException {
+        lock.readLock().lock();
+        try {
+            data.force(false);
+            for (MappedByteBuffer segment : segments) {
+                if (segment != null) segment.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the data file without the data of rewritten tiles.
+     * Tiles are stored in index order. Tile reads and writes wait for the compaction.
+     * <p>
+     * The compacted data file is moved in place first, then the index file. Both
+     * moves are atomic, but the pack is inconsistent if the process stops between them.
+     *
+     * @return number of bytes reclaimed
+     */
+    long compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            final long before = end.get();
+            final Path base = dataPath.resolveSibling(dataPath.getFileName() + ".compact");
+            //remaining files of an interrupted compaction
+            Files.deleteIfExists(base.resolveSibling(base.getFileName() + DATA_SUFFIX));
+            Files.deleteIfExists(base.resolveSibling(base.getFileName() + INDEX_SUFFIX));
+            final XMLTilePack target = new XMLTilePack(base, nbTiles);
+            try {
+                //entries after the end of the index file are missing tiles
+                final long covered = Math.min(nbTiles, (index.size() - HEADER_SIZE) / ENTRY_SIZE);
+                for (long tile = 0; tile < covered; tile++) {
+                    final MappedByteBuffer segment = segment(tile);
+                    final int pos = position(tile);
+                    final long offset = segment.getLong(pos);
+                    final int length = segment.getInt(pos + 8);
+                    if (length == EMPTY) {
+                        target.writeEntry(tile, 0, EMPTY);
+                    } else if (length > 0) {
+                        final long targetOffset = target.end.getAndAdd(length);
+                        long done = 0;
+                        while (done < length) {
+                            done += data.transferTo(offset + done, length - done, target.data.position(targetOffset + done));
+                        }
+                        target.writeEntry(tile, targetOffset, length);
+                    }
+                }
+                target.force();
+                target.index.force(true);
+            } finally {
+                target.close();
+            }
+
+            close();
+            //index last, it references the compacted data
+            Files.move(target.dataPath, dataPath, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(target.indexPath, indexPath, StandardCopyOption.ATOMIC_MOVE);
+            open();
+            return before - end.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close the pack files.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+            segments = new MappedByteBuffer[segments.length];
+        }
+    }
+
+    private int readLength(final long tile) throws IOException {
+        final MappedByteBuffer segment = existingSegment(tile);
+        if (segment == null) return 0;
+        synchronized (segment) {
+            return segment.getInt(position(tile) + 8);
+        }
+    }
+
+    private void writeEntry(final long tile, final long offset, final int length) throws IOException {
+        final MappedByteBuffer segment = segment(tile);
+        final int pos = position(tile);
+        synchronized (segment) {
+            segment.putLong(pos, offset);
+            segment.putInt(pos + 8, length);
+        }
+    }
+
+    /**
+     * Get the index segment of a tile if the index file contains it.
+     *
+     * @return segment or null if all tiles of the segment are missing
+     */
+    private MappedByteBuffer existingSegment(final long tile) throws IOException {
+        if (tile < 0 || tile >= nbTiles) {
+            throw new IOException("Tile index " + tile + " is outside the mosaic grid.");
+        }
+        final MappedByteBuffer segment = segments[(int) (tile / SEGMENT_ENTRIES)];
+        if (segment != null) return segment;
+        final long start = tile - (tile % SEGMENT_ENTRIES);
+        if (index.size() <= HEADER_SIZE + start * ENTRY_SIZE) return null;
+        return segment(tile);
+    }
+
+    private static int position(final long tile) {
+        return (int) (tile % SEGMENT_ENTRIES) * ENTRY_SIZE;
+    }
+
+    /**
+     * Get the mapped index segment of a tile, mapping it if needed.
+     * Mapping extends the index file, the added entries are zeros so missing tiles.
+     */
+    private MappedByteBuffer segment(final long tile) throws IOException {
+        if (tile < 0 || tile >= nbTiles) {
+            throw new IOException("Tile index " + tile + " is outside the mosaic grid.");
+        }
+        final int idx = (int) (tile / SEGMENT_ENTRIES);
+        MappedByteBuffer segment = segments[idx];
+        if (segment == null) {
+            synchronized (segmentLock) {
+                final MappedByteBuffer[] current = segments;
+                segment = current[idx];
+                if (segment == null) {
+                    final long start = (long) idx * SEGMENT_ENTRIES;
+                    final long count = Math.min(SEGMENT_ENTRIES, nbTiles - start);
+                    segment = index.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + start * ENTRY_SIZE, count * ENTRY_SIZE);
+                    final MappedByteBuffer[] copy = current.clone();
+                    copy[idx] = segment;
+                    segments = copy;
+                }
+            }
+        }
+        return segment;
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.geotoolkit.storage.coverage.TileStateBitmap;
+
+/**
+ * Journal of the tile state changes of a mosaic since the last tile state
+ * snapshot saved in the pyramid descriptor.
+ * <p>
+ * Each record holds a range of tile indices and their new state. Records are
+ * appended to the file of the current generation, a new generation starts each
+ * time a snapshot is made. Files are named {@code <mosaic id>.<generation>.tilestate}
+ * in the pyramid folder. Records hold absolute states, replaying the files of
+ * the snapshot generation and following ones on the snapshot restores the
+ * tile states, even if the descriptor has not been saved after the last snapshot.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class XMLTileStateJournal implements Closeable {
+
+    static final String SUFFIX = ".tilestate";
+
+    /** from (long), to (long), state (byte). */
+    private static final int RECORD_SIZE = 17;
+    private static final byte EXIST = 1;
+    private static final byte EMPTY = 2;
+
+    private final Path folder;
+    private final String prefix;
+    private int generation;
+    private FileChannel channel;
+
+    /**
+     * @param folder pyramid folder
+     * @param mosaicId mosaic identifier
+     * @param generation generation of the tile state snapshot
+     */
+    XMLTileStateJournal(final Path folder, final String mosaicId, final int generation) {
+        this.folder = folder;
+        this.prefix = mosaicId + ".";
+        this.generation = generation;
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Apply the records of the snapshot generation and following ones,
+     * files of older generations are deleted.
+     * Next records will be appended to the file of the last generation found.
+     */
+    void replay(final TileStateBitmap exist, final TileStateBitmap empty) throws IOException {
+        if (!Files.isDirectory(folder)) return;
+
+        final TreeMap<Integer,Path> files = list();
+        for (Path file : files.headMap(generation).values()) {
+            Files.deleteIfExists(file);
+        }
+        for (Map.Entry<Integer,Path> entry : files.tailMap(generation).entrySet()) {
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(entry.getValue()));
+            //an incomplete last record is ignored
+            while (buffer.remaining() >= RECORD_SIZE) {
+                final long from = buffer.getLong();
+                final long to = buffer.getLong();
+                final byte state = buffer.get();
+                exist.set(from, to, (state & EXIST) != 0);
+                empty.set(from, to, (state & EMPTY) != 0);
+            }
+            generation = entry.getKey();
+        }
+    }
+
+    /**
+     * Append records.
+     *
+     * @param records ranges of tile indices and states as {from, to, exist, empty},
+     *        booleans are 0 or 1.
+     */
+    void append(final List<long[]> records) throws IOException {
+        if (records.isEmpty()) return;
+        final ByteBuffer buffer = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        for (long[] record : records) {
+            byte state = 0;
+            if (record[2] != 0) state |= EXIST;
+            if (record[3] != 0) state |= EMPTY;
+            buffer.putLong(record[0]).putLong(record[1]).put(state);
+        }
+        buffer.flip();
+        final FileChannel channel = getChannel();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return size of the current generation file
+     */
+    long size() throws IOException {
+        return channel == null ? 0 : channel.size();
+    }
+
+    /**
+     * Start a new generation, files older than the previous generation are deleted.
+     * The previous generation is kept until the descriptor holding the new
+     * snapshot is saved.
+     *
+     * @return new generation
+     */
+    int rollover() throws IOException {
+        close();
+        generation++;
+        if (Files.isDirectory(folder)) {
+            for (Path file : list().headMap(generation - 1).values()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Delete all journal files.
+     */
+    void delete() throws IOException {
+        close();
+        if (Files.isDirectory(folder)) {
+            for (Path file : list().values()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(folder);
+            channel = FileChannel.open(folder.resolve(prefix + generation + SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * @return journal files by generation
+     */
+    private TreeMap<Integer,Path> list() throws IOException {
+        final TreeMap<Integer,Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, prefix + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                final String name = file.getFileName().toString();
+                try {
+                    files.put(Integer.valueOf(name.substring(prefix.length(), name.length() - SUFFIX.length())), file);
+                } catch (NumberFormatException ex) {
+                    //not a journal of this mosaic
+                }
+            }
+        }
+        return files;
+    }
+
+}
@@ -85,6 +85,7 @@ public class XMLTileWriter implements Runnable {
                 }
             }
         } finally {
+            targetRef.flushTileStates();
             targetRef.save();
         }
     }
@@ -108,6 +109,7 @@ public class XMLTileWriter implements Runnable {
                 info.mosaic.createTile(info.tX, info.tY, info.data, writer);
             }
         } finally {
+            targetRef.flushTileStates();
             targetRef.save();
         }
     }
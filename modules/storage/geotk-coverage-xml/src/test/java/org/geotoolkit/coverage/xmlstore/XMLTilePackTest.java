@@ -0,0 +1,146 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.geotoolkit.nio.IOUtilities;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test tile pack writing, reading and compaction.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class XMLTilePackTest extends org.geotoolkit.test.TestBase {
+
+    /**
+     * Grid larger than Integer.MAX_VALUE tiles.
+     */
+    private static final long NB_TILES = 50000L * 50000L;
+
+    private Path folder;
+
+    @Before
+    public void createFolder() throws Exception {
+        folder = Files.createTempDirectory("tilepack");
+    }
+
+    @After
+    public void deleteFolder() {
+        IOUtilities.deleteSilently(folder);
+    }
+
+    private static long tileIndex(int i) {
+        return i * 1234567L % NB_TILES;
+    }
+
+    private static byte[] tileData(int i, int version) {
+        final byte[] data = new byte[1 + i % 100];
+        Arrays.fill(data, (byte) (i + version));
+        return data;
+    }
+
+    @Test
+    public void writeReadTest() throws Exception {
+        final Path base = folder.resolve("mosaic");
+        final int nb = 2000;
+
+        try (XMLTilePack pack = new XMLTilePack(base, NB_TILES)) {
+            //concurrent writes
+            final ExecutorService executor = Executors.newFixedThreadPool(8);
+            final List<Future> futures = new ArrayList<>();
+            for (int i = 0; i < nb; i++) {
+                final int k = i;
+                futures.add(executor.submit(() -> {
+                    if (k % 10 == 0) {
+                        pack.writeEmpty(tileIndex(k));
+                    } else {
+                        pack.write(tileIndex(k), tileData(k, 0));
+                    }
+                    return null;
+                }));
+            }
+            for (Future f : futures) f.get();
+            executor.shutdown();
+            pack.force();
+
+            for (int i = 0; i < nb; i++) {
+                final long idx = tileIndex(i);
+                assertFalse(pack.isMissing(idx));
+                if (i % 10 == 0) {
+                    assertTrue(pack.isEmpty(idx));
+                    assertNull(pack.read(idx));
+                } else {
+                    assertFalse(pack.isEmpty(idx));
+                    assertArrayEquals(tileData(i, 0), pack.read(idx));
+                }
+            }
+            assertTrue(pack.isMissing(NB_TILES - 1));
+            assertNull(pack.read(NB_TILES - 1));
+        }
+
+        //reopen
+        try (XMLTilePack pack = new XMLTilePack(base, NB_TILES)) {
+            for (int i = 1; i < nb; i += 10) {
+                assertArrayEquals(tileData(i, 0), pack.read(tileIndex(i)));
+            }
+        }
+    }
+
+    @Test
+    public void compactTest() throws Exception {
+        final Path base = folder.resolve("mosaic");
+        final int nb = 500;
+
+        try (XMLTilePack pack = new XMLTilePack(base, NB_TILES)) {
+            long expected = 0;
+            for (int i = 0; i < nb; i++) {
+                pack.write(tileIndex(i), tileData(i, 0));
+            }
+            //rewrite half of the tiles
+            for (int i = 0; i < nb; i++) {
+                if (i % 2 == 0) {
+                    expected += tileData(i, 0).length;
+                    pack.write(tileIndex(i), tileData(i, 1));
+                }
+            }
+            final long size = pack.getDataSize();
+            assertEquals(expected, pack.compact());
+            assertEquals(size - expected, pack.getDataSize());
+            assertEquals(size - expected, Files.size(pack.getDataPath()));
+
+            for (int i = 0; i < nb; i++) {
+                assertArrayEquals(tileData(i, i % 2 == 0 ? 1 : 0), pack.read(tileIndex(i)));
+            }
+            //pack is still writable after compaction
+            pack.write(tileIndex(nb), tileData(nb, 0));
+            assertArrayEquals(tileData(nb, 0), pack.read(tileIndex(nb)));
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.geotoolkit.nio.IOUtilities;
+import org.geotoolkit.storage.coverage.TileStateBitmap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test tile state journal replay across generations.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class XMLTileStateJournalTest extends org.geotoolkit.test.TestBase {
+
+    private Path folder;
+
+    @Before
+    public void createFolder() throws Exception {
+        folder = Files.createTempDirectory("tilestate");
+    }
+
+    @After
+    public void deleteFolder() {
+        IOUtilities.deleteSilently(folder);
+    }
+
+    @Test
+    public void replayTest() throws Exception {
+        final XMLTileStateJournal journal = new XMLTileStateJournal(folder, "mosaic", 0);
+        journal.append(Arrays.asList(new long[]{0, 10, 1, 0}, new long[]{5000000000L, 5000000002L, 1, 1}));
+        //snapshot of generation 1 is made but the descriptor is not saved
+        assertEquals(1, journal.rollover());
+        journal.append(Collections.singletonList(new long[]{5000000000L, 5000000001L, 1, 0}));
+        journal.close();
+
+        //descriptor still holds the snapshot of generation 0 : both files are replayed in order
+        TileStateBitmap exist = new TileStateBitmap();
+        TileStateBitmap empty = new TileStateBitmap();
+        XMLTileStateJournal reader = new XMLTileStateJournal(folder, "mosaic", 0);
+        reader.replay(exist, empty);
+        assertEquals(1, reader.getGeneration());
+        assertEquals(12, exist.cardinality());
+        assertTrue(exist.get(5000000001L));
+        assertFalse(empty.get(5000000000L));
+        assertTrue(empty.get(5000000001L));
+
+        //descriptor saved with the snapshot of generation 1
+        exist = new TileStateBitmap();
+        empty = new TileStateBitmap();
+        exist.set(0, 10);
+        exist.set(5000000000L, 5000000002L);
+        empty.set(5000000000L, 5000000002L);
+        reader = new XMLTileStateJournal(folder, "mosaic", 1);
+        reader.replay(exist, empty);
+        assertEquals(12, exist.cardinality());
+        assertFalse(empty.get(5000000000L));
+        assertTrue(empty.get(5000000001L));
+        //generation 0 is obsolete
+        assertFalse(Files.exists(folder.resolve("mosaic.0" + XMLTileStateJournal.SUFFIX)));
+        assertTrue(Files.exists(folder.resolve("mosaic.1" + XMLTileStateJournal.SUFFIX)));
+
+        reader.delete();
+        assertFalse(Files.exists(folder.resolve("mosaic.1" + XMLTileStateJournal.SUFFIX)));
+    }
+
+}
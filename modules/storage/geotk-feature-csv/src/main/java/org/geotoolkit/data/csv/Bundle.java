@@ -67,6 +67,16 @@ public final class Bundle extends IndexedResourceBundle {
          * Value separator
          */
         public static final short paramSeparatorRemarks = 6;
+
+        /**
+         * Parallel reading
+         */
+        public static final short paramParallelAlias = 7;
+
+        /**
+         * Read file parts in parallel, only valid if quoted values do not contain line breaks.
+         */
+        public static final short paramParallelRemarks = 8;
     }
 
     /**
@@ -16,15 +16,27 @@
  */
 package org.geotoolkit.data.csv;
 
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKTReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.util.ObjectConverters;
+import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.opengis.feature.AttributeType;
@@ -41,41 +53,94 @@ import org.apache.sis.internal.feature.AttributeConvention;
  */
 class CSVFeatureReader implements FeatureReader {
 
+    /**
+     * Size of file ranges parsed by a task in parallel mode.
+     */
+    static final long RANGE_SIZE = 4 * 1024 * 1024;
+
+    private static final Logger LOGGER = Logging.getLogger("org.geotoolkit.data.csv");
+    private static final String ID_PROPERTY = AttributeConvention.IDENTIFIER_PROPERTY.toString();
+
     protected final CSVFeatureStore store;
     protected final ReadWriteLock fileLock;
     protected final FeatureType featureType;
     protected final WKTReader reader = new WKTReader();
-    protected final Scanner scanner;
     protected final AttributeType[] atts;
     protected final Feature reuse;
     protected Feature current = null;
     protected int inc = 0;
 
+    /**
+     * Attributes to read, others are left null. Null to read all attributes.
+     */
+    private final boolean[] mask;
+    private final String[] attNames;
+    private final int[] kinds;
+    private final GeometryFactory gf = new GeometryFactory();
+
+    //sequential reading
+    private final CSVTokenizer tokenizer;
+
+    //parallel reading
+    private final long fileSize;
+    private final int parallelism;
+    private final ArrayDeque<CompletableFuture<List<Feature>>> pending;
+    /**
+     * One party for this reader and one for each submitted task.
+     */
+    private final Phaser running = new Phaser(1);
+    private volatile boolean closed = false;
+    private long nextRange = 0;
+    private Iterator<Feature> currentRange = null;
+
     CSVFeatureReader(CSVFeatureStore store, final FeatureType featureType, final boolean reuseFeature, final ReadWriteLock fileLock) throws DataStoreException {
+        this(store, featureType, reuseFeature, fileLock, null, false);
+    }
+
+    /**
+     * @param mask attributes to read in the order of the feature type attributes, null to read all
+     * @param parallel read file ranges in parallel, only possible if quoted values do not contain line breaks
+     */
+    CSVFeatureReader(CSVFeatureStore store, final FeatureType featureType, final boolean reuseFeature,
+            final ReadWriteLock fileLock, final boolean[] mask, final boolean parallel) throws DataStoreException {
         this.store = store;
         this.fileLock = fileLock;
         this.featureType = featureType;
-        this.fileLock.readLock().lock();
-        if (reuseFeature) {
-            reuse = CSVUtils.defaultFeature(featureType, "0");
-        } else {
-            reuse = null;
-        }
-        try {
-            scanner = new Scanner(store.getFile());
-            //skip the type line
-            scanner.nextLine();
-        } catch (IOException ex) {
-            throw new DataStoreException(ex);
-        }
+        this.mask = mask;
 
         final List<AttributeType> atts = new ArrayList<>();
         for (PropertyType pt : featureType.getProperties(true)) {
             if (AttributeConvention.contains(pt.getName()) || pt instanceof Operation) continue;
             atts.add((AttributeType) pt);
         }
-
         this.atts = atts.toArray(new AttributeType[0]);
+        this.attNames = new String[this.atts.length];
+        this.kinds = new int[this.atts.length];
+        for (int i = 0; i < this.atts.length; i++) {
+            attNames[i] = this.atts[i].getName().toString();
+            kinds[i] = kind(this.atts[i]);
+        }
+
+        this.fileLock.readLock().lock();
+        try {
+            fileSize = Files.size(store.getFile());
+            if (parallel && fileSize > RANGE_SIZE) {
+                parallelism = ForkJoinPool.getCommonPoolParallelism();
+                pending = new ArrayDeque<>();
+                tokenizer = null;
+                reuse = null;
+            } else {
+                parallelism = 0;
+                pending = null;
+                tokenizer = new CSVTokenizer(store.getFile(), store.getSeparator());
+                //skip the type line
+                tokenizer.next();
+                reuse = reuseFeature ? CSVUtils.defaultFeature(featureType, "0") : null;
+            }
+        } catch (IOException ex) {
+            this.fileLock.readLock().unlock();
+            throw new DataStoreException(ex);
+        }
     }
 
     @Override
@@ -104,44 +169,182 @@ class CSVFeatureReader implements FeatureReader {
         if (current != null) {
             return;
         }
-        final String line = CSVUtils.getNextLine(scanner);
-        if (line != null) {
-            final List<String> fields = CSVUtils.toStringList(scanner, line, store.getSeparator());
-            current = null;
-            if (reuse == null) {
-                current = CSVUtils.defaultFeature(featureType, Integer.toString(inc++));
-            } else {
-                reuse.setPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString(), Integer.toString(inc++));
-                current = reuse;
-            }
-            final int fieldSize = fields.size();
-            for (int i = 0, n = atts.length; i < n; i++) {
-                final AttributeType<?> att = atts[i];
-                final Object value;
-                if (i >= fieldSize) {
-                    value = null;
-                } else if (AttributeConvention.isGeometryAttribute(att)) {
-                    if (fields.get(i).trim().isEmpty()) {
-                        value = null;
+        if (tokenizer != null) {
+            try {
+                if (tokenizer.next()) {
+                    if (reuse == null) {
+                        current = featureType.newInstance();
                     } else {
+                        current = reuse;
+                    }
+                    current.setPropertyValue(ID_PROPERTY, Integer.toString(inc++));
+                    fill(tokenizer, current, reader);
+                }
+            } catch (IOException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+        } else {
+            while (currentRange == null || !currentRange.hasNext()) {
+                //keep the pool busy
+                while (pending.size() < parallelism && nextRange < fileSize) {
+                    final long start = nextRange;
+                    final long end = Math.min(fileSize, start + RANGE_SIZE);
+                    nextRange = end;
+                    running.register();
+                    pending.add(CompletableFuture.supplyAsync(() -> {
                         try {
-                            value = reader.read(fields.get(i));
-                        } catch (ParseException ex) {
-                            throw new FeatureStoreRuntimeException(ex);
+                            return closed ? Collections.<Feature>emptyList() : readRange(start, end);
+                        } finally {
+                            running.arriveAndDeregister();
                         }
+                    }));
+                }
+                if (pending.isEmpty()) return;
+                try {
+                    currentRange = pending.poll().join().iterator();
+                } catch (CompletionException ex) {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof FeatureStoreRuntimeException) {
+                        throw (FeatureStoreRuntimeException) cause;
                     }
-                } else {
-                    value = ObjectConverters.convert(fields.get(i), att.getValueClass());
+                    throw new FeatureStoreRuntimeException(cause);
                 }
-                current.setPropertyValue(att.getName().toString(), value);
             }
+            current = currentRange.next();
+            //identifiers are given in file order
+            current.setPropertyValue(ID_PROPERTY, Integer.toString(inc++));
+        }
+    }
+
+    /**
+     * Parse all records starting in given file range.
+     */
+    private List<Feature> readRange(final long start, final long end) throws FeatureStoreRuntimeException {
+        final List<Feature> features = new ArrayList<>();
+        final WKTReader wktReader = new WKTReader();
+        try (CSVTokenizer tokenizer = new CSVTokenizer(store.getFile(), store.getSeparator(), start, end)) {
+            if (start == 0) {
+                //skip the type line
+                tokenizer.next();
+            }
+            while (!closed && tokenizer.next()) {
+                final Feature feature = featureType.newInstance();
+                fill(tokenizer, feature, wktReader);
+                features.add(feature);
+            }
+        } catch (IOException ex) {
+            throw new FeatureStoreRuntimeException(ex);
+        }
+        return features;
+    }
+
+    private static final int STRING = 0;
+    private static final int GEOMETRY = 1;
+    private static final int DOUBLE = 2;
+    private static final int FLOAT = 3;
+    private static final int INTEGER = 4;
+    private static final int LONG = 5;
+    private static final int OTHER = 6;
+
+    private static int kind(final AttributeType<?> att) {
+        final Class<?> clazz = att.getValueClass();
+        if (AttributeConvention.isGeometryAttribute(att)) return GEOMETRY;
+        if (clazz == String.class) return STRING;
+        if (clazz == Double.class) return DOUBLE;
+        if (clazz == Float.class) return FLOAT;
+        if (clazz == Integer.class) return INTEGER;
+        if (clazz == Long.class) return LONG;
+        return OTHER;
+    }
+
+    /**
+     * Set feature attribute values from the current tokenizer record.
+     */
+    private void fill(final CSVTokenizer tokenizer, final Feature feature, final WKTReader wktReader) {
+        final int fieldSize = tokenizer.getFieldCount();
+        for (int i = 0, n = atts.length; i < n; i++) {
+            if (mask != null && !mask[i]) continue;
+            final Object value;
+            if (i >= fieldSize) {
+                value = null;
+            } else {
+                switch (kinds[i]) {
+                    case STRING :
+                        value = tokenizer.getString(i);
+                        break;
+                    case GEOMETRY :
+                        value = tokenizer.isEmpty(i) ? null : readGeometry(tokenizer, i, wktReader);
+                        break;
+                    case DOUBLE : {
+                        final double d = tokenizer.getDouble(i);
+                        value = Double.isNaN(d) ? convert(tokenizer, i) : (Object) d;
+                        break;
+                    }
+                    case FLOAT : {
+                        final double d = tokenizer.getDouble(i);
+                        value = Double.isNaN(d) ? convert(tokenizer, i) : (Object) (float) d;
+                        break;
+                    }
+                    case INTEGER : {
+                        final long l = tokenizer.getLong(i);
+                        value = (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) ? (Object) (int) l : convert(tokenizer, i);
+                        break;
+                    }
+                    case LONG : {
+                        final long l = tokenizer.getLong(i);
+                        value = (l != Long.MIN_VALUE) ? (Object) l : convert(tokenizer, i);
+                        break;
+                    }
+                    default :
+                        value = convert(tokenizer, i);
+                }
+            }
+            feature.setPropertyValue(attNames[i], value);
+        }
+    }
+
+    private Object convert(final CSVTokenizer tokenizer, final int i) {
+        return ObjectConverters.convert(tokenizer.getString(i), atts[i].getValueClass());
+    }
+
+    private Geometry readGeometry(final CSVTokenizer tokenizer, final int i, final WKTReader wktReader) {
+        //fast path for points, most common case of large files
+        final Geometry geom = tokenizer.getPoint(i, gf);
+        if (geom != null) {
+            return geom;
+        }
+        try {
+            return wktReader.read(tokenizer.getString(i));
+        } catch (ParseException ex) {
+            throw new FeatureStoreRuntimeException(ex);
         }
     }
 
     @Override
     public void close() {
+        if (closed) return;
+        closed = true;
+        if (pending != null) {
+            //tasks not started yet return immediately, wait for the running ones
+            //before releasing the lock
+            running.arriveAndAwaitAdvance();
+            pending.clear();
+        }
         fileLock.readLock().unlock();
-        scanner.close();
+        if (tokenizer != null) {
+            try {
+                tokenizer.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * @return number of range tasks submitted and not finished
+     */
+    int runningTasks() {
+        return running.getRegisteredParties() - 1;
     }
 
     @Override
@@ -42,6 +42,7 @@ import org.geotoolkit.data.query.QueryUtilities;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.HintsPending;
+import org.geotoolkit.filter.visitor.ListingPropertyVisitor;
 import org.geotoolkit.util.NamesExt;
 import org.geotoolkit.nio.IOUtilities;
 import org.apache.sis.referencing.CRS;
@@ -57,10 +58,12 @@ import org.geotoolkit.storage.DataStores;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
+import org.opengis.feature.Operation;
 import org.opengis.feature.PropertyType;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
 import org.opengis.filter.identity.FeatureId;
+import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.identity.Identifier;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.util.FactoryException;
@@ -94,6 +97,7 @@ public class CSVFeatureStore extends AbstractFeatureStore implements DataFileSto
     private final Path file;
     private String name;
     private final char separator;
+    private final boolean parallel;
 
     private FeatureType featureType;
 
@@ -138,6 +142,7 @@ public class CSVFeatureStore extends AbstractFeatureStore implements DataFileSto
             throw new DataStoreException(ex);
         }
         this.separator = (Character) params.parameter(CSVFeatureStoreFactory.SEPARATOR.getName().toString()).getValue();
+        this.parallel = Boolean.TRUE.equals(Parameters.castOrWrap(params).getValue(CSVFeatureStoreFactory.PARALLEL));
 
         final String path = uri.toString();
         final int slash = Math.max(0, path.lastIndexOf('/') + 1);
@@ -418,10 +423,41 @@ public class CSVFeatureStore extends AbstractFeatureStore implements DataFileSto
         final Hints hints = query.getHints();
         final Boolean detached = (hints == null) ? null : (Boolean) hints.get(HintsPending.FEATURE_DETACHED);
 
-        final FeatureReader fr = new CSVFeatureReader(this,featureType,detached != null && !detached,fileLock);
+        final FeatureReader fr = new CSVFeatureReader(this,featureType,detached != null && !detached,fileLock,
+                getReadMask(query), parallel);
         return FeatureStreams.subset(fr, query);
     }
 
+    /**
+     * Find the attributes which must be read for the query, values of other
+     * attributes are not parsed.
+     *
+     * @return mask in the order of the feature type attributes, null if all are needed.
+     */
+    private boolean[] getReadMask(final Query query) {
+        if (query.retrieveAllProperties()) return null;
+
+        final Set<String> names = new HashSet<>(Arrays.asList(query.getPropertyNames()));
+        query.getFilter().accept(ListingPropertyVisitor.VISITOR, names);
+        if (query.getSortBy() != null) {
+            for (SortBy sort : query.getSortBy()) {
+                names.add(sort.getPropertyName().getPropertyName());
+            }
+        }
+
+        final List<PropertyType> atts = new ArrayList<>();
+        for (PropertyType pt : featureType.getProperties(true)) {
+            if (AttributeConvention.contains(pt.getName()) || pt instanceof Operation) continue;
+            atts.add(pt);
+        }
+        final boolean[] mask = new boolean[atts.size()];
+        for (int i = 0; i < mask.length; i++) {
+            final GenericName attName = atts.get(i).getName();
+            mask[i] = names.contains(attName.toString()) || names.contains(attName.tip().toString());
+        }
+        return mask;
+    }
+
     @Override
     public FeatureWriter getFeatureWriter(Query query) throws DataStoreException {
         typeCheck(query.getTypeName()); //raise error is type doesnt exist
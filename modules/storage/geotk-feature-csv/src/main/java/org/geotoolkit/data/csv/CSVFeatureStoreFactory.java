@@ -69,9 +69,20 @@ public class CSVFeatureStoreFactory extends AbstractFileFeatureStoreFactory {
             .setRequired(false)
             .create(Character.class, ';');
 
+    /**
+     * Optional - read file parts in parallel, only valid if quoted values
+     * do not contain line breaks.
+     */
+    public static final ParameterDescriptor<Boolean> PARALLEL = new ParameterBuilder()
+            .addName("parallel")
+            .addName(Bundle.formatInternational(Bundle.Keys.paramParallelAlias))
+            .setRemarks(Bundle.formatInternational(Bundle.Keys.paramParallelRemarks))
+            .setRequired(false)
+            .create(Boolean.class, false);
+
     public static final ParameterDescriptorGroup PARAMETERS_DESCRIPTOR =
             new ParameterBuilder().addName("CSVParameters").createGroup(
-                IDENTIFIER, PATH, SEPARATOR);
+                IDENTIFIER, PATH, SEPARATOR, PARALLEL);
 
     @Override
     public Identification getIdentification() {
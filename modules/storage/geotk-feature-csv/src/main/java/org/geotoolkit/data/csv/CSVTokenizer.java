@@ -0,0 +1,385 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.csv;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Byte level CSV tokenizer.
+ * <p>
+ * Records are read from a UTF-8 file with RFC 4180 quoting, quoted values may
+ * contain separators, line breaks and doubled quotes. Unquoted values are trimmed.
+ * Empty lines, lines starting with {@link CSVUtils#COMMENT_STRING} and the end of
+ * lines after a comment character outside quotes are ignored.
+ * <p>
+ * Field values are kept as bytes, numbers and points are parsed directly from
+ * the bytes without creating strings.
+ * <p>
+ * The tokenizer can read a range of the file, in which case only records starting
+ * in the range are returned. A range must not start inside a quoted value, this is
+ * only guaranteed if quoted values do not contain line breaks.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class CSVTokenizer implements Closeable {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Powers of ten exactly representable as doubles.
+     */
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+    }
+
+    private final FileChannel channel;
+    private final byte separator;
+    private final long end;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] buf = buffer.array();
+    private long bufferOffset;
+    private int pos = 0;
+    private int limit = 0;
+
+    //current record
+    private byte[] data = new byte[256];
+    private int dataLength;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int nbField;
+    private boolean recordQuoted;
+
+    /**
+     * Read the complete file.
+     */
+    CSVTokenizer(final Path file, final char separator) throws IOException {
+        this(file, separator, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Read records starting between start (inclusive) and end (exclusive).
+     */
+    CSVTokenizer(final Path file, final char separator, final long start, final long end) throws IOException {
+        if (separator > 127 || separator == '"' || separator == '\n' || separator == '\r') {
+            throw new IOException("Unsupported separator : " + separator);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.separator = (byte) separator;
+        this.end = end;
+        if (start > 0) {
+            //move to the first line starting in the range
+            bufferOffset = start - 1;
+            int b;
+            do {
+                b = read();
+            } while (b >= 0 && b != '\n');
+        } else {
+            bufferOffset = 0;
+        }
+    }
+
+    /**
+     * Move to the next record.
+     *
+     * @return false if there are no more records
+     */
+    boolean next() throws IOException {
+        for (;;) {
+            if (bufferOffset + pos >= end) return false;
+            final int b = read();
+            if (b < 0) return false;
+            parseRecord(b);
+            //skip empty and comment lines
+            if (nbField > 1 || ends[0] > starts[0] || recordQuoted) return true;
+        }
+    }
+
+    private void parseRecord(int b) throws IOException {
+        nbField = 0;
+        dataLength = 0;
+        recordQuoted = false;
+        int fieldStart = 0;
+        boolean quoted = false;
+        boolean inQuote = false;
+        boolean closed = false;
+        boolean comment = false;
+
+        for (;; b = read()) {
+            if (b < 0 || (b == '\n' && !inQuote)) {
+                endField(fieldStart, quoted);
+                break;
+            }
+            if (inQuote) {
+                if (b == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append((byte) '"');
+                    } else {
+                        inQuote = false;
+                        closed = true;
+                    }
+                } else {
+                    append((byte) b);
+                }
+            } else if (comment || b == '\r') {
+                //ignored
+            } else if (b == separator) {
+                endField(fieldStart, quoted);
+                fieldStart = dataLength;
+                quoted = false;
+                closed = false;
+            } else if (closed) {
+                //characters after a closing quote are ignored
+            } else if (b == '"' && isBlank(fieldStart)) {
+                dataLength = fieldStart;
+                inQuote = true;
+                quoted = true;
+                recordQuoted = true;
+            } else if (b == '#') {
+                comment = true;
+            } else {
+                append((byte) b);
+            }
+        }
+    }
+
+    private boolean isBlank(final int from) {
+        for (int i = from; i < dataLength; i++) {
+            if (data[i] != ' ' && data[i] != '\t') return false;
+        }
+        return true;
+    }
+
+    private void endField(int start, final boolean quoted) {
+        int end = dataLength;
+        if (!quoted) {
+            while (start < end && (data[start] == ' ' || data[start] == '\t')) start++;
+            while (end > start && (data[end - 1] == ' ' || data[end - 1] == '\t')) end--;
+        }
+        if (nbField == starts.length) {
+            starts = Arrays.copyOf(starts, nbField * 2);
+            ends = Arrays.copyOf(ends, nbField * 2);
+        }
+        starts[nbField] = start;
+        ends[nbField] = end;
+        nbField++;
+    }
+
+    private void append(final byte b) {
+        if (dataLength == data.length) {
+            data = Arrays.copyOf(data, dataLength * 2);
+        }
+        data[dataLength++] = b;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        pos = 0;
+        limit = 0;
+        buffer.clear();
+        final int nb = channel.read(buffer, bufferOffset);
+        if (nb <= 0) return false;
+        limit = nb;
+        return true;
+    }
+
+    /**
+     * @return number of fields in the current record
+     */
+    int getFieldCount() {
+        return nbField;
+    }
+
+    /**
+     * @return true if the field value is empty
+     */
+    boolean isEmpty(final int field) {
+        return ends[field] == starts[field];
+    }
+
+    String getString(final int field) {
+        return new String(data, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse an integer value.
+     *
+     * @return parsed value or {@link Long#MIN_VALUE} if the value is not a plain integer
+     */
+    long getLong(final int field) {
+        int i = starts[field];
+        final int e = ends[field];
+        if (i == e) return Long.MIN_VALUE;
+        boolean negative = false;
+        if (data[i] == '-' || data[i] == '+') {
+            negative = data[i] == '-';
+            if (++i == e) return Long.MIN_VALUE;
+        }
+        if (e - i > 18) return Long.MIN_VALUE;
+        long value = 0;
+        for (; i < e; i++) {
+            final int d = data[i] - '0';
+            if (d < 0 || d > 9) return Long.MIN_VALUE;
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse a decimal value.
+     *
+     * @return parsed value or NaN if the value is not a decimal number
+     */
+    double getDouble(final int field) {
+        return parseDouble(starts[field], ends[field]);
+    }
+
+    /**
+     * Parse a POINT WKT value, with 2 or 3 ordinates.
+     *
+     * @return point or null if the value is not a simple point
+     */
+    Point getPoint(final int field, final GeometryFactory gf) {
+        int i = starts[field];
+        final int e = ends[field];
+        if (e - i < 5 || (data[i] | 0x20) != 'p' || (data[i+1] | 0x20) != 'o' || (data[i+2] | 0x20) != 'i'
+                || (data[i+3] | 0x20) != 'n' || (data[i+4] | 0x20) != 't') {
+            return null;
+        }
+        i = skipSpaces(i + 5, e);
+        if (i == e || data[i] != '(') return null;
+        final double[] ords = new double[3];
+        int n = 0;
+        i = skipSpaces(i + 1, e);
+        while (i < e && data[i] != ')') {
+            if (n == 3) return null;
+            int t = i;
+            while (t < e && data[t] != ' ' && data[t] != '\t' && data[t] != ')') t++;
+            ords[n] = parseDouble(i, t);
+            if (Double.isNaN(ords[n])) return null;
+            n++;
+            i = skipSpaces(t, e);
+        }
+        if (i == e || n < 2 || skipSpaces(i + 1, e) != e) return null;
+        return gf.createPoint(n == 2 ? new Coordinate(ords[0], ords[1]) : new Coordinate(ords[0], ords[1], ords[2]));
+    }
+
+    private int skipSpaces(int i, final int e) {
+        while (i < e && (data[i] == ' ' || data[i] == '\t')) i++;
+        return i;
+    }
+
+    /**
+     * Parse a decimal number, values with up to 15 significant digits and a
+     * small exponent are computed exactly without creating a string.
+     */
+    private double parseDouble(int i, final int e) {
+        if (i == e) return Double.NaN;
+        final int start = i;
+        boolean negative = false;
+        if (data[i] == '-' || data[i] == '+') {
+            negative = data[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean dot = false;
+        for (; i < e; i++) {
+            final byte c = data[i];
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa == 0 && c == '0') {
+                    if (dot) exponent--;
+                    continue;
+                }
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (dot) exponent--;
+                } else if (!dot) {
+                    exponent++;
+                }
+                digits++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) return Double.NaN;
+        if (i < e) {
+            if ((data[i] | 0x20) != 'e' || ++i == e) return Double.NaN;
+            boolean negexp = false;
+            if (data[i] == '-' || data[i] == '+') {
+                negexp = data[i] == '-';
+                if (++i == e) return Double.NaN;
+            }
+            int exp = 0;
+            for (; i < e; i++) {
+                final int d = data[i] - '0';
+                if (d < 0 || d > 9) return Double.NaN;
+                if (exp < 10000) exp = exp * 10 + d;
+            }
+            exponent += negexp ? -exp : exp;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+            value = mantissa;
+            value = (exponent < 0) ? value / POW10[-exponent] : value * POW10[exponent];
+        } else {
+            //rare case, rely on the jdk for correct rounding
+            value = Math.abs(Double.parseDouble(new String(data, start, e - start, StandardCharsets.US_ASCII)));
+        }
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
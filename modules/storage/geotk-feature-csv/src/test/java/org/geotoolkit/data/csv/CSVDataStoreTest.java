@@ -20,10 +20,14 @@ package org.geotoolkit.data.csv;
 import java.util.Map;
 import java.util.Collections;
 import com.vividsolutions.jts.geom.Geometry;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.geotoolkit.data.AbstractFileFeatureStoreFactory;
 import org.geotoolkit.data.FeatureStore;
@@ -153,6 +157,40 @@ public class CSVDataStoreTest extends org.geotoolkit.test.TestBase {
 
     }
 
+    /**
+     * Closing a parallel reader early must wait for the range tasks
+     * before releasing the file lock.
+     */
+    @Test
+    public void testParallelEarlyClose() throws Exception {
+        final Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("name(String);age(Integer)\n");
+                //several ranges
+                long size = 0;
+                for (int i = 0; size < 3 * CSVFeatureReader.RANGE_SIZE; i++) {
+                    final String line = "name" + i + ";" + i + "\n";
+                    writer.write(line);
+                    size += line.length();
+                }
+            }
+            try (CSVFeatureStore store = new CSVFeatureStore(file, ';')) {
+                final FeatureType type = store.getFeatureType(store.getNames().iterator().next().toString());
+                final ReadWriteLock lock = new ReentrantReadWriteLock();
+                final CSVFeatureReader reader = new CSVFeatureReader(store, type, false, lock, null, true);
+                assertTrue(reader.hasNext());
+                assertEquals("name0", reader.next().getPropertyValue("name"));
+                reader.close();
+                assertEquals(0, reader.runningTasks());
+                assertTrue(lock.writeLock().tryLock());
+                lock.writeLock().unlock();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
     @Test
     public void testReadEscape() throws Exception {
         try (final FeatureStore store = new CSVFeatureStore(Paths.get("./src/test/resources/org/geotoolkit/csv/escaped.csv"), ';')) {
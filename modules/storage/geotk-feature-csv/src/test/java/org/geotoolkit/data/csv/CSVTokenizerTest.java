@@ -0,0 +1,146 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.csv;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test CSV tokenizer quoting, number parsing and file ranges.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class CSVTokenizerTest extends org.geotoolkit.test.TestBase {
+
+    @Test
+    public void testQuoting() throws Exception {
+        final Path file = write("name(String);comment(String);age(Integer)\n"
+                + "# comment line\n"
+                + "hubert;\"someone from the \"\"big fisher\"\" corp,\na good;guy\";36\n"
+                + "\n"
+                + "  marc ; lucky luck;22 # end of line comment\r\n"
+                + "élise;\"\";\n");
+
+        try (CSVTokenizer tokenizer = new CSVTokenizer(file, ';')) {
+            assertTrue(tokenizer.next());
+            assertEquals("age(Integer)", tokenizer.getString(2));
+
+            assertTrue(tokenizer.next());
+            assertEquals(3, tokenizer.getFieldCount());
+            assertEquals("hubert", tokenizer.getString(0));
+            assertEquals("someone from the \"big fisher\" corp,\na good;guy", tokenizer.getString(1));
+            assertEquals(36, tokenizer.getLong(2));
+
+            assertTrue(tokenizer.next());
+            assertEquals("marc", tokenizer.getString(0));
+            assertEquals("lucky luck", tokenizer.getString(1));
+            assertEquals(22, tokenizer.getLong(2));
+
+            assertTrue(tokenizer.next());
+            assertEquals("élise", tokenizer.getString(0));
+            assertTrue(tokenizer.isEmpty(1));
+            assertTrue(tokenizer.isEmpty(2));
+            assertEquals(Long.MIN_VALUE, tokenizer.getLong(2));
+
+            assertFalse(tokenizer.next());
+        }
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        final String[] values = {"0", "-0.5", "+12.25", "0.1", "-0.000123", "1.5e3", "2E-5",
+            "0.30000000000000004", "123456789012345678", "1e400"};
+        final StringBuilder sb = new StringBuilder();
+        for (String value : values) sb.append(value).append('\n');
+        sb.append("abc\n1.2.3\n");
+
+        try (CSVTokenizer tokenizer = new CSVTokenizer(write(sb.toString()), ';')) {
+            for (String value : values) {
+                assertTrue(tokenizer.next());
+                assertEquals(value, Double.parseDouble(value), tokenizer.getDouble(0), 0.0);
+            }
+            assertTrue(tokenizer.next());
+            assertTrue(Double.isNaN(tokenizer.getDouble(0)));
+            assertTrue(tokenizer.next());
+            assertTrue(Double.isNaN(tokenizer.getDouble(0)));
+        }
+    }
+
+    @Test
+    public void testPoint() throws Exception {
+        final GeometryFactory gf = new GeometryFactory();
+        try (CSVTokenizer tokenizer = new CSVTokenizer(write("POINT (1.5 -2)\npoint(3 4 5)\nPOINT EMPTY\nLINESTRING (1 2, 3 4)\n"), ';')) {
+            assertTrue(tokenizer.next());
+            Point pt = tokenizer.getPoint(0, gf);
+            assertTrue(pt.getCoordinate().equals3D(new Coordinate(1.5, -2)));
+            assertTrue(tokenizer.next());
+            pt = tokenizer.getPoint(0, gf);
+            assertTrue(pt.getCoordinate().equals3D(new Coordinate(3, 4, 5)));
+            assertTrue(tokenizer.next());
+            assertNull(tokenizer.getPoint(0, gf));
+            assertTrue(tokenizer.next());
+            assertNull(tokenizer.getPoint(0, gf));
+        }
+    }
+
+    /**
+     * Reading a file by ranges must return each record once.
+     */
+    @Test
+    public void testRanges() throws Exception {
+        final StringBuilder sb = new StringBuilder("id(Integer);name(String)\n");
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append(';').append("name").append(i).append('\n');
+        }
+        final Path file = write(sb.toString());
+        final long size = Files.size(file);
+
+        for (long range : new long[]{1, 7, 100, size}) {
+            final List<Long> values = new ArrayList<>();
+            for (long start = 0; start < size; start += range) {
+                try (CSVTokenizer tokenizer = new CSVTokenizer(file, ';', start, Math.min(size, start + range))) {
+                    if (start == 0) tokenizer.next();
+                    while (tokenizer.next()) {
+                        values.add(tokenizer.getLong(0));
+                    }
+                }
+            }
+            assertEquals(1000, values.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, values.get(i).longValue());
+            }
+        }
+    }
+
+    private static Path write(final String text) throws Exception {
+        final Path file = Files.createTempFile("tokenizer", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -40,6 +40,7 @@ import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureWriter;
 import org.geotoolkit.data.dbf.DbaseFileReader.Row;
 import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.query.QueryCapabilities;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.nio.IOUtilities;
@@ -176,7 +177,15 @@ public class DbaseFileFeatureStore extends AbstractFeatureStore implements DataF
     @Override
     public FeatureReader getFeatureReader(final Query query) throws DataStoreException {
         typeCheck(query.getTypeName()); //raise error is type doesnt exist
-        final FeatureReader fr = new DBFFeatureReader();
+        final DBFFeatureReader fr = new DBFFeatureReader();
+        if (query.getStartIndex() > 0 && query.getFilter() == Filter.INCLUDE
+                && (query.getSortBy() == null || query.getSortBy().length == 0)) {
+            //no filter and no sort, skip records without decoding them
+            fr.skip(query.getStartIndex());
+            final QueryBuilder qb = new QueryBuilder(query);
+            qb.setStartIndex(0);
+            return FeatureStreams.subset(fr, qb.buildQuery());
+        }
         return FeatureStreams.subset(fr, query);
     }
 
@@ -281,6 +290,18 @@ public class DbaseFileFeatureStore extends AbstractFeatureStore implements DataF
             }
         }
 
+        /**
+         * Skip records, identifiers of the following features are preserved.
+         */
+        private void skip(final int n) throws DataStoreException {
+            try {
+                inc += reader.skip(n);
+            } catch (IOException ex) {
+                close();
+                throw new DataStoreException(ex);
+            }
+        }
+
         @Override
         public FeatureType getFeatureType() {
             return featureType;
@@ -456,6 +456,42 @@ public class DbaseFileHeader {
         return headerLength;
     }
 
+    /**
+     * Read the header data from a buffer containing the DBF file, starting at
+     * the buffer position. The position of the given buffer is not modified.
+     *
+     * @param buffer
+     *                A buffer over the DBF file content.
+     * @throws IOException
+     *                 If errors occur while reading.
+     */
+    public void readHeader(final ByteBuffer buffer) throws IOException {
+        final ByteBuffer source = buffer.duplicate();
+        readHeader(new ReadableByteChannel() {
+            @Override
+            public int read(final ByteBuffer dst) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                final int n = Math.min(dst.remaining(), source.remaining());
+                final ByteBuffer slice = source.slice();
+                slice.limit(n);
+                dst.put(slice);
+                source.position(source.position() + n);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
     /**
      * Read the header data from the DBF file.
      *
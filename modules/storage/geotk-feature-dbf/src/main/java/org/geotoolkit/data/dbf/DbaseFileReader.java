@@ -110,6 +110,10 @@ public final class DbaseFileReader implements Closeable{
     protected boolean useMemoryMappedBuffer;
     protected boolean randomAccessEnabled;
 
+    /** Called when this reader is closed, if created over a shared buffer. */
+    private Runnable release;
+    private boolean closed = false;
+
     /**
      * Creates a new instance of DBaseFileReader
      *
@@ -163,6 +167,42 @@ public final class DbaseFileReader implements Closeable{
         decoder = charset.newDecoder();
     }
 
+    /**
+     * Creates a new reader over a buffer containing the whole DBF file.
+     * The buffer content is only read, it can be a view over a memory mapping
+     * shared with other readers, each reader having its own position.
+     *
+     * @param dbfBuffer buffer of the DBF file, the header starts at position 0.
+     * @param release called once when this reader is closed, can be null.
+     * @param charset
+     * @throws IOException If an error occurs while reading the header.
+     */
+    public DbaseFileReader(final ByteBuffer dbfBuffer, final Runnable release, Charset charset) throws IOException {
+
+        if(charset == null) charset = DEFAULT_STRING_CHARSET;
+
+        this.channel = null;
+        this.release = release;
+        this.useMemoryMappedBuffer = true;
+        this.randomAccessEnabled = true;
+        this.buffer = dbfBuffer.duplicate();
+        this.buffer.position(0);
+        this.header = new DbaseFileHeader();
+        this.header.readHeader(buffer);
+        this.buffer.position(header.getHeaderLength());
+
+        // The entire file is in little endian
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        fieldReaders = new DbaseField[header.getNumFields()];
+        for (int i = 0, ii = header.getNumFields(); i < ii; i++) {
+            fieldReaders[i] = header.getField(i);
+        }
+
+        charBuffer = CharBuffer.allocate(header.getRecordLength() - 1);
+        decoder = charset.newDecoder();
+    }
+
     protected void fill(final ByteBuffer buffer, final ReadableByteChannel channel)
             throws IOException {
         int r = buffer.remaining();
@@ -219,6 +259,22 @@ public final class DbaseFileReader implements Closeable{
         return r;
     }
 
+    /**
+     * Skip the next records, only the deleted flag of each record is read.
+     *
+     * @param n number of records to skip
+     * @return number of records skipped, less than n if the end of file is reached
+     * @throws IOException
+     */
+    public int skip(final int n) throws IOException {
+        int i = 0;
+        for (; i < n && hasNext(); i++) {
+            checkNext();
+            next = null;
+        }
+        return i;
+    }
+
     private void checkNext() throws IOException{
         if(next!=null)return;
 
@@ -339,14 +395,22 @@ public final class DbaseFileReader implements Closeable{
      */
     @Override
     public void close() throws IOException {
-        if (channel.isOpen()) {
+        if (channel == null) {
+            if (!closed) {
+                closed = true;
+                if (release != null) {
+                    release.run();
+                    release = null;
+                }
+            }
+        } else if (channel.isOpen()) {
             channel.close();
         }
     }
 
     @Override
     public boolean isClosed() {
-        return !channel.isOpen();
+        return (channel == null) ? closed : !channel.isOpen();
     }
 
 }
@@ -67,6 +67,16 @@ public final class Bundle extends IndexedResourceBundle {
          * GeoJSON
          */
         public static final short datastoreTitle = 6;
+
+        /**
+         * Use feature index
+         */
+        public static final short use_index = 7;
+
+        /**
+         * Create and use a sidecar index file (.idx) of feature offsets and bounding boxes.
+         */
+        public static final short use_index_remarks = 8;
     }
 
     /**
@@ -25,12 +25,27 @@ import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.data.*;
 import org.geotoolkit.data.geojson.binding.*;
 import org.geotoolkit.data.geojson.utils.FeatureTypeUtils;
+import org.geotoolkit.data.geojson.utils.GeoJSONIndex;
 import org.geotoolkit.data.geojson.utils.GeoJSONParser;
 import org.geotoolkit.data.geojson.utils.GeoJSONUtils;
 import org.geotoolkit.data.query.*;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.HintsPending;
+import org.geotoolkit.feature.FeatureExt;
+import org.geotoolkit.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotoolkit.geometry.jts.JTSEnvelope2D;
+import org.opengis.filter.And;
 import org.opengis.filter.Filter;
+import org.opengis.filter.Or;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
 import org.opengis.filter.identity.FeatureId;
 import org.opengis.geometry.Envelope;
 import org.opengis.parameter.ParameterValueGroup;
@@ -53,6 +68,7 @@ import java.util.logging.Logger;
 import org.apache.sis.feature.builder.AttributeRole;
 import org.apache.sis.feature.builder.AttributeTypeBuilder;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.parameter.Parameters;
 import org.geotoolkit.storage.DataStoreFactory;
 import org.geotoolkit.storage.DataStores;
@@ -77,6 +93,8 @@ public class GeoJSONFeatureStore extends AbstractFeatureStore {
     private Path jsonFile;
     private Integer coordAccuracy;
     private boolean isLocal = true;
+    private final boolean useIndex;
+    private GeoJSONIndex index;
 
     public GeoJSONFeatureStore(final Path path, Integer coordAccuracy)
             throws DataStoreException {
@@ -91,6 +109,7 @@ public class GeoJSONFeatureStore extends AbstractFeatureStore {
     public GeoJSONFeatureStore (final ParameterValueGroup params) throws DataStoreException {
         super(params);
         this.coordAccuracy = (Integer) params.parameter(COORDINATE_ACCURACY.getName().toString()).getValue();
+        this.useIndex = Boolean.TRUE.equals(Parameters.castOrWrap(params).getValue(USE_INDEX));
 
         final URI uri = (URI) params.parameter(PATH.getName().toString()).getValue();
 
@@ -314,6 +333,21 @@ public class GeoJSONFeatureStore extends AbstractFeatureStore {
         typeCheck(query.getTypeName());
 
         if (QueryUtilities.queryAll(query)) {
+            final GeoJSONIndex index = getIndex();
+            if (index != null) {
+                final double[] bbox = index.getEnvelope();
+                if (bbox != null) {
+                    final GeneralEnvelope envelope = new GeneralEnvelope(2);
+                    final CoordinateReferenceSystem crs = FeatureExt.getCRS(featureType);
+                    if (crs != null && crs.getCoordinateSystem().getDimension() == 2) {
+                        envelope.setCoordinateReferenceSystem(crs);
+                    }
+                    envelope.setRange(0, bbox[0], bbox[2]);
+                    envelope.setRange(1, bbox[1], bbox[3]);
+                    return envelope;
+                }
+            }
+
             rwLock.readLock().lock();
             try {
                 final GeoJSONObject obj = GeoJSONParser.parse(jsonFile, true);
@@ -338,11 +372,161 @@ public class GeoJSONFeatureStore extends AbstractFeatureStore {
      * {@inheritDoc }
      */
     @Override
-    public FeatureReader getFeatureReader(final Query query) throws DataStoreException {
+    public FeatureReader getFeatureReader(Query query) throws DataStoreException {
+        typeCheck(query.getTypeName());
+
+        final GeoJSONIndex index = getIndex();
+        if (index == null) {
+            final FeatureReader fr = new GeoJSONReader(jsonFile, featureType, rwLock);
+            return FeatureStreams.subset(fr, query);
+        }
+
+        int[] selection = null;
+        final Filter filter = query.getFilter();
+        if (filter != Filter.INCLUDE) {
+            //preselect features by bounding box, the filter is still evaluated afterward
+            final JTSEnvelope2D bbox = getIndexEnvelope(filter);
+            if (bbox != null) {
+                selection = index.query(bbox.getMinX(), bbox.getMinY(), bbox.getMaxX(), bbox.getMaxY());
+            }
+        } else if (query.getSortBy() == null || query.getSortBy().length == 0) {
+            //no filter and no sort, start index and max features can be resolved with the index
+            final int start = Math.min(query.getStartIndex(), index.size());
+            final Integer max = query.getMaxFeatures();
+            final int end = (max == null) ? index.size() : (int) Math.min((long) start + max, index.size());
+            if (start != 0 || end != index.size()) {
+                selection = new int[end - start];
+                for (int i = 0; i < selection.length; i++) {
+                    selection[i] = start + i;
+                }
+                final QueryBuilder qb = new QueryBuilder(query);
+                qb.setStartIndex(0);
+                qb.setMaxFeatures(null);
+                query = qb.buildQuery();
+            }
+        }
+
+        try {
+            final FeatureReader fr = new GeoJSONIndexReader(jsonFile, featureType, rwLock, index, selection);
+            return FeatureStreams.subset(fr, query);
+        } catch (IOException e) {
+            throw new DataStoreException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     *
+     * Uses the feature index when available.
+     */
+    @Override
+    public long getCount(final Query query) throws DataStoreException {
         typeCheck(query.getTypeName());
 
-        final FeatureReader fr = new GeoJSONReader(jsonFile, featureType, rwLock);
-        return FeatureStreams.subset(fr, query);
+        if (QueryUtilities.queryAll(query)) {
+            final GeoJSONIndex index = getIndex();
+            if (index != null) {
+                return index.size();
+            }
+        }
+        return super.getCount(query);
+    }
+
+    /**
+     * Get the feature index, the index is created or updated if the json file
+     * has changed.
+     *
+     * @return feature index, null if index is disabled or can not be created.
+     */
+    private synchronized GeoJSONIndex getIndex() {
+        if (!useIndex || !isLocal) return null;
+        try {
+            if (!Files.exists(jsonFile) || Files.size(jsonFile) == 0) {
+                return null;
+            }
+            if (index != null && index.isValid(jsonFile)) {
+                return index;
+            }
+            index = GeoJSONIndex.read(jsonFile);
+            if (index == null) {
+                rwLock.readLock().lock();
+                try {
+                    index = GeoJSONIndex.build(jsonFile);
+                } finally {
+                    rwLock.readLock().unlock();
+                }
+                if (index != null) {
+                    index.write(jsonFile);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot use GeoJSON feature index : " + e.getMessage(), e);
+            index = null;
+        }
+        return index;
+    }
+
+    /**
+     * Compute the envelope containing all the features which may match the filter.
+     * Only positive spatial operators restrict the features to an envelope,
+     * features without geometry or outside the envelope can not match them.
+     *
+     * @param filter query filter
+     * @return envelope to query in the index, or null if the index can not be used
+     */
+    private static JTSEnvelope2D getIndexEnvelope(final Filter filter) {
+        if (filter instanceof And) {
+            //a single spatial operand restricts the whole filter
+            for (Filter child : ((And) filter).getChildren()) {
+                final JTSEnvelope2D env = getIndexEnvelope(child);
+                if (env != null) {
+                    return env;
+                }
+            }
+            return null;
+        } else if (filter instanceof Or) {
+            //all operands must be restricted
+            JTSEnvelope2D union = null;
+            for (Filter child : ((Or) filter).getChildren()) {
+                final JTSEnvelope2D env = getIndexEnvelope(child);
+                if (env == null) {
+                    return null;
+                } else if (union == null) {
+                    union = env;
+                } else {
+                    union.expandToInclude(env);
+                }
+            }
+            return union;
+        } else if (filter instanceof BBOX || filter instanceof Intersects || filter instanceof Within
+                || filter instanceof Contains || filter instanceof Overlaps || filter instanceof Crosses
+                || filter instanceof Touches || filter instanceof Equals || filter instanceof DWithin) {
+            final JTSEnvelope2D env = (JTSEnvelope2D) filter.accept(
+                    ExtractBoundsFilterVisitor.BOUNDS_VISITOR, new JTSEnvelope2D());
+            if (env == null || env.isNull() || !isFinite(env)) {
+                return null;
+            }
+            if (filter instanceof DWithin) {
+                final DWithin dwithin = (DWithin) filter;
+                //distance is expected in the data crs units
+                final String units = dwithin.getDistanceUnits();
+                if (units != null && !units.isEmpty()) {
+                    return null;
+                }
+                env.expandBy(dwithin.getDistance());
+            }
+            return env;
+        }
+        return null;
+    }
+
+    private static boolean isFinite(final Envelope env) {
+        for (int i = 0; i < env.getDimension(); i++) {
+            if (!Double.isFinite(env.getMinimum(i)) || !Double.isFinite(env.getMaximum(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -63,10 +63,19 @@ public class GeoJSONFeatureStoreFactory extends AbstractFileFeatureStoreFactory
             .setRequired(false)
             .create(Integer.class, 7);
 
+    /**
+     * Optional, create and use a feature index file next to the json file.
+     */
+    public static final ParameterDescriptor<Boolean> USE_INDEX = new ParameterBuilder()
+            .addName("use_index")
+            .addName(Bundle.formatInternational(Bundle.Keys.use_index))
+            .setRemarks(Bundle.formatInternational(Bundle.Keys.use_index_remarks))
+            .setRequired(false)
+            .create(Boolean.class, false);
 
     public static final ParameterDescriptorGroup PARAMETERS_DESCRIPTOR =
             new ParameterBuilder().addName("GeoJSONParameters").createGroup(
-                IDENTIFIER, PATH, COORDINATE_ACCURACY);
+                IDENTIFIER, PATH, COORDINATE_ACCURACY, USE_INDEX);
 
     @Override
     public Identification getIdentification() {
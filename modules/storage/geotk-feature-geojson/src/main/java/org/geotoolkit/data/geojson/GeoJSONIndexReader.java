@@ -0,0 +1,224 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.geojson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.sis.util.logging.Logging;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.geojson.binding.GeoJSONFeature;
+import org.geotoolkit.data.geojson.binding.GeoJSONObject;
+import org.geotoolkit.data.geojson.utils.GeoJSONIndex;
+import org.geotoolkit.data.geojson.utils.GeoJSONParser;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+
+/**
+ * GeoJSON reader using a {@link GeoJSONIndex}.
+ * <p>
+ * Features are read directly at their byte offset, only the selected features
+ * are parsed. Selected features are split in chunks, consecutive features of a
+ * chunk are read with a single file read. When there is more than one chunk,
+ * chunks are parsed in parallel in the common fork join pool while preserving
+ * the file order.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+class GeoJSONIndexReader extends GeoJSONReader {
+
+    /**
+     * Number of features parsed by a task.
+     */
+    static final int CHUNK_SIZE = 256;
+
+    private static final Logger LOGGER = Logging.getLogger("org.geotoolkit.data.geojson");
+
+    private final GeoJSONIndex index;
+    private final int[] selection;
+    private final int count;
+    private final int parallelism;
+    private final FileChannel channel;
+    private final ArrayDeque<CompletableFuture<List<Feature>>> pending = new ArrayDeque<>();
+    /**
+     * One party for this reader and one for each submitted task.
+     */
+    private final Phaser running = new Phaser(1);
+    private volatile boolean closed = false;
+    private int nextChunk = 0;
+    private Iterator<Feature> currentChunk = null;
+
+    /**
+     * @param selection indexes of the features to read in file order, null for all features
+     */
+    GeoJSONIndexReader(Path jsonFile, FeatureType featureType, ReadWriteLock rwLock,
+            GeoJSONIndex index, int[] selection) throws IOException {
+        super(jsonFile, featureType, rwLock);
+        this.index = index;
+        this.selection = selection;
+        this.count = (selection != null) ? selection.length : index.size();
+        this.parallelism = (count > CHUNK_SIZE) ? ForkJoinPool.getCommonPoolParallelism() : 1;
+        this.channel = FileChannel.open(jsonFile, StandardOpenOption.READ);
+    }
+
+    @Override
+    public boolean hasNext() throws FeatureStoreRuntimeException {
+        findNext();
+        return current != null;
+    }
+
+    @Override
+    public Feature next() throws FeatureStoreRuntimeException {
+        findNext();
+        final Feature ob = current;
+        current = null;
+        if (ob == null) {
+            throw new FeatureStoreRuntimeException("No more records.");
+        }
+        return ob;
+    }
+
+    private void findNext() throws FeatureStoreRuntimeException {
+        if (current != null) return;
+        while (currentChunk == null || !currentChunk.hasNext()) {
+            //keep the pool busy
+            while (pending.size() < parallelism && nextChunk * CHUNK_SIZE < count) {
+                final int start = nextChunk * CHUNK_SIZE;
+                final int end = Math.min(count, start + CHUNK_SIZE);
+                nextChunk++;
+                if (parallelism > 1) {
+                    running.register();
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return closed ? Collections.<Feature>emptyList() : readChunk(start, end);
+                        } finally {
+                            running.arriveAndDeregister();
+                        }
+                    }));
+                } else {
+                    pending.add(CompletableFuture.completedFuture(readChunk(start, end)));
+                }
+            }
+            if (pending.isEmpty()) return;
+            try {
+                currentChunk = pending.poll().join().iterator();
+            } catch (CompletionException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof FeatureStoreRuntimeException) {
+                    throw (FeatureStoreRuntimeException) cause;
+                }
+                throw new FeatureStoreRuntimeException(cause);
+            }
+        }
+        current = currentChunk.next();
+    }
+
+    private int featureIndex(final int i) {
+        return (selection != null) ? selection[i] : i;
+    }
+
+    /**
+     * Read and parse features from start to end (exclusive) of the selection.
+     */
+    private List<Feature> readChunk(final int start, final int end) throws FeatureStoreRuntimeException {
+        final List<Feature> features = new ArrayList<>(end - start);
+        ByteBuffer buffer = null;
+        rwlock.readLock().lock();
+        try {
+            int i = start;
+            while (i < end && !closed) {
+                //group consecutive features in one read
+                final int first = featureIndex(i);
+                int last = first;
+                int j = i + 1;
+                while (j < end && featureIndex(j) == last + 1) {
+                    last++;
+                    j++;
+                }
+                final long offset = index.getOffset(first);
+                final int length = (int) (index.getOffset(last) + index.getLength(last) - offset);
+                if (buffer == null || buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(Math.max(length, 8192));
+                }
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of file, index may be obsolete.");
+                    }
+                }
+                final byte[] array = buffer.array();
+                for (int k = first; k <= last; k++) {
+                    final int off = (int) (index.getOffset(k) - offset);
+                    features.add(parseFeature(array, off, index.getLength(k), k));
+                }
+                i = j;
+            }
+        } catch (IOException ex) {
+            throw new FeatureStoreRuntimeException(ex.getMessage(), ex);
+        } finally {
+            rwlock.readLock().unlock();
+        }
+        return features;
+    }
+
+    private Feature parseFeature(final byte[] array, final int offset, final int length, final int featureIdx)
+            throws IOException {
+        try (JsonParser p = GeoJSONParser.FACTORY.createParser(array, offset, length)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Feature " + featureIdx + " not found at indexed offset, index may be obsolete.");
+            }
+            final GeoJSONObject obj = GeoJSONParser.parseGeoJSONObject(p);
+            if (!(obj instanceof GeoJSONFeature)) {
+                throw new IOException("Feature " + featureIdx + " not found at indexed offset, index may be obsolete.");
+            }
+            return toFeature((GeoJSONFeature) obj, featureIdx);
+        }
+    }
+
+    @Override
+    public void close() {
+        //tasks not started yet return immediately, wait for the running ones
+        //before closing the channel
+        closed = true;
+        running.arriveAndAwaitAdvance();
+        pending.clear();
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot close a read resource.", ex);
+        }
+        super.close();
+    }
+
+}
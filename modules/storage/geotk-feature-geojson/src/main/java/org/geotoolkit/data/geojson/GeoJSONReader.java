@@ -36,9 +36,9 @@ import java.lang.reflect.Array;
 import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -59,7 +59,7 @@ import org.opengis.feature.PropertyType;
 public class GeoJSONReader implements FeatureReader {
 
     private final static Logger LOGGER = Logging.getLogger("org.geotoolkit.data.geojson");
-    private final Map<Map.Entry<Class, Class>, ObjectConverter> convertersCache = new HashMap<>();
+    private final Map<Map.Entry<Class, Class>, ObjectConverter> convertersCache = new ConcurrentHashMap<>();
 
     private GeoJSONObject jsonObj = null;
     private Boolean toRead = true;
@@ -158,10 +158,21 @@ public class GeoJSONReader implements FeatureReader {
     /**
      * Convert a GeoJSONFeature to geotk Feature.
      * @param jsonFeature
-     * @param featureId
      * @return
      */
     protected Feature toFeature(GeoJSONFeature jsonFeature) throws FeatureStoreRuntimeException {
+        return toFeature(jsonFeature, currentFeatureIdx);
+    }
+
+    /**
+     * Convert a GeoJSONFeature to geotk Feature.
+     * This method is thread safe.
+     *
+     * @param jsonFeature
+     * @param featureIdx feature index in the collection, used as identifier if the feature has none
+     * @return
+     */
+    protected Feature toFeature(GeoJSONFeature jsonFeature, int featureIdx) throws FeatureStoreRuntimeException {
 
         //Build geometry
         final Geometry geom = GeometryUtils.toJTS(jsonFeature.getGeometry(), crs);
@@ -171,7 +182,7 @@ public class GeoJSONReader implements FeatureReader {
         if (hasIdentifier) {
             Object id = jsonFeature.getId();
             if (id == null) {
-                id = currentFeatureIdx;
+                id = featureIdx;
             }
             feature.setPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString(), idConverter.apply(id));
         }
@@ -0,0 +1,327 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.geojson.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.geotoolkit.data.geojson.utils.GeoJSONMembres.*;
+
+/**
+ * Sidecar index of a GeoJSON FeatureCollection file.
+ * <p>
+ * The index stores for each feature of the collection its byte offset and length
+ * in the file, its bounding box and its identifier. It is built in a single streaming
+ * pass without creating the features and is stored next to the json file with the
+ * {@code .idx} suffix. The index records the size and modification date of the json
+ * file and is considered obsolete if the file changed.
+ * <p>
+ * Only UTF-8 files can be indexed, other encodings do not provide byte offsets.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public final class GeoJSONIndex {
+
+    private static final int MAGIC = 0x474A4958; // GJIX
+    private static final int VERSION = 1;
+
+    private final long fileSize;
+    private final long lastModified;
+    private int size;
+    private long[] offsets;
+    private int[] lengths;
+    /** minx, miny, maxx, maxy for each feature, NaN if the feature has no geometry */
+    private double[] bboxes;
+    private String[] ids;
+    private final double[] envelope = new double[]{
+        Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    private GeoJSONIndex(final long fileSize, final long lastModified, final int capacity) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.offsets = new long[capacity];
+        this.lengths = new int[capacity];
+        this.bboxes = new double[capacity * 4];
+        this.ids = new String[capacity];
+    }
+
+    /**
+     * @param jsonFile GeoJSON file
+     * @return sidecar index file path
+     */
+    public static Path getIndexFile(final Path jsonFile) {
+        return jsonFile.resolveSibling(jsonFile.getFileName().toString() + ".idx");
+    }
+
+    /**
+     * @return number of features in the collection
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index feature index
+     * @return byte offset of the feature object in the json file
+     */
+    public long getOffset(final int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @param index feature index
+     * @return length in bytes of the feature object
+     */
+    public int getLength(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * @param index feature index
+     * @return feature identifier, null if the feature has none
+     */
+    public String getId(final int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return envelope of all features as minx, miny, maxx, maxy or null if there is no geometry
+     */
+    public double[] getEnvelope() {
+        return (envelope[0] <= envelope[2]) ? envelope.clone() : null;
+    }
+
+    /**
+     * Find the features which bounding box intersects the given one.
+     *
+     * @return indexes of the features, in file order
+     */
+    public int[] query(final double minx, final double miny, final double maxx, final double maxy) {
+        int[] result = new int[64];
+        int n = 0;
+        for (int i = 0, k = 0; i < size; i++, k += 4) {
+            //comparisons are false with NaN, features without geometry are excluded
+            if (bboxes[k] <= maxx && bboxes[k + 2] >= minx && bboxes[k + 1] <= maxy && bboxes[k + 3] >= miny) {
+                if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                result[n++] = i;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @param jsonFile indexed json file
+     * @return true if the json file did not change since the index creation
+     */
+    public boolean isValid(final Path jsonFile) throws IOException {
+        return Files.size(jsonFile) == fileSize
+            && Files.getLastModifiedTime(jsonFile).toMillis() == lastModified;
+    }
+
+    private void add(final long offset, final int length, final double[] bbox, final String id) {
+        if (size == offsets.length) {
+            final int capacity = Math.max(16, size * 2);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            bboxes = Arrays.copyOf(bboxes, capacity * 4);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = length;
+        System.arraycopy(bbox, 0, bboxes, size * 4, 4);
+        ids[size] = id;
+        size++;
+        if (bbox[0] <= bbox[2]) {
+            envelope[0] = Math.min(envelope[0], bbox[0]);
+            envelope[1] = Math.min(envelope[1], bbox[1]);
+            envelope[2] = Math.max(envelope[2], bbox[2]);
+            envelope[3] = Math.max(envelope[3], bbox[3]);
+        }
+    }
+
+    /**
+     * Load the sidecar index of the given file.
+     *
+     * @param jsonFile GeoJSON file
+     * @return index or null if there is no index or if it is obsolete
+     * @throws IOException if the index file could not be read
+     */
+    public static GeoJSONIndex read(final Path jsonFile) throws IOException {
+        final Path indexFile = getIndexFile(jsonFile);
+        if (!Files.isRegularFile(indexFile)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            final long fileSize = in.readLong();
+            final long lastModified = in.readLong();
+            final int count = in.readInt();
+            final GeoJSONIndex index = new GeoJSONIndex(fileSize, lastModified, count);
+            if (!index.isValid(jsonFile)) return null;
+            final double[] bbox = new double[4];
+            for (int i = 0; i < count; i++) {
+                final long offset = in.readLong();
+                final int length = in.readInt();
+                for (int k = 0; k < 4; k++) bbox[k] = in.readDouble();
+                final String id = in.readBoolean() ? in.readUTF() : null;
+                index.add(offset, length, bbox, id);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Write the index next to the json file.
+     *
+     * @param jsonFile indexed GeoJSON file
+     * @throws IOException if the index file could not be written
+     */
+    public void write(final Path jsonFile) throws IOException {
+        final Path indexFile = getIndexFile(jsonFile);
+        final Path tmp = indexFile.resolveSibling(indexFile.getFileName().toString() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+                for (int k = 0; k < 4; k++) out.writeDouble(bboxes[i * 4 + k]);
+                out.writeBoolean(ids[i] != null);
+                if (ids[i] != null) out.writeUTF(ids[i]);
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Build the index of a GeoJSON file in one streaming pass.
+     *
+     * @param jsonFile GeoJSON file
+     * @return index or null if the file root object is not a FeatureCollection
+     * @throws IOException if the file could not be parsed or is not UTF-8 encoded
+     */
+    public static GeoJSONIndex build(final Path jsonFile) throws IOException {
+        final long fileSize = Files.size(jsonFile);
+        final long lastModified = Files.getLastModifiedTime(jsonFile).toMillis();
+
+        try (InputStream in = Files.newInputStream(jsonFile);
+             JsonParser p = GeoJSONParser.FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Input file is not a JSON object " + jsonFile);
+            }
+            GeoJSONIndex index = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = p.getCurrentName();
+                final JsonToken token = p.nextToken();
+                if (FEATURES.equals(name) && token == JsonToken.START_ARRAY) {
+                    index = new GeoJSONIndex(fileSize, lastModified, 1024);
+                    final double[] bbox = new double[4];
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        final long start = p.getTokenLocation().getByteOffset();
+                        if (start < 0) {
+                            throw new IOException("Only UTF-8 GeoJSON files can be indexed " + jsonFile);
+                        }
+                        Arrays.fill(bbox, Double.NaN);
+                        final String id = scanFeature(p, bbox);
+                        final long end = p.getCurrentLocation().getByteOffset();
+                        index.add(start, (int) (end - start), bbox, id);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Scan a feature object, parser must be on the START_OBJECT token.
+     * On return the parser is on the END_OBJECT token.
+     *
+     * @return feature identifier
+     */
+    private static String scanFeature(final JsonParser p, final double[] bbox) throws IOException {
+        String id = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = p.getCurrentName();
+            p.nextToken();
+            if (ID.equals(name)) {
+                id = p.getValueAsString();
+            } else if (GEOMETRY.equals(name) && p.getCurrentToken() == JsonToken.START_OBJECT) {
+                scanGeometry(p, bbox);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Expand the bounding box with all positions of a geometry object,
+     * parser must be on the START_OBJECT token.
+     */
+    private static void scanGeometry(final JsonParser p, final double[] bbox) throws IOException {
+        int depth = 0;
+        int ordinate = -1;
+        double x = 0;
+        do {
+            final JsonToken token = p.nextToken();
+            switch (token) {
+                case START_OBJECT: depth++; break;
+                case END_OBJECT:   depth--; break;
+                case START_ARRAY:  depth++; ordinate = 0; break;
+                case END_ARRAY:    depth--; ordinate = -1; break;
+                case FIELD_NAME:
+                    final String name = p.getCurrentName();
+                    if (BBOX.equals(name) || CRS.equals(name)) {
+                        p.nextToken();
+                        p.skipChildren();
+                    }
+                    break;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    if (ordinate == 0) {
+                        x = p.getDoubleValue();
+                    } else if (ordinate == 1) {
+                        final double y = p.getDoubleValue();
+                        if (!(bbox[0] <= x)) bbox[0] = x; //also replaces NaN
+                        if (!(bbox[1] <= y)) bbox[1] = y;
+                        if (!(bbox[2] >= x)) bbox[2] = x;
+                        if (!(bbox[3] >= y)) bbox[3] = y;
+                    }
+                    if (ordinate >= 0) ordinate++;
+                    break;
+                default: break;
+            }
+        } while (depth >= 0);
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.geojson;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.sis.parameter.Parameters;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStore;
+import org.geotoolkit.data.geojson.utils.GeoJSONIndex;
+import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.storage.DataStores;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.util.GenericName;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test GeoJSON feature index and indexed reader.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class GeoJSONIndexTest extends org.geotoolkit.test.TestBase {
+
+    /**
+     * Index offsets must point at each feature object.
+     */
+    @Test
+    public void testBuildIndex() throws Exception {
+        final Path source = Paths.get(GeoJSONIndexTest.class.getResource("/org/geotoolkit/geojson/featurecollection.json").toURI());
+        final Path file = Files.createTempDirectory("geojson").resolve("featurecollection.json");
+        Files.copy(source, file);
+
+        final GeoJSONIndex index = GeoJSONIndex.build(file);
+        assertNotNull(index);
+        assertEquals(7, index.size());
+        final byte[] data = Files.readAllBytes(file);
+        for (int i = 0; i < index.size(); i++) {
+            final String json = new String(data, (int) index.getOffset(i), index.getLength(i), StandardCharsets.UTF_8);
+            assertTrue(json.startsWith("{"));
+            assertTrue(json.endsWith("}"));
+            assertTrue(json.contains("\"Feature\""));
+        }
+        final double[] env = index.getEnvelope();
+        assertEquals(-80.87088507656375, env[0], 0.0);
+        assertEquals(35.21515162500578, env[1], 0.0);
+        assertArrayEquals(new int[]{0}, index.query(-80.9, 35.2, -80.86, 35.22));
+
+        //write and read back
+        index.write(file);
+        final GeoJSONIndex read = GeoJSONIndex.read(file);
+        assertNotNull(read);
+        assertEquals(index.size(), read.size());
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(index.getOffset(i), read.getOffset(i));
+            assertEquals(index.getLength(i), read.getLength(i));
+        }
+    }
+
+    /**
+     * Indexed store must return the same features as the default reader,
+     * enough features are used to be parsed in parallel.
+     */
+    @Test
+    public void testIndexedStore() throws Exception {
+        final Path file = Files.createTempDirectory("geojson").resolve("grid.json");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+            for (int i = 0; i < 1000; i++) {
+                if (i > 0) writer.write(",\n");
+                writer.write("{\"type\":\"Feature\",\"id\":\"f" + i + "\",\"geometry\":{\"type\":\"Point\",\"coordinates\":["
+                        + (i % 100) + "," + (i / 100) + "]},\"properties\":{\"name\":\"né" + i + "\"}}");
+            }
+            writer.write("]}");
+        }
+
+        final FeatureStore plain = open(file, false);
+        final FeatureStore indexed = open(file, true);
+        final GenericName name = indexed.getNames().iterator().next();
+
+        assertEquals(1000, indexed.getCount(QueryBuilder.all(name.toString())));
+        assertTrue(Files.exists(GeoJSONIndex.getIndexFile(file)));
+        assertEquals(read(plain, QueryBuilder.all(name.toString())), read(indexed, QueryBuilder.all(name.toString())));
+
+        //bbox filter
+        final FilterFactory2 ff = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+        final Filter filter = ff.bbox(ff.property("geometry"), 9.5, -1, 20.5, 4.5, null);
+        final QueryBuilder qb = new QueryBuilder(name.toString());
+        qb.setFilter(filter);
+        final List<String> expected = read(plain, qb.buildQuery());
+        assertEquals(55, expected.size());
+        assertEquals(expected, read(indexed, qb.buildQuery()));
+
+        //start index and max features
+        qb.setFilter(Filter.INCLUDE);
+        qb.setStartIndex(250);
+        qb.setMaxFeatures(300);
+        final List<String> page = read(indexed, qb.buildQuery());
+        assertEquals(300, page.size());
+        assertEquals(read(plain, qb.buildQuery()), page);
+    }
+
+    /**
+     * Only positive spatial filters can use the index to preselect features,
+     * other filters must be evaluated on all features.
+     */
+    @Test
+    public void testIndexedNonSpatialFilters() throws Exception {
+        final Path file = Files.createTempDirectory("geojson").resolve("ids.json");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+            for (int i = 0; i < 100; i++) {
+                if (i > 0) writer.write(",\n");
+                writer.write("{\"type\":\"Feature\",\"id\":\"f" + i + "\",\"geometry\":{\"type\":\"Point\",\"coordinates\":["
+                        + (i % 10) + "," + (i / 10) + "]},\"properties\":{\"id\":\"f" + i + "\",\"name\":\"n" + i + "\"}}");
+            }
+            writer.write("]}");
+        }
+
+        final FeatureStore plain = open(file, false);
+        final FeatureStore indexed = open(file, true);
+        final String name = indexed.getNames().iterator().next().toString();
+        final FilterFactory2 ff = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+
+        //property filter
+        final Filter property = ff.equals(ff.property("name"), ff.literal("n42"));
+        List<String> result = read(indexed, QueryBuilder.filtered(name, property));
+        assertEquals(1, result.size());
+        assertEquals(read(plain, QueryBuilder.filtered(name, property)), result);
+
+        //identifier filter
+        final Filter id = ff.id(Collections.singleton(ff.featureId("f57")));
+        result = read(indexed, QueryBuilder.filtered(name, id));
+        assertEquals(1, result.size());
+        assertEquals(read(plain, QueryBuilder.filtered(name, id)), result);
+
+        //negated spatial filter
+        final Filter not = ff.not(ff.bbox(ff.property("geometry"), 1.5, 1.5, 3.5, 3.5, null));
+        result = read(indexed, QueryBuilder.filtered(name, not));
+        assertEquals(96, result.size());
+        assertEquals(read(plain, QueryBuilder.filtered(name, not)), result);
+
+        //spatial filter combined with a property filter
+        final Filter and = ff.and(ff.bbox(ff.property("geometry"), -0.5, -0.5, 9.5, 4.5, null),
+                ff.like(ff.property("name"), "n1*"));
+        result = read(indexed, QueryBuilder.filtered(name, and));
+        assertEquals(11, result.size());
+        assertEquals(read(plain, QueryBuilder.filtered(name, and)), result);
+    }
+
+    private static FeatureStore open(final Path file, final boolean useIndex) throws DataStoreException {
+        final Parameters params = Parameters.castOrWrap(GeoJSONFeatureStoreFactory.PARAMETERS_DESCRIPTOR.createValue());
+        params.getOrCreate(GeoJSONFeatureStoreFactory.PATH).setValue(file.toUri());
+        params.getOrCreate(GeoJSONFeatureStoreFactory.USE_INDEX).setValue(useIndex);
+        return (FeatureStore) DataStores.open(params);
+    }
+
+    private static List<String> read(final FeatureStore store, final Query query) throws DataStoreException, IOException {
+        final List<String> names = new ArrayList<>();
+        try (FeatureReader reader = store.getFeatureReader(query)) {
+            while (reader.hasNext()) {
+                final Feature feature = reader.next();
+                names.add(feature.getPropertyValue("name") + " " + feature.getPropertyValue("geometry"));
+            }
+        }
+        return names;
+    }
+
+}
@@ -90,7 +90,7 @@ public class KMLFeatureStoreFactory extends AbstractFileFeatureStoreFactory {
 
     @Override
     public String[] getFileExtensions() {
-        return new String[] {".kml"};
+        return new String[] {".kml", ".kmz"};
     }
 
     @Override
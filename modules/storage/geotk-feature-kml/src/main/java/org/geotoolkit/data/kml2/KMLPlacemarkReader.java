@@ -0,0 +1,463 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2017, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.kml2;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.display2d.GO2Utilities;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.nio.IOUtilities;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Streaming KML Placemark reader.
+ * <p>
+ * The document is read with a StAX pull parser, Placemarks are converted to
+ * features one at a time and no KML object model is created. Containers
+ * (Document, Folder) are traversed, all other subtrees (Style, StyleMap,
+ * Schema, overlays, NetworkLink...) are skipped, styles are only referenced
+ * by the Placemark styleUrl. ExtendedData is parsed only if requested.
+ * Memory use is bounded by the size of a single Placemark.
+ * <p>
+ * Element namespaces are ignored, which also accepts the old
+ * http://earth.google.com/kml/2.2 namespace. For KMZ files the first KML
+ * entry of the archive is read.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class KMLPlacemarkReader implements FeatureReader {
+
+    private static final GeometryFactory GF = GO2Utilities.JTS_FACTORY;
+
+    private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newInstance();
+    static {
+        XML_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private final FeatureType type;
+    private final CoordinateReferenceSystem crs;
+    private final boolean readExtendedData;
+    private final InputStream stream;
+    private final XMLStreamReader reader;
+
+    /**
+     * Reused coordinate buffer.
+     */
+    private double[] coords = new double[300];
+
+    private Feature next;
+
+    /**
+     * @param path KML or KMZ file
+     * @param type Placemark feature type
+     * @param crs geometry coordinate reference system
+     * @param readExtendedData true to parse ExtendedData elements
+     */
+    KMLPlacemarkReader(final URI path, final FeatureType type, final CoordinateReferenceSystem crs,
+            final boolean readExtendedData) throws DataStoreException {
+        this.type = type;
+        this.crs = crs;
+        this.readExtendedData = readExtendedData;
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(IOUtilities.open(path));
+            if (path.toString().toLowerCase().endsWith(".kmz")) {
+                final ZipInputStream zip = new ZipInputStream(in);
+                in = zip;
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".kml")) break;
+                }
+                if (entry == null) {
+                    throw new DataStoreException("No KML document in KMZ archive " + path);
+                }
+            }
+            stream = in;
+            reader = XML_FACTORY.createXMLStreamReader(in);
+        } catch (IOException | XMLStreamException ex) {
+            closeSilently(in);
+            throw new DataStoreException(ex.getMessage(), ex);
+        } catch (DataStoreException ex) {
+            closeSilently(in);
+            throw ex;
+        }
+    }
+
+    @Override
+    public FeatureType getFeatureType() {
+        return type;
+    }
+
+    @Override
+    public Feature next() throws FeatureStoreRuntimeException {
+        findNext();
+        final Feature feature = next;
+        next = null;
+        if (feature == null) {
+            throw new FeatureStoreRuntimeException("No more records.");
+        }
+        return feature;
+    }
+
+    @Override
+    public boolean hasNext() throws FeatureStoreRuntimeException {
+        findNext();
+        return next != null;
+    }
+
+    private void findNext() throws FeatureStoreRuntimeException {
+        if (next != null) return;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != START_ELEMENT) continue;
+                switch (reader.getLocalName()) {
+                    case "kml" :
+                    case "Document" :
+                    case "Folder" :
+                        //containers, continue inside
+                        break;
+                    case KMLFeatureStore.PLACEMARK_NAME :
+                        next = readPlacemark();
+                        return;
+                    default :
+                        skipElement();
+                }
+            }
+        } catch (XMLStreamException | DataStoreException ex) {
+            throw new FeatureStoreRuntimeException(ex.getMessage(), ex);
+        }
+    }
+
+    private Feature readPlacemark() throws XMLStreamException, DataStoreException {
+        final Feature feature = type.newInstance();
+        feature.setPropertyValue("visibility", Boolean.FALSE);
+        feature.setPropertyValue("open", Boolean.FALSE);
+        while (nextChild()) {
+            final String name = reader.getLocalName();
+            switch (name) {
+                case "name" :
+                case "address" :
+                case "phoneNumber" :
+                case "description" :
+                case "styleUrl" :
+                    feature.setPropertyValue(name, reader.getElementText());
+                    break;
+                case "visibility" :
+                case "open" :
+                    feature.setPropertyValue(name, parseBoolean(reader.getElementText()));
+                    break;
+                case "ExtendedData" :
+                    if (readExtendedData) {
+                        feature.setPropertyValue(KMLFeatureStore.EXTENDED_DATA_NAME, readExtendedData());
+                    } else {
+                        skipElement();
+                    }
+                    break;
+                default :
+                    final Geometry geom = readGeometry();
+                    if (geom != null) {
+                        JTS.setCRS(geom, crs);
+                        feature.setPropertyValue("geometry", geom);
+                    }
+            }
+        }
+        return feature;
+    }
+
+    /**
+     * Read Data and SchemaData/SimpleData values.
+     */
+    private Map<String,String> readExtendedData() throws XMLStreamException {
+        final Map<String,String> values = new LinkedHashMap<>();
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "Data" : {
+                    final String name = reader.getAttributeValue(null, "name");
+                    String value = null;
+                    while (nextChild()) {
+                        if ("value".equals(reader.getLocalName())) {
+                            value = reader.getElementText();
+                        } else {
+                            skipElement();
+                        }
+                    }
+                    if (name != null) values.put(name, value);
+                    break;
+                }
+                case "SchemaData" :
+                    while (nextChild()) {
+                        if ("SimpleData".equals(reader.getLocalName())) {
+                            final String name = reader.getAttributeValue(null, "name");
+                            final String value = reader.getElementText();
+                            if (name != null) values.put(name, value);
+                        } else {
+                            skipElement();
+                        }
+                    }
+                    break;
+                default :
+                    skipElement();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Read the geometry starting at current element.
+     *
+     * @return geometry or null if current element is not a supported geometry, the element is skipped.
+     */
+    private Geometry readGeometry() throws XMLStreamException, DataStoreException {
+        switch (reader.getLocalName()) {
+            case "Point" : {
+                final CoordinateSequence cs = readCoordinatesChild(1, false);
+                return (cs == null) ? null : GF.createPoint(cs);
+            }
+            case "LineString" : {
+                final CoordinateSequence cs = readCoordinatesChild(2, false);
+                return (cs == null) ? null : GF.createLineString(cs);
+            }
+            case "LinearRing" : {
+                final CoordinateSequence cs = readCoordinatesChild(3, true);
+                return (cs == null) ? null : GF.createLineString(cs);
+            }
+            case "Polygon" : {
+                LinearRing outer = null;
+                final List<LinearRing> holes = new ArrayList<>();
+                while (nextChild()) {
+                    final String name = reader.getLocalName();
+                    if ("outerBoundaryIs".equals(name) || "innerBoundaryIs".equals(name)) {
+                        while (nextChild()) {
+                            if ("LinearRing".equals(reader.getLocalName())) {
+                                final CoordinateSequence cs = readCoordinatesChild(4, true);
+                                if (cs != null) {
+                                    final LinearRing ring = GF.createLinearRing(cs);
+                                    if ("outerBoundaryIs".equals(name)) outer = ring;
+                                    else holes.add(ring);
+                                }
+                            } else {
+                                skipElement();
+                            }
+                        }
+                    } else {
+                        skipElement();
+                    }
+                }
+                return (outer == null) ? null : GF.createPolygon(outer, holes.toArray(new LinearRing[holes.size()]));
+            }
+            case "MultiGeometry" : {
+                final List<Geometry> children = new ArrayList<>();
+                while (nextChild()) {
+                    final Geometry geom = readGeometry();
+                    if (geom != null) children.add(geom);
+                }
+                return GF.createGeometryCollection(children.toArray(new Geometry[children.size()]));
+            }
+            case "Model" : {
+                Geometry geom = null;
+                while (nextChild()) {
+                    if ("Location".equals(reader.getLocalName())) {
+                        double lon = Double.NaN, lat = Double.NaN;
+                        while (nextChild()) {
+                            final String name = reader.getLocalName();
+                            if ("longitude".equals(name)) lon = parseDouble(reader.getElementText());
+                            else if ("latitude".equals(name)) lat = parseDouble(reader.getElementText());
+                            else skipElement();
+                        }
+                        geom = GF.createPoint(new Coordinate(lon, lat));
+                    } else {
+                        skipElement();
+                    }
+                }
+                return geom;
+            }
+            default :
+                skipElement();
+                return null;
+        }
+    }
+
+    /**
+     * Read the coordinates child of current element, other children are skipped.
+     *
+     * @param minPoint minimum number of points, last point is repeated if needed
+     * @param close true to close the sequence
+     * @return coordinates or null if there are none
+     */
+    private CoordinateSequence readCoordinatesChild(final int minPoint, final boolean close)
+            throws XMLStreamException, DataStoreException {
+        CoordinateSequence cs = null;
+        while (nextChild()) {
+            if ("coordinates".equals(reader.getLocalName())) {
+                cs = parseCoordinates(reader.getElementText(), minPoint, close);
+            } else {
+                skipElement();
+            }
+        }
+        return cs;
+    }
+
+    /**
+     * Parse KML coordinates, tuples of 2 or 3 values separated by commas,
+     * tuples are separated by white spaces.
+     */
+    private CoordinateSequence parseCoordinates(final String text, final int minPoint, final boolean close)
+            throws DataStoreException {
+        int n = 0;
+        boolean has3D = false;
+        final int length = text.length();
+        int i = 0;
+        while (i < length) {
+            //skip blanks
+            while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+            if (i >= length) break;
+            if (n + 3 > coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+            int dim = 0;
+            for (;;) {
+                int end = i;
+                while (end < length && text.charAt(end) != ',' && !Character.isWhitespace(text.charAt(end))) end++;
+                if (dim == 3) {
+                    throw new DataStoreException("Invalid coordinate size " + (dim + 1));
+                }
+                coords[n + dim++] = parseDouble(text.substring(i, end));
+                i = end;
+                if (i < length && text.charAt(i) == ',') {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            if (dim == 1) {
+                throw new DataStoreException("Invalid coordinate size " + dim);
+            } else if (dim == 2) {
+                coords[n + 2] = Double.NaN;
+            } else {
+                has3D = true;
+            }
+            n += 3;
+        }
+        if (n == 0) return null;
+
+        int nbPoint = n / 3;
+        final boolean closed = !close || (coords[0] == coords[n - 3] && coords[1] == coords[n - 2]);
+        final int size = Math.max(minPoint, nbPoint + (closed ? 0 : 1));
+        final int dim = has3D ? 3 : 2;
+        final double[] result = new double[size * dim];
+        for (int p = 0; p < nbPoint; p++) {
+            System.arraycopy(coords, p * 3, result, p * dim, dim);
+        }
+        if (!closed) {
+            System.arraycopy(coords, 0, result, nbPoint * dim, dim);
+            nbPoint++;
+        }
+        for (int p = nbPoint; p < size; p++) {
+            System.arraycopy(result, (nbPoint - 1) * dim, result, p * dim, dim);
+        }
+        return new PackedCoordinateSequence.Double(result, dim);
+    }
+
+    /**
+     * Move to the next child element of current element.
+     *
+     * @return false if the end of current element is reached
+     */
+    private boolean nextChild() throws XMLStreamException {
+        for (;;) {
+            final int event = reader.next();
+            if (event == START_ELEMENT) return true;
+            if (event == END_ELEMENT || event == END_DOCUMENT) return false;
+        }
+    }
+
+    /**
+     * Skip current element and all its children.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            final int event = reader.next();
+            if (event == START_ELEMENT) depth++;
+            else if (event == END_ELEMENT) depth--;
+        }
+    }
+
+    private static boolean parseBoolean(final String text) {
+        final String str = text.trim();
+        return "1".equals(str) || "true".equalsIgnoreCase(str);
+    }
+
+    private static double parseDouble(final String text) throws DataStoreException {
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (XMLStreamException ex) {
+            throw new FeatureStoreRuntimeException(ex.getMessage(), ex);
+        } finally {
+            closeSilently(stream);
+        }
+    }
+
+    private static void closeSilently(final InputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException ex) {
+            //we have done our best
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new FeatureStoreRuntimeException("Not supported on reader.");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2017, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.kml2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.query.QueryBuilder;
+
+import static org.geotoolkit.data.kml2.KMLFeatureStore.PLACEMARK_NAME;
+
+/**
+ * Reads a large generated KML file and reports the reading time and the
+ * maximum heap usage, which must not depend on the file size.
+ *
+ * Use example : java BenchMarkKMLFeatureStore 1024
+ * (size of the generated file in megabytes)
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkKMLFeatureStore {
+
+    public static void main(String[] args) throws Exception {
+        final long sizeMb = (args.length > 0) ? Long.parseLong(args[0]) : 1024;
+
+        final Path file = Files.createTempFile("bench", ".kml");
+        try {
+            final long nbPlacemark = create(file, sizeMb * 1024 * 1024);
+            System.out.println("KML file : " + Files.size(file) / (1024 * 1024) + " Mb, " + nbPlacemark + " placemarks");
+
+            final KMLFeatureStore store = new KMLFeatureStore(file);
+            final Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long maxMemory = 0;
+            long count = 0;
+            final long before = System.nanoTime();
+            try (final FeatureReader reader = store.getFeatureReader(QueryBuilder.all(PLACEMARK_NAME))) {
+                while (reader.hasNext()) {
+                    reader.next();
+                    if (++count % 10000 == 0) {
+                        maxMemory = Math.max(maxMemory, runtime.totalMemory() - runtime.freeMemory());
+                    }
+                }
+            }
+            final long time = System.nanoTime() - before;
+            System.out.println("Features read : " + count);
+            System.out.println("Time          : " + time / 1000000 + " ms");
+            System.out.println("Max heap used : " + maxMemory / (1024 * 1024) + " Mb");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Write placemarks with styles, extended data and polygons until the file reaches given size.
+     */
+    private static long create(final Path file, final long size) throws IOException {
+        final Random random = new Random(42);
+        long nb = 0;
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n<Document>\n");
+            final StringBuilder sb = new StringBuilder();
+            while (written < size) {
+                sb.setLength(0);
+                if (nb % 100 == 0) {
+                    sb.append("<Folder><name>folder ").append(nb).append("</name>\n");
+                    sb.append("<Style id=\"s").append(nb).append("\"><LineStyle><color>ff0000ff</color><width>2</width></LineStyle></Style>\n");
+                }
+                sb.append("<Placemark><name>placemark ").append(nb).append("</name>");
+                sb.append("<description><![CDATA[<b>description</b> ").append(nb).append("]]></description>");
+                sb.append("<styleUrl>#s").append(nb / 100 * 100).append("</styleUrl>\n");
+                sb.append("<ExtendedData><Data name=\"id\"><value>").append(nb).append("</value></Data>");
+                sb.append("<Data name=\"value\"><value>").append(random.nextInt()).append("</value></Data></ExtendedData>\n");
+                sb.append("<Polygon><outerBoundaryIs><LinearRing><coordinates>");
+                final double x = random.nextDouble() * 360 - 180;
+                final double y = random.nextDouble() * 180 - 90;
+                for (int i = 0; i < 20; i++) {
+                    final double angle = 2 * Math.PI * i / 20;
+                    sb.append(x + Math.cos(angle) * 0.01).append(',').append(y + Math.sin(angle) * 0.01).append(",0 ");
+                }
+                sb.append(x + 0.01).append(',').append(y).append(",0");
+                sb.append("</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>\n");
+                nb++;
+                if (nb % 100 == 0) {
+                    sb.append("</Folder>\n");
+                }
+                writer.write(sb.toString());
+                written += sb.length();
+            }
+            if (nb % 100 != 0) {
+                writer.write("</Folder>\n");
+            }
+            writer.write("</Document>\n</kml>\n");
+        }
+        return nb;
+    }
+
+}
@@ -16,8 +16,10 @@
  */
 package org.geotoolkit.data.kml2;
 
+import com.vividsolutions.jts.geom.Polygon;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Set;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.query.QueryBuilder;
@@ -25,6 +27,7 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import org.opengis.feature.FeatureType;
 
+import static org.geotoolkit.data.kml2.KMLFeatureStore.EXTENDED_DATA_NAME;
 import static org.geotoolkit.data.kml2.KMLFeatureStore.PLACEMARK_NAME;
 import org.opengis.feature.Feature;
 import org.opengis.util.GenericName;
@@ -56,4 +59,43 @@ public class KMLFeatureStoreTest {
         assertEquals("Some Descriptive text.", feature.getPropertyValue("description"));
         assertFalse(reader.hasNext());
     }
+
+    @Test
+    public void readPolygonTest() throws Exception {
+        final URL path = KMLFeatureStoreTest.class.getResource("/org/geotoolkit/data/kml/polygon.kml");
+        final KMLFeatureStore store = new KMLFeatureStore(Paths.get(path.toURI()));
+
+        try (final FeatureReader reader = store.getFeatureReader(QueryBuilder.all(PLACEMARK_NAME))) {
+            assertTrue(reader.hasNext());
+            final Feature feature = reader.next();
+            assertEquals("hollow box", feature.getPropertyValue("name"));
+            final Polygon polygon = (Polygon) feature.getPropertyValue("geometry");
+            assertEquals(5, polygon.getExteriorRing().getNumPoints());
+            assertEquals(1, polygon.getNumInteriorRing());
+            assertEquals(30.0, polygon.getExteriorRing().getCoordinateN(0).z, 0.0);
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    public void readExtendedDataTest() throws Exception {
+        final URL path = KMLFeatureStoreTest.class.getResource("/org/geotoolkit/data/kml/data.kml");
+        final KMLFeatureStore store = new KMLFeatureStore(Paths.get(path.toURI()));
+
+        try (final FeatureReader reader = store.getFeatureReader(QueryBuilder.all(PLACEMARK_NAME))) {
+            final Map data = (Map) reader.next().getPropertyValue(EXTENDED_DATA_NAME);
+            assertEquals(3, data.size());
+            assertEquals("234", data.get("holeYardage"));
+        }
+
+        //extended data are not parsed if not requested
+        final QueryBuilder qb = new QueryBuilder(PLACEMARK_NAME);
+        qb.setProperties(new String[]{"name"});
+        try (final FeatureReader reader = store.getFeatureReader(qb.buildQuery())) {
+            final Feature feature = reader.next();
+            assertEquals("Club house", feature.getPropertyValue("name"));
+            assertFalse(feature.getType().getProperties(true).stream()
+                    .anyMatch(p -> EXTENDED_DATA_NAME.equals(p.getName().toString())));
+        }
+    }
 }
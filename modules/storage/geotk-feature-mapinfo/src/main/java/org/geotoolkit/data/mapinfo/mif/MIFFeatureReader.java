@@ -24,7 +24,6 @@ import org.apache.sis.util.CharSequences;
 import org.geotoolkit.nio.IOUtilities;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -37,13 +36,12 @@ import java.time.temporal.TemporalQueries;
 import java.time.temporal.TemporalQuery;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.feature.FeatureExt;
@@ -64,34 +62,11 @@ public class MIFFeatureReader implements FeatureReader {
 
     private final static Logger LOGGER = Logging.getLogger("org.geotoolkit.data.mapinfo.mif");
 
-    private static final Pattern GEOMETRY_ID_PATTERN;
-    static {
-        final StringBuilder patternBuilder = new StringBuilder("\\s*");
-        final MIFUtils.GeometryType[] types = MIFUtils.GeometryType.values();
-        patternBuilder.append(types[0].name());
-        for(int i = 1 ; i < types.length; i++) {
-            patternBuilder.append('|').append(types[i].name());
-        }
-        GEOMETRY_ID_PATTERN = Pattern.compile(patternBuilder.toString(), Pattern.CASE_INSENSITIVE);
-    }
-
-    /**
-     * MIF/MID input connections.
-     */
-    private InputStream mifStream = null;
-    private InputStream midStream = null;
-
     /**
      * MIF/MID file readers.
      */
-    private Scanner mifScanner = null;
-    private Scanner midScanner = null;
-
-    /**
-     * Counters : feature counter (Mid and mif lines are not equal for the same feature).
-     */
-    int mifCounter = 0;
-    int midCounter = 0;
+    private MIFTokenizer mifReader = null;
+    private MIFTokenizer midReader = null;
 
     /**
      * booleans to check if we just read mid file (feature type doesn't contain any geometry) or just MIF file
@@ -106,10 +81,42 @@ public class MIFFeatureReader implements FeatureReader {
     final Function[] converters;
     final Map<String, Integer> propertiesToRead;
 
+    /**
+     * Feature types by geometry type, built once for all records.
+     */
+    private final Map<MIFUtils.GeometryType,FeatureType> geometryTypes = new EnumMap<>(MIFUtils.GeometryType.class);
+
+    /**
+     * Selected records, null if all records are read.
+     */
+    private final MIFIndex index;
+    private final int[] selection;
+    private int selectionIndex = 0;
+
+    private Feature nextFeature = null;
+    private boolean finished = false;
+
     public MIFFeatureReader(final MIFManager parent, final FeatureType ft) throws DataStoreException {
+        this(parent, ft, null, null);
+    }
+
+    /**
+     * Create a reader returning only the selected records.
+     *
+     * @param parent manager of the files to read
+     * @param ft type of the features to return
+     * @param index record index, used to jump to the selected records
+     * @param selection record indices in increasing order, null to read all records
+     */
+    MIFFeatureReader(final MIFManager parent, final FeatureType ft, final MIFIndex index, final int[] selection) throws DataStoreException {
         ArgumentChecks.ensureNonNull("Parent reader", parent);
+        if (selection != null) {
+            ArgumentChecks.ensureNonNull("Index", index);
+        }
         master = parent;
         readType = ft;
+        this.index = index;
+        this.selection = selection;
         final Collection<? extends PropertyType> properties = master.getMIDType().getProperties(true);
 
         int i = 0;
@@ -132,7 +139,7 @@ public class MIFFeatureReader implements FeatureReader {
         readMid = !properties.isEmpty();
 
         try {
-            final PropertyType defaultGeometry = FeatureExt.getDefaultGeometry(ft);
+            FeatureExt.getDefaultGeometry(ft);
             readMif = true;
         } catch (PropertyNotFoundException | IllegalStateException e) {
             LOGGER.log(Level.FINER, "Geometries will be ignored", e);
@@ -153,113 +160,104 @@ public class MIFFeatureReader implements FeatureReader {
      */
     @Override
     public Feature next() throws FeatureStoreRuntimeException {
-        try {
-            checkScanners();
-        } catch (DataStoreException | IOException ex) {
-            throw new FeatureStoreRuntimeException("Cannot read data", ex);
-        }
-
-        Feature resFeature = null;
-
-        // We check the MIF file first, because it will define the feature count to reach the next good typed data.
-        if (readMif) {
-            String currentPattern;
-            while (mifScanner.hasNextLine()) {
-                currentPattern = mifScanner.findInLine(GEOMETRY_ID_PATTERN);
-                if (currentPattern == null) {
-                    // Empty or non-compliant line. We just ignore it.
-                    LOGGER.log(Level.FINE, "Invalid line : "+mifScanner.findInLine(".*"));
-                } else {
-                    final MIFUtils.GeometryType geomType = MIFUtils.getGeometryType(currentPattern);
-                    if (geomType == null) {
-                        LOGGER.log(Level.WARNING, "Unrecognized geometry flag in MIF file : " + currentPattern);
-                    } else {
-                        resFeature = geomType.binding.buildType(master.getMifCRS(), readType).newInstance();
-                        try {
-                            geomType.readGeometry(mifScanner, resFeature, master.getTransform());
-                        } catch (Exception ex) {
-                            LOGGER.log(Level.WARNING, ex.getLocalizedMessage(), ex);
-                        }
-                        break;
-                        // We must check if we're on a Geometry naming line to increment the counter of past geometries.
-                    }
-                }
-                mifScanner.nextLine();
-            }
+        if (!hasNext()) {
+            throw new FeatureStoreRuntimeException("No more features");
         }
-
-        // No geometry has been read.
-        if (resFeature == null) {
-            resFeature = readType.newInstance();
-        }
-
-        if (readMid) {
-            //parse MID line.
-            while (midCounter < mifCounter) {
-                midScanner.nextLine();
-                midCounter++;
-            }
-            final String line = midScanner.nextLine();
-            final CharSequence[] split = CharSequences.split(line, master.mifDelimiter);
-            for (final Map.Entry<String, Integer> entry : propertiesToRead.entrySet()) {
-                final Integer idx = entry.getValue();
-                try {
-                    resFeature.setPropertyValue(entry.getKey(), converters[idx].apply(split[idx]));
-                } catch (RuntimeException e) {
-                    Logging.recoverableException(LOGGER, MIFFeatureReader.class, "next", e);
-                }
-            }
-            midCounter++;
-        }
-
-        if (readMif) {
-            mifCounter++;
-        }
-
-        return resFeature;
+        final Feature feature = nextFeature;
+        nextFeature = null;
+        return feature;
     }
 
-
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean hasNext() throws FeatureStoreRuntimeException {
-        boolean midNext = false;
-        boolean mifNext = false;
+        if (nextFeature != null) return true;
+        if (finished) return false;
 
         try {
-            checkScanners();
+            checkReaders();
         } catch (IOException e) {
             // If we can't access source files, maybe we're in creation mode, so we just say we can't find next.
+            finished = true;
             return false;
         } catch (DataStoreException e) {
             throw new FeatureStoreRuntimeException(e);
         }
 
+        try {
+            nextFeature = read();
+        } catch (DataStoreException e) {
+            throw new FeatureStoreRuntimeException("Cannot read data", e);
+        }
+        finished = nextFeature == null;
+        return !finished;
+    }
+
+    /**
+     * Read next record.
+     *
+     * @return next feature, or null if there are no more records.
+     */
+    private Feature read() throws DataStoreException {
+        if (selection != null) {
+            if (selectionIndex >= selection.length) return null;
+            final int record = selection[selectionIndex++];
+            if (readMif) mifReader.seek(index.getMIFOffset(record));
+            if (readMid) {
+                if (record >= index.size(false, true)) return null;
+                midReader.seek(index.getMIDOffset(record));
+            }
+        }
+
+        Feature resFeature = null;
+
+        // We check the MIF file first, because it will define the feature count to reach the next good typed data.
         if (readMif) {
-            // Check the MapInfo geometry typename to see if there's some next in the file.
-            mifNext = mifScanner.hasNext(GEOMETRY_ID_PATTERN);
+            MIFUtils.GeometryType geomType;
+            for (;;) {
+                final String word = mifReader.peekWord();
+                if (word == null) return null;
+                geomType = MIFUtils.getGeometryType(word);
+                if (geomType != null) break;
+                // Empty, style or non-compliant line. We just ignore it.
+                mifReader.skipLine();
+            }
+            mifReader.nextWord();
+
+            FeatureType type = geometryTypes.get(geomType);
+            if (type == null) {
+                type = geomType.binding.buildType(master.getMifCRS(), readType);
+                geometryTypes.put(geomType, type);
+            }
+            resFeature = type.newInstance();
+            try {
+                geomType.readGeometry(mifReader, resFeature, master.getTransform());
+            } catch (Exception ex) {
+                LOGGER.log(Level.WARNING, ex.getLocalizedMessage(), ex);
+            }
         }
 
-        // Once we know the number of the next geometry data, we can check if we can go as far in the mid file.
         if (readMid) {
-            for (; midCounter < mifCounter; midCounter++) {
-                if (midScanner.hasNextLine()) {
-                    midScanner.nextLine();
-                } else {
-                    break;
+            //parse MID line.
+            final String line = midReader.readLine();
+            if (line == null) return null;
+            if (resFeature == null) {
+                resFeature = readType.newInstance();
+            }
+            final CharSequence[] split = CharSequences.split(line, master.mifDelimiter);
+            for (final Map.Entry<String, Integer> entry : propertiesToRead.entrySet()) {
+                final Integer idx = entry.getValue();
+                try {
+                    resFeature.setPropertyValue(entry.getKey(), converters[idx].apply(split[idx].toString()));
+                } catch (RuntimeException e) {
+                    Logging.recoverableException(LOGGER, MIFFeatureReader.class, "next", e);
                 }
             }
-            midNext = midScanner.hasNextLine();
         }
 
-        if (readMid && !readMif) {
-            return midNext;
-        } else if (readMif && !readMid) {
-            return mifNext;
-        } else
-            return (midNext && mifNext);
+        return resFeature;
     }
 
     /**
@@ -267,30 +265,16 @@ public class MIFFeatureReader implements FeatureReader {
      */
     @Override
     public void close() {
-
-        mifCounter = 0;
-        midCounter = 0;
-
-        if (mifScanner != null) {
-            mifScanner.close();
-            mifScanner = null;
-
-        }
-        if (midScanner != null) {
-            midScanner.close();
-            midScanner = null;
-
-        }
-
+        nextFeature = null;
+        finished = true;
         try {
-            if (mifStream != null) {
-                mifStream.close();
-                mifStream = null;
+            if (mifReader != null) {
+                mifReader.close();
+                mifReader = null;
             }
-
-            if (midStream != null) {
-                midStream.close();
-                midStream = null;
+            if (midReader != null) {
+                midReader.close();
+                midReader = null;
             }
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "Input connections to MIF/MID files can't be closed.", e);
@@ -311,76 +295,41 @@ public class MIFFeatureReader implements FeatureReader {
      *
      * @throws DataStoreException If we're unable to access files.
      */
-    private void checkScanners() throws DataStoreException, IOException {
-        if(readMif) {
-            if(mifStream == null) {
-                mifStream = IOUtilities.open(master.getMIFPath());
-            }
-            if(mifScanner == null) {
-                mifScanner = new Scanner(mifStream, master.getCharset().name());
-                repositionMIFReader();
+    private void checkReaders() throws DataStoreException, IOException {
+        if (readMif && mifReader == null) {
+            mifReader = new MIFTokenizer(IOUtilities.open(master.getMIFPath()), master.getCharset(), 0);
+            if (selection == null) {
+                skipHeader(mifReader);
             }
         }
 
-        if(readMid) {
-            if(midStream == null) {
-                midStream = IOUtilities.open(master.getMIDPath());
-            }
-            if(midScanner == null) {
-                midScanner = new Scanner(midStream, master.getCharset().name());
-
-                // Reposition the scanner.
-                int midPosition = 0;
-                while (midPosition < midCounter) {
-                    midScanner.nextLine();
-                    midPosition++;
-                }
-            }
+        if (readMid && midReader == null) {
+            midReader = new MIFTokenizer(IOUtilities.open(master.getMIDPath()), master.getCharset(), 0);
         }
     }
 
     /**
-     * Check the current feature counter, and move the mif scanner according to that counter. It's useful if MIF scanner
-     * have been reset but not iterator position.
+     * Move the given MIF tokenizer after the file header, on the first line following the column definitions.
      *
-     * WARNING : YOU <b>MUST NOT</b> USE THIS FUNCTION IF SCANNERS ARE NOT EARLY PLACED IN THE INPUT FILE.
+     * WARNING : YOU <b>MUST NOT</b> USE THIS FUNCTION IF THE TOKENIZER IS NOT PLACED AT THE BEGINNING OF THE FILE.
      */
-    private void repositionMIFReader() throws DataStoreException {
-         // Check for column pattern
-        while (mifScanner.hasNextLine()) {
-            if (mifScanner.hasNext("(?i)\\s*"+MIFUtils.HeaderCategory.COLUMNS.name())) {
-                mifScanner.next();
-                if (mifScanner.hasNextShort()) {
-                    short mifColumnsCount = mifScanner.nextShort();
-                    for (int i = 0 ; i < mifColumnsCount ; i++) {
-                        mifScanner.nextLine();
-                    }
-                    break;
-                } else {
+    static void skipHeader(final MIFTokenizer mif) throws DataStoreException {
+        // Check for column pattern
+        String word;
+        while ((word = mif.peekWord()) != null) {
+            if (MIFUtils.HeaderCategory.COLUMNS.name().equalsIgnoreCase(word)) {
+                mif.nextWord();
+                if (!mif.hasNumber()) {
                     throw new DataStoreException("MIF Columns has no attribute count specified.");
                 }
-            }
-            mifScanner.nextLine();
-        }
-
-        // Go to the first feature.
-        while (mifScanner.hasNextLine()) {
-            if (mifScanner.hasNext(GEOMETRY_ID_PATTERN)) {
-                break;
-            }
-            mifScanner.nextLine();
-        }
-
-        //Browse file until we're well placed.
-        int mifPosition = 0;
-        while (mifPosition < mifCounter) {
-            while (mifScanner.hasNextLine()) {
-                mifScanner.nextLine();
-                if (mifScanner.hasNext(GEOMETRY_ID_PATTERN)) {
-                    mifPosition++;
-                    break;
+                final int mifColumnsCount = mif.nextInt();
+                mif.skipLine();
+                for (int i = 0 ; i < mifColumnsCount ; i++) {
+                    mif.skipLine();
                 }
+                break;
             }
+            mif.skipLine();
         }
     }
 
@@ -23,10 +23,22 @@ import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.query.DefaultQueryCapabilities;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryCapabilities;
+import org.geotoolkit.data.query.QueryUtilities;
 import org.geotoolkit.factory.Hints;
 import org.opengis.util.GenericName;
+import org.opengis.filter.And;
 import org.opengis.filter.Filter;
+import org.opengis.filter.Or;
 import org.opengis.filter.identity.FeatureId;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
@@ -39,9 +51,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.feature.builder.PropertyTypeBuilder;
 import org.apache.sis.parameter.Parameters;
+import org.geotoolkit.feature.FeatureExt;
 import org.geotoolkit.feature.ReprojectFeatureType;
+import org.geotoolkit.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotoolkit.geometry.jts.JTSEnvelope2D;
 import org.apache.sis.storage.IllegalNameException;
 import org.geotoolkit.data.FeatureStreams;
 import org.geotoolkit.data.query.QueryBuilder;
@@ -49,6 +65,8 @@ import org.geotoolkit.storage.DataStoreFactory;
 import org.geotoolkit.storage.DataStores;
 import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
+import org.opengis.feature.PropertyNotFoundException;
+import org.opengis.geometry.Envelope;
 
 /**
  * A featureStore for MapInfo exchange format MIF-MID.
@@ -235,7 +253,151 @@ public class MIFFeatureStore extends AbstractFeatureStore {
             query = qb.buildQuery();
         }
 
-        return FeatureStreams.subset(new MIFFeatureReader(manager, ft), query);
+        int[] selection = null;
+        final Filter filter = query.getFilter();
+        if (filter != Filter.INCLUDE) {
+            //preselect records by bounding box, the filter is still evaluated afterward
+            final JTSEnvelope2D bbox = getIndexEnvelope(filter);
+            if (bbox != null && hasGeometry(ft)) {
+                selection = manager.getIndex().query(bbox.getMinX(), bbox.getMinY(),
+                                                     bbox.getMaxX(), bbox.getMaxY());
+            }
+        } else if ((query.getStartIndex() > 0 || query.getMaxFeatures() != null)
+                && (query.getSortBy() == null || query.getSortBy().length == 0)) {
+            //no filter and no sort, start index and max features can be resolved with the index
+            final MIFIndex index = manager.getIndex();
+            final int size = index.size(hasGeometry(ft), !manager.getMIDType().getProperties(true).isEmpty());
+            final int start = Math.min(query.getStartIndex(), size);
+            final Integer max = query.getMaxFeatures();
+            final int end = (max == null) ? size : (int) Math.min((long) start + max, size);
+            selection = new int[end - start];
+            for (int i = 0; i < selection.length; i++) {
+                selection[i] = start + i;
+            }
+            final QueryBuilder qb = new QueryBuilder(query);
+            qb.setStartIndex(0);
+            qb.setMaxFeatures(null);
+            query = qb.buildQuery();
+        }
+
+        final MIFFeatureReader reader = (selection == null) ?
+                new MIFFeatureReader(manager, ft) :
+                new MIFFeatureReader(manager, ft, manager.getIndex(), selection);
+        return FeatureStreams.subset(reader, query);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Uses the record index, files are parsed only once.
+     */
+    @Override
+    public long getCount(final Query query) throws DataStoreException {
+        typeCheck(query.getTypeName());
+
+        if (QueryUtilities.queryAll(query)) {
+            final FeatureType ft = getFeatureType(query.getTypeName());
+            return manager.getIndex().size(hasGeometry(ft), !manager.getMIDType().getProperties(true).isEmpty());
+        }
+        return super.getCount(query);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Uses the record index, files are parsed only once.
+     */
+    @Override
+    public Envelope getEnvelope(final Query query) throws DataStoreException, FeatureStoreRuntimeException {
+        typeCheck(query.getTypeName());
+
+        if (QueryUtilities.queryAll(query)) {
+            final double[] bbox = manager.getIndex().getEnvelope();
+            if (bbox == null) {
+                return null;
+            }
+            final GeneralEnvelope envelope = new GeneralEnvelope(2);
+            final CoordinateReferenceSystem crs = manager.getMifCRS();
+            if (crs != null && crs.getCoordinateSystem().getDimension() == 2) {
+                envelope.setCoordinateReferenceSystem(crs);
+            }
+            envelope.setRange(0, bbox[0], bbox[2]);
+            envelope.setRange(1, bbox[1], bbox[3]);
+            return envelope;
+        }
+        return super.getEnvelope(query);
+    }
+
+    private static boolean hasGeometry(final FeatureType type) {
+        try {
+            FeatureExt.getDefaultGeometry(type);
+            return true;
+        } catch (PropertyNotFoundException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Compute the envelope containing all the features which may match the filter.
+     * Only positive spatial operators restrict the features to an envelope,
+     * features without geometry or outside the envelope can not match them.
+     *
+     * @param filter query filter
+     * @return envelope to query in the index, or null if all records must be read
+     */
+    private static JTSEnvelope2D getIndexEnvelope(final Filter filter) {
+        if (filter instanceof And) {
+            //a single spatial operand restricts the whole filter
+            for (Filter child : ((And) filter).getChildren()) {
+                final JTSEnvelope2D env = getIndexEnvelope(child);
+                if (env != null) {
+                    return env;
+                }
+            }
+            return null;
+        } else if (filter instanceof Or) {
+            //all operands must be restricted
+            JTSEnvelope2D union = null;
+            for (Filter child : ((Or) filter).getChildren()) {
+                final JTSEnvelope2D env = getIndexEnvelope(child);
+                if (env == null) {
+                    return null;
+                } else if (union == null) {
+                    union = env;
+                } else {
+                    union.expandToInclude(env);
+                }
+            }
+            return union;
+        } else if (filter instanceof BBOX || filter instanceof Intersects || filter instanceof Within
+                || filter instanceof Contains || filter instanceof Overlaps || filter instanceof Crosses
+                || filter instanceof Touches || filter instanceof Equals || filter instanceof DWithin) {
+            final JTSEnvelope2D env = (JTSEnvelope2D) filter.accept(
+                    ExtractBoundsFilterVisitor.BOUNDS_VISITOR, new JTSEnvelope2D());
+            if (env == null || env.isNull() || !isFinite(env)) {
+                return null;
+            }
+            if (filter instanceof DWithin) {
+                final DWithin dwithin = (DWithin) filter;
+                //distance is expected in the data crs units
+                final String units = dwithin.getDistanceUnits();
+                if (units != null && !units.isEmpty()) {
+                    return null;
+                }
+                env.expandBy(dwithin.getDistance());
+            }
+            return env;
+        }
+        return null;
+    }
+
+    private static boolean isFinite(final Envelope env) {
+        for (int i = 0; i < env.getDimension(); i++) {
+            if (!Double.isFinite(env.getMinimum(i)) || !Double.isFinite(env.getMaximum(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -0,0 +1,193 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.mapinfo.mif;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Level;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.mapinfo.mif.geometry.MIFCollectionBuilder;
+import org.geotoolkit.nio.IOUtilities;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+
+import static org.geotoolkit.data.mapinfo.mif.MIFManager.LOGGER;
+
+/**
+ * In memory index of MIF/MID records.
+ * <p>
+ * The index stores for each record the byte offset of its geometry in the MIF file,
+ * the byte offset of its attributes line in the MID file and the bounding box of its
+ * geometry. It is built in a single pass and allows to count records, compute the
+ * envelope and jump to selected records without parsing the preceding ones.
+ * <p>
+ * The index is dropped by the {@link MIFManager} each time the files are written.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class MIFIndex {
+
+    private int mifSize;
+    private long[] mifOffsets = new long[16];
+    /** minx, miny, maxx, maxy for each record, NaN if the record has no geometry */
+    private double[] bboxes = new double[16 * 4];
+    private int midSize;
+    private long[] midOffsets = new long[16];
+
+    private MIFIndex() {
+    }
+
+    /**
+     * Parse MIF and MID files of the given manager.
+     *
+     * @param manager manager of the files to index
+     * @return index, never null
+     * @throws DataStoreException if files can not be read
+     */
+    static MIFIndex build(final MIFManager manager) throws DataStoreException {
+        final MIFIndex index = new MIFIndex();
+        final Map<MIFUtils.GeometryType,FeatureType> types = new EnumMap<>(MIFUtils.GeometryType.class);
+
+        try (final MIFTokenizer mif = new MIFTokenizer(IOUtilities.open(manager.getMIFPath()), manager.getCharset(), 0)) {
+            MIFFeatureReader.skipHeader(mif);
+            for (;;) {
+                final long offset = mif.getPosition();
+                final String word = mif.peekWord();
+                if (word == null) break;
+                final MIFUtils.GeometryType geomType = MIFUtils.getGeometryType(word);
+                if (geomType == null) {
+                    mif.skipLine();
+                    continue;
+                }
+                mif.nextWord();
+                FeatureType type = types.get(geomType);
+                if (type == null) {
+                    type = geomType.getBinding(manager.getMifCRS(), MIFCollectionBuilder.EMPTY_TYPE);
+                    types.put(geomType, type);
+                }
+                final Feature feature = type.newInstance();
+                Envelope env = null;
+                try {
+                    geomType.readGeometry(mif, feature, manager.getTransform());
+                    final Object geom = MIFUtils.getGeometryValue(feature);
+                    if (geom instanceof Geometry) {
+                        env = ((Geometry) geom).getEnvelopeInternal();
+                    }
+                } catch (Exception ex) {
+                    LOGGER.log(Level.FINE, ex.getLocalizedMessage(), ex);
+                }
+                index.addMIF(offset, env);
+            }
+        } catch (IOException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+
+        if (manager.getMIDPath() != null) {
+            try (final MIFTokenizer mid = new MIFTokenizer(IOUtilities.open(manager.getMIDPath()), manager.getCharset(), 0)) {
+                for (long offset = mid.getPosition(); mid.readLine() != null; offset = mid.getPosition()) {
+                    index.addMID(offset);
+                }
+            } catch (IOException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param readMif true if MIF records are read
+     * @param readMid true if MID records are read
+     * @return number of records a reader will return
+     */
+    int size(final boolean readMif, final boolean readMid) {
+        if (readMif && readMid) return Math.min(mifSize, midSize);
+        return readMif ? mifSize : (readMid ? midSize : 0);
+    }
+
+    long getMIFOffset(final int record) {
+        return mifOffsets[record];
+    }
+
+    long getMIDOffset(final int record) {
+        return midOffsets[record];
+    }
+
+    /**
+     * Find records which geometry bounding box intersects the given one.
+     *
+     * @return record indices in increasing order
+     */
+    int[] query(final double minx, final double miny, final double maxx, final double maxy) {
+        int[] result = new int[64];
+        int n = 0;
+        for (int i = 0, k = 0; i < mifSize; i++, k += 4) {
+            //comparisons are false with NaN, records without geometry are excluded
+            if (bboxes[k] <= maxx && bboxes[k + 2] >= minx && bboxes[k + 1] <= maxy && bboxes[k + 3] >= miny) {
+                if (n == result.length) result = Arrays.copyOf(result, n * 2);
+                result[n++] = i;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @return minx, miny, maxx, maxy of all geometries, or null if there are none
+     */
+    double[] getEnvelope() {
+        final double[] env = new double[]{
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int k = 0, n = mifSize * 4; k < n; k += 4) {
+            if (Double.isNaN(bboxes[k])) continue;
+            env[0] = Math.min(env[0], bboxes[k]);
+            env[1] = Math.min(env[1], bboxes[k + 1]);
+            env[2] = Math.max(env[2], bboxes[k + 2]);
+            env[3] = Math.max(env[3], bboxes[k + 3]);
+        }
+        return (env[0] <= env[2]) ? env : null;
+    }
+
+    private void addMIF(final long offset, final Envelope env) {
+        if (mifSize == mifOffsets.length) {
+            mifOffsets = Arrays.copyOf(mifOffsets, mifSize * 2);
+            bboxes = Arrays.copyOf(bboxes, mifSize * 2 * 4);
+        }
+        mifOffsets[mifSize] = offset;
+        final int k = mifSize * 4;
+        if (env == null || env.isNull()) {
+            Arrays.fill(bboxes, k, k + 4, Double.NaN);
+        } else {
+            bboxes[k    ] = env.getMinX();
+            bboxes[k + 1] = env.getMinY();
+            bboxes[k + 2] = env.getMaxX();
+            bboxes[k + 3] = env.getMaxY();
+        }
+        mifSize++;
+    }
+
+    private void addMID(final long offset) {
+        if (midSize == midOffsets.length) {
+            midOffsets = Arrays.copyOf(midOffsets, midSize * 2);
+        }
+        midOffsets[midSize++] = offset;
+    }
+}
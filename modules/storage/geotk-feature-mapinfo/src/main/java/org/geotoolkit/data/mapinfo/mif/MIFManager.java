@@ -126,6 +126,11 @@ public class MIFManager {
      */
     private FeatureType mifBaseType;
 
+    /**
+     * Record index, built on demand and dropped when files are written.
+     */
+    private MIFIndex index;
+
     /**
      *
      * @param mifFile MIF File to read or modify.
@@ -180,6 +185,29 @@ public class MIFManager {
         return mifTransform;
     }
 
+    /**
+     * Get the record index of the MIF/MID files, the index is built on first call.
+     *
+     * @return record index, never null.
+     * @throws DataStoreException if files can not be read.
+     */
+    synchronized MIFIndex getIndex() throws DataStoreException {
+        if (index == null) {
+            checkDataTypes();
+            RWLock.readLock().lock();
+            try {
+                index = MIFIndex.build(this);
+            } finally {
+                RWLock.readLock().unlock();
+            }
+        }
+        return index;
+    }
+
+    private synchronized void clearIndex() {
+        index = null;
+    }
+
 
     /**
      * Return the different type names specified by this document.
@@ -638,6 +666,7 @@ public class MIFManager {
 
         RWLock.writeLock().lock();
         try {
+            clearIndex();
             File mifFile = new File(mifPath);
             File midFile = new File(midPath);
 
@@ -710,6 +739,7 @@ public class MIFManager {
         final String head = buildHeader();
 
         RWLock.writeLock().lock();
+        clearIndex();
         try (OutputStream out = IOUtilities.openWrite(mifPath, CREATE, WRITE, TRUNCATE_EXISTING);
                 final OutputStreamWriter stream = new OutputStreamWriter(out, getCharset())) {
             // writing MIF header and geometries.
@@ -729,6 +759,7 @@ public class MIFManager {
     public void flushData(final Path mifToFlush, final Path midToFlush) throws IOException {
         RWLock.writeLock().lock();
         try {
+            clearIndex();
             // writing MIF header and geometries.
             try (final OutputStream out = IOUtilities.openWrite(mifPath, CREATE, WRITE, APPEND)) {
                 // writing MIF header and geometries.
@@ -771,6 +802,7 @@ public class MIFManager {
     public void refreshMetaModel() throws IllegalNameException {
         midType = null;
         mifBaseType = null;
+        clearIndex();
     }
 
     public void setDelimiter(char delimiter) {
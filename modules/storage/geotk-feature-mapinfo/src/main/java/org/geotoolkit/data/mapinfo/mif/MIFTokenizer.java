@@ -0,0 +1,399 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.mapinfo.mif;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.sis.storage.DataStoreException;
+
+/**
+ * Buffered tokenizer for MIF and MID files.
+ * <p>
+ * Bytes are scanned directly, numbers are parsed without creating strings
+ * and only text values are decoded with the file charset. Tokens are
+ * separated by white spaces, parenthesis and commas. The tokenizer keeps
+ * track of the byte position in the file, which can be used to come back
+ * later to a record.
+ * <p>
+ * Delimiters are ASCII characters, the file charset must be a single byte
+ * charset or UTF-8, which is the case of MapInfo charsets in use.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public final class MIFTokenizer implements Closeable {
+
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+    }
+
+    private final InputStream stream;
+    private final Charset charset;
+    private byte[] buffer = new byte[64 * 1024];
+    private int pos = 0;
+    private int limit = 0;
+
+    /**
+     * File position of the first byte in the buffer.
+     */
+    private long bufferStart;
+
+    /**
+     * @param stream input stream, closed with the tokenizer
+     * @param charset charset used to decode texts
+     * @param position position of the first byte of the stream in the file
+     */
+    public MIFTokenizer(final InputStream stream, final Charset charset, final long position) {
+        this.stream = stream;
+        this.charset = charset;
+        this.bufferStart = position;
+    }
+
+    /**
+     * @return file position of the next unread byte
+     */
+    public long getPosition() {
+        return bufferStart + pos;
+    }
+
+    /**
+     * Move forward to the given file position.
+     *
+     * @param position file position, must be greater or equal to current position
+     */
+    public void seek(final long position) throws DataStoreException {
+        long toSkip = position - getPosition();
+        if (toSkip < 0) {
+            throw new DataStoreException("Can not move backward in MIF stream");
+        }
+        final int inBuffer = (int) Math.min(toSkip, limit - pos);
+        pos += inBuffer;
+        toSkip -= inBuffer;
+        if (toSkip > 0) {
+            bufferStart += limit;
+            pos = 0;
+            limit = 0;
+            try {
+                while (toSkip > 0) {
+                    final long n = stream.skip(toSkip);
+                    if (n <= 0) {
+                        if (stream.read() < 0) throw new DataStoreException("Position is outside of MIF stream");
+                        toSkip--;
+                        bufferStart++;
+                    } else {
+                        toSkip -= n;
+                        bufferStart += n;
+                    }
+                }
+            } catch (IOException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Skip white spaces and line breaks.
+     *
+     * @return false if the end of the stream is reached
+     */
+    public boolean skipBlanks() throws DataStoreException {
+        for (;;) {
+            if (pos == limit && !fill()) return false;
+            if (!isBlank(buffer[pos])) return true;
+            pos++;
+        }
+    }
+
+    /**
+     * Skip white spaces on current line only.
+     *
+     * @return false if the end of the line or stream is reached
+     */
+    private boolean skipSpaces() throws DataStoreException {
+        for (;;) {
+            if (pos == limit && !fill()) return false;
+            final byte b = buffer[pos];
+            if (b == '\n' || b == '\r') return false;
+            if (!isBlank(b)) return true;
+            pos++;
+        }
+    }
+
+    /**
+     * Returns next token without consuming it.
+     *
+     * @return next token, or null if the end of the stream is reached
+     */
+    public String peekWord() throws DataStoreException {
+        if (!skipBlanks()) return null;
+        //a lone delimiter is returned as a token
+        final int length = Math.max(1, tokenLength());
+        return new String(buffer, pos, length, charset);
+    }
+
+    /**
+     * Test if next token is the given keyword, ignoring case.
+     * The token is not consumed.
+     */
+    public boolean hasWord(final String keyword) throws DataStoreException {
+        if (!skipBlanks()) return false;
+        final int length = tokenLength();
+        if (length != keyword.length()) return false;
+        for (int i = 0; i < length; i++) {
+            final int c = buffer[pos + i] & 0xFF;
+            if (Character.toUpperCase(c) != Character.toUpperCase(keyword.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Test if next token starts like a number.
+     */
+    public boolean hasNumber() throws DataStoreException {
+        if (!skipBlanks()) return false;
+        final byte b = buffer[pos];
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.';
+    }
+
+    /**
+     * @return next token, or null if the end of the stream is reached
+     */
+    public String nextWord() throws DataStoreException {
+        if (!skipBlanks()) return null;
+        final int length = Math.max(1, tokenLength());
+        final String word = new String(buffer, pos, length, charset);
+        pos += length;
+        return word;
+    }
+
+    /**
+     * Read a text value, quoted or not.
+     */
+    public String nextText() throws DataStoreException {
+        if (!skipBlanks()) throw new DataStoreException("Unexpected end of MIF stream, text expected");
+        if (buffer[pos] != '"') return nextWord();
+        pos++;
+        int n = 0;
+        for (;;) {
+            if (pos + n >= limit && !fill()) {
+                throw new DataStoreException("Unexpected end of MIF stream, unclosed text");
+            }
+            if (buffer[pos + n] == '"') break;
+            n++;
+        }
+        final String text = new String(buffer, pos, n, charset);
+        pos += n + 1;
+        return text;
+    }
+
+    public int nextInt() throws DataStoreException {
+        final double value = nextDouble();
+        if (value != Math.rint(value) || Math.abs(value) > Integer.MAX_VALUE) {
+            throw new DataStoreException("Integer value expected, found " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parse next token as a double.
+     * Simple decimal values are parsed directly from the bytes, the result is
+     * the same as {@link Double#parseDouble(java.lang.String) }.
+     */
+    public double nextDouble() throws DataStoreException {
+        if (!skipBlanks()) throw new DataStoreException("Unexpected end of MIF stream, number expected");
+        final int length = tokenLength();
+        if (length == 0) {
+            throw new DataStoreException("Number expected, found '" + (char) buffer[pos] + "'");
+        }
+        final int end = pos + length;
+        int i = pos;
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        final int start = i;
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = 0;
+        boolean dot = false;
+        boolean simple = true;
+        for (; i < end; i++) {
+            final byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) digits++;
+                if (dot) decimals++;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                simple = false;
+                break;
+            }
+        }
+        final double value;
+        if (simple && i > start && (i - start) > (dot ? 1 : 0) && digits <= 15 && decimals < POW10.length) {
+            //exact mantissa and power of ten, division is correctly rounded
+            final double d = (decimals == 0) ? mantissa : mantissa / POW10[decimals];
+            value = negative ? -d : d;
+        } else {
+            final String str = new String(buffer, pos, length, StandardCharsets.US_ASCII);
+            try {
+                value = Double.parseDouble(str);
+            } catch (NumberFormatException ex) {
+                throw new DataStoreException("Invalid number : " + str, ex);
+            }
+        }
+        pos = end;
+        return value;
+    }
+
+    /**
+     * Read coordinates.
+     *
+     * @param target array to fill
+     * @param offset first index to fill
+     * @param length number of values to read
+     */
+    public void nextDoubles(final double[] target, final int offset, final int length) throws DataStoreException {
+        for (int i = offset, n = offset + length; i < n; i++) {
+            target[i] = nextDouble();
+        }
+    }
+
+    /**
+     * Read the remaining text on current line and move to the next line.
+     * Leading blanks are skipped, even on following lines.
+     *
+     * @return line text, or null if the end of the stream is reached
+     */
+    public String nextLine() throws DataStoreException {
+        if (!skipBlanks()) return null;
+        return readLine();
+    }
+
+    /**
+     * Read the remaining text on current line, including blanks, and move to
+     * the next line.
+     *
+     * @return line text, or null if the end of the stream is reached
+     */
+    public String readLine() throws DataStoreException {
+        if (pos == limit && !fill()) return null;
+        int n = 0;
+        for (;;) {
+            if (pos + n >= limit && !fill()) break;
+            final byte b = buffer[pos + n];
+            if (b == '\n' || b == '\r') break;
+            n++;
+        }
+        final String line = new String(buffer, pos, n, charset);
+        pos += n;
+        skipLineBreak();
+        return line;
+    }
+
+    /**
+     * Move to the beginning of the next line.
+     *
+     * @return false if the end of the stream is reached
+     */
+    public boolean skipLine() throws DataStoreException {
+        for (;;) {
+            if (pos == limit && !fill()) return false;
+            final byte b = buffer[pos];
+            if (b == '\n' || b == '\r') {
+                skipLineBreak();
+                return true;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Test if there is something else than blanks on the current line.
+     */
+    public boolean hasMoreOnLine() throws DataStoreException {
+        return skipSpaces();
+    }
+
+    private void skipLineBreak() throws DataStoreException {
+        if (pos == limit && !fill()) return;
+        if (buffer[pos] == '\r') {
+            pos++;
+            if (pos == limit && !fill()) return;
+        }
+        if (buffer[pos] == '\n') pos++;
+    }
+
+    /**
+     * Length of the token starting at current position, the token is
+     * entirely in the buffer after this call.
+     */
+    private int tokenLength() throws DataStoreException {
+        int n = 0;
+        for (;;) {
+            if (pos + n >= limit && !fill()) return n;
+            final byte b = buffer[pos + n];
+            if (isBlank(b) || b == '(' || b == ')' || b == ',') return n;
+            n++;
+        }
+    }
+
+    /**
+     * Read more bytes, keeping the bytes after current position.
+     *
+     * @return false if no more bytes could be read
+     */
+    private boolean fill() throws DataStoreException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            bufferStart += pos;
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            final int n = stream.read(buffer, limit, buffer.length - limit);
+            if (n <= 0) return false;
+            limit += n;
+            return true;
+        } catch (IOException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
+    private static boolean isBlank(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+}
@@ -29,7 +29,6 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.Scanner;
 import java.util.Set;
 import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.geometry.Envelope2D;
@@ -142,7 +141,7 @@ public final class MIFUtils {
             return binding.buildType(crs, parent);
         }
 
-        public void readGeometry(Scanner reader, Feature toFill, MathTransform toApply) throws DataStoreException {
+        public void readGeometry(MIFTokenizer reader, Feature toFill, MathTransform toApply) throws DataStoreException {
             binding.buildGeometry(reader, toFill, toApply);
         }
 
@@ -20,7 +20,6 @@ import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Pen;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
@@ -28,13 +27,12 @@ import org.opengis.referencing.operation.MathTransform;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.InputMismatchException;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
 import org.apache.sis.feature.DefaultAttributeType;
 import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.util.ArgumentChecks;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.geotoolkit.geometry.jts.JTS;
 import org.opengis.feature.AttributeType;
@@ -58,12 +56,12 @@ public class MIFArcBuilder extends MIFRectangleBuilder {
 
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
 
         final double[] linePts = new double[4];
         try {
             for (int i = 0; i < linePts.length; i++) {
-                linePts[i] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
+                linePts[i] = tokenizer.nextDouble();
             }
 
             final CoordinateSequence seq;
@@ -82,16 +80,16 @@ public class MIFArcBuilder extends MIFRectangleBuilder {
             toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), JTS.toGeometry(line));
 
             // Get arc angles
-            Double beginAngle = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
-            Double endAngle   = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
+            Double beginAngle = tokenizer.nextDouble();
+            Double endAngle   = tokenizer.nextDouble();
             toFill.setPropertyValue(BEGIN_ANGLE_NAME.toString(),beginAngle);
             toFill.setPropertyValue(END_ANGLE_NAME.toString(),endAngle);
-        } catch (InputMismatchException ex) {
+        } catch (DataStoreException ex) {
             throw new DataStoreException("Arc is not properly defined : not enough points found.", ex);
         }
 
-        if(scanner.hasNext(Pen.PEN_PATTERN) && toFill.getType().getProperties(true).contains(PEN)) {
-            String args = scanner.nextLine();
+        if(tokenizer.hasWord(Pen.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(PEN)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
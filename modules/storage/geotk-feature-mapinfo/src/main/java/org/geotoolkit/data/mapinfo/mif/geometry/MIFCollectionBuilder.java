@@ -18,6 +18,7 @@ package org.geotoolkit.data.mapinfo.mif.geometry;
 
 import com.vividsolutions.jts.geom.*;
 import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
@@ -28,7 +29,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.apache.sis.internal.feature.AttributeConvention;
@@ -51,26 +51,28 @@ public class MIFCollectionBuilder extends MIFGeometryBuilder {
     public static final FeatureType EMPTY_TYPE = new DefaultFeatureType(Collections.singletonMap("name", "abstract"), true, null);
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
         int numGeom = 0;
         try {
-            numGeom = scanner.nextInt();
+            numGeom = tokenizer.nextInt();
         } catch (Exception e) {
             throw new DataStoreException("Number of geometries in Collection is not specified", e);
         }
 
         final List<Feature> features = new ArrayList<>();
         for(int geomCount=0 ; geomCount < numGeom ; geomCount++ ) {
-            while(scanner.hasNextLine()) {
-                final MIFUtils.GeometryType enumType = MIFUtils.getGeometryType(scanner.findInLine("\\w+"));
+            String word;
+            while((word = tokenizer.peekWord()) != null) {
+                final MIFUtils.GeometryType enumType = MIFUtils.getGeometryType(word);
                 if (enumType != null) {
+                    tokenizer.nextWord();
                     final FeatureType type = enumType.getBinding(null, EMPTY_TYPE);
                     final Feature currentFeature = type.newInstance();
-                    enumType.readGeometry(scanner, currentFeature, toApply);
+                    enumType.readGeometry(tokenizer, currentFeature, toApply);
                     features.add(currentFeature);
                     break;
                 } else {
-                    scanner.nextLine();
+                    tokenizer.skipLine();
                 }
             }
         }
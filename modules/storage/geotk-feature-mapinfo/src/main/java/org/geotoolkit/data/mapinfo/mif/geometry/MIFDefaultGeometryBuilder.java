@@ -2,6 +2,7 @@ package org.geotoolkit.data.mapinfo.mif.geometry;
 
 import com.vividsolutions.jts.geom.*;
 import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
@@ -10,7 +11,6 @@ import org.opengis.referencing.operation.MathTransform;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
 import org.apache.sis.feature.DefaultAttributeType;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.opengis.feature.AttributeType;
@@ -29,7 +29,7 @@ public class MIFDefaultGeometryBuilder extends MIFGeometryBuilder{
     public static final GenericName GEOM_NAME = NamesExt.create("GEOMETRY");
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
         throw new IllegalStateException("building geometry with name GEOMETRY should never happen for MIF MID !");
     }
 
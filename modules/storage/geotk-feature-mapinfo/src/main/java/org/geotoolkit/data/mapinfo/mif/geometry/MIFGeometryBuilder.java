@@ -26,7 +26,6 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -36,6 +35,7 @@ import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.logging.Logging;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -61,12 +61,12 @@ public abstract class MIFGeometryBuilder {
      * Parse an input file to build a JTS Geometry with its data.
      *
      *
-     * @param scanner the Scanner to use for geometry parsing (should be placed on the beginning of the geometry).
+     * @param tokenizer the tokenizer to use for geometry parsing (should be placed after the geometry keyword).
      * @param toFill The feature to put geometry data. It cannot be null, and should have been built with feature type
      *               given by {@link MIFGeometryBuilder#buildType(org.opengis.referencing.crs.CoordinateReferenceSystem, org.opengis.feature.type.FeatureType)}.
      * @param toApply
      */
-    public abstract void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException;
+    public abstract void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException;
 
     /**
      * Build a feature type which represents a MIF geometry.
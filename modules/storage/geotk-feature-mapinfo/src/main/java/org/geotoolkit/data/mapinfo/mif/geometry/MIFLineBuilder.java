@@ -19,17 +19,15 @@ package org.geotoolkit.data.mapinfo.mif.geometry;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Pen;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
 import org.opengis.referencing.operation.MathTransform;
 
 import java.util.Collections;
-import java.util.InputMismatchException;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -48,14 +46,14 @@ public class MIFLineBuilder extends MIFGeometryBuilder {
     public static final GenericName NAME = NamesExt.create("LINE");
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
 
         final double[] linePts = new double[4];
         try {
             for (int i = 0; i < linePts.length; i++) {
-                linePts[i] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
+                linePts[i] = tokenizer.nextDouble();
             }
-        } catch (InputMismatchException ex) {
+        } catch (DataStoreException ex) {
             throw new DataStoreException("Line is not properly defined : not enough points found.", ex);
         }
 
@@ -64,8 +62,8 @@ public class MIFLineBuilder extends MIFGeometryBuilder {
 
         toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), line);
 
-        if(scanner.hasNext(Pen.PEN_PATTERN) && toFill.getType().getProperties(true).contains(PEN)) {
-            String args = scanner.next()+scanner.nextLine();
+        if(tokenizer.hasWord(Pen.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(PEN)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
@@ -21,7 +21,6 @@ import com.vividsolutions.jts.geom.MultiPoint;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Symbol;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
@@ -29,8 +28,8 @@ import org.opengis.referencing.operation.MathTransform;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -49,31 +48,25 @@ public class MIFMultiPointBuilder extends MIFGeometryBuilder {
     public static final GenericName NAME = NamesExt.create("MULTIPOINT");
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
         try {
-            final int numCoords = scanner.nextInt()*2;
-            double[] coords = new double[numCoords];
-            for(int ptCount = 0 ; ptCount < numCoords ; ptCount++) {
-                coords[ptCount] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
-            }
+            final int numCoords = tokenizer.nextInt()*2;
+            final double[] coords = new double[numCoords];
+            tokenizer.nextDoubles(coords, 0, numCoords);
 
-            final CoordinateSequence seq;
             if(toApply != null) {
                 try {
-                    double[] afterT = new double[numCoords];
-                    toApply.transform(coords, 0, afterT, 0, numCoords/2);
-                    seq = new PackedCoordinateSequence.Double(afterT, 2);
+                    toApply.transform(coords, 0, coords, 0, numCoords/2);
                 } catch (Exception e) {
                     throw new DataStoreException("Unable to transform geometry", e);
                 }
-            } else {
-                seq = new PackedCoordinateSequence.Double(coords, 2);
             }
+            final CoordinateSequence seq = new PackedCoordinateSequence.Double(coords, 2);
 
             toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), GEOMETRY_FACTORY.createMultiPoint(seq));
 
-            if(scanner.hasNext(Symbol.SYMBOL_PATTERN) && toFill.getType().getProperties(true).contains(SYMBOL)) {
-                String args = scanner.next()+scanner.nextLine();
+            if(tokenizer.hasWord(Symbol.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(SYMBOL)) {
+                String args = tokenizer.nextLine();
                 String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                         .replaceAll("[^\\d^,]+", "")
                         .split(",");
@@ -19,7 +19,6 @@ package org.geotoolkit.data.mapinfo.mif.geometry;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Point;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Symbol;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
@@ -27,8 +26,8 @@ import org.opengis.referencing.operation.MathTransform;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -47,22 +46,22 @@ public final class MIFPointBuilder extends MIFGeometryBuilder {
     public static final GenericName NAME = NamesExt.create("POINT");
 
     /**
-     * Build a feature describing a MIF point geometry. That assume that user gave a {@link Scanner} which is placed on
+     * Build a feature describing a MIF point geometry. That assume that user gave a {@link MIFTokenizer} which is placed on
      * a POINT tag.
      *
      *
-     * @param scanner The scanner to use for data reading (must be pointing on a mif POINT element).
+     * @param tokenizer The tokenizer to use for data reading (must be pointing on a mif POINT element).
      * @param toFill
-     * @throws DataStoreException If there's a problem while parsing stream of the given Scanner.
+     * @throws DataStoreException If there's a problem while parsing stream of the given tokenizer.
      */
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
         Double x = null;
         Double y = null;
-        if (scanner.hasNext(ProjectionUtils.DOUBLE_PATTERN)) {
-            x = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
-            if (scanner.hasNext(ProjectionUtils.DOUBLE_PATTERN)) {
-                y = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
+        if (tokenizer.hasNumber()) {
+            x = tokenizer.nextDouble();
+            if (tokenizer.hasNumber()) {
+                y = tokenizer.nextDouble();
             }
         }
         if (x == null || y == null) {
@@ -88,8 +87,8 @@ public final class MIFPointBuilder extends MIFGeometryBuilder {
 
 
         // Style
-        if (scanner.hasNext(Symbol.SYMBOL_PATTERN) && toFill.getType().getProperties(true).contains(SYMBOL)) {
-            String args = scanner.next() + scanner.nextLine();
+        if (tokenizer.hasWord(Symbol.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(SYMBOL)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(') + 1, args.length() - 1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
@@ -17,12 +17,10 @@
 package org.geotoolkit.data.mapinfo.mif.geometry;
 
 import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.MultiLineString;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Pen;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
@@ -30,12 +28,10 @@ import org.opengis.referencing.operation.MathTransform;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.InputMismatchException;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
-import java.util.regex.Pattern;
 import org.apache.sis.feature.DefaultAttributeType;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -61,55 +57,47 @@ public class MIFPolyLineBuilder extends MIFGeometryBuilder {
      *
      *
      *
-     * @param scanner the Scanner to use for geometry parsing (should be placed on the beginning of the geometry).
+     * @param tokenizer the tokenizer to use for geometry parsing (should be placed after the geometry keyword).
      * @param toFill
      * @param toApply
      * @return
      * @throws DataStoreException
      */
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
         int numLines = 1;
 
         try {
-            Pattern multiple = Pattern.compile("multiple", Pattern.CASE_INSENSITIVE);
-            if(scanner.hasNext(multiple)) {
-                scanner.next();
-                numLines = Integer.decode(scanner.next("\\d+"));
+            if(tokenizer.hasWord("MULTIPLE")) {
+                tokenizer.nextWord();
+                numLines = tokenizer.nextInt();
             }
 
             final LineString[] lineTab = new LineString[numLines];
             for(int lineCount = 0 ; lineCount < numLines ; lineCount++) {
                 // We put a x2 factor as we work in 2 dimensions.
-                final int numCoord = Integer.decode(scanner.next("\\d+"))*2;
+                final int numCoord = tokenizer.nextInt()*2;
                 final double[] linePts = new double[numCoord];
-                for(int coordCount = 0 ; coordCount < numCoord; coordCount++) {
-                    linePts[coordCount] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
-                }
+                tokenizer.nextDoubles(linePts, 0, numCoord);
 
-                final CoordinateSequence seq;
                 if(toApply != null) {
                     try {
-                        double[] afterT = new double[numCoord];
-                        toApply.transform(linePts, 0, afterT, 0, numCoord/2);
-                        seq = new PackedCoordinateSequence.Double(afterT, 2);
+                        toApply.transform(linePts, 0, linePts, 0, numCoord/2);
                     } catch (Exception e) {
                         throw new DataStoreException("Unable to transform geometry", e);
                     }
-                } else {
-                    seq = new PackedCoordinateSequence.Double(linePts, 2);
                 }
-                lineTab[lineCount] = GEOMETRY_FACTORY.createLineString(seq);
+                lineTab[lineCount] = GEOMETRY_FACTORY.createLineString(new PackedCoordinateSequence.Double(linePts, 2));
             }
 
             toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), GEOMETRY_FACTORY.createMultiLineString(lineTab));
 
-        } catch (InputMismatchException ex) {
+        } catch (DataStoreException ex) {
             throw new DataStoreException("Line is not properly defined : not enough points found.", ex);
         }
 
-        if(scanner.hasNext(Pen.PEN_PATTERN) && toFill.getType().getProperties(true).contains(PEN)) {
-            String args = scanner.next()+scanner.nextLine();
+        if(tokenizer.hasWord(Pen.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(PEN)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
@@ -125,7 +113,8 @@ public class MIFPolyLineBuilder extends MIFGeometryBuilder {
             }
         }
 
-        if(scanner.hasNext(Pattern.compile(SMOOTH_NAME.tip().toString(), Pattern.CASE_INSENSITIVE))) {
+        if(tokenizer.hasWord(SMOOTH_NAME.tip().toString())) {
+            tokenizer.nextWord();
             toFill.setPropertyValue(SMOOTH_NAME.toString(),Boolean.TRUE);
         }
 
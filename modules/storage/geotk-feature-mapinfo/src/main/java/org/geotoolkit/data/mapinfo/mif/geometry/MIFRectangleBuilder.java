@@ -21,7 +21,6 @@ import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Brush;
 import org.geotoolkit.data.mapinfo.mif.style.Pen;
 import org.geotoolkit.util.NamesExt;
@@ -31,15 +30,14 @@ import org.opengis.referencing.operation.MathTransform;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.InputMismatchException;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
 import org.apache.sis.feature.DefaultAttributeType;
 import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.NullArgumentException;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -61,12 +59,12 @@ public class MIFRectangleBuilder extends MIFGeometryBuilder {
     private static final AttributeType ROUNDING = new DefaultAttributeType(Collections.singletonMap("name", ROUND_NAME), Float.class, 1, 1, null);
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
 
         final double[] pts = new double[4];
         try {
             for (int i = 0; i < pts.length; i++) {
-                pts[i] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
+                pts[i] = tokenizer.nextDouble();
             }
 
             final CoordinateSequence seq;
@@ -84,16 +82,16 @@ public class MIFRectangleBuilder extends MIFGeometryBuilder {
             final Envelope env = new Envelope(seq.getCoordinate(0), seq.getCoordinate(1));
             toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), JTS.toGeometry(env));
 
-        } catch (InputMismatchException ex) {
+        } catch (DataStoreException ex) {
             throw new DataStoreException("Rectangle is not properly defined : not enough points found.", ex);
         }
 
-        if(scanner.hasNext(ProjectionUtils.DOUBLE_PATTERN)) {
-            toFill.setPropertyValue(ROUND_NAME.toString(),Float.parseFloat(scanner.next(ProjectionUtils.DOUBLE_PATTERN)));
+        if(tokenizer.hasNumber()) {
+            toFill.setPropertyValue(ROUND_NAME.toString(),(float) tokenizer.nextDouble());
         }
 
-        if(scanner.hasNext(Pen.PEN_PATTERN) && toFill.getType().getProperties(true).contains(PEN)) {
-            String args = scanner.next()+scanner.nextLine();
+        if(tokenizer.hasWord(Pen.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(PEN)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
@@ -109,8 +107,8 @@ public class MIFRectangleBuilder extends MIFGeometryBuilder {
             }
         }
 
-        if(scanner.hasNext(Brush.BRUSH_PATTERN) && toFill.getType().getProperties(true).contains(BRUSH)) {
-            String args = scanner.next()+scanner.nextLine();
+        if(tokenizer.hasWord(Brush.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(BRUSH)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
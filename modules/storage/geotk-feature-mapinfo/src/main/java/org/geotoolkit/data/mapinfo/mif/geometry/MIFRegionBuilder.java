@@ -19,7 +19,6 @@ package org.geotoolkit.data.mapinfo.mif.geometry;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
-import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Brush;
 import org.geotoolkit.data.mapinfo.mif.style.Pen;
 import org.geotoolkit.util.NamesExt;
@@ -28,8 +27,8 @@ import org.opengis.referencing.operation.MathTransform;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -49,39 +48,32 @@ public class MIFRegionBuilder extends MIFGeometryBuilder {
     public static final GenericName NAME = NamesExt.create("REGION");
 
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
 
-        final int numPolygons = scanner.nextInt();
+        final int numPolygons = tokenizer.nextInt();
         final Polygon[] polygons = new Polygon[numPolygons];
         for (int polygonCount = 0; polygonCount < numPolygons; polygonCount++) {
 
-            final int numCoords = scanner.nextInt()*2;
+            final int numCoords = tokenizer.nextInt()*2;
             final double[] polygonPts = new double[numCoords];
-            for (int coordCount = 0; coordCount < numCoords; coordCount++) {
-                polygonPts[coordCount] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
-            }
+            tokenizer.nextDoubles(polygonPts, 0, numCoords);
 
-            final CoordinateSequence seq;
             if (toApply != null) {
                 try {
-                    double[] afterT = new double[numCoords];
-                    toApply.transform(polygonPts, 0, afterT, 0, numCoords / 2);
-                    seq = new PackedCoordinateSequence.Double(afterT, 2);
+                    toApply.transform(polygonPts, 0, polygonPts, 0, numCoords / 2);
                 } catch (Exception e) {
                     throw new DataStoreException("Unable to transform geometry", e);
                 }
-            } else {
-                seq = new PackedCoordinateSequence.Double(polygonPts, 2);
             }
-            final LinearRing ring = GEOMETRY_FACTORY.createLinearRing(seq);
+            final LinearRing ring = GEOMETRY_FACTORY.createLinearRing(new PackedCoordinateSequence.Double(polygonPts, 2));
             polygons[polygonCount] = GEOMETRY_FACTORY.createPolygon(ring, null);
         }
 
         toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), GEOMETRY_FACTORY.createMultiPolygon(polygons));
 
 
-        if(scanner.hasNext(Pen.PEN_PATTERN) && toFill.getType().getProperties(true).contains(PEN)) {
-            String args = scanner.next()+scanner.nextLine();
+        if(tokenizer.hasWord(Pen.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(PEN)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
@@ -97,8 +89,8 @@ public class MIFRegionBuilder extends MIFGeometryBuilder {
             }
         }
 
-        if(scanner.hasNext(Brush.BRUSH_PATTERN) && toFill.getType().getProperties(true).contains(BRUSH)) {
-            String args = scanner.next()+scanner.nextLine();
+        if(tokenizer.hasWord(Brush.NAME.tip().toString()) && toFill.getType().getProperties(true).contains(BRUSH)) {
+            String args = tokenizer.nextLine();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\d^,]+", "")
                     .split(",");
@@ -17,9 +17,7 @@
 package org.geotoolkit.data.mapinfo.mif.geometry;
 
 import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.Envelope;
-import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.mapinfo.ProjectionUtils;
 import org.geotoolkit.data.mapinfo.mif.style.Font;
@@ -31,13 +29,13 @@ import org.opengis.referencing.operation.MathTransform;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.sis.feature.DefaultAttributeType;
 import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.util.ArgumentChecks;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
 import org.geotoolkit.data.mapinfo.mif.MIFUtils;
 import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
@@ -69,43 +67,35 @@ public class MIFTextBuilder extends MIFRectangleBuilder {
     public static final Pattern ANGLE_PATTERN = Pattern.compile(ANGLE_NAME.tip().toString()+"\\s*\\([^\\)]+\\)", Pattern.CASE_INSENSITIVE);
 
     /**
-     * Build a feature describing a MIF point geometry. That assume that user gave a {@link Scanner} which is placed on
+     * Build a feature describing a MIF point geometry. That assume that user gave a {@link MIFTokenizer} which is placed on
      * a TEXT tag.
      *
-     * @param scanner The scanner to use for data reading (must be pointing on a mif POINT element).
+     * @param tokenizer The tokenizer to use for data reading (must be pointing on a mif POINT element).
      * @param toFill
      * @param toApply
-     * @throws DataStoreException If there's a problem while parsing stream of the given Scanner.
+     * @throws DataStoreException If there's a problem while parsing stream of the given tokenizer.
      */
     @Override
-    public void buildGeometry(Scanner scanner, Feature toFill, MathTransform toApply) throws DataStoreException {
+    public void buildGeometry(MIFTokenizer tokenizer, Feature toFill, MathTransform toApply) throws DataStoreException {
 
         try {
-            String geomText = scanner.next("\\w+");
+            String geomText = tokenizer.nextText();
             if (TEXT_NAME.tip().toString().equalsIgnoreCase(geomText)) {
-                geomText = scanner.next("\\w+");
+                geomText = tokenizer.nextText();
             }
             toFill.setPropertyValue(TEXT_NAME.toString(),geomText);
 
             final double[] pts = new double[4];
+            tokenizer.nextDoubles(pts, 0, 4);
 
-            for (int i = 0; i < pts.length; i++) {
-                pts[i] = Double.parseDouble(scanner.next(ProjectionUtils.DOUBLE_PATTERN));
-            }
-
-            final CoordinateSequence seq;
             if (toApply != null) {
                 try {
-                    double[] afterT = new double[4];
-                    toApply.transform(pts, 0, afterT, 0, 2);
-                    seq = new PackedCoordinateSequence.Double(afterT, 2);
+                    toApply.transform(pts, 0, pts, 0, 2);
                 } catch (Exception e) {
                     throw new DataStoreException("Unable to transform geometry", e);
                 }
-            } else {
-                seq = new PackedCoordinateSequence.Double(pts, 2);
             }
-            final Envelope env = new Envelope(seq.getCoordinate(0), seq.getCoordinate(1));
+            final Envelope env = new Envelope(pts[0], pts[2], pts[1], pts[3]);
 
             toFill.setPropertyValue(FeatureExt.getDefaultGeometry(toFill.getType()).getName().tip().toString(), JTS.toGeometry(env));
         } catch (Exception e) {
@@ -115,8 +105,8 @@ public class MIFTextBuilder extends MIFRectangleBuilder {
         /**
          * Add a management for the text options.
          */
-        if (scanner.hasNext(Font.PATTERN)) {
-            String args = scanner.next()+scanner.next(Font.PATTERN);
+        if (tokenizer.hasWord(Font.NAME.tip().toString())) {
+            String args = tokenizer.nextLine().trim();
             String[] argsTab = args.substring(args.indexOf('(')+1, args.length()-1)
                     .replaceAll("[^\\w^,]+", "")
                     .split(",");
@@ -136,30 +126,30 @@ public class MIFTextBuilder extends MIFRectangleBuilder {
             }
         }
 
-        if (scanner.hasNext(SPACING_PATTERN)) {
-            String spacing = scanner.next(SPACING_PATTERN);
+        if (tokenizer.hasWord(SPACING_NAME.tip().toString())) {
+            String spacing = tokenizer.nextLine();
             Matcher match = ProjectionUtils.DOUBLE_PATTERN.matcher(spacing);
             if(match.find()) {
                 toFill.setPropertyValue(SPACING_NAME.toString(),Double.parseDouble(match.group()));
             }
         }
 
-        if (scanner.hasNext(JUSTIFY_PATTERN)) {
-            String spacing = scanner.next(JUSTIFY_PATTERN);
-            toFill.setPropertyValue(SPACING_NAME.toString(),scanner.next());
+        if (tokenizer.hasWord(JUSTIFY_NAME.tip().toString())) {
+            tokenizer.nextWord();
+            toFill.setPropertyValue(SPACING_NAME.toString(),tokenizer.nextWord());
         }
 
-        if (scanner.hasNext(ANGLE_PATTERN)) {
-            String spacing = scanner.next(ANGLE_PATTERN);
+        if (tokenizer.hasWord(ANGLE_NAME.tip().toString())) {
+            String spacing = tokenizer.nextLine();
             Matcher match = ProjectionUtils.DOUBLE_PATTERN.matcher(spacing);
             if(match.find()) {
                 toFill.setPropertyValue(ANGLE_NAME.toString(),Double.parseDouble(match.group()));
             }
         }
 
-        if(scanner.hasNext(LabelLine.PATTERN)) {
-            String label = scanner.next(LabelLine.PATTERN);
-            String type = label.contains("?i(arrow)")? "arrow" : "simple";
+        if(tokenizer.hasWord(LabelLine.NAME.tip().toString())) {
+            String label = tokenizer.nextLine();
+            String type = label.toLowerCase().contains("arrow")? "arrow" : "simple";
             Double x = null, y = null;
             Matcher match = ProjectionUtils.DOUBLE_PATTERN.matcher(label);
             if(match.find()) {
@@ -168,8 +158,10 @@ public class MIFTextBuilder extends MIFRectangleBuilder {
             if(match.find()) {
                 y = Double.parseDouble(match.group());
             }
-            LabelLine labelLine = new LabelLine(type, new Coordinate(x, y));
-            toFill.setPropertyValue(LabelLine.NAME.toString(),labelLine);
+            if(x != null && y != null) {
+                LabelLine labelLine = new LabelLine(type, new Coordinate(x, y));
+                toFill.setPropertyValue(LabelLine.NAME.toString(),labelLine);
+            }
         }
     }
 
@@ -32,6 +32,7 @@ import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -50,6 +51,7 @@ import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.mapinfo.mif.MIFFeatureStore;
 import org.geotoolkit.data.query.Query;
+import org.geotoolkit.factory.FactoryFinder;
 import org.junit.After;
 import org.junit.Test;
 import org.opengis.util.GenericName;
@@ -61,6 +63,8 @@ import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
 import org.opengis.feature.PropertyType;
 import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.geometry.Envelope;
 
 /**
  *
@@ -289,6 +293,93 @@ public class MIFFeatureStoreTest extends org.geotoolkit.test.TestBase {
         }
     }
 
+    /**
+     * Compare reads using the record index with the filter evaluated on all features.
+     */
+    @Test
+    public void testIndexedReads() throws Exception {
+        final Path tmpFile = Files.createTempFile(tempDir, "indexed", ".mif");
+        try (final MIFFeatureStore store = new MIFFeatureStore(tmpFile.toUri())) {
+            final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+            ftb.setName("grid");
+            ftb.addAttribute(Integer.class).setName("integerProp");
+            ftb.addAttribute(String.class).setName("stringProp");
+            ftb.addAttribute(Point.class).setName("geometry").setCRS(CommonCRS.WGS84.normalizedGeographic()).addRole(AttributeRole.DEFAULT_GEOMETRY);
+            store.createFeatureType(ftb.build());
+            final String name = store.getNames().iterator().next().toString();
+
+            //40 points on a 8x5 grid
+            try (final FeatureWriter fw = store.getFeatureWriter(QueryBuilder.filtered(name, Filter.EXCLUDE))) {
+                for (int i = 0; i < 40; i++) {
+                    final Feature feature = fw.next();
+                    feature.setPropertyValue("integerProp", i);
+                    feature.setPropertyValue("stringProp", "f" + i);
+                    feature.setPropertyValue("geometry", GF.createPoint(new Coordinate(i % 8, i / 8)));
+                    fw.write();
+                }
+            }
+
+            final List<Feature> all = new ArrayList<>();
+            try (final FeatureReader reader = store.getFeatureReader(QueryBuilder.all(name))) {
+                while (reader.hasNext()) {
+                    all.add(reader.next());
+                }
+            }
+            assertEquals(40, all.size());
+
+            final FilterFactory2 ff = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+            final Filter bbox = ff.bbox(ff.property("geometry"), 1.5, 0.5, 3.5, 2.5, null);
+            final Filter attribute = ff.greater(ff.property("integerProp"), ff.literal(30));
+            final Filter[] filters = {
+                Filter.INCLUDE,
+                attribute,
+                ff.id(Collections.singleton(ff.featureId("f12"))),
+                bbox,
+                ff.not(bbox),
+                ff.or(bbox, attribute),
+                ff.and(bbox, ff.less(ff.property("integerProp"), ff.literal(12))),
+                ff.dwithin(ff.property("geometry"), ff.literal(GF.createPoint(new Coordinate(6, 3))), 1.2, "")
+            };
+            final int[][] ranges = {{0, -1}, {3, -1}, {5, 4}, {0, 100}, {38, 5}, {45, 5}};
+
+            for (Filter filter : filters) {
+                final List<Feature> matching = new ArrayList<>();
+                for (Feature feature : all) {
+                    if (filter.evaluate(feature)) matching.add(feature);
+                }
+
+                for (int[] range : ranges) {
+                    final QueryBuilder qb = new QueryBuilder(name);
+                    qb.setFilter(filter);
+                    qb.setStartIndex(range[0]);
+                    if (range[1] >= 0) qb.setMaxFeatures(range[1]);
+                    final Query query = qb.buildQuery();
+
+                    final int start = Math.min(range[0], matching.size());
+                    final int end = (range[1] < 0) ? matching.size() : Math.min(start + range[1], matching.size());
+                    final List<Feature> expected = matching.subList(start, end);
+                    checkFeatures(expected, store, query);
+                    assertEquals(filter + " " + range[0], expected.size(), store.getCount(query));
+                }
+
+                if (!matching.isEmpty()) {
+                    final Envelope env = store.getEnvelope(QueryBuilder.filtered(name, filter));
+                    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                    for (Feature feature : matching) {
+                        final Coordinate c = ((Point) feature.getPropertyValue("geometry")).getCoordinate();
+                        minX = Math.min(minX, c.x); maxX = Math.max(maxX, c.x);
+                        minY = Math.min(minY, c.y); maxY = Math.max(maxY, c.y);
+                    }
+                    assertEquals(minX, env.getMinimum(0), 0.0);
+                    assertEquals(minY, env.getMinimum(1), 0.0);
+                    assertEquals(maxX, env.getMaximum(0), 0.0);
+                    assertEquals(maxY, env.getMaximum(1), 0.0);
+                }
+            }
+        }
+    }
+
     private static void checkFeatures(final List<Feature> expected, final FeatureStore source, final Query readQuery) throws DataStoreException {
         int number = 0;
         try (final FeatureReader reader = source.getFeatureReader(readQuery)) {
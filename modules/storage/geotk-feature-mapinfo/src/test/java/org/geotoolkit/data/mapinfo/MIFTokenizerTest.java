@@ -0,0 +1,111 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.mapinfo;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.mapinfo.mif.MIFTokenizer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * MIF/MID tokenizer tests.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class MIFTokenizerTest extends org.geotoolkit.test.TestBase {
+
+    private static MIFTokenizer tokenizer(final String text) {
+        return new MIFTokenizer(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, 0);
+    }
+
+    /**
+     * Numbers parsed from bytes must be exactly the same as {@link Double#parseDouble(java.lang.String) }.
+     */
+    @Test
+    public void testNumbers() throws DataStoreException {
+        final Random random = new Random(42);
+        final double[] values = new double[10000];
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            switch (i % 5) {
+                case 0 : values[i] = random.nextDouble() * 1000 - 500; break;
+                case 1 : values[i] = Math.round(random.nextDouble() * 1e6) / 1e3; break;
+                case 2 : values[i] = random.nextInt(1000); break;
+                case 3 : values[i] = random.nextGaussian() * 1e-5; break;
+                default: values[i] = random.nextDouble() * 1e20; break;
+            }
+            sb.append(values[i]).append(i % 7 == 0 ? "\r\n" : " ");
+        }
+        sb.append("1.  -0 .5 +3");
+
+        final MIFTokenizer tokenizer = tokenizer(sb.toString());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Double.doubleToLongBits(values[i]), Double.doubleToLongBits(tokenizer.nextDouble()));
+        }
+        assertEquals(1.0, tokenizer.nextDouble(), 0.0);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(tokenizer.nextDouble()));
+        assertEquals(0.5, tokenizer.nextDouble(), 0.0);
+        assertEquals(3, tokenizer.nextInt());
+
+        try {
+            tokenizer("abc").nextDouble();
+            fail("Invalid number must raise an exception");
+        } catch (DataStoreException ex) {
+            //ok
+        }
+    }
+
+    /**
+     * Test keywords, texts, lines and positions.
+     */
+    @Test
+    public void testRecords() throws DataStoreException {
+        final MIFTokenizer tokenizer = tokenizer(
+                "Pline Multiple 2\n  3\n1 2\n3 4\n5 6\n  Pen (1,2,0)\r\nText \"hé llo\"\nRegion 1\n");
+        assertTrue(tokenizer.hasWord("PLINE"));
+        assertEquals("Pline", tokenizer.nextWord());
+        assertEquals("Multiple", tokenizer.nextWord());
+        assertEquals(2, tokenizer.nextInt());
+        assertEquals(3, tokenizer.nextInt());
+        final double[] coords = new double[6];
+        tokenizer.nextDoubles(coords, 0, 6);
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6}, coords, 0.0);
+
+        assertTrue(tokenizer.hasWord("pen"));
+        assertEquals("Pen (1,2,0)", tokenizer.nextLine());
+        assertEquals("Text", tokenizer.nextWord());
+        assertEquals("hé llo", tokenizer.nextText());
+        assertFalse(tokenizer.hasMoreOnLine());
+        assertTrue(tokenizer.skipLine());
+
+        final long position = tokenizer.getPosition();
+        assertEquals("Region", tokenizer.peekWord());
+
+        final MIFTokenizer other = tokenizer(
+                "Pline Multiple 2\n  3\n1 2\n3 4\n5 6\n  Pen (1,2,0)\r\nText \"hé llo\"\nRegion 1\n");
+        other.seek(position);
+        assertEquals("Region", other.nextWord());
+        assertEquals(1, other.nextInt());
+        assertNull(other.nextWord());
+    }
+
+}
@@ -47,6 +47,16 @@ public final class Bundle extends IndexedResourceBundle {
          * OSM XML
          */
         public static final short datastoreTitle = 2;
+
+        /**
+         * OpenStreetMap data defined into protocol buffer file (.pbf)
+         */
+        public static final short pbfDatastoreDescription = 3;
+
+        /**
+         * OSM PBF
+         */
+        public static final short pbfDatastoreTitle = 4;
     }
 
     /**
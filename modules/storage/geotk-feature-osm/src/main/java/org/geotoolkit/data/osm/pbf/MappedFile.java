@@ -0,0 +1,135 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Temporary file used as off-heap storage.
+ * Values are appended through a write buffer and read back from memory mapped
+ * segments, the file is deleted when closed.
+ * <p>
+ * Long values must be written at positions multiple of 8 and int values at
+ * positions multiple of 4, so that values never cross a segment boundary.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class MappedFile implements Closeable {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 20);
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long size = 0;
+    private long flushed = 0;
+    private long mapped = 0;
+
+    MappedFile(final String prefix) throws IOException {
+        final Path path = Files.createTempFile(prefix, ".bin");
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * @return file size in bytes, including buffered values
+     */
+    long size() {
+        return size;
+    }
+
+    void putLong(final long value) throws IOException {
+        if (writeBuffer.remaining() < 8) flush();
+        writeBuffer.putLong(value);
+        size += 8;
+    }
+
+    void putInt(final int value) throws IOException {
+        if (writeBuffer.remaining() < 4) flush();
+        writeBuffer.putInt(value);
+        size += 4;
+    }
+
+    long getLong(final long position) throws IOException {
+        if (position + 8 > mapped) map();
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    int getInt(final long position) throws IOException {
+        if (position + 4 > mapped) map();
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Replace a value already written.
+     */
+    void setLong(final long position, final long value) throws IOException {
+        if (position + 8 > mapped) map();
+        segments[(int) (position >>> SEGMENT_SHIFT)].putLong((int) (position & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Flush buffered values and map the whole file.
+     * Once sealed, values can be read concurrently as long as nothing is written.
+     */
+    void seal() throws IOException {
+        if (mapped < size) map();
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            flushed += channel.write(writeBuffer, flushed);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Flush buffered values and map the new parts of the file.
+     */
+    private void map() throws IOException {
+        flush();
+        if (mapped == size) throw new IOException("Position outside of file");
+        final int nb = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        if (nb > segments.length) {
+            segments = Arrays.copyOf(segments, nb);
+        }
+        //remap the last partial segment and the new ones
+        for (int i = (int) (mapped >>> SEGMENT_SHIFT); i < nb; i++) {
+            final long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_MASK + 1, size - start));
+        }
+        mapped = size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segments = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+}
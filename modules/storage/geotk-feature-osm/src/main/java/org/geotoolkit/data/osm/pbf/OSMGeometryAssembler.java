@@ -0,0 +1,299 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygon;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.geotoolkit.data.osm.model.MemberType;
+
+/**
+ * Build way and relation geometries from node references.
+ * <p>
+ * Node coordinates and resolved way coordinates are kept off-heap in memory
+ * mapped temporary files, so files with more nodes than the heap can hold
+ * can be read. Coordinates are stored as int values in 1e-7 degrees, the
+ * OpenStreetMap precision.
+ * <p>
+ * Blocks must be added in file order, nodes before ways, as written by
+ * OSM tools. Once sealed the assembler can be used by several readers.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class OSMGeometryAssembler implements Closeable {
+
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final GeometryFactory gf = new GeometryFactory();
+
+    /**
+     * Node id to packed latitude and longitude.
+     */
+    private final OSMIdStore nodes;
+
+    /**
+     * Way id to position of the way coordinates in the coordinates file.
+     */
+    private final OSMIdStore ways;
+
+    /**
+     * Way coordinates : [int n][n x (int lon, int lat)].
+     */
+    private final MappedFile wayCoords;
+
+    private int[] buffer = new int[256];
+
+    OSMGeometryAssembler() throws IOException {
+        nodes = new OSMIdStore("osm-nodes");
+        ways = new OSMIdStore("osm-ways");
+        wayCoords = new MappedFile("osm-waycoords");
+    }
+
+    /**
+     * Store the nodes and way coordinates of a block.
+     */
+    void add(final PBFBlock block) throws IOException {
+        for (int i = 0; i < block.nodeCount; i++) {
+            nodes.put(block.nodeIds[i], pack(block.nodeLons[i], block.nodeLats[i]));
+        }
+        for (int i = 0, n = block.wayIds.size(); i < n; i++) {
+            final int nb = resolve(block.wayRefs.get(i));
+            ways.put(block.wayIds.get(i), wayCoords.size());
+            wayCoords.putInt(nb);
+            for (int k = 0; k < nb * 2; k++) {
+                wayCoords.putInt(buffer[k]);
+            }
+        }
+    }
+
+    /**
+     * Sort and map the stores, no block can be added after this call.
+     */
+    void seal() throws IOException {
+        nodes.seal();
+        ways.seal();
+        wayCoords.seal();
+    }
+
+    /**
+     * @return number of nodes in the store
+     */
+    long getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Way geometry, a line string of the way nodes.
+     * Unknown nodes are ignored.
+     *
+     * @return line string or null if the way has less than 2 known nodes
+     */
+    Geometry way(final long[] refs) throws IOException {
+        final Coordinate[] coords = toCoordinates(resolveCopy(refs));
+        return (coords.length < 2) ? null : gf.createLineString(coords);
+    }
+
+    /**
+     * Relation geometry.
+     * Multipolygons and boundaries are assembled as a MultiPolygon from their
+     * outer and inner ways, other relations are a collection of their node and
+     * way members. Relation members are ignored.
+     *
+     * @return geometry, or null if no member could be resolved
+     */
+    Geometry relation(final long[] refs, final MemberType[] types, final String[] roles, final String type) throws IOException {
+        if ("multipolygon".equals(type) || "boundary".equals(type)) {
+            final List<Coordinate[]> outers = new ArrayList<>();
+            final List<Coordinate[]> inners = new ArrayList<>();
+            for (int i = 0; i < refs.length; i++) {
+                if (types[i] != MemberType.WAY) continue;
+                final Coordinate[] coords = wayCoordinates(refs[i]);
+                if (coords == null || coords.length < 2) continue;
+                if ("inner".equals(roles[i])) {
+                    inners.add(coords);
+                } else if (roles[i] == null || roles[i].isEmpty() || "outer".equals(roles[i])) {
+                    outers.add(coords);
+                }
+            }
+            final List<LinearRing> outerRings = buildRings(outers);
+            if (outerRings.isEmpty()) return null;
+            final List<LinearRing> innerRings = buildRings(inners);
+
+            final Polygon[] polygons = new Polygon[outerRings.size()];
+            for (int i = 0; i < polygons.length; i++) {
+                final LinearRing outer = outerRings.get(i);
+                final Coordinate[] outerCoords = outer.getCoordinates();
+                final List<LinearRing> holes = new ArrayList<>();
+                for (int k = innerRings.size() - 1; k >= 0; k--) {
+                    final LinearRing inner = innerRings.get(k);
+                    if (outer.getEnvelopeInternal().contains(inner.getEnvelopeInternal())
+                            && CGAlgorithms.isPointInRing(inner.getCoordinateN(0), outerCoords)) {
+                        holes.add(inner);
+                        innerRings.remove(k);
+                    }
+                }
+                polygons[i] = gf.createPolygon(outer, holes.toArray(new LinearRing[holes.size()]));
+            }
+            return gf.createMultiPolygon(polygons);
+        }
+
+        final List<Geometry> geometries = new ArrayList<>();
+        for (int i = 0; i < refs.length; i++) {
+            if (types[i] == MemberType.NODE) {
+                final long packed = nodes.get(refs[i], MISSING);
+                if (packed != MISSING) {
+                    geometries.add(gf.createPoint(new Coordinate(lon(packed) / 1e7, lat(packed) / 1e7)));
+                }
+            } else if (types[i] == MemberType.WAY) {
+                final Coordinate[] coords = wayCoordinates(refs[i]);
+                if (coords != null && coords.length >= 2) {
+                    geometries.add(gf.createLineString(coords));
+                }
+            }
+        }
+        if (geometries.isEmpty()) return null;
+        return gf.buildGeometry(geometries);
+    }
+
+    /**
+     * Join way parts by their end points into closed rings.
+     * Parts which can not be closed are ignored.
+     */
+    private List<LinearRing> buildRings(final List<Coordinate[]> parts) {
+        final List<LinearRing> rings = new ArrayList<>();
+        final List<Coordinate[]> remaining = new ArrayList<>(parts);
+        while (!remaining.isEmpty()) {
+            final List<Coordinate> ring = new ArrayList<>(Arrays.asList(remaining.remove(0)));
+            boolean found = true;
+            while (found && !ring.get(0).equals2D(ring.get(ring.size() - 1))) {
+                found = false;
+                final Coordinate end = ring.get(ring.size() - 1);
+                for (int i = 0; i < remaining.size(); i++) {
+                    final Coordinate[] part = remaining.get(i);
+                    if (part[0].equals2D(end)) {
+                        ring.addAll(Arrays.asList(part).subList(1, part.length));
+                    } else if (part[part.length - 1].equals2D(end)) {
+                        for (int k = part.length - 2; k >= 0; k--) ring.add(part[k]);
+                    } else {
+                        continue;
+                    }
+                    remaining.remove(i);
+                    found = true;
+                    break;
+                }
+            }
+            if (ring.size() >= 4 && ring.get(0).equals2D(ring.get(ring.size() - 1))) {
+                rings.add(gf.createLinearRing(ring.toArray(new Coordinate[ring.size()])));
+            }
+        }
+        return rings;
+    }
+
+    /**
+     * @return coordinates of a way, null if the way is unknown
+     */
+    private Coordinate[] wayCoordinates(final long wayId) throws IOException {
+        final long position = ways.get(wayId, MISSING);
+        if (position == MISSING) return null;
+        final int nb = wayCoords.getInt(position);
+        final Coordinate[] coords = new Coordinate[nb];
+        long pos = position + 4;
+        for (int i = 0; i < nb; i++, pos += 8) {
+            coords[i] = new Coordinate(wayCoords.getInt(pos) / 1e7, wayCoords.getInt(pos + 4) / 1e7);
+        }
+        return coords;
+    }
+
+    /**
+     * Resolve node references in the shared buffer as lon/lat pairs.
+     *
+     * @return number of resolved nodes
+     */
+    private int resolve(final long[] refs) throws IOException {
+        if (buffer.length < refs.length * 2) {
+            buffer = new int[refs.length * 2];
+        }
+        int nb = 0;
+        for (long ref : refs) {
+            final long packed = nodes.get(ref, MISSING);
+            if (packed == MISSING) continue;
+            buffer[nb * 2] = lon(packed);
+            buffer[nb * 2 + 1] = lat(packed);
+            nb++;
+        }
+        return nb;
+    }
+
+    /**
+     * Same as resolve but in a new array, can be called concurrently once sealed.
+     */
+    private int[] resolveCopy(final long[] refs) throws IOException {
+        final int[] lonlat = new int[refs.length * 2];
+        int nb = 0;
+        for (long ref : refs) {
+            final long packed = nodes.get(ref, MISSING);
+            if (packed == MISSING) continue;
+            lonlat[nb * 2] = lon(packed);
+            lonlat[nb * 2 + 1] = lat(packed);
+            nb++;
+        }
+        return Arrays.copyOf(lonlat, nb * 2);
+    }
+
+    private static Coordinate[] toCoordinates(final int[] lonlat) {
+        final Coordinate[] coords = new Coordinate[lonlat.length / 2];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = new Coordinate(lonlat[i * 2] / 1e7, lonlat[i * 2 + 1] / 1e7);
+        }
+        return coords;
+    }
+
+    private static long pack(final int lon, final int lat) {
+        return ((long) lat << 32) | (lon & 0xFFFFFFFFL);
+    }
+
+    private static int lon(final long packed) {
+        return (int) packed;
+    }
+
+    private static int lat(final long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            nodes.close();
+        } finally {
+            try {
+                ways.close();
+            } finally {
+                wayCoords.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Off-heap map of OSM identifiers to long values.
+ * <p>
+ * Entries are appended to a memory mapped file and found with a binary search.
+ * OSM files are usually sorted by identifier, if entries are not added in
+ * increasing order the file is sorted in place before the next search.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class OSMIdStore implements Closeable {
+
+    private static final int RECORD_SIZE = 16;
+
+    private final MappedFile file;
+    private long count = 0;
+    private long lastId = Long.MIN_VALUE;
+    private boolean sorted = true;
+
+    OSMIdStore(final String name) throws IOException {
+        file = new MappedFile(name);
+    }
+
+    long size() {
+        return count;
+    }
+
+    void put(final long id, final long value) throws IOException {
+        if (id < lastId) sorted = false;
+        lastId = id;
+        file.putLong(id);
+        file.putLong(value);
+        count++;
+    }
+
+    /**
+     * @param id searched identifier
+     * @param missing value returned if the identifier is not in the store
+     * @return value associated to the identifier
+     */
+    long get(final long id, final long missing) throws IOException {
+        if (!sorted) sort();
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            final long midId = file.getLong(mid * RECORD_SIZE);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return file.getLong(mid * RECORD_SIZE + 8);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Sort the records if needed and map the whole file.
+     * Once sealed, searches can be made concurrently as long as nothing is added.
+     */
+    void seal() throws IOException {
+        if (!sorted) sort();
+        file.seal();
+    }
+
+    /**
+     * Heap sort of the records in the mapped file, no memory needed.
+     */
+    private void sort() throws IOException {
+        for (long i = count / 2 - 1; i >= 0; i--) {
+            siftDown(i, count);
+        }
+        for (long end = count - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        sorted = true;
+        lastId = (count > 0) ? file.getLong((count - 1) * RECORD_SIZE) : Long.MIN_VALUE;
+    }
+
+    private void siftDown(long root, final long end) throws IOException {
+        for (;;) {
+            long child = 2 * root + 1;
+            if (child >= end) return;
+            if (child + 1 < end && id(child + 1) > id(child)) child++;
+            if (id(root) >= id(child)) return;
+            swap(root, child);
+            root = child;
+        }
+    }
+
+    private long id(final long index) throws IOException {
+        return file.getLong(index * RECORD_SIZE);
+    }
+
+    private void swap(final long i, final long j) throws IOException {
+        final long pi = i * RECORD_SIZE;
+        final long pj = j * RECORD_SIZE;
+        final long id = file.getLong(pi);
+        final long value = file.getLong(pi + 8);
+        file.setLong(pi, file.getLong(pj));
+        file.setLong(pi + 8, file.getLong(pj + 8));
+        file.setLong(pj, id);
+        file.setLong(pj + 8, value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+}
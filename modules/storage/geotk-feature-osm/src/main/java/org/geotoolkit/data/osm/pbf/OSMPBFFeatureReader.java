@@ -0,0 +1,108 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+
+/**
+ * Stream features of a single type from decoded PBF blocks.
+ * Way and relation geometries are resolved with the geometry assembler.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class OSMPBFFeatureReader implements FeatureReader {
+
+    private final FeatureType type;
+    private final OSMPBFReader reader;
+    private final OSMGeometryAssembler assembler;
+    private final int kind;
+    private PBFBlock block = null;
+    private int index = 0;
+    private Feature next = null;
+
+    /**
+     * @param type feature type
+     * @param reader block reader, decoding features of a single type
+     * @param assembler geometry assembler, can be null for nodes
+     * @param kind one of PBFBlock NODE, WAY or RELATION
+     */
+    OSMPBFFeatureReader(final FeatureType type, final OSMPBFReader reader,
+            final OSMGeometryAssembler assembler, final int kind) {
+        this.type = type;
+        this.reader = reader;
+        this.assembler = assembler;
+        this.kind = kind;
+    }
+
+    @Override
+    public FeatureType getFeatureType() {
+        return type;
+    }
+
+    @Override
+    public Feature next() throws FeatureStoreRuntimeException {
+        if (!hasNext()) throw new NoSuchElementException("No more features");
+        final Feature f = next;
+        next = null;
+        return f;
+    }
+
+    @Override
+    public boolean hasNext() throws FeatureStoreRuntimeException {
+        if (next != null) return true;
+        try {
+            while (block == null || index >= block.features.size()) {
+                block = reader.next();
+                index = 0;
+                if (block == null) return false;
+            }
+            //features have the same order as the way and relation arrays
+            next = block.features.get(index);
+            if (kind == PBFBlock.WAY) {
+                next.setPropertyValue(OSMPBFFeatureStore.ATT_GEOMETRY, assembler.way(block.wayRefs.get(index)));
+            } else if (kind == PBFBlock.RELATION) {
+                next.setPropertyValue(OSMPBFFeatureStore.ATT_GEOMETRY, assembler.relation(block.memberRefs.get(index),
+                        block.memberTypes.get(index), block.memberRoles.get(index), block.relationTypes.get(index)));
+            }
+            index++;
+        } catch (IOException ex) {
+            throw new FeatureStoreRuntimeException(ex);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException ex) {
+            throw new FeatureStoreRuntimeException(ex);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new FeatureStoreRuntimeException("Not supported on reader.");
+    }
+
+}
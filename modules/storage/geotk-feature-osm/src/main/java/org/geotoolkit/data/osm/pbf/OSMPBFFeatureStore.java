@@ -0,0 +1,282 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import com.vividsolutions.jts.geom.Geometry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.sis.feature.builder.AttributeRole;
+import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.AbstractFeatureStore;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStreams;
+import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.data.osm.xml.OSMXMLConstants;
+import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryCapabilities;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.storage.DataStoreFactory;
+import org.geotoolkit.storage.DataStores;
+import org.geotoolkit.util.NamesExt;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.geometry.Envelope;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.util.GenericName;
+
+import static org.geotoolkit.data.osm.model.OSMModelConstants.*;
+
+/**
+ * OSM PBF FeatureStore, holds 3 feature types.
+ * - Node
+ * - Way, with a line string geometry
+ * - Relation, with a multipolygon geometry for multipolygons and boundaries
+ *   or a geometry collection of the members
+ * <p>
+ * Features are streamed from the file, nothing is kept in memory.
+ * Node coordinates are needed to build way and relation geometries, the first
+ * way or relation reader makes a pass over the file to store them off-heap
+ * in temporary memory mapped files. Later readers decode only the blocks
+ * which contain the requested type.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class OSMPBFFeatureStore extends AbstractFeatureStore {
+
+    public static final String ATT_GEOMETRY = "geometry";
+
+    public static final FeatureType TYPE_WAY;
+    public static final FeatureType TYPE_RELATION;
+
+    static {
+        FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setSuperTypes(TYPE_IDENTIFIED);
+        ftb.setName(OSM_NAMESPACE, OSMXMLConstants.TAG_WAY);
+        ftb.addAttribute(ATT_WAY_NODES);
+        ftb.addAttribute(Geometry.class).setName(NamesExt.create(OSM_NAMESPACE, ATT_GEOMETRY))
+                .setCRS(OSM_CRS).addRole(AttributeRole.DEFAULT_GEOMETRY);
+        TYPE_WAY = ftb.build();
+
+        ftb = new FeatureTypeBuilder();
+        ftb.setSuperTypes(TYPE_IDENTIFIED);
+        ftb.setName(OSM_NAMESPACE, "Relation");
+        ftb.addAssociation(ATT_RELATION_MEMBER);
+        ftb.addAttribute(Geometry.class).setName(NamesExt.create(OSM_NAMESPACE, ATT_GEOMETRY))
+                .setCRS(OSM_CRS).addRole(AttributeRole.DEFAULT_GEOMETRY);
+        TYPE_RELATION = ftb.build();
+    }
+
+    private final Path path;
+    private final Set<GenericName> names = new HashSet<>();
+
+    //created by the first way or relation reader
+    private OSMGeometryAssembler assembler;
+    private long[] nodeBlocks;
+    private long[] wayBlocks;
+    private long[] relationBlocks;
+
+    public OSMPBFFeatureStore(final ParameterValueGroup params, final Path path) throws DataStoreException {
+        super(params);
+        this.path = path;
+        names.add(TYPE_NODE.getName());
+        names.add(TYPE_WAY.getName());
+        names.add(TYPE_RELATION.getName());
+
+        //check the file header
+        try {
+            new OSMPBFReader(path, 0, new long[0], false).close();
+        } catch (IOException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public DataStoreFactory getProvider() {
+        return DataStores.getFactoryById(OSMPBFFeatureStoreFactory.NAME);
+    }
+
+    @Override
+    public Set<GenericName> getNames() throws DataStoreException {
+        return names;
+    }
+
+    @Override
+    public FeatureType getFeatureType(final String typeName) throws DataStoreException {
+        typeCheck(typeName);
+        for (FeatureType type : new FeatureType[]{TYPE_NODE, TYPE_WAY, TYPE_RELATION}) {
+            if (NamesExt.match(type.getName(), typeName)) return type;
+        }
+        throw new DataStoreException("Unknown type " + typeName);
+    }
+
+    /**
+     * Nodes envelope is read from the file header if available.
+     */
+    @Override
+    public Envelope getEnvelope(final Query query) throws DataStoreException {
+        if (query.retrieveAllProperties() && Filter.INCLUDE.equals(query.getFilter())
+                && getFeatureType(query.getTypeName()) == TYPE_NODE) {
+            try (OSMPBFReader reader = new OSMPBFReader(path, 0, new long[0], false)) {
+                if (reader.getEnvelope() != null) return reader.getEnvelope();
+            } catch (IOException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+        }
+        return super.getEnvelope(query);
+    }
+
+    @Override
+    public FeatureReader getFeatureReader(final Query query) throws DataStoreException {
+        final FeatureType type = getFeatureType(query.getTypeName());
+        final int kind = (type == TYPE_NODE) ? PBFBlock.NODE : (type == TYPE_WAY) ? PBFBlock.WAY : PBFBlock.RELATION;
+
+        final OSMGeometryAssembler asm;
+        final long[] blocks;
+        synchronized (this) {
+            //nodes do not need the prepare pass
+            asm = (kind == PBFBlock.NODE) ? assembler : getAssembler();
+            blocks = (kind == PBFBlock.NODE) ? nodeBlocks : (kind == PBFBlock.WAY) ? wayBlocks : relationBlocks;
+        }
+
+        final OSMPBFReader reader;
+        try {
+            reader = new OSMPBFReader(path, kind, blocks, true);
+        } catch (IOException ex) {
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+        return FeatureStreams.subset(new OSMPBFFeatureReader(type, reader, asm, kind), query);
+    }
+
+    /**
+     * Store node coordinates and way geometries and index the blocks by content.
+     */
+    private synchronized OSMGeometryAssembler getAssembler() throws DataStoreException {
+        if (assembler != null) return assembler;
+
+        final List<Long> nodes = new ArrayList<>();
+        final List<Long> ways = new ArrayList<>();
+        final List<Long> relations = new ArrayList<>();
+        OSMGeometryAssembler asm = null;
+        try (OSMPBFReader reader = new OSMPBFReader(path, 0, null, true)) {
+            asm = new OSMGeometryAssembler();
+            for (PBFBlock block = reader.next(); block != null; block = reader.next()) {
+                asm.add(block);
+                if ((block.content & PBFBlock.NODE) != 0) nodes.add(block.offset);
+                if ((block.content & PBFBlock.WAY) != 0) ways.add(block.offset);
+                if ((block.content & PBFBlock.RELATION) != 0) relations.add(block.offset);
+            }
+            asm.seal();
+        } catch (IOException ex) {
+            if (asm != null) {
+                try {
+                    asm.close();
+                } catch (IOException e) {
+                    ex.addSuppressed(e);
+                }
+            }
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+        nodeBlocks = toArray(nodes);
+        wayBlocks = toArray(ways);
+        relationBlocks = toArray(relations);
+        assembler = asm;
+        return assembler;
+    }
+
+    private static long[] toArray(final List<Long> list) {
+        final long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        return array;
+    }
+
+    @Override
+    public synchronized void close() throws DataStoreException {
+        super.close();
+        if (assembler != null) {
+            try {
+                assembler.close();
+            } catch (IOException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            } finally {
+                assembler = null;
+                nodeBlocks = null;
+                wayBlocks = null;
+                relationBlocks = null;
+            }
+        }
+    }
+
+    @Override
+    public FeatureWriter getFeatureWriter(Query query) throws DataStoreException {
+        throw new DataStoreException("Writing is not supported on PBF files.");
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    // FALLTHROUGHT OR NOT IMPLEMENTED /////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public QueryCapabilities getQueryCapabilities() {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    @Override
+    public void createFeatureType(final FeatureType featureType) throws DataStoreException {
+        throw new DataStoreException("New schema creation not allowed on PBF files.");
+    }
+
+    @Override
+    public void deleteFeatureType(final String typeName) throws DataStoreException {
+        throw new DataStoreException("Delete schema not allowed on PBF files.");
+    }
+
+    @Override
+    public void updateFeatureType(final FeatureType featureType) throws DataStoreException {
+        throw new DataStoreException("Update schema not allowed on PBF files.");
+    }
+
+    @Override
+    public List<FeatureId> addFeatures(final String groupName, final Collection<? extends Feature> newFeatures,
+            final Hints hints) throws DataStoreException {
+        return handleAddWithFeatureWriter(groupName, newFeatures, hints);
+    }
+
+    @Override
+    public void updateFeatures(final String groupName, final Filter filter, final Map<String, ? extends Object> values) throws DataStoreException {
+        handleUpdateWithFeatureWriter(groupName, filter, values);
+    }
+
+    @Override
+    public void removeFeatures(final String groupName, final Filter filter) throws DataStoreException {
+        handleRemoveWithFeatureWriter(groupName, filter);
+    }
+
+    @Override
+    public void refreshMetaModel() {
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import java.net.URI;
+import java.util.Collections;
+import org.apache.sis.metadata.iso.DefaultIdentifier;
+import org.apache.sis.metadata.iso.citation.DefaultCitation;
+import org.apache.sis.metadata.iso.identification.DefaultServiceIdentification;
+import org.apache.sis.parameter.ParameterBuilder;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.AbstractFileFeatureStoreFactory;
+import org.geotoolkit.data.osm.Bundle;
+import org.geotoolkit.nio.IOUtilities;
+import org.geotoolkit.storage.DataType;
+import org.geotoolkit.storage.DefaultFactoryMetadata;
+import org.geotoolkit.storage.FactoryMetadata;
+import org.opengis.metadata.Identifier;
+import org.opengis.metadata.identification.Identification;
+import org.opengis.parameter.ParameterDescriptor;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.parameter.ParameterValueGroup;
+
+/**
+ * OSM PBF featurestore factory.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class OSMPBFFeatureStoreFactory extends AbstractFileFeatureStoreFactory {
+
+    /** factory identification **/
+    public static final String NAME = "osm-pbf";
+    public static final DefaultServiceIdentification IDENTIFICATION;
+    static {
+        IDENTIFICATION = new DefaultServiceIdentification();
+        final Identifier id = new DefaultIdentifier(NAME);
+        final DefaultCitation citation = new DefaultCitation(NAME);
+        citation.setIdentifiers(Collections.singleton(id));
+        IDENTIFICATION.setCitation(citation);
+    }
+
+    public static final ParameterDescriptor<String> IDENTIFIER = createFixedIdentifier(NAME);
+
+    public static final ParameterDescriptorGroup PARAMETERS_DESCRIPTOR =
+            new ParameterBuilder().addName("OSMPBFParameters").createGroup(IDENTIFIER, PATH);
+
+    @Override
+    public Identification getIdentification() {
+        return IDENTIFICATION;
+    }
+
+    @Override
+    public CharSequence getDescription() {
+        return Bundle.formatInternational(Bundle.Keys.pbfDatastoreDescription);
+    }
+
+    @Override
+    public CharSequence getDisplayName() {
+        return Bundle.formatInternational(Bundle.Keys.pbfDatastoreTitle);
+    }
+
+    @Override
+    public ParameterDescriptorGroup getOpenParameters() {
+        return PARAMETERS_DESCRIPTOR;
+    }
+
+    @Override
+    public OSMPBFFeatureStore open(final ParameterValueGroup params) throws DataStoreException {
+        ensureCanProcess(params);
+        final URI uri = (URI) params.parameter(PATH.getName().toString()).getValue();
+        try {
+            return new OSMPBFFeatureStore(params, IOUtilities.toPath(uri));
+        } catch (DataStoreException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataStoreException(ex);
+        }
+    }
+
+    @Override
+    public OSMPBFFeatureStore create(final ParameterValueGroup params) throws DataStoreException {
+        throw new DataStoreException("Creating PBF files is not supported.");
+    }
+
+    @Override
+    public String[] getFileExtensions() {
+        return new String[] {".pbf"};
+    }
+
+    @Override
+    public FactoryMetadata getMetadata() {
+        return new DefaultFactoryMetadata(DataType.VECTOR, true, false, false, false, GEOMS_ALL);
+    }
+
+}
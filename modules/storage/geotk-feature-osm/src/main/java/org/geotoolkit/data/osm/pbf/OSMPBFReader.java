@@ -0,0 +1,226 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.osm.model.OSMModelConstants;
+
+/**
+ * OSM PBF file reader.
+ * <p>
+ * Blobs are read sequentially from the file and decoded in the common fork-join
+ * pool, several blocks ahead of the consumer. Blocks are returned in file order.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class OSMPBFReader implements Closeable {
+
+    private static final String TYPE_HEADER = "OSMHeader";
+    private static final String TYPE_DATA = "OSMData";
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int types;
+    private final long[] offsets;
+    private final ArrayDeque<CompletableFuture<PBFBlock>> tasks = new ArrayDeque<>();
+    private final int parallelism;
+    private GeneralEnvelope envelope;
+    private long position = 0;
+    private int offsetIndex = 0;
+
+    /**
+     * @param path PBF file
+     * @param types element types for which features must be created
+     * @param offsets positions of the blocks to read, null to read all blocks
+     * @param parallel true to decode blocks in parallel
+     */
+    OSMPBFReader(final Path path, final int types, final long[] offsets, final boolean parallel) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.types = types;
+        this.offsets = offsets;
+        this.parallelism = parallel ? Math.max(1, ForkJoinPool.getCommonPoolParallelism()) : 0;
+        try {
+            readHeader();
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return envelope declared in the file header, or null
+     */
+    GeneralEnvelope getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * @return next block or null if there are no more blocks
+     */
+    PBFBlock next() throws IOException {
+        if (parallelism == 0) {
+            final long offset = nextOffset();
+            return (offset < 0) ? null : PBFBlock.decode(readBlob(offset, TYPE_DATA), offset, types);
+        }
+
+        while (tasks.size() < parallelism) {
+            final long offset = nextOffset();
+            if (offset < 0) break;
+            final byte[] blob = readBlob(offset, TYPE_DATA);
+            tasks.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return PBFBlock.decode(blob, offset, types);
+                } catch (IOException ex) {
+                    throw new CompletionException(ex);
+                }
+            }));
+        }
+        final CompletableFuture<PBFBlock> task = tasks.poll();
+        if (task == null) return null;
+        try {
+            return task.join();
+        } catch (CompletionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new FeatureStoreRuntimeException(cause);
+        }
+    }
+
+    /**
+     * @return position of the next data blob, or -1 if there are no more blobs
+     */
+    private long nextOffset() throws IOException {
+        if (offsets != null) {
+            return (offsetIndex < offsets.length) ? offsets[offsetIndex++] : -1;
+        }
+        if (position >= channel.size()) return -1;
+        return position;
+    }
+
+    private void readHeader() throws IOException {
+        final ProtobufInput in = new ProtobufInput(PBFBlock.uncompress(readBlob(0, TYPE_HEADER)));
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : readBBox(in.readMessage()); break;
+                case 4 : {
+                    final String feature = in.readString();
+                    if (!"OsmSchema-V0.6".equals(feature) && !"DenseNodes".equals(feature)) {
+                        throw new IOException("Unsupported PBF required feature : " + feature);
+                    }
+                } break;
+                default : in.skip(key);
+            }
+        }
+    }
+
+    private void readBBox(final ProtobufInput in) throws IOException {
+        final double[] bbox = new double[4];
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            final int field = key >>> 3;
+            if (field >= 1 && field <= 4) {
+                bbox[field - 1] = in.readSInt64() * 1e-9;
+            } else {
+                in.skip(key);
+            }
+        }
+        envelope = new GeneralEnvelope(OSMModelConstants.OSM_CRS);
+        envelope.setRange(0, bbox[0], bbox[1]);
+        envelope.setRange(1, bbox[3], bbox[2]);
+    }
+
+    /**
+     * Read a blob header and its blob.
+     * Updates the position to the next blob.
+     *
+     * @param offset blob header position
+     * @param expectedType expected blob type
+     * @return encoded blob
+     */
+    private byte[] readBlob(final long offset, final String expectedType) throws IOException {
+        final ByteBuffer sizeBuffer = read(offset, 4);
+        final int headerSize = sizeBuffer.getInt();
+        if (headerSize <= 0 || headerSize > MAX_HEADER_SIZE) {
+            throw new IOException("Invalid blob header size " + headerSize + " at " + offset);
+        }
+        final ByteBuffer headerBuffer = read(offset + 4, headerSize);
+        final ProtobufInput header = new ProtobufInput(headerBuffer.array());
+        String type = null;
+        int dataSize = -1;
+        while (header.hasMore()) {
+            final int key = header.readKey();
+            switch (key >>> 3) {
+                case 1 : type = header.readString(); break;
+                case 3 : dataSize = header.readInt32(); break;
+                default : header.skip(key);
+            }
+        }
+        if (dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+            throw new IOException("Invalid blob size " + dataSize + " at " + offset);
+        }
+        if (!expectedType.equals(type)) {
+            throw new IOException("Unexpected blob type " + type + " at " + offset + ", expected " + expectedType);
+        }
+        final long blobOffset = offset + 4 + headerSize;
+        position = blobOffset + dataSize;
+        return read(blobOffset, dataSize).array();
+    }
+
+    private ByteBuffer read(long offset, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            final int nb = channel.read(buffer, offset);
+            if (nb < 0) throw new EOFException("Unexpected end of file");
+            offset += nb;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (CompletableFuture<PBFBlock> task : tasks) {
+            task.cancel(true);
+        }
+        for (CompletableFuture<PBFBlock> task : tasks) {
+            try {
+                task.join();
+            } catch (CancellationException | CompletionException ex) {
+                //we don't care about the result anymore
+            }
+        }
+        tasks.clear();
+        channel.close();
+    }
+
+}
@@ -0,0 +1,490 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.geotoolkit.data.osm.model.MemberType;
+import org.geotoolkit.data.osm.model.OSMModelConstants;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+
+import static org.geotoolkit.data.osm.xml.OSMXMLConstants.*;
+
+/**
+ * Decoded OSM PBF primitive block.
+ * <p>
+ * Node coordinates, way node references and relation members are always
+ * decoded in arrays. Features are created only for the requested element types.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class PBFBlock {
+
+    static final int NODE = 1;
+    static final int WAY = 2;
+    static final int RELATION = 4;
+
+    private static final GeometryFactory GF = new GeometryFactory();
+
+    /**
+     * Position of the block in the file.
+     */
+    final long offset;
+
+    /**
+     * Element types found in the block, combination of NODE, WAY and RELATION.
+     */
+    int content = 0;
+
+    //node coordinates in 1e-7 degrees
+    int nodeCount = 0;
+    long[] nodeIds = new long[0];
+    int[] nodeLons = new int[0];
+    int[] nodeLats = new int[0];
+
+    //way node references, in way order
+    final List<long[]> wayRefs = new ArrayList<>();
+    final List<Long> wayIds = new ArrayList<>();
+
+    //relation members, in relation order
+    final List<long[]> memberRefs = new ArrayList<>();
+    final List<MemberType[]> memberTypes = new ArrayList<>();
+    final List<String[]> memberRoles = new ArrayList<>();
+    final List<String> relationTypes = new ArrayList<>();
+
+    /**
+     * Features of the requested types, in file order.
+     */
+    final List<Feature> features = new ArrayList<>();
+
+    //block parameters
+    private final int types;
+    private String[] strings;
+    private long granularity = 100;
+    private long latOffset = 0;
+    private long lonOffset = 0;
+    private long dateGranularity = 1000;
+
+    private PBFBlock(final long offset, final int types) {
+        this.offset = offset;
+        this.types = types;
+    }
+
+    /**
+     * Decode a blob of type OSMData.
+     *
+     * @param blob encoded blob message
+     * @param offset position of the blob in the file
+     * @param types element types for which features must be created
+     */
+    static PBFBlock decode(final byte[] blob, final long offset, final int types) throws IOException {
+        final PBFBlock block = new PBFBlock(offset, types);
+        block.readPrimitiveBlock(uncompress(blob));
+        return block;
+    }
+
+    /**
+     * Uncompress a Blob message.
+     */
+    static byte[] uncompress(final byte[] blob) throws IOException {
+        final ProtobufInput in = new ProtobufInput(blob);
+        byte[] raw = null;
+        byte[] zlib = null;
+        int rawSize = -1;
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : raw = in.readBytes(); break;
+                case 2 : rawSize = in.readInt32(); break;
+                case 3 : zlib = in.readBytes(); break;
+                case 4 : throw new IOException("LZMA compressed blobs are not supported");
+                default : in.skip(key);
+            }
+        }
+        if (raw != null) return raw;
+        if (zlib == null || rawSize < 0) throw new IOException("Invalid blob, no data");
+
+        final byte[] data = new byte[rawSize];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+            int nb = 0;
+            while (nb < rawSize && !inflater.finished()) {
+                final int n = inflater.inflate(data, nb, rawSize - nb);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                nb += n;
+            }
+            if (nb != rawSize) throw new IOException("Invalid blob, uncompressed size does not match");
+        } catch (DataFormatException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        } finally {
+            inflater.end();
+        }
+        return data;
+    }
+
+    private void readPrimitiveBlock(final byte[] data) throws IOException {
+        //groups depend on block parameters which are written after them
+        final List<ProtobufInput> groups = new ArrayList<>();
+        final ProtobufInput in = new ProtobufInput(data);
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : readStringTable(in.readMessage()); break;
+                case 2 : groups.add(in.readMessage()); break;
+                case 17 : granularity = in.readInt32(); break;
+                case 18 : dateGranularity = in.readInt32(); break;
+                case 19 : latOffset = in.readVarint(); break;
+                case 20 : lonOffset = in.readVarint(); break;
+                default : in.skip(key);
+            }
+        }
+        if (strings == null) strings = new String[0];
+        for (ProtobufInput group : groups) {
+            readGroup(group);
+        }
+        if (nodeCount > 0) content |= NODE;
+        if (!wayIds.isEmpty()) content |= WAY;
+        if (!memberRefs.isEmpty()) content |= RELATION;
+    }
+
+    private void readStringTable(final ProtobufInput in) throws IOException {
+        final List<String> list = new ArrayList<>();
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            if ((key >>> 3) == 1) {
+                list.add(in.readString());
+            } else {
+                in.skip(key);
+            }
+        }
+        strings = list.toArray(new String[list.size()]);
+    }
+
+    private void readGroup(final ProtobufInput in) throws IOException {
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : readNode(in.readMessage()); break;
+                case 2 : readDenseNodes(in.readMessage()); break;
+                case 3 : readWay(in.readMessage()); break;
+                case 4 : readRelation(in.readMessage()); break;
+                default : in.skip(key);
+            }
+        }
+    }
+
+    private String string(final int index) throws IOException {
+        if (index < 0 || index >= strings.length) throw new IOException("Invalid string table index " + index);
+        return strings[index];
+    }
+
+    private void addNode(final long id, final long lat, final long lon) {
+        if (nodeCount == nodeIds.length) {
+            final int n = Math.max(256, nodeCount * 2);
+            nodeIds = Arrays.copyOf(nodeIds, n);
+            nodeLats = Arrays.copyOf(nodeLats, n);
+            nodeLons = Arrays.copyOf(nodeLons, n);
+        }
+        nodeIds[nodeCount] = id;
+        //nanodegrees to 1e-7 degrees, OSM precision
+        nodeLats[nodeCount] = (int) Math.round((latOffset + granularity * lat) / 100.0);
+        nodeLons[nodeCount] = (int) Math.round((lonOffset + granularity * lon) / 100.0);
+        nodeCount++;
+    }
+
+    /**
+     * Element metadata, decoded from Info or DenseInfo messages.
+     */
+    private int version = -1;
+    private long timestamp = -1;
+    private long changeset = -1;
+    private int uid = OSMModelConstants.USER_ID_NONE;
+    private String user = null;
+
+    private void resetInfo() {
+        version = -1;
+        timestamp = -1;
+        changeset = -1;
+        uid = OSMModelConstants.USER_ID_NONE;
+        user = null;
+    }
+
+    private void readInfo(final ProtobufInput in) throws IOException {
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : version = in.readInt32(); break;
+                case 2 : timestamp = in.readVarint() * dateGranularity; break;
+                case 3 : changeset = in.readVarint(); break;
+                case 4 : uid = in.readInt32(); break;
+                case 5 : {
+                    //index 0 is the empty string
+                    final int sid = in.readInt32();
+                    if (sid > 0) user = string(sid);
+                } break;
+                default : in.skip(key);
+            }
+        }
+    }
+
+    private Feature createFeature(final FeatureType type, final long id, final List<Feature> tags) {
+        final Feature feature = type.newInstance();
+        if (user != null || uid != OSMModelConstants.USER_ID_NONE) {
+            final Feature u = OSMModelConstants.TYPE_USER.newInstance();
+            u.setPropertyValue(ATT_UID, uid);
+            u.setPropertyValue(ATT_USER, user);
+            feature.setPropertyValue("user", u);
+        }
+        feature.setPropertyValue(ATT_ID, id);
+        if (version >= 0) feature.setPropertyValue(ATT_VERSION, version);
+        if (changeset >= 0) feature.setPropertyValue(ATT_CHANGESET, (int) changeset);
+        if (timestamp >= 0) feature.setPropertyValue(ATT_TIMESTAMP, timestamp);
+        feature.setPropertyValue("tags", tags);
+        return feature;
+    }
+
+    private static Feature tag(final String key, final String value) {
+        final Feature tag = OSMModelConstants.TYPE_TAG.newInstance();
+        tag.setPropertyValue(ATT_TAG_KEY, key);
+        tag.setPropertyValue(ATT_TAG_VALUE, value);
+        return tag;
+    }
+
+    private List<Feature> tags(final int[] keys, final int[] values) throws IOException {
+        final List<Feature> tags = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length && i < values.length; i++) {
+            tags.add(tag(string(keys[i]), string(values[i])));
+        }
+        return tags;
+    }
+
+    private Feature createNode(final long id, final List<Feature> tags) {
+        final Feature node = createFeature(OSMModelConstants.TYPE_NODE, id, tags);
+        final int i = nodeCount - 1;
+        node.setPropertyValue("point", GF.createPoint(new Coordinate(nodeLons[i] / 1e7, nodeLats[i] / 1e7)));
+        return node;
+    }
+
+    private void readNode(final ProtobufInput in) throws IOException {
+        resetInfo();
+        long id = 0, lat = 0, lon = 0;
+        int[] keys = new int[0];
+        int[] vals = new int[0];
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : id = in.readSInt64(); break;
+                case 2 : keys = readPackedInts(in.readMessage()); break;
+                case 3 : vals = readPackedInts(in.readMessage()); break;
+                case 4 : readInfo(in.readMessage()); break;
+                case 8 : lat = in.readSInt64(); break;
+                case 9 : lon = in.readSInt64(); break;
+                default : in.skip(key);
+            }
+        }
+        addNode(id, lat, lon);
+        if ((types & NODE) != 0) {
+            features.add(createNode(id, tags(keys, vals)));
+        }
+    }
+
+    private void readDenseNodes(final ProtobufInput in) throws IOException {
+        long[] ids = null;
+        long[] lats = null;
+        long[] lons = null;
+        int[] keysVals = null;
+        ProtobufInput denseInfo = null;
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : ids = readPackedSInt64Delta(in.readMessage()); break;
+                case 5 : denseInfo = in.readMessage(); break;
+                case 8 : lats = readPackedSInt64Delta(in.readMessage()); break;
+                case 9 : lons = readPackedSInt64Delta(in.readMessage()); break;
+                case 10 : keysVals = readPackedInts(in.readMessage()); break;
+                default : in.skip(key);
+            }
+        }
+        if (ids == null) return;
+        if (lats == null || lons == null || lats.length != ids.length || lons.length != ids.length) {
+            throw new IOException("Invalid dense nodes, coordinates count does not match identifiers");
+        }
+
+        //dense info arrays
+        int[] versions = null;
+        long[] timestamps = null;
+        long[] changesets = null;
+        long[] uids = null;
+        long[] userSids = null;
+        if (denseInfo != null && (types & NODE) != 0) {
+            while (denseInfo.hasMore()) {
+                final int key = denseInfo.readKey();
+                switch (key >>> 3) {
+                    case 1 : versions = readPackedInts(denseInfo.readMessage()); break;
+                    case 2 : timestamps = readPackedSInt64Delta(denseInfo.readMessage()); break;
+                    case 3 : changesets = readPackedSInt64Delta(denseInfo.readMessage()); break;
+                    case 4 : uids = readPackedSInt64Delta(denseInfo.readMessage()); break;
+                    case 5 : userSids = readPackedSInt64Delta(denseInfo.readMessage()); break;
+                    default : denseInfo.skip(key);
+                }
+            }
+        }
+
+        int kv = 0;
+        for (int i = 0; i < ids.length; i++) {
+            addNode(ids[i], lats[i], lons[i]);
+            if ((types & NODE) == 0) continue;
+
+            //tags, key value pairs separated by 0 for each node
+            final List<Feature> tags = new ArrayList<>(0);
+            if (keysVals != null) {
+                while (kv < keysVals.length && keysVals[kv] != 0) {
+                    tags.add(tag(string(keysVals[kv]), string(keysVals[kv + 1])));
+                    kv += 2;
+                }
+                kv++;
+            }
+            resetInfo();
+            if (versions != null && i < versions.length) version = versions[i];
+            if (timestamps != null && i < timestamps.length) timestamp = timestamps[i] * dateGranularity;
+            if (changesets != null && i < changesets.length) changeset = changesets[i];
+            if (uids != null && i < uids.length) uid = (int) uids[i];
+            if (userSids != null && i < userSids.length && userSids[i] > 0) user = string((int) userSids[i]);
+            features.add(createNode(ids[i], tags));
+        }
+    }
+
+    private void readWay(final ProtobufInput in) throws IOException {
+        resetInfo();
+        long id = 0;
+        int[] keys = new int[0];
+        int[] vals = new int[0];
+        long[] refs = new long[0];
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : id = in.readVarint(); break;
+                case 2 : keys = readPackedInts(in.readMessage()); break;
+                case 3 : vals = readPackedInts(in.readMessage()); break;
+                case 4 : readInfo(in.readMessage()); break;
+                case 8 : refs = readPackedSInt64Delta(in.readMessage()); break;
+                default : in.skip(key);
+            }
+        }
+        wayIds.add(id);
+        wayRefs.add(refs);
+        if ((types & WAY) != 0) {
+            final Feature way = createFeature(OSMPBFFeatureStore.TYPE_WAY, id, tags(keys, vals));
+            final List<Long> nodes = new ArrayList<>(refs.length);
+            for (long ref : refs) nodes.add(ref);
+            way.setPropertyValue(TAG_WAYND, nodes);
+            features.add(way);
+        }
+    }
+
+    private void readRelation(final ProtobufInput in) throws IOException {
+        resetInfo();
+        long id = 0;
+        int[] keys = new int[0];
+        int[] vals = new int[0];
+        int[] roles = new int[0];
+        long[] memids = new long[0];
+        int[] mtypes = new int[0];
+        while (in.hasMore()) {
+            final int key = in.readKey();
+            switch (key >>> 3) {
+                case 1 : id = in.readVarint(); break;
+                case 2 : keys = readPackedInts(in.readMessage()); break;
+                case 3 : vals = readPackedInts(in.readMessage()); break;
+                case 4 : readInfo(in.readMessage()); break;
+                case 8 : roles = readPackedInts(in.readMessage()); break;
+                case 9 : memids = readPackedSInt64Delta(in.readMessage()); break;
+                case 10 : mtypes = readPackedInts(in.readMessage()); break;
+                default : in.skip(key);
+            }
+        }
+        if (roles.length != memids.length || mtypes.length != memids.length) {
+            throw new IOException("Invalid relation " + id + ", members arrays do not match");
+        }
+
+        final MemberType[] memberType = new MemberType[memids.length];
+        final String[] memberRole = new String[memids.length];
+        for (int i = 0; i < memids.length; i++) {
+            switch (mtypes[i]) {
+                case 0 : memberType[i] = MemberType.NODE; break;
+                case 1 : memberType[i] = MemberType.WAY; break;
+                case 2 : memberType[i] = MemberType.RELATION; break;
+                default : throw new IOException("Invalid relation member type " + mtypes[i]);
+            }
+            memberRole[i] = string(roles[i]);
+        }
+        String relationType = null;
+        for (int i = 0; i < keys.length && i < vals.length; i++) {
+            if ("type".equals(string(keys[i]))) relationType = string(vals[i]);
+        }
+        memberRefs.add(memids);
+        memberTypes.add(memberType);
+        memberRoles.add(memberRole);
+        relationTypes.add(relationType);
+
+        if ((types & RELATION) != 0) {
+            final Feature relation = createFeature(OSMPBFFeatureStore.TYPE_RELATION, id, tags(keys, vals));
+            final List<Feature> members = new ArrayList<>(memids.length);
+            for (int i = 0; i < memids.length; i++) {
+                final Feature member = OSMModelConstants.TYPE_RELATION_MEMBER.newInstance();
+                member.setPropertyValue(ATT_RELMB_REF, memids[i]);
+                member.setPropertyValue(ATT_RELMB_ROLE, memberRole[i]);
+                member.setPropertyValue(ATT_RELMB_TYPE, memberType[i]);
+                members.add(member);
+            }
+            relation.setPropertyValue("members", members);
+            features.add(relation);
+        }
+    }
+
+    private static int[] readPackedInts(final ProtobufInput in) throws IOException {
+        int[] values = new int[16];
+        int n = 0;
+        while (in.hasMore()) {
+            if (n == values.length) values = Arrays.copyOf(values, n * 2);
+            values[n++] = in.readInt32();
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    private static long[] readPackedSInt64Delta(final ProtobufInput in) throws IOException {
+        long[] values = new long[16];
+        int n = 0;
+        long last = 0;
+        while (in.hasMore()) {
+            if (n == values.length) values = Arrays.copyOf(values, n * 2);
+            last += in.readSInt64();
+            values[n++] = last;
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal protocol buffer decoder, only what is needed to read OSM PBF files.
+ * Messages are read from a byte array without copy, embedded messages and
+ * packed fields are read with a new input on the same array.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class ProtobufInput {
+
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_LENGTH = 2;
+    static final int WIRE_FIXED32 = 5;
+
+    private final byte[] data;
+    private int pos;
+    private final int limit;
+
+    ProtobufInput(final byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    ProtobufInput(final byte[] data, final int offset, final int length) {
+        this.data = data;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    boolean hasMore() {
+        return pos < limit;
+    }
+
+    /**
+     * @return next field key, field number is key &gt;&gt;&gt; 3 and wire type key &amp; 7
+     */
+    int readKey() throws IOException {
+        return (int) readVarint();
+    }
+
+    long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos >= limit) throw new IOException("Truncated protobuf message");
+            final byte b = data[pos++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return result;
+        }
+        throw new IOException("Malformed protobuf varint");
+    }
+
+    int readInt32() throws IOException {
+        return (int) readVarint();
+    }
+
+    long readSInt64() throws IOException {
+        final long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    int readSInt32() throws IOException {
+        return (int) readSInt64();
+    }
+
+    boolean readBool() throws IOException {
+        return readVarint() != 0;
+    }
+
+    /**
+     * Read a length delimited field as a new input, used for embedded messages and packed fields.
+     */
+    ProtobufInput readMessage() throws IOException {
+        final int length = readLength();
+        final ProtobufInput sub = new ProtobufInput(data, pos, length);
+        pos += length;
+        return sub;
+    }
+
+    String readString() throws IOException {
+        final int length = readLength();
+        final String str = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return str;
+    }
+
+    byte[] readBytes() throws IOException {
+        final int length = readLength();
+        final byte[] bytes = new byte[length];
+        System.arraycopy(data, pos, bytes, 0, length);
+        pos += length;
+        return bytes;
+    }
+
+    private int readLength() throws IOException {
+        final long length = readVarint();
+        if (length < 0 || length > limit - pos) throw new IOException("Truncated protobuf message");
+        return (int) length;
+    }
+
+    /**
+     * Skip the value of a field.
+     */
+    void skip(final int key) throws IOException {
+        switch (key & 7) {
+            case WIRE_VARINT  : readVarint(); break;
+            case WIRE_FIXED64 : pos += 8; break;
+            case WIRE_LENGTH  : pos += readLength(); break;
+            case WIRE_FIXED32 : pos += 4; break;
+            default : throw new IOException("Unsupported protobuf wire type " + (key & 7));
+        }
+        if (pos > limit) throw new IOException("Truncated protobuf message");
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.osm.pbf;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.geometry.Envelope;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test reading a small hand encoded PBF file.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class OSMPBFFeatureStoreTest extends org.geotoolkit.test.TestBase {
+
+    private static final double DELTA = 0.0000001;
+
+    @Test
+    public void testRead() throws IOException, DataStoreException {
+        final Path file = Files.createTempFile("test", ".pbf");
+        try {
+            writeTestFile(file);
+            final OSMPBFFeatureStore store = new OSMPBFFeatureStore(null, file);
+            try {
+                final Envelope env = store.getEnvelope(QueryBuilder.all("Node"));
+                assertEquals(0, env.getMinimum(0), DELTA);
+                assertEquals(10, env.getMaximum(0), DELTA);
+                assertEquals(0, env.getMinimum(1), DELTA);
+                assertEquals(10, env.getMaximum(1), DELTA);
+
+                //nodes
+                final Map<Long,Feature> nodes = read(store, "Node");
+                assertEquals(8, nodes.size());
+                final Point pt = (Point) nodes.get(3L).getPropertyValue("point");
+                assertEquals(10, pt.getX(), DELTA);
+                assertEquals(10, pt.getY(), DELTA);
+                assertEquals(1000L, nodes.get(3L).getPropertyValue("timestamp"));
+
+                //ways, read twice, second time with the block index
+                for (int i = 0; i < 2; i++) {
+                    final Map<Long,Feature> ways = read(store, "way");
+                    assertEquals(3, ways.size());
+                    final LineString line = (LineString) ways.get(10L).getPropertyValue(OSMPBFFeatureStore.ATT_GEOMETRY);
+                    assertEquals(5, line.getNumPoints());
+                    assertTrue(line.isClosed());
+                    assertEquals(3, ((LineString) ways.get(11L).getPropertyValue(OSMPBFFeatureStore.ATT_GEOMETRY)).getNumPoints());
+                }
+
+                //relations
+                final Map<Long,Feature> relations = read(store, "Relation");
+                assertEquals(1, relations.size());
+                final Geometry geom = (Geometry) relations.get(20L).getPropertyValue(OSMPBFFeatureStore.ATT_GEOMETRY);
+                assertTrue(geom instanceof MultiPolygon);
+                assertEquals(1, geom.getNumGeometries());
+                assertEquals(1, ((Polygon) geom.getGeometryN(0)).getNumInteriorRing());
+                assertEquals(96, geom.getArea(), DELTA);
+            } finally {
+                store.close();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Map<Long,Feature> read(final OSMPBFFeatureStore store, final String type) throws DataStoreException {
+        final Map<Long,Feature> features = new HashMap<>();
+        try (FeatureReader reader = store.getFeatureReader(QueryBuilder.all(type))) {
+            while (reader.hasNext()) {
+                final Feature f = reader.next();
+                features.put((Long) f.getPropertyValue("id"), f);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Two squares, the small one is split in two ways and is the hole of a multipolygon.
+     * Nodes are in a first block, ways and relations in a second block.
+     */
+    private static void writeTestFile(final Path file) throws IOException {
+        final String[] strings = {"", "type", "multipolygon", "outer", "inner", "name", "square"};
+        final Message table = new Message();
+        for (String str : strings) table.bytes(1, str.getBytes(StandardCharsets.UTF_8));
+
+        //header
+        final Message bbox = new Message().sint(1, 0).sint(2, 10000000000L).sint(3, 10000000000L).sint(4, 0);
+        final Message header = new Message().message(1, bbox)
+                .bytes(4, "OsmSchema-V0.6".getBytes(StandardCharsets.UTF_8))
+                .bytes(4, "DenseNodes".getBytes(StandardCharsets.UTF_8));
+
+        //nodes, in 1e-7 degrees with default granularity
+        final long[] ids = {1, 2, 3, 4, 5, 6, 7, 8};
+        final long[] lons = {0, 0, 10, 10, 2, 2, 4, 4};
+        final long[] lats = {0, 10, 10, 0, 2, 4, 4, 2};
+        for (int i = 0; i < 8; i++) {
+            lons[i] *= 10000000;
+            lats[i] *= 10000000;
+        }
+        final long[] timestamps = {1, 1, 1, 1, 1, 1, 1, 1};
+        final Message denseInfo = new Message().packed(1, new long[]{1, 1, 1, 1, 1, 1, 1, 1}, false)
+                .packed(2, timestamps, true);
+        final Message dense = new Message().packed(1, ids, true).message(5, denseInfo)
+                .packed(8, lats, true).packed(9, lons, true);
+        final Message nodeBlock = new Message().message(1, table)
+                .message(2, new Message().message(2, dense));
+
+        //ways and relation
+        final Message ways = new Message()
+                .message(3, new Message().varint(1, 10).packed(2, new long[]{5}, false).packed(3, new long[]{6}, false)
+                        .packed(8, new long[]{1, 2, 3, 4, 1}, true))
+                .message(3, new Message().varint(1, 11).packed(8, new long[]{5, 6, 7}, true))
+                .message(3, new Message().varint(1, 12).packed(8, new long[]{7, 8, 5}, true));
+        final Message relations = new Message()
+                .message(4, new Message().varint(1, 20).packed(2, new long[]{1}, false).packed(3, new long[]{2}, false)
+                        .packed(8, new long[]{3, 4, 4}, false)
+                        .packed(9, new long[]{10, 11, 12}, true)
+                        .packed(10, new long[]{1, 1, 1}, false));
+        final Message wayBlock = new Message().message(1, table).message(2, ways).message(2, relations);
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeBlob(out, "OSMHeader", new Message().bytes(1, header.toByteArray()));
+            writeBlob(out, "OSMData", zlib(nodeBlock.toByteArray()));
+            writeBlob(out, "OSMData", zlib(wayBlock.toByteArray()));
+        }
+    }
+
+    private static Message zlib(final byte[] data) {
+        final Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return new Message().varint(2, data.length).bytes(3, out.toByteArray());
+    }
+
+    private static void writeBlob(final OutputStream out, final String type, final Message blob) throws IOException {
+        final byte[] data = blob.toByteArray();
+        final byte[] header = new Message().bytes(1, type.getBytes(StandardCharsets.UTF_8)).varint(3, data.length).toByteArray();
+        final DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(header.length);
+        dout.write(header);
+        dout.write(data);
+        dout.flush();
+    }
+
+    /**
+     * Minimal protocol buffer message encoder.
+     */
+    private static final class Message {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Message varint(final int field, final long value) {
+            writeVarint(out, (field << 3) | ProtobufInput.WIRE_VARINT);
+            writeVarint(out, value);
+            return this;
+        }
+
+        Message sint(final int field, final long value) {
+            return varint(field, (value << 1) ^ (value >> 63));
+        }
+
+        Message bytes(final int field, final byte[] value) {
+            writeVarint(out, (field << 3) | ProtobufInput.WIRE_LENGTH);
+            writeVarint(out, value.length);
+            out.write(value, 0, value.length);
+            return this;
+        }
+
+        Message message(final int field, final Message value) {
+            return bytes(field, value.toByteArray());
+        }
+
+        /**
+         * @param delta true for delta encoded sint64 values
+         */
+        Message packed(final int field, final long[] values, final boolean delta) {
+            final ByteArrayOutputStream packed = new ByteArrayOutputStream();
+            long last = 0;
+            for (long v : values) {
+                if (delta) {
+                    final long d = v - last;
+                    writeVarint(packed, (d << 1) ^ (d >> 63));
+                    last = v;
+                } else {
+                    writeVarint(packed, v);
+                }
+            }
+            return bytes(field, packed.toByteArray());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private static void writeVarint(final ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+}
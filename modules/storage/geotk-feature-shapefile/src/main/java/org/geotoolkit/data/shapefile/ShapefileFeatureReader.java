@@ -25,6 +25,7 @@ import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.apache.sis.internal.feature.AttributeConvention;
 
+import org.geotoolkit.data.FeatureBatch;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.factory.Hints;
@@ -159,6 +160,44 @@ public abstract class ShapefileFeatureReader implements FeatureReader {
 
     protected abstract Feature readFeature() throws DataStoreException;
 
+    /**
+     * Fill the batch columns directly from the attribute reader buffer,
+     * no feature object is created.
+     */
+    @Override
+    public FeatureBatch nextBatch(final int maxSize) throws FeatureStoreRuntimeException {
+        if (!hasNext()) return null;
+        final FeatureBatch.Builder builder = new FeatureBatch.Builder(schema, maxSize);
+        final int idColumn = generateId ? builder.indexOf(AttributeConvention.IDENTIFIER_PROPERTY.toString()) : -1;
+        final int[] columns = new int[attributIndexes.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = (attributIndexes[i] == null) ? -1 : builder.indexOf(attributIndexes[i]);
+        }
+
+        try {
+            while (builder.size() < maxSize && attributeReader.hasNext()) {
+                attributeReader.next();
+                final String fid = fidReader.next();
+                if (idColumn >= 0) {
+                    builder.set(idColumn, fid);
+                }
+                attributeReader.read(buffer);
+                if (buffer[0] instanceof Geometry) {
+                    JTS.setCRS((Geometry) buffer[0], geomCRS);
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    if (columns[i] >= 0) {
+                        builder.set(columns[i], buffer[i]);
+                    }
+                }
+                builder.endRow();
+            }
+        } catch (IOException | DataStoreException ex) {
+            throw new FeatureStoreRuntimeException(ex);
+        }
+        return builder.build();
+    }
+
     /**
      * {@inheritDoc }
      */
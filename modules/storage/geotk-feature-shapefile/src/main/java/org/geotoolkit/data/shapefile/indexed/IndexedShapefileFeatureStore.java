@@ -170,6 +170,21 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
         buildQuadTree(maxDepth);
     }
 
+    /**
+     * Rewrites the shapefile with its records sorted along a Hilbert curve,
+     * spatially close features are then stored close to each other.
+     * Feature identifiers are renumbered in the new record order.
+     *
+     * @see ShapeFileClusterer
+     */
+    public void cluster() throws DataStoreException {
+        try {
+            new ShapeFileClusterer(shpFiles).cluster();
+        } catch (IOException ex) {
+            throw new DataStoreException(ex);
+        }
+    }
+
     @Override
     protected void finalize() throws Throwable {
         super.finalize();
@@ -189,6 +204,8 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
         final Hints         queryHints = query.getHints();
         final double[]      queryRes = query.getResolution();
         Filter              queryFilter = query.getFilter();
+        int                 startIndex = query.getStartIndex();
+        Integer             maxFeatures = query.getMaxFeatures();
 
         //check if we must read the 3d values
         final CoordinateReferenceSystem reproject = query.getCoordinateSystemReproject();
@@ -267,9 +284,25 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
             }else{
                 final List<AttributeType> attsProperties = new ArrayList<>(readProperties);
                 attsProperties.remove(idAttribute);
-                reader = createFeatureReader(
-                    getAttributesReader(attsProperties, queryFilter,read3D,queryRes),
-                    readType, queryHints);
+                final CloseableCollection<ShpData> page;
+                if(queryFilter == Filter.INCLUDE && startIndex > 0 && maxFeatures != null
+                        && (query.getSortBy() == null || query.getSortBy().length == 0)){
+                    //no filter and no sort, the page records are read at their shx offsets
+                    page = queryRecordRange(startIndex, maxFeatures);
+                }else{
+                    page = null;
+                }
+                if(page != null){
+                    reader = createFeatureReader(
+                        getAttributesReader(shpFiles.createLocker(), attsProperties, page, read3D, queryRes),
+                        readType, queryHints);
+                    startIndex = 0;
+                    maxFeatures = null;
+                }else{
+                    reader = createFeatureReader(
+                        getAttributesReader(attsProperties, queryFilter,read3D,queryRes),
+                        readType, queryHints);
+                }
             }
         } catch (IOException ex) {
             throw new DataStoreException(ex);
@@ -284,8 +317,8 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
         qb.setHints(queryHints);
         qb.setCRS(query.getCoordinateSystemReproject());
         qb.setSortBy(query.getSortBy());
-        qb.setStartIndex(query.getStartIndex());
-        qb.setMaxFeatures(query.getMaxFeatures());
+        qb.setStartIndex(startIndex);
+        qb.setMaxFeatures(maxFeatures);
         return FeatureStreams.subset(reader, qb.buildQuery());
     }
 
@@ -348,6 +381,16 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
             }
         }
 
+        return getAttributesReader(locker, properties, goodRecs, read3D, resample);
+    }
+
+    /**
+     * Create an attribute reader reading only the given records, or all records if null.
+     */
+    private IndexedShapefileAttributeReader getAttributesReader(final AccessManager locker,
+            final List<? extends AttributeType> properties, final CloseableCollection<ShpData> goodRecs,
+            final boolean read3D, final double[] resample) throws DataStoreException{
+
         final boolean readDBF = !(properties.size()==1 && Geometry.class.isAssignableFrom(properties.get(0).getValueClass()));
         final AttributeType[] atts = properties.toArray(new AttributeType[properties.size()]);
         try {
@@ -458,6 +501,32 @@ public class IndexedShapefileFeatureStore extends ShapefileFeatureStore {
         return records;
     }
 
+    /**
+     * Uses the shx file to find the shp offsets of a range of records.
+     *
+     * @param start index of the first record
+     * @param max maximum number of records
+     * @return records in the range, null if the shx file is not available
+     * @throws IOException
+     */
+    private CloseableCollection<ShpData> queryRecordRange(final int start, final int max) throws IOException {
+        final AccessManager locker = shpFiles.createLocker();
+        final ShxReader shx = locker.getSHXReader(useMemoryMappedBuffer);
+        if (shx == null) {
+            return null;
+        }
+        try {
+            final int end = (int) Math.min((long) start + max, shx.getRecordCount());
+            final CloseableCollection<ShpData> records = new CloseableArrayList(Math.max(0, end - start));
+            for (int recno = start; recno < end; recno++) {
+                records.add(new ShpData(recno + 1, (long) shx.getOffsetInBytes(recno)));
+            }
+            return records;
+        } finally {
+            shx.close();
+        }
+    }
+
     /**
      * Returns true if the index for the given type exists and is useable.
      *
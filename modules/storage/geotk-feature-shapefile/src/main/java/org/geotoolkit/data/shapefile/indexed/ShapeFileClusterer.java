@@ -0,0 +1,491 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.shapefile.indexed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArgumentChecks;
+import org.geotoolkit.data.dbf.DbaseFileHeader;
+import org.geotoolkit.data.shapefile.fix.IndexedFidWriter;
+import org.geotoolkit.data.shapefile.lock.AccessManager;
+import org.geotoolkit.data.shapefile.lock.ShpFiles;
+import org.geotoolkit.data.shapefile.shp.ShapefileHeader;
+import org.geotoolkit.data.shapefile.shp.ShapefileReader;
+import org.geotoolkit.data.shapefile.shp.ShapefileReader.Record;
+import org.geotoolkit.data.shapefile.shx.ShxReader;
+import org.geotoolkit.util.NullProgressListener;
+
+import static org.geotoolkit.data.shapefile.ShapefileFeatureStoreFactory.LOGGER;
+import static org.geotoolkit.data.shapefile.lock.ShpFileType.*;
+
+/**
+ * Rewrites a shapefile with its records sorted along a Hilbert curve, so that
+ * spatially close features are also close in the shp and dbf files. A bounding
+ * box query then reads a few contiguous parts of the files instead of records
+ * scattered across the whole files.
+ * <p>
+ * Records are ordered by the Hilbert index of their bounding box center, in a
+ * grid of 2<sup>order</sup> cells covering the shapefile bounds. The curve is the
+ * same as the 2D curve followed by {@link org.geotoolkit.path.iterator.HilbertIterator},
+ * but the index of a cell is computed directly instead of iterating over all cells.
+ * Indexes are sorted by runs of bounded size which are merged from temporary files,
+ * records are then copied byte for byte to the new shp, shx and dbf files.
+ * <p>
+ * Existing fix and qix files are rebuilt. Feature identifiers are renumbered
+ * in the new record order.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class ShapeFileClusterer {
+
+    /**
+     * Default Hilbert curve order, the grid has 65536 cells on each axis.
+     */
+    public static final int DEFAULT_ORDER = 16;
+
+    /**
+     * Default maximum number of records sorted in memory.
+     */
+    public static final int DEFAULT_RUN_SIZE = 1 << 20;
+
+    /**
+     * Number of bits used by the record number in the sort keys.
+     */
+    private static final int RECORD_BITS = 31;
+
+    private final ShpFiles shpFiles;
+    private int order = DEFAULT_ORDER;
+    private int runSize = DEFAULT_RUN_SIZE;
+
+    /**
+     * @param shpFiles shapefile to rewrite, must be writable.
+     */
+    public ShapeFileClusterer(final ShpFiles shpFiles) {
+        ArgumentChecks.ensureNonNull("shpFiles", shpFiles);
+        this.shpFiles = shpFiles;
+    }
+
+    /**
+     * Set the Hilbert curve order, between 1 and 16.
+     *
+     * @param order curve order
+     */
+    public void setOrder(final int order) {
+        ArgumentChecks.ensureBetween("order", 1, 16, order);
+        this.order = order;
+    }
+
+    /**
+     * Set the maximum number of records sorted in memory. Larger shapefiles are
+     * sorted by runs stored in temporary files, each record uses 8 bytes.
+     *
+     * @param runSize number of records sorted in memory
+     */
+    public void setRunSize(final int runSize) {
+        ArgumentChecks.ensureStrictlyPositive("runSize", runSize);
+        this.runSize = runSize;
+    }
+
+    /**
+     * Rewrite the shapefile, its dbf file and indexes.
+     *
+     * @return number of records
+     * @throws IOException if an error occured while reading or writing the files
+     * @throws DataStoreException if the files are not valid or can not be rewritten
+     */
+    public int cluster() throws IOException, DataStoreException {
+        if (!shpFiles.isWritable()) {
+            throw new DataStoreException("Only local shapefiles can be rewritten.");
+        }
+        final boolean hasFix = shpFiles.exists(FIX);
+        final boolean hasQix = shpFiles.exists(QIX);
+        shpFiles.unloadIndexes();
+
+        final AccessManager locker = shpFiles.createLocker();
+        final List<Path> runs = new ArrayList<>();
+        final int count;
+        try {
+            final ShxReader shx = locker.getSHXReader(false);
+            if (shx == null) {
+                throw new DataStoreException("Shapefile has no shx file.");
+            }
+            count = shx.getRecordCount();
+            final long[] keys;
+            try (ShapefileReader reader = locker.getSHPReader(true, false, false, null)) {
+                keys = sortRuns(reader, count, runs);
+            }
+            final Run merged = (runs.isEmpty()) ? new ArrayRun(keys) : merge(runs);
+            try {
+                copy(locker, shx, count, merged);
+            } finally {
+                merged.close();
+            }
+        } finally {
+            locker.disposeReaderAndWriters();
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        locker.replaceStorageFiles();
+
+        //rebuild indexes, the fix is renumbered in the new record order
+        if (hasFix) {
+            Files.deleteIfExists(shpFiles.getPath(FIX));
+            IndexedFidWriter.generate(shpFiles);
+        }
+        if (hasQix) {
+            final ShapeFileIndexer indexer = new ShapeFileIndexer();
+            indexer.setIdxType(IndexType.QIX);
+            indexer.setShapeFileName(shpFiles);
+            indexer.setMax(-1);
+            try {
+                indexer.index(false, new NullProgressListener());
+            } catch (IOException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new DataStoreException(ex);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compute the sort keys of all records. Keys are returned if they fit in a
+     * single run, otherwise sorted runs are written in temporary files.
+     */
+    private long[] sortRuns(final ShapefileReader reader, final int count, final List<Path> runs)
+            throws IOException {
+        final ShapefileHeader header = reader.getHeader();
+        final double minX = header.minX();
+        final double minY = header.minY();
+        final double spanX = header.maxX() - minX;
+        final double spanY = header.maxY() - minY;
+        final int cells = 1 << order;
+
+        long[] keys = new long[Math.min(count, runSize)];
+        int n = 0;
+        for (int recno = 0; recno < count && reader.hasNext(); recno++) {
+            final Record record = reader.nextRecord();
+            final int x = cell((record.minX + record.maxX) / 2 - minX, spanX, cells);
+            final int y = cell((record.minY + record.maxY) / 2 - minY, spanY, cells);
+            keys[n++] = (hilbertIndex(order, x, y) << RECORD_BITS) | recno;
+            if (n == keys.length && recno + 1 < count) {
+                runs.add(writeRun(keys, n));
+                n = 0;
+            }
+        }
+        if (runs.isEmpty()) {
+            if (n < keys.length) {
+                keys = Arrays.copyOf(keys, n);
+            }
+            Arrays.sort(keys);
+            return keys;
+        }
+        if (n > 0) {
+            runs.add(writeRun(keys, n));
+        }
+        return null;
+    }
+
+    private static int cell(final double offset, final double span, final int cells) {
+        if (!(span > 0)) {
+            return 0;
+        }
+        final double cell = offset / span * (cells - 1);
+        if (!(cell > 0)) {
+            return 0;
+        }
+        return (int) Math.min(cell, cells - 1);
+    }
+
+    /**
+     * Compute the index of a cell along the Hilbert curve.
+     *
+     * @param order curve order, the grid has 2<sup>order</sup> cells on each axis
+     * @param x cell column
+     * @param y cell row
+     * @return cell index along the curve, between 0 and 4<sup>order</sup> - 1
+     */
+    static long hilbertIndex(final int order, int x, int y) {
+        final int last = (1 << order) - 1;
+        long index = 0;
+        for (int s = 1 << (order - 1); s > 0; s >>>= 1) {
+            final int rx = (x & s) != 0 ? 1 : 0;
+            final int ry = (y & s) != 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            //rotate the quadrant
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = last - x;
+                    y = last - y;
+                }
+                final int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return index;
+    }
+
+    private static Path writeRun(final long[] keys, final int n) throws IOException {
+        Arrays.sort(keys, 0, n);
+        final Path file = Files.createTempFile("hilbert", ".run");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (int i = 0; i < n; i++) {
+                out.writeLong(keys[i]);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Merge sorted runs, only one buffer per run is kept in memory.
+     */
+    private static Run merge(final List<Path> runs) throws IOException {
+        final PriorityQueue<Run> queue = new PriorityQueue<>(runs.size());
+        try {
+            for (Path path : runs) {
+                final Run run = new FileRun(path);
+                if (run.next()) {
+                    queue.add(run);
+                } else {
+                    run.close();
+                }
+            }
+        } catch (IOException ex) {
+            for (Run run : queue) {
+                run.close();
+            }
+            throw ex;
+        }
+        return new Run() {
+            @Override
+            boolean next() throws IOException {
+                final Run head = queue.poll();
+                if (head == null) {
+                    return false;
+                }
+                key = head.key;
+                if (head.next()) {
+                    queue.add(head);
+                } else {
+                    head.close();
+                }
+                return true;
+            }
+
+            @Override
+            void close() throws IOException {
+                for (Run run : queue) {
+                    run.close();
+                }
+                queue.clear();
+            }
+        };
+    }
+
+    /**
+     * Copy the records in the order of the sorted keys.
+     */
+    private void copy(final AccessManager locker, final ShxReader shx, final int count, final Run sorted)
+            throws IOException, DataStoreException {
+        final boolean hasDbf = shpFiles.exists(DBF);
+        final SeekableByteChannel shpIn = (SeekableByteChannel) shpFiles.getReadChannel(SHP);
+        final SeekableByteChannel shxIn = (SeekableByteChannel) shpFiles.getReadChannel(SHX);
+        final SeekableByteChannel dbfIn = hasDbf ? (SeekableByteChannel) shpFiles.getReadChannel(DBF) : null;
+        final FileChannel shpChannel = locker.getStorageFile(SHP).getWriteChannel();
+        final FileChannel shxChannel = locker.getStorageFile(SHX).getWriteChannel();
+        final FileChannel dbfChannel = hasDbf ? locker.getStorageFile(DBF).getWriteChannel() : null;
+        try (OutputStream shpOut = new BufferedOutputStream(Channels.newOutputStream(shpChannel));
+             DataOutputStream shxOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(shxChannel)));
+             OutputStream dbfOut = hasDbf ? new BufferedOutputStream(Channels.newOutputStream(dbfChannel)) : null) {
+
+            //headers do not change, same records and bounds, only gaps between records are removed
+            int fileLength = 50;
+            for (int i = 0; i < count; i++) {
+                fileLength += 4 + shx.getContentLength(i);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            shpOut.write(read(shpIn, 0, 100, buffer).putInt(24, fileLength).array(), 0, 100);
+            shxOut.write(read(shxIn, 0, 100, buffer).array(), 0, 100);
+
+            int headerLength = 0;
+            int recordLength = 0;
+            if (hasDbf) {
+                final DbaseFileHeader dbfHeader = new DbaseFileHeader();
+                dbfHeader.readHeader(dbfIn);
+                if (dbfHeader.getNumRecords() != count) {
+                    throw new DataStoreException("Shp and dbf files do not have the same number of records.");
+                }
+                headerLength = dbfHeader.getHeaderLength();
+                recordLength = dbfHeader.getRecordLength();
+                buffer = ensureCapacity(buffer, Math.max(headerLength, recordLength));
+                dbfOut.write(read(dbfIn, 0, headerLength, buffer).array(), 0, headerLength);
+            }
+
+            int offset = 50;
+            int number = 1;
+            while (sorted.next()) {
+                final int recno = (int) (sorted.key & ((1L << RECORD_BITS) - 1));
+
+                //shp record, header is big endian : record number and content length in 16 bits words
+                final int length = shx.getContentLength(recno);
+                buffer = ensureCapacity(buffer, 8 + length * 2);
+                read(shpIn, shx.getOffsetInBytes(recno), 8 + length * 2, buffer).putInt(0, number++);
+                shpOut.write(buffer.array(), 0, 8 + length * 2);
+                shxOut.writeInt(offset);
+                shxOut.writeInt(length);
+                offset += 4 + length;
+
+                if (hasDbf) {
+                    read(dbfIn, headerLength + (long) recno * recordLength, recordLength, buffer);
+                    dbfOut.write(buffer.array(), 0, recordLength);
+                }
+            }
+            if (number != count + 1) {
+                throw new DataStoreException("Shapefile records could not be sorted, expected "
+                        + count + " records but found " + (number - 1));
+            }
+
+            if (hasDbf) {
+                //copy end of file marker
+                final long end = headerLength + (long) count * recordLength;
+                final int remaining = (int) Math.max(0, dbfIn.size() - end);
+                buffer = ensureCapacity(buffer, remaining);
+                dbfOut.write(read(dbfIn, end, remaining, buffer).array(), 0, remaining);
+            }
+        } finally {
+            shpIn.close();
+            shxIn.close();
+            if (dbfIn != null) {
+                dbfIn.close();
+            }
+        }
+    }
+
+    private static ByteBuffer ensureCapacity(final ByteBuffer buffer, final int size) {
+        return (buffer.capacity() < size) ? ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2)) : buffer;
+    }
+
+    /**
+     * Read the given bytes at the beginning of the buffer.
+     */
+    private static ByteBuffer read(final SeekableByteChannel channel, final long position,
+            final int length, final ByteBuffer buffer) throws IOException {
+        channel.position(position);
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of file at position " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * A sorted sequence of keys.
+     */
+    private abstract static class Run implements Comparable<Run> {
+
+        long key;
+
+        abstract boolean next() throws IOException;
+
+        void close() throws IOException {
+        }
+
+        @Override
+        public int compareTo(final Run other) {
+            return Long.compare(key, other.key);
+        }
+    }
+
+    private static final class ArrayRun extends Run {
+
+        private final long[] keys;
+        private int index;
+
+        ArrayRun(final long[] keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        boolean next() {
+            if (index < keys.length) {
+                key = keys[index++];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class FileRun extends Run {
+
+        private final DataInputStream in;
+
+        FileRun(final Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+                return true;
+            } catch (EOFException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 1 || !args[0].toLowerCase().endsWith(".shp")) {
+            System.out.println("Usage: ShapeFileClusterer <shape file>");
+            System.exit(1);
+        }
+        final long start = System.currentTimeMillis();
+        final int count = new ShapeFileClusterer(new ShpFiles(Paths.get(args[0]))).cluster();
+        LOGGER.log(Level.INFO, "{0} records sorted in {1}ms.",
+                new Object[]{count, System.currentTimeMillis() - start});
+    }
+}
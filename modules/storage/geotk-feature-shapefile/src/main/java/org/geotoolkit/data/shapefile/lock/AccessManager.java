@@ -121,6 +121,21 @@ public final class AccessManager {
             return null;
         }
 
+        if (memoryMapped) {
+            final ByteBuffer mapping = files.acquireMapping(ShpFileType.DBF);
+            if (mapping != null) {
+                final DbaseFileReader reader;
+                try {
+                    reader = new DbaseFileReader(mapping, () -> files.releaseMapping(mapping), set);
+                } catch (IOException | RuntimeException ex) {
+                    files.releaseMapping(mapping);
+                    throw ex;
+                }
+                readEntries.add(new AccessEntry(ShpFileType.DBF, uri, reader));
+                return reader;
+            }
+        }
+
         final ReadableByteChannel rbc = toClosingChannel(files.getReadChannel(uri),false);
         final DbaseFileReader reader = new DbaseFileReader(rbc, memoryMapped, set);
         readEntries.add(new AccessEntry(ShpFileType.DBF, uri, reader));
@@ -131,8 +146,16 @@ public final class AccessManager {
             final boolean read3D, final double[] resample) throws IOException, DataStoreException{
 
         final URI shpUrl = files.getURI(ShpFileType.SHP);
-        final ReadableByteChannel shpChannel = toClosingChannel(files.getReadChannel(shpUrl),false);
         final URI shxUrl = files.getURI(ShpFileType.SHX);
+
+        if (memoryMapped) {
+            final ShapefileReader shpReader = getMappedSHPReader(shpUrl, shxUrl, strict, read3D, resample);
+            if (shpReader != null) {
+                return shpReader;
+            }
+        }
+
+        final ReadableByteChannel shpChannel = toClosingChannel(files.getReadChannel(shpUrl),false);
         final ReadableByteChannel shxChannel;
         if (shxUrl == null || (files.isWritable() && !files.exists(shxUrl)) ) {
             //shx does not exist
@@ -148,6 +171,60 @@ public final class AccessManager {
         return shpReader;
     }
 
+    /**
+     * Create a shapefile reader over the shared memory mappings of the shp and shx files.
+     * No read lock is held by the reader, the mappings stay readable even if the files are replaced.
+     *
+     * @return reader or null if the files can not be mapped
+     */
+    private ShapefileReader getMappedSHPReader(final URI shpUrl, final URI shxUrl, final boolean strict,
+            final boolean read3D, final double[] resample) throws IOException, DataStoreException {
+        final ByteBuffer shpMapping = files.acquireMapping(ShpFileType.SHP);
+        if (shpMapping == null) {
+            return null;
+        }
+
+        ShxReader shxReader = null;
+        try {
+            if (shxUrl != null && files.exists(shxUrl)) {
+                shxReader = getMappedSHXReader();
+                if (shxReader == null) {
+                    files.releaseMapping(shpMapping);
+                    return null;
+                }
+            }
+            final ShapefileReader shpReader = new ShapefileReader(shpMapping, shxReader,
+                    () -> files.releaseMapping(shpMapping), strict, read3D, resample);
+            readEntries.add(new AccessEntry(ShpFileType.SHP, shpUrl, shpReader));
+            readEntries.add(new AccessEntry(ShpFileType.SHX, shxUrl, shpReader));
+            return shpReader;
+        } catch (IOException | DataStoreException | RuntimeException ex) {
+            files.releaseMapping(shpMapping);
+            if (shxReader != null) {
+                shxReader.close();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Create an index reader over the shared memory mapping of the shx file.
+     *
+     * @return reader or null if the file can not be mapped
+     */
+    private ShxReader getMappedSHXReader() throws IOException {
+        final ByteBuffer mapping = files.acquireMapping(ShpFileType.SHX);
+        if (mapping == null) {
+            return null;
+        }
+        try {
+            return new ShxReader(mapping, () -> files.releaseMapping(mapping));
+        } catch (IOException | RuntimeException ex) {
+            files.releaseMapping(mapping);
+            throw ex;
+        }
+    }
+
     public ShxReader getSHXReader(final boolean memoryMapped) throws IOException {
         final URI shxUrl = files.getURI(ShpFileType.SHX);
         if (shxUrl == null) {
@@ -158,6 +235,14 @@ public final class AccessManager {
             return null;
         }
 
+        if (memoryMapped) {
+            final ShxReader reader = getMappedSHXReader();
+            if (reader != null) {
+                readEntries.add(new AccessEntry(ShpFileType.SHX, shxUrl, reader));
+                return reader;
+            }
+        }
+
         final ReadableByteChannel shxChannel = toClosingChannel(files.getReadChannel(shxUrl),false);
         final ShxReader reader = new ShxReader(shxChannel, memoryMapped);
         readEntries.add(new AccessEntry(ShpFileType.SHX, shxUrl, reader));
@@ -253,8 +338,12 @@ public final class AccessManager {
         getWriteLock();
         try{
             final StorageFile[] files = tempFiles.toArray(new StorageFile[tempFiles.size()]);
+            //release unused mappings before replacing the files
+            this.files.invalidateMappings();
             StorageFile.replaceOriginals(files);
         }finally{
+            //readers opened during the replacement may have mapped the old files
+            files.invalidateMappings();
             tempFiles.clear();
             //whatever happens we release the lock
             releaseWriteLock();
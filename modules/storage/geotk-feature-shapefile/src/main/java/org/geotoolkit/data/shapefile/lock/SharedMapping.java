@@ -0,0 +1,127 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.shapefile.lock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Read only memory mapping of one of the shapefile files, shared by all readers
+ * of a {@link ShpFiles}. Readers work on their own duplicate of the mapped buffer,
+ * the mapping itself is never modified.
+ * <p>
+ * The number of readers using the mapping is counted. The buffer is dropped when
+ * the last reader releases it, so the mapping can be collected and the file
+ * replaced. Once invalidated, because the file has been replaced or modified,
+ * the mapping is not given to new readers.
+ * </p>
+ * All methods must be called while holding the {@link ShpFiles} monitor.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+final class SharedMapping {
+
+    private final Path path;
+    private final long size;
+    private final FileTime modified;
+    private ByteBuffer buffer;
+    private int references = 0;
+    private boolean valid = true;
+
+    private SharedMapping(final Path path, final BasicFileAttributes attributes, final ByteBuffer buffer) {
+        this.path = path;
+        this.size = attributes.size();
+        this.modified = attributes.lastModifiedTime();
+        this.buffer = buffer;
+    }
+
+    /**
+     * Map the given file in memory.
+     *
+     * @param path file to map
+     * @return mapping of the whole file, or null if the file is too large to be mapped in a single buffer.
+     * @throws IOException if the file can not be read
+     */
+    static SharedMapping map(final Path path) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attributes.size() > Integer.MAX_VALUE) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SharedMapping(path, attributes,
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, attributes.size()));
+        }
+    }
+
+    /**
+     * Check the file has not been modified since it was mapped.
+     *
+     * @return true if the mapping can still be given to readers
+     */
+    boolean isCurrent() {
+        if (!valid) return false;
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.size() == size && attributes.lastModifiedTime().equals(modified);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a new read only view over the mapping. Each call must be followed
+     * by a call to {@link #release() } once the view is not used anymore.
+     *
+     * @return independent view, starting at position 0
+     */
+    ByteBuffer acquire() {
+        references++;
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Release a view obtained from {@link #acquire() }.
+     * The mapping is invalidated when no view is in use anymore.
+     *
+     * @return true if the mapping is not used anymore
+     */
+    boolean release() {
+        references--;
+        if (references == 0) {
+            invalidate();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Mark this mapping as outdated. Views in use stay readable.
+     */
+    void invalidate() {
+        valid = false;
+        if (references == 0) {
+            buffer = null;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.geotoolkit.data.shapefile.lock;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.*;
@@ -317,6 +318,7 @@ public final class ShpFiles {
 
         acquireWriteLock();
         try {
+            invalidateMappings();
             for (URI uri : uris.values()) {
                 Files.deleteIfExists(Paths.get(uri));
             }
@@ -503,9 +505,11 @@ public final class ShpFiles {
                 quadTree.close();
             } catch (StoreException ex) {
                 LOGGER.log(Level.WARNING, "Failed to close quad tree.", ex);
+            } finally {
                 quadTree = null;
             }
         }
+        qixStore = null;
     }
 
     public synchronized QuadTree getQIX() throws StoreException{
@@ -544,6 +548,77 @@ public final class ShpFiles {
         return quadTree;
     }
 
+    ////////////////////////////////////////////////////////////////////////////
+    // Memory mappings : shared by all readers /////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    private final Map<ShpFileType,SharedMapping> mappings = new EnumMap<>(ShpFileType.class);
+    private final Map<ByteBuffer,SharedMapping> views = new IdentityHashMap<>();
+
+    /**
+     * Get a read only view over the memory mapping of the given file.
+     * The mapping is created on first access and shared by all readers until
+     * the last one releases it, it is remapped if the file has been modified
+     * since. No strong reference to the mapping is kept once all views are
+     * released, so the file can be replaced. The view must be released
+     * using {@link #releaseMapping(ByteBuffer) } when not used anymore.
+     *
+     * @param type file to map
+     * @return view starting at position 0, or null if the file is not local or can not be mapped.
+     * @throws IOException if the file can not be mapped
+     */
+    synchronized ByteBuffer acquireMapping(final ShpFileType type) throws IOException {
+        if (!isWritable()) {
+            return null;
+        }
+        SharedMapping mapping = mappings.get(type);
+        if (mapping == null || !mapping.isCurrent()) {
+            if (mapping != null) {
+                mapping.invalidate();
+            }
+            mapping = SharedMapping.map(getPath(type));
+            if (mapping == null) {
+                mappings.remove(type);
+                return null;
+            }
+            mappings.put(type, mapping);
+        }
+        final ByteBuffer view = mapping.acquire();
+        views.put(view, mapping);
+        return view;
+    }
+
+    /**
+     * Release a view obtained from {@link #acquireMapping(ShpFileType) }.
+     *
+     * @param view view to release
+     */
+    synchronized void releaseMapping(final ByteBuffer view) {
+        final SharedMapping mapping = views.remove(view);
+        if (mapping != null && mapping.release()) {
+            mappings.values().remove(mapping);
+        }
+    }
+
+    /**
+     * Drop the current mappings, new readers will map the files again.
+     * <p>
+     * Views in use are not affected, they keep reading the mapped file.
+     * This is safe only when the file is replaced by a new one, as done by
+     * {@link StorageFile#replaceOriginals(StorageFile...) } when the move succeeds
+     * on a platform unlinking the old file. If the file is rewritten in place,
+     * which happens when the move falls back to a copy, views in use see the new
+     * content or fail if the file is shorter. On Windows a file can not be replaced
+     * while a view over it is in use.
+     * </p>
+     */
+    synchronized void invalidateMappings() {
+        for (SharedMapping mapping : mappings.values()) {
+            mapping.invalidate();
+        }
+        mappings.clear();
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder("Shapefile URIs :");
@@ -125,6 +125,11 @@ public final class ShapefileReader implements Closeable{
     private ReadableByteChannel channel;
     ByteBuffer buffer;
 
+    /** Called when this reader is closed, if created over a shared buffer. */
+    private Runnable release;
+    private final boolean shared;
+    private boolean closed = false;
+
     /**
      * Creates a new instance of ShapeFile.
      *
@@ -144,6 +149,7 @@ public final class ShapefileReader implements Closeable{
             final boolean strict,final boolean useMemoryMapped, final boolean read3D,
             final double[] resample) throws IOException, DataStoreException {
         this.channel = shpChannel;
+        this.shared = false;
         this.randomAccessEnabled = channel instanceof FileChannel;
 
         header = readHeader(channel, strict);
@@ -184,6 +190,60 @@ public final class ShapefileReader implements Closeable{
         record.end = this.toFileOffset(buffer.position());
     }
 
+    /**
+     * Creates a reader over a buffer containing the whole shapefile.
+     * The buffer content is only read, it can be a view over a memory mapping
+     * shared with other readers, each reader having its own position.
+     *
+     * @param shpBuffer
+     *                Buffer of the shapefile, the header starts at position 0.
+     * @param shxReader
+     *                The index reader, can be null. It is closed with this reader.
+     * @param release
+     *                Called once when this reader is closed, can be null.
+     * @param strict
+     *                True to make the header parsing throw Exceptions if the
+     *                version or magic number are incorrect.
+     * @throws IOException
+     *                 If problems arise.
+     * @throws ShapefileException
+     *                 If for some reason the file contains invalid records.
+     */
+    public ShapefileReader(final ByteBuffer shpBuffer, final ShxReader shxReader, final Runnable release,
+            final boolean strict, final boolean read3D, final double[] resample)
+            throws IOException, DataStoreException {
+        this.channel = null;
+        this.release = release;
+        this.shared = true;
+        this.randomAccessEnabled = true;
+        this.useMemoryMappedBuffer = true;
+
+        buffer = shpBuffer.duplicate();
+        buffer.position(0);
+        header = ShapefileHeader.read(buffer, strict);
+
+        this.shxReader = shxReader;
+        if (shxReader == null) {
+            currentShape = UNKNOWN;
+        }
+
+        fileShapeType = header.getShapeType();
+        handler = fileShapeType.getShapeHandler(read3D,resample);
+
+        if (handler == null) {
+            throw new IOException("Unsuported shape type:" + fileShapeType);
+        }
+
+        buffer.position(100);
+        this.currentOffset = 0;
+
+        headerTransfer = ByteBuffer.allocate(8);
+        headerTransfer.order(ByteOrder.BIG_ENDIAN);
+
+        // make sure the record end is set now...
+        record.end = this.toFileOffset(buffer.position());
+    }
+
     /**
      * Disables .shx file usage. By doing so you drop support for sparse shapefiles, the
      * .shp will have to be without holes, all the valid shapefile records will have to
@@ -291,10 +351,20 @@ public final class ShapefileReader implements Closeable{
         }
         shxReader = null;
         channel = null;
+        if (shared && !closed) {
+            closed = true;
+            if (release != null) {
+                release.run();
+                release = null;
+            }
+        }
     }
 
     @Override
     public boolean isClosed() {
+        if (shared) {
+            return closed;
+        }
         if(channel != null){
             return !channel.isOpen();
         }
@@ -658,7 +728,7 @@ public final class ShapefileReader implements Closeable{
      */
     public int getCount() throws DataStoreException {
 
-        if (channel == null) return -1;
+        if (shared ? closed : channel == null) return -1;
 
         int count = 0;
         final long offset = currentOffset;
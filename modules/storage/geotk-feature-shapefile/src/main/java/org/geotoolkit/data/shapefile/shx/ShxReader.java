@@ -60,6 +60,7 @@ public final class ShxReader implements Closeable{
     private int recOffset;
     private int recLen;
     private int[] content;
+    private Runnable release;
 
     private volatile boolean closed = false;
 
@@ -113,6 +114,29 @@ public final class ShxReader implements Closeable{
         }
     }
 
+    /**
+     * Creates a reader over a buffer containing the whole index file.
+     * Records are read in place, the buffer can be a view over a memory
+     * mapping shared with other readers.
+     *
+     * @param shxBuffer buffer of the index file, the header starts at position 0.
+     * @param release called once when this reader is closed, can be null.
+     * @throws IOException If the header is invalid.
+     */
+    public ShxReader(final ByteBuffer shxBuffer, final Runnable release) throws IOException {
+
+        // init the tracer if we need to debug a connection leak
+        assert (creationStack = new IllegalStateException().fillInStackTrace()) != null;
+
+        this.useMemoryMappedBuffer = true;
+        this.release = release;
+        this.channel = null;
+        this.buffer = shxBuffer.duplicate();
+        this.buffer.position(0);
+        header = ShapefileHeader.read(buffer, true);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
     /**
      * Get the header of this index file.
      *
@@ -182,6 +206,10 @@ public final class ShxReader implements Closeable{
             channel.close();
         }
         this.content = null;
+        if (release != null) {
+            release.run();
+            release = null;
+        }
     }
 
     @Override
@@ -230,8 +258,11 @@ public final class ShxReader implements Closeable{
                 this.readRecord(index);
             }
             return this.recOffset;
-        } else {
+        } else if (content != null) {
             return content[2 * index];
+        } else {
+            check();
+            return buffer.getInt(100 + index * 8);
         }
     }
 
@@ -260,8 +291,11 @@ public final class ShxReader implements Closeable{
                 this.readRecord(index);
             }
             return this.recLen;
-        } else {
+        } else if (content != null) {
             return content[2 * index + 1];
+        } else {
+            check();
+            return buffer.getInt(100 + index * 8 + 4);
         }
     }
 
@@ -0,0 +1,95 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.shapefile;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.geotoolkit.ShapeTestData;
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.query.QueryBuilder;
+
+/**
+ * Reads the same shapefile from many threads at once, with the shared memory
+ * mappings and with a channel per reader, and reports the reading throughput.
+ *
+ * Use example : java BenchMarkConcurrentReading /data/roads.shp 200 50
+ * (shapefile, number of threads, number of full reads per thread)
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkConcurrentReading {
+
+    public static void main(String[] args) throws Exception {
+        final URI uri;
+        if (args.length > 0) {
+            uri = new File(args[0]).toURI();
+        } else {
+            ShapeTestData.copy(AbstractTestCaseSupport.class, "shapes/statepop.dbf");
+            ShapeTestData.copy(AbstractTestCaseSupport.class, "shapes/statepop.shx");
+            uri = ShapeTestData.copy(AbstractTestCaseSupport.class, "shapes/statepop.shp").toURI();
+        }
+        final int nbThread = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        final int nbRead   = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+
+        for (int i = 0; i < 3; i++) {
+            run(uri, false, nbThread, nbRead);
+            run(uri, true, nbThread, nbRead);
+        }
+    }
+
+    private static void run(final URI uri, final boolean memoryMapped, final int nbThread,
+            final int nbRead) throws Exception {
+        final ShapefileFeatureStore store = new ShapefileFeatureStore(uri, memoryMapped, null);
+        final ExecutorService executor = Executors.newFixedThreadPool(nbThread);
+        try {
+            final List<Callable<Long>> tasks = new ArrayList<>();
+            for (int t = 0; t < nbThread; t++) {
+                tasks.add(() -> {
+                    long count = 0;
+                    for (int i = 0; i < nbRead; i++) {
+                        try (FeatureReader reader = store.getFeatureReader(QueryBuilder.all(store.getName()))) {
+                            while (reader.hasNext()) {
+                                reader.next();
+                                count++;
+                            }
+                        }
+                    }
+                    return count;
+                });
+            }
+            final long before = System.nanoTime();
+            long count = 0;
+            for (Future<Long> result : executor.invokeAll(tasks)) {
+                count += result.get();
+            }
+            final long time = (System.nanoTime() - before) / 1000000;
+            System.out.println((memoryMapped ? "Shared mapping : " : "Channels       : ")
+                    + nbThread * nbRead + " reads, " + count + " features in " + time + " ms, "
+                    + (count * 1000 / Math.max(1, time)) + " features/s");
+        } finally {
+            executor.shutdown();
+            store.close();
+        }
+    }
+
+}
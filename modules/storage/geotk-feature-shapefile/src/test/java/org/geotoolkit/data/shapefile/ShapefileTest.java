@@ -27,10 +27,13 @@ import org.geotoolkit.ShapeTestData;
 import org.geotoolkit.data.session.Session;
 import org.geotoolkit.data.shapefile.lock.AccessManager;
 import org.geotoolkit.data.FeatureStore;
+import org.geotoolkit.data.FeatureWriter;
 import org.geotoolkit.data.shapefile.shx.ShxReader;
 import org.geotoolkit.data.shapefile.shp.ShapefileReader;
 import org.geotoolkit.data.shapefile.lock.ShpFiles;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.dbf.DbaseFileReader;
+import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.test.TestData;
 import org.opengis.util.GenericName;
@@ -44,6 +47,7 @@ import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import static org.junit.Assert.*;
 import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
+import org.opengis.filter.FilterFactory;
 
 /**
  *
@@ -229,6 +233,112 @@ public class ShapefileTest extends AbstractTestCaseSupport {
         }
     }
 
+    /**
+     * Memory mapped readers share the file mappings, new readers must see
+     * the files once modified.
+     */
+    @Test
+    public void testSharedMapping() throws Exception {
+        final File file = copyShapefiles(STATEPOP);
+        final ShpFiles shpFiles = new ShpFiles(file);
+        AccessManager locker = shpFiles.createLocker();
+        final ShapefileReader reader1 = locker.getSHPReader(false, true, true, null);
+        final ShapefileReader reader2 = locker.getSHPReader(false, true, true, null);
+        final DbaseFileReader dbf = locker.getDBFReader(true, ShapefileFeatureStore.DEFAULT_STRING_CHARSET);
+        int cnt = 0;
+        try {
+            //readers have independent positions
+            reader2.nextRecord();
+            while (reader1.hasNext()) {
+                final ShapefileReader.Record record = reader1.nextRecord();
+                assertTrue(dbf.hasNext());
+                dbf.next();
+                if (reader2.hasNext()) {
+                    assertTrue(reader2.nextRecord().offset() > record.offset());
+                }
+                cnt++;
+            }
+            assertFalse(reader2.hasNext());
+            assertFalse(dbf.hasNext());
+        } finally {
+            reader1.close();
+            reader2.close();
+            dbf.close();
+        }
+        assertEquals(49, cnt);
+        assertTrue(reader1.isClosed());
+        assertTrue(dbf.isClosed());
+
+        final ShapefileFeatureStore store = new ShapefileFeatureStore(file.toURI(), true, null);
+        try {
+            final FilterFactory ff = FactoryFinder.getFilterFactory(null);
+            store.removeFeatures(store.getName().toString(),
+                    ff.equals(ff.property("STATE_NAME"), ff.literal("Texas")));
+        } finally {
+            store.close();
+        }
+
+        locker = shpFiles.createLocker();
+        final ShapefileReader reader = locker.getSHPReader(false, true, true, null);
+        cnt = 0;
+        try {
+            while (reader.hasNext()) {
+                reader.nextRecord().shape();
+                cnt++;
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(48, cnt);
+    }
+
+    /**
+     * Files must be replaced by a feature writer while a memory mapped
+     * reader is open, new readers must see the new content.
+     */
+    @Test
+    public void testReplaceWhileMapped() throws Exception {
+        final File file = copyShapefiles(STATEPOP);
+        final ShapefileFeatureStore store = new ShapefileFeatureStore(file.toURI(), true, null);
+        try {
+            final String name = store.getName().toString();
+            final ShapefileReader opened = store.shpFiles.createLocker().getSHPReader(false, true, true, null);
+            try {
+                assertTrue(opened.hasNext());
+                opened.nextRecord();
+
+                final FilterFactory ff = FactoryFinder.getFilterFactory(null);
+                try (FeatureWriter writer = store.getFeatureWriter(QueryBuilder.filtered(name,
+                        ff.equals(ff.property("STATE_NAME"), ff.literal("Texas"))))) {
+                    assertTrue(writer.hasNext());
+                    writer.next();
+                    writer.remove();
+                }
+            } finally {
+                opened.close();
+            }
+
+            final AccessManager locker = store.shpFiles.createLocker();
+            final ShapefileReader reader = locker.getSHPReader(false, true, true, null);
+            final DbaseFileReader dbf = locker.getDBFReader(true, ShapefileFeatureStore.DEFAULT_STRING_CHARSET);
+            int cnt = 0;
+            try {
+                while (reader.hasNext()) {
+                    reader.nextRecord().shape();
+                    assertTrue(dbf.hasNext());
+                    assertFalse("Texas".equals(dbf.next().read(0)));
+                    cnt++;
+                }
+            } finally {
+                reader.close();
+                dbf.close();
+            }
+            assertEquals(48, cnt);
+        } finally {
+            store.close();
+        }
+    }
+
     protected void loadShapes(final String resource, final int expected) throws Exception {
         final URL url = ShapeTestData.url(resource);
         final ShpFiles shpFiles = new ShpFiles(url);
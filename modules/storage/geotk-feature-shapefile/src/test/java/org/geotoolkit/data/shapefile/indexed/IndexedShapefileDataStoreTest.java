@@ -66,6 +66,7 @@ import com.vividsolutions.jts.geom.Point;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import org.geotoolkit.feature.FeatureExt;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
 import org.apache.sis.internal.feature.AttributeConvention;
@@ -79,6 +80,7 @@ import org.opengis.util.GenericName;
 
 import org.geotoolkit.geometry.DefaultBoundingBox;
 import static org.junit.Assert.*;
+import org.opengis.feature.AttributeType;
 import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
 import org.opengis.feature.PropertyType;
@@ -769,6 +771,57 @@ public class IndexedShapefileDataStoreTest extends AbstractTestCaseSupport {
         assertEquals(initialCount - 2, afterCount);
     }
 
+    /**
+     * Pages read with start index and max features must be the same as
+     * the corresponding part of a full read.
+     */
+    @Test
+    public void testPagedRead() throws Exception {
+        final File shpFile = copyShapefiles(STATE_POP);
+        for (boolean memoryMapped : new boolean[]{false, true}) {
+            final IndexedShapefileFeatureStore ds = new IndexedShapefileFeatureStore(
+                    shpFile.toURI(), memoryMapped, true, IndexType.QIX, null);
+            try {
+                final String typeName = ds.getName().toString();
+                final List<String> all = readRecords(ds, QueryBuilder.all(typeName));
+                assertEquals(49, all.size());
+
+                final int[][] pages = {{1, 10}, {17, 1}, {20, 29}, {40, 20}, {48, 5}, {49, 5}, {60, 3}};
+                for (int[] page : pages) {
+                    final QueryBuilder qb = new QueryBuilder(typeName);
+                    qb.setStartIndex(page[0]);
+                    qb.setMaxFeatures(page[1]);
+                    final int start = Math.min(page[0], all.size());
+                    final int end = Math.min(page[0] + page[1], all.size());
+                    assertEquals("page " + page[0] + "+" + page[1], all.subList(start, end),
+                            readRecords(ds, qb.buildQuery()));
+                }
+            } finally {
+                ds.close();
+            }
+        }
+    }
+
+    /**
+     * Read the identifier and attribute values of each feature.
+     */
+    private static List<String> readRecords(final FeatureStore ds, final Query query) throws Exception {
+        final List<String> records = new ArrayList<>();
+        try (FeatureReader reader = ds.getFeatureReader(query)) {
+            while (reader.hasNext()) {
+                final Feature feature = reader.next();
+                final StringBuilder sb = new StringBuilder(FeatureExt.getId(feature).getID());
+                for (PropertyType property : feature.getType().getProperties(true)) {
+                    if (property instanceof AttributeType) {
+                        sb.append(' ').append(feature.getPropertyValue(property.getName().toString()));
+                    }
+                }
+                records.add(sb.toString());
+            }
+        }
+        return records;
+    }
+
     private int count(final FeatureStore ds, final String typeName, final Filter filter) throws Exception {
         FeatureReader reader;
         reader = ds.getFeatureReader(QueryBuilder.filtered(typeName, filter));
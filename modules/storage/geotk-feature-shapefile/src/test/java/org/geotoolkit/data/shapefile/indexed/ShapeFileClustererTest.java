@@ -0,0 +1,137 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.shapefile.indexed;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.query.QueryBuilder;
+import org.geotoolkit.data.shapefile.AbstractTestCaseSupport;
+import org.geotoolkit.data.shapefile.lock.ShpFiles;
+import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.feature.FeatureExt;
+import org.geotoolkit.geometry.jts.JTSEnvelope2D;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.filter.FilterFactory2;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Hilbert curve rewrite of shapefiles.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class ShapeFileClustererTest extends AbstractTestCaseSupport {
+
+    private static final String STATE_POP = "shapes/statepop.shp";
+
+    /**
+     * Each cell must have a distinct index and consecutive cells must be neighbors.
+     */
+    @Test
+    public void testHilbertIndex() {
+        final int order = 4;
+        final int size = 1 << order;
+        final int[][] cells = new int[size * size][];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                final int index = (int) ShapeFileClusterer.hilbertIndex(order, x, y);
+                assertNull("Index " + index + " used twice.", cells[index]);
+                cells[index] = new int[]{x, y};
+            }
+        }
+        for (int i = 1; i < cells.length; i++) {
+            final int distance = Math.abs(cells[i][0] - cells[i-1][0]) + Math.abs(cells[i][1] - cells[i-1][1]);
+            assertEquals("Cells " + (i-1) + " and " + i + " are not neighbors.", 1, distance);
+        }
+    }
+
+    /**
+     * Features must be preserved by the rewrite, indexes must be usable.
+     */
+    @Test
+    public void testCluster() throws Exception {
+        final File shpFile = copyShapefiles(STATE_POP);
+
+        IndexedShapefileFeatureStore store = new IndexedShapefileFeatureStore(shpFile.toURI(), true, true, IndexType.QIX, null);
+        final Map<String,Geometry> expected = read(store, QueryBuilder.all(store.getName()));
+        final JTSEnvelope2D bounds = (JTSEnvelope2D) store.getEnvelope(QueryBuilder.all(store.getName()));
+        store.close();
+
+        //small runs to merge several temporary files
+        final ShapeFileClusterer clusterer = new ShapeFileClusterer(new ShpFiles(shpFile));
+        clusterer.setRunSize(10);
+        assertEquals(expected.size(), clusterer.cluster());
+
+        store = new IndexedShapefileFeatureStore(shpFile.toURI(), true, true, IndexType.QIX, null);
+        try {
+            final Set<String> ids = new HashSet<>();
+            final Map<String,Geometry> result = new HashMap<>();
+            try (FeatureIterator ite = store.getFeatureReader(QueryBuilder.all(store.getName()))) {
+                while (ite.hasNext()) {
+                    final Feature feature = ite.next();
+                    assertTrue(ids.add(FeatureExt.getId(feature).getID()));
+                    result.put((String) feature.getPropertyValue("STATE_NAME"), (Geometry) FeatureExt.getDefaultGeometryValue(feature).orElse(null));
+                }
+            }
+            assertEquals(expected.keySet(), result.keySet());
+            for (Map.Entry<String,Geometry> entry : expected.entrySet()) {
+                assertTrue(entry.getKey(), entry.getValue().equalsExact(result.get(entry.getKey())));
+            }
+
+            //spatial index
+            final Envelope area = new Envelope(bounds.getMinX(), bounds.centre().x, bounds.getMinY(), bounds.centre().y);
+            final FilterFactory2 ff = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+            final Map<String,Geometry> selection = read(store, QueryBuilder.filtered(store.getName().toString(),
+                    ff.bbox(ff.property("the_geom"), new JTSEnvelope2D(area, bounds.getCoordinateReferenceSystem()))));
+            final Geometry areaGeometry = new GeometryFactory().toGeometry(area);
+            for (Map.Entry<String,Geometry> entry : expected.entrySet()) {
+                assertEquals(entry.getKey(), entry.getValue().intersects(areaGeometry),
+                        selection.containsKey(entry.getKey()));
+            }
+
+            //identifier index
+            final String id = ids.iterator().next();
+            assertEquals(1, read(store, QueryBuilder.filtered(store.getName().toString(),
+                    ff.id(Collections.singleton(ff.featureId(id))))).size());
+        } finally {
+            store.close();
+        }
+    }
+
+    private static Map<String,Geometry> read(final IndexedShapefileFeatureStore store,
+            final Query query) throws Exception {
+        final Map<String,Geometry> features = new HashMap<>();
+        try (FeatureIterator ite = store.getFeatureReader(query)) {
+            while (ite.hasNext()) {
+                final Feature feature = ite.next();
+                features.put((String) feature.getPropertyValue("STATE_NAME"),
+                        (Geometry) FeatureExt.getDefaultGeometryValue(feature).orElse(null));
+            }
+        }
+        return features;
+    }
+}
@@ -267,13 +267,6 @@ public abstract class AbstractFeatureCollection extends AbstractCollection<Featu
         //          otherwise the result will be illogic.
 
 
-        //wrap sort by ---------------------------------------------------------
-        //This can be really expensive, and force the us to read the full iterator.
-        //that may cause out of memory errors.
-        if(sorts != null && sorts.length != 0){
-            result = FeatureStreams.sort(result, sorts);
-        }
-
         //wrap filter ----------------------------------------------------------
         //we must keep the filter first since it impacts the start index and max feature
         if(filter != null && filter != Filter.INCLUDE){
@@ -285,6 +278,20 @@ public abstract class AbstractFeatureCollection extends AbstractCollection<Featu
             }
         }
 
+        //wrap sort by ---------------------------------------------------------
+        //This can be really expensive, and force the us to read the full iterator.
+        //that may cause out of memory errors. It is placed after the filter, and when
+        //a max features is given only the start index + max features first features
+        //are kept in memory.
+        if(sorts != null && sorts.length != 0){
+            if(max != null){
+                final long top = ((start != null) ? start : 0) + (long) max;
+                result = FeatureStreams.sort(result, (int) Math.min(top, Integer.MAX_VALUE), sorts);
+            }else{
+                result = FeatureStreams.sort(result, sorts);
+            }
+        }
+
         //wrap start index -----------------------------------------------------
         if(start != null && start > 0){
             result = FeatureStreams.skip(result, start);
@@ -0,0 +1,512 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.opengis.feature.AttributeType;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+import org.opengis.feature.PropertyNotFoundException;
+import org.opengis.feature.PropertyType;
+
+/**
+ * A chunk of features stored by columns.
+ * <p>
+ * Each single valued attribute of the feature type is stored in one column :
+ * floating point numbers in a double array, integral numbers in a long array,
+ * strings dictionary encoded, geometries in an array with an optional packed
+ * xy coordinate array. Other values are kept as objects.
+ * Operations and associations are not part of the batch.
+ * <p>
+ * Batches are obtained with {@link FeatureIterator#nextBatch(int)}, they avoid
+ * the creation of one feature object by record when the reader supports it
+ * and allow processes to loop on primitive arrays.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public final class FeatureBatch {
+
+    /**
+     * Default number of features in a batch.
+     */
+    public static final int DEFAULT_SIZE = 1024;
+
+    /**
+     * Storage of a column.
+     */
+    public static enum Kind {
+        /** Float, Double and BigDecimal values, stored in a double array. */
+        DOUBLE,
+        /** Byte, Short, Integer and Long values, stored in a long array. */
+        LONG,
+        /** String values, stored as dictionary codes. */
+        STRING,
+        /** JTS geometries. */
+        GEOMETRY,
+        /** Any other value. */
+        OBJECT
+    }
+
+    private final FeatureType type;
+    private final Column[] columns;
+    private final int size;
+
+    private FeatureBatch(final FeatureType type, final Column[] columns, final int size) {
+        this.type = type;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * @return feature type of the batch features
+     */
+    public FeatureType getType() {
+        return type;
+    }
+
+    /**
+     * @return number of features in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param index column index
+     * @return column at given index
+     */
+    public Column getColumn(final int index) {
+        return columns[index];
+    }
+
+    /**
+     * @param name attribute name
+     * @return column of the given attribute
+     * @throws PropertyNotFoundException if the batch has no column for this attribute
+     */
+    public Column getColumn(final String name) throws PropertyNotFoundException {
+        for (Column column : columns) {
+            if (column.name.equals(name)) return column;
+        }
+        throw new PropertyNotFoundException("No column for property "+name);
+    }
+
+    /**
+     * @return unmodifiable list of the columns
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Values of one attribute for all features of the batch.
+     * Arrays are returned without copy, they may be longer than the batch size.
+     */
+    public static final class Column {
+
+        private final String name;
+        private final Class<?> valueClass;
+        private final Kind kind;
+        private final BitSet nulls;
+        private final double[] doubles;
+        private final long[] longs;
+        private final int[] codes;
+        private final String[] dictionary;
+        private final Object[] objects;
+        private final int size;
+        //packed geometry coordinates, computed on first request
+        private double[] coordinates;
+        private int[] offsets;
+
+        private Column(final ColumnBuilder cb, final int size) {
+            this.name = cb.name;
+            this.valueClass = cb.valueClass;
+            this.kind = cb.kind;
+            this.nulls = cb.nulls;
+            this.doubles = cb.doubles;
+            this.longs = cb.longs;
+            this.codes = cb.codes;
+            this.dictionary = (cb.dictionary == null) ? null : new String[cb.dictionary.size()];
+            if (dictionary != null) {
+                for (Map.Entry<String,Integer> entry : cb.dictionary.entrySet()) {
+                    dictionary[entry.getValue()] = entry.getKey();
+                }
+            }
+            this.objects = cb.objects;
+            this.size = size;
+        }
+
+        /**
+         * @return attribute name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return attribute value class
+         */
+        public Class<?> getValueClass() {
+            return valueClass;
+        }
+
+        /**
+         * @return column storage kind
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @param index feature index in the batch
+         * @return true if the value is null
+         */
+        public boolean isNull(final int index) {
+            return nulls.get(index);
+        }
+
+        /**
+         * @return values of a {@link Kind#DOUBLE} column, null values are NaN
+         */
+        public double[] getDoubles() {
+            return doubles;
+        }
+
+        /**
+         * @return values of a {@link Kind#LONG} column, null values are 0
+         */
+        public long[] getLongs() {
+            return longs;
+        }
+
+        /**
+         * @return dictionary codes of a {@link Kind#STRING} column, null values are -1
+         */
+        public int[] getCodes() {
+            return codes;
+        }
+
+        /**
+         * @return distinct values of a {@link Kind#STRING} column, indexed by code
+         */
+        public String[] getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * @return values of {@link Kind#GEOMETRY} and {@link Kind#OBJECT} columns
+         */
+        public Object[] getObjects() {
+            return objects;
+        }
+
+        /**
+         * Packed xy coordinates of a {@link Kind#GEOMETRY} column.
+         * Coordinates of geometry i are between {@code getCoordinateOffsets()[i]}
+         * and {@code getCoordinateOffsets()[i+1]}.
+         * Rings and parts are concatenated in their geometry order.
+         *
+         * @return packed coordinates, x and y interleaved
+         */
+        public synchronized double[] getCoordinates() {
+            if (coordinates == null) pack();
+            return coordinates;
+        }
+
+        /**
+         * @return offsets in the packed coordinate array, of length size+1
+         */
+        public synchronized int[] getCoordinateOffsets() {
+            if (coordinates == null) pack();
+            return offsets;
+        }
+
+        /**
+         * @param index feature index in the batch
+         * @return value, boxed if needed
+         */
+        public Object getValue(final int index) {
+            if (nulls.get(index)) return null;
+            switch (kind) {
+                case DOUBLE : return doubles[index];
+                case LONG   : return longs[index];
+                case STRING : return dictionary[codes[index]];
+                default     : return objects[index];
+            }
+        }
+
+        private void pack() {
+            if (kind != Kind.GEOMETRY) {
+                throw new IllegalStateException("Column "+name+" is not a geometry column");
+            }
+            int nb = 0;
+            for (int i = 0; i < size; i++) {
+                if (objects[i] != null) nb += ((Geometry) objects[i]).getNumPoints();
+            }
+            final double[] coords = new double[nb*2];
+            final int[] offs = new int[size+1];
+            int pos = 0;
+            for (int i = 0; i < size; i++) {
+                offs[i] = pos;
+                if (objects[i] != null) pos = pack((Geometry) objects[i], coords, pos);
+            }
+            offs[size] = pos;
+            offsets = offs;
+            coordinates = coords;
+        }
+
+        private static int pack(final Geometry geom, final double[] coords, int pos) {
+            if (geom instanceof Point) {
+                return pack(((Point) geom).getCoordinateSequence(), coords, pos);
+            } else if (geom instanceof LineString) {
+                return pack(((LineString) geom).getCoordinateSequence(), coords, pos);
+            } else if (geom instanceof Polygon) {
+                final Polygon poly = (Polygon) geom;
+                pos = pack(poly.getExteriorRing().getCoordinateSequence(), coords, pos);
+                for (int i = 0, n = poly.getNumInteriorRing(); i < n; i++) {
+                    pos = pack(poly.getInteriorRingN(i).getCoordinateSequence(), coords, pos);
+                }
+                return pos;
+            } else if (geom instanceof GeometryCollection) {
+                for (int i = 0, n = geom.getNumGeometries(); i < n; i++) {
+                    pos = pack(geom.getGeometryN(i), coords, pos);
+                }
+                return pos;
+            }
+            throw new IllegalArgumentException("Unsupported geometry "+geom.getGeometryType());
+        }
+
+        private static int pack(final CoordinateSequence cs, final double[] coords, int pos) {
+            for (int i = 0, n = cs.size(); i < n; i++) {
+                coords[pos++] = cs.getX(i);
+                coords[pos++] = cs.getY(i);
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Fills a batch row by row.
+     * Values are set with {@link #set(int, Object)} then the row is validated
+     * with {@link #endRow()}, columns which have not been set are null.
+     */
+    public static final class Builder {
+
+        private final FeatureType type;
+        private final ColumnBuilder[] columns;
+        private int size = 0;
+
+        /**
+         * @param type feature type, one column is created for each attribute
+         * @param capacity expected number of features
+         */
+        public Builder(final FeatureType type, final int capacity) {
+            this.type = type;
+            final List<ColumnBuilder> lst = new ArrayList<>();
+            for (PropertyType pt : type.getProperties(true)) {
+                if (pt instanceof AttributeType) {
+                    lst.add(new ColumnBuilder((AttributeType) pt, Math.max(capacity, 1)));
+                }
+            }
+            columns = lst.toArray(new ColumnBuilder[lst.size()]);
+        }
+
+        /**
+         * @param name attribute name
+         * @return column index, or -1 if the attribute has no column
+         */
+        public int indexOf(final String name) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].name.equals(name)) return i;
+            }
+            return -1;
+        }
+
+        /**
+         * @return number of rows added
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Set a value of the current row.
+         *
+         * @param column column index
+         * @param value value, may be null
+         */
+        public void set(final int column, final Object value) {
+            columns[column].set(size, value);
+        }
+
+        /**
+         * Validate the current row.
+         */
+        public void endRow() {
+            size++;
+        }
+
+        /**
+         * Add a row with the values of the given feature.
+         *
+         * @param feature feature to add
+         */
+        public void add(final Feature feature) {
+            for (ColumnBuilder cb : columns) {
+                Object value;
+                try {
+                    value = feature.getPropertyValue(cb.name);
+                } catch (PropertyNotFoundException ex) {
+                    //feature of a sub type
+                    value = null;
+                }
+                cb.set(size, value);
+            }
+            size++;
+        }
+
+        /**
+         * @return batch of the added rows
+         */
+        public FeatureBatch build() {
+            final Column[] cols = new Column[columns.length];
+            for (int i = 0; i < cols.length; i++) {
+                cols[i] = columns[i].build(size);
+            }
+            return new FeatureBatch(type, cols, size);
+        }
+    }
+
+    private static final class ColumnBuilder {
+
+        private final String name;
+        private final Class<?> valueClass;
+        private final Kind kind;
+        private final BitSet nulls = new BitSet();
+        private double[] doubles;
+        private long[] longs;
+        private int[] codes;
+        private Map<String,Integer> dictionary;
+        private Object[] objects;
+        //last row set, rows between are null
+        private int last = -1;
+
+        private ColumnBuilder(final AttributeType type, final int capacity) {
+            name = type.getName().toString();
+            valueClass = type.getValueClass();
+            kind = (type.getMaximumOccurs() > 1) ? Kind.OBJECT : kind(valueClass);
+            switch (kind) {
+                case DOUBLE : doubles = new double[capacity]; break;
+                case LONG   : longs = new long[capacity]; break;
+                case STRING : codes = new int[capacity]; dictionary = new HashMap<>(); break;
+                default     : objects = new Object[capacity]; break;
+            }
+        }
+
+        private static Kind kind(final Class<?> clazz) {
+            if (clazz == Double.class || clazz == Float.class || clazz == BigDecimal.class) {
+                return Kind.DOUBLE;
+            } else if (clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class) {
+                return Kind.LONG;
+            } else if (clazz == String.class) {
+                return Kind.STRING;
+            } else if (Geometry.class.isAssignableFrom(clazz)) {
+                return Kind.GEOMETRY;
+            }
+            return Kind.OBJECT;
+        }
+
+        private void set(final int row, final Object value) {
+            ensureCapacity(row+1);
+            for (int i = last+1; i < row; i++) {
+                setNull(i);
+            }
+            last = row;
+            if (value == null) {
+                setNull(row);
+                return;
+            }
+            nulls.clear(row);
+            switch (kind) {
+                case DOUBLE : doubles[row] = ((Number) value).doubleValue(); break;
+                case LONG   : longs[row] = ((Number) value).longValue(); break;
+                case STRING : {
+                    Integer code = dictionary.get(value);
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.put((String) value, code);
+                    }
+                    codes[row] = code;
+                    break;
+                }
+                default : objects[row] = value; break;
+            }
+        }
+
+        private void setNull(final int row) {
+            nulls.set(row);
+            switch (kind) {
+                case DOUBLE : doubles[row] = Double.NaN; break;
+                case LONG   : longs[row] = 0; break;
+                case STRING : codes[row] = -1; break;
+                default     : objects[row] = null; break;
+            }
+        }
+
+        private void ensureCapacity(final int capacity) {
+            switch (kind) {
+                case DOUBLE : if (doubles.length < capacity) doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length*2)); break;
+                case LONG   : if (longs.length < capacity)   longs   = Arrays.copyOf(longs,   Math.max(capacity, longs.length*2));   break;
+                case STRING : if (codes.length < capacity)   codes   = Arrays.copyOf(codes,   Math.max(capacity, codes.length*2));   break;
+                default     : if (objects.length < capacity) objects = Arrays.copyOf(objects, Math.max(capacity, objects.length*2)); break;
+            }
+        }
+
+        private Column build(final int size) {
+            if (size > 0) {
+                ensureCapacity(size);
+                for (int i = last+1; i < size; i++) {
+                    setNull(i);
+                }
+                last = size-1;
+            }
+            return new Column(this, size);
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package org.geotoolkit.data;
 
 import org.geotoolkit.util.collection.CloseableIterator;
 import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
 
 /**
  * Extent the Standard Iterator, limited to Feature class
@@ -46,4 +47,33 @@ public interface FeatureIterator extends CloseableIterator<Feature>{
     @Override
     boolean hasNext() throws FeatureStoreRuntimeException;
 
+    /**
+     * Read up to maxSize features in a columnar batch.
+     * <p>
+     * The default implementation fills the batch from {@link #next() }, readers
+     * able to decode records without creating feature objects should override it.
+     * Calls to next and nextBatch can be mixed.
+     *
+     * @param maxSize maximum number of features in the batch
+     * @return next batch, or null if there are no more features.
+     * @throws FeatureStoreRuntimeException if error occured when reading.
+     */
+    default FeatureBatch nextBatch(final int maxSize) throws FeatureStoreRuntimeException {
+        if (!hasNext()) return null;
+        Feature feature = null;
+        final FeatureType type;
+        if (this instanceof FeatureReader) {
+            type = ((FeatureReader) this).getFeatureType();
+        } else {
+            feature = next();
+            type = feature.getType();
+        }
+        final FeatureBatch.Builder builder = new FeatureBatch.Builder(type, maxSize);
+        if (feature != null) builder.add(feature);
+        while (builder.size() < maxSize && hasNext()) {
+            builder.add(next());
+        }
+        return builder.build();
+    }
+
 }
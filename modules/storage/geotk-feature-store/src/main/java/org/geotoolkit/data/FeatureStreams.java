@@ -343,6 +343,19 @@ public final class FeatureStreams {
         return GenericSortByFeatureIterator.wrap(reader, orders);
     }
 
+    /**
+     * Wrap a FeatureReader will a sort by order, returning only the first features.
+     * Only {@code limit} features are kept in memory while sorting.
+     *
+     * @param reader source reader
+     * @param limit maximum number of features returned
+     * @param orders sorting order
+     * @return sorted reader
+     */
+    public static FeatureReader sort(final FeatureReader reader, final int limit, final SortBy ... orders){
+        return GenericSortByFeatureIterator.wrap(reader, orders, limit);
+    }
+
     /**
      * Wrap a FeatureCollection will a sort by order.
      *
@@ -354,6 +367,19 @@ public final class FeatureStreams {
         return GenericSortByFeatureIterator.wrap(col, orders);
     }
 
+    /**
+     * Wrap a FeatureCollection will a sort by order, returning only the first features.
+     * Only {@code limit} features are kept in memory while sorting.
+     *
+     * @param col source collection
+     * @param limit maximum number of features returned
+     * @param orders sorting order
+     * @return sorted collection
+     */
+    public static FeatureCollection sort(final FeatureCollection col, final int limit, final SortBy ... orders){
+        return GenericSortByFeatureIterator.wrap(col, orders, limit);
+    }
+
     /**
      * Wrap a FeatureIterator with a start index.
      *
@@ -169,6 +169,18 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
         public Iterator<? extends Feature> createIterator() {
             return features.iterator();
         }
+
+        /**
+         * Iterate from the given feature index, previous features are not iterated.
+         */
+        public Iterator<? extends Feature> createIterator(final int start) {
+            try {
+                //copy on write list iterators work on a snapshot, no copy is made
+                return features.listIterator(start);
+            } catch (IndexOutOfBoundsException ex) {
+                return Collections.emptyIterator();
+            }
+        }
     }
 
     private final QueryCapabilities capabilities = new DefaultQueryCapabilities(false);
@@ -546,6 +558,11 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
             }else{
                 ite = ((GroupWithId)grp).createIterator(null);
             }
+        }else if(filter == Filter.INCLUDE && query.getStartIndex() > 0
+                && (query.getSortBy() == null || query.getSortBy().length == 0)){
+            //no filter and no sort, start index is resolved by position in the list
+            ite = ((GroupNoId)grp).createIterator(query.getStartIndex());
+            remaining.setStartIndex(0);
         }else{
             ite = ((GroupNoId)grp).createIterator();
         }
@@ -17,10 +17,7 @@
 package org.geotoolkit.internal.data;
 
 import java.util.NoSuchElementException;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.logging.Level;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
@@ -29,38 +26,33 @@ import org.geotoolkit.data.FeatureWriter;
 import org.geotoolkit.factory.Hints;
 import org.apache.sis.util.Classes;
 import org.geotoolkit.factory.HintsPending;
-import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.data.memory.WrapFeatureCollection;
 import org.opengis.feature.Feature;
 import org.opengis.feature.FeatureType;
 
 /**
  * Wrap a feature iterator and precache the given number of values.
- * A separate thread is created to load the buffer.
+ * Features are read ahead by a {@link PipelineStage} on the shared pipeline executor,
+ * at most two buffers of the cache size are waiting for the consumer.
  *
  * @author Johann Sorel (Geomatys)
  */
 public class GenericCachedFeatureIterator implements FeatureIterator {
 
-    //TODO : wait for martin, there should already be a thread pool for global tasks somewhere.
-    public static final Executor POOL = Executors.newCachedThreadPool();
-
-    private final Object QUEUELOCK = new Object();
-    private final Object FINISHLOCK = new Object();
-
-    // used by the main thread to notify collector thread to stop retrieving features.
-    private volatile boolean closed = false;
-    // used by the collector thread to notify main thread that sub iterator can be closed.
-    private volatile boolean canCloseSub = false;
+    /**
+     * Number of buffers read ahead.
+     */
+    private static final int DEPTH = 2;
 
-    private final ArrayBlockingQueue queue = new ArrayBlockingQueue(2);
+    /**
+     * @deprecated use {@link PipelineStage#EXECUTOR}.
+     */
+    @Deprecated
+    public static final Executor POOL = PipelineStage.EXECUTOR;
 
-    protected FeatureIterator iterator;
+    protected final FeatureIterator iterator;
     protected final int cacheSize;
-    private Feature[] buffer = null;
-    private int bufferIndex = 0;
-    protected Feature next = null;
-    private FeatureStoreRuntimeException subException = null;
+    private final PipelineStage<Feature,Feature> stage;
 
     /**
      * Creates a new instance of GenericCacheFeatureIterator
@@ -71,8 +63,7 @@ public class GenericCachedFeatureIterator implements FeatureIterator {
     private GenericCachedFeatureIterator(final FeatureIterator iterator, final int cacheSize) {
         this.iterator = iterator;
         this.cacheSize = cacheSize;
-
-        POOL.execute(new Collector());
+        this.stage = new PipelineStage<>(iterator, null, cacheSize, DEPTH);
     }
 
     /**
@@ -80,20 +71,13 @@ public class GenericCachedFeatureIterator implements FeatureIterator {
      */
     @Override
     public Feature next() throws FeatureStoreRuntimeException {
-        if(subException != null){
-            //forward sub exception
-            final FeatureStoreRuntimeException d = subException;
-            subException = null;
-            throw d;
+        try {
+            return stage.next();
+        } catch (FeatureStoreRuntimeException | NoSuchElementException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new FeatureStoreRuntimeException(ex);
         }
-
-        findNext();
-        final Feature c = next;
-        next = null;
-        if(c == null){
-            throw new NoSuchElementException("No such Feature exists");
-        }
-        return c;
     }
 
     /**
@@ -101,19 +85,7 @@ public class GenericCachedFeatureIterator implements FeatureIterator {
      */
     @Override
     public void close() throws FeatureStoreRuntimeException {
-        closed = true;
-        //notify collector thread, may be waiting
-        synchronized(QUEUELOCK){
-            QUEUELOCK.notify();
-        }
-
-        //sub iterator might already be closed
-        if(iterator != null){
-            synchronized(FINISHLOCK){
-                iterator.close();
-                iterator = null;
-            }
-        }
+        stage.close();
     }
 
     /**
@@ -121,52 +93,12 @@ public class GenericCachedFeatureIterator implements FeatureIterator {
      */
     @Override
     public boolean hasNext() throws FeatureStoreRuntimeException {
-        if(subException != null){
-            //forward sub exception
-            final FeatureStoreRuntimeException d = subException;
-            subException = null;
-            throw d;
-        }
-        findNext();
-        return next != null;
-    }
-
-    private void findNext() throws FeatureStoreRuntimeException {
-        if(next != null || closed) return;
-
-        if(buffer == null){
-            //collector thread might have finish reading before iteration
-            //is over. we can release the sub iterator sooner to release resources.
-            if(iterator!=null && canCloseSub){
-                iterator.close();
-                iterator = null;
-            }
-
-            try {
-                buffer = (Feature[]) queue.take();
-            } catch (InterruptedException ex) {
-                Logging.getLogger("org.geotoolkit.data.memory").log(Level.WARNING, ex.getMessage(), ex);
-            }
-            bufferIndex = 0;
-
-            //notify collector thread some space is available
-            synchronized(QUEUELOCK){
-                QUEUELOCK.notify();
-            }
-        }
-
-        next = buffer[bufferIndex];
-        bufferIndex++;
-
-        if(bufferIndex >= cacheSize){
-            //we have finish reading this buffer.
-            //next iteration will get a new one.
-            buffer = null;
-        }
-
-        if(next == null){
-            //no more records
-            closed = true;
+        try {
+            return stage.hasNext();
+        } catch (FeatureStoreRuntimeException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new FeatureStoreRuntimeException(ex);
         }
     }
 
@@ -263,54 +195,4 @@ public class GenericCachedFeatureIterator implements FeatureIterator {
         return new GenericCachedFeatureIterator.GenericCachedFeatureCollection(original, cacheSize);
     }
 
-
-    private final class Collector implements Runnable{
-
-        @Override
-        public void run() {
-            boolean finish = false;
-
-            synchronized(FINISHLOCK){
-                mainLoop:
-                while(!closed && !finish){
-                    //create and fill buffer
-                    final Feature[] buffer = new Feature[cacheSize];
-                    try{
-                        for(int i=0;i<buffer.length;i++){
-                            if(iterator.hasNext()){
-                                buffer[i] = iterator.next();
-                            }else{
-                                finish = true;
-                                break;
-                            }
-                        }
-                    }catch(FeatureStoreRuntimeException ex){
-                        subException = ex;
-                        Logging.getLogger("org.geotoolkit.data.memory").log(Level.WARNING, subException.getMessage(),ex);
-                        break;
-                    }
-
-                    boolean success;
-                    do{
-                        success = queue.offer(buffer);
-                        if(!success){
-                            try {
-                                //no space left, go to sleep until iterator wake it up
-                                synchronized(QUEUELOCK){
-                                    if(closed) break mainLoop;
-                                    QUEUELOCK.wait();
-                                }
-                            } catch (InterruptedException ex) {
-                                Logging.getLogger("org.geotoolkit.data.memory").log(Level.WARNING, ex.getMessage(), ex);
-                            }
-                        }
-
-                    }while(!success);
-                }
-            }
-            canCloseSub = true;
-        }
-
-    }
-
 }
@@ -19,6 +19,7 @@
 package org.geotoolkit.internal.data;
 
 import java.util.NoSuchElementException;
+import org.geotoolkit.data.FeatureBatch;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
@@ -67,6 +68,17 @@ public class GenericMaxFeatureIterator<R extends FeatureIterator> implements Fea
         }
     }
 
+    /**
+     * Forward to the wrapped iterator, limited to the remaining number of features.
+     */
+    @Override
+    public FeatureBatch nextBatch(final int maxSize) throws FeatureStoreRuntimeException {
+        if (!hasNext()) return null;
+        final FeatureBatch batch = iterator.nextBatch(Math.min(maxSize, maxFeatures - counter));
+        if (batch != null) counter += batch.size();
+        return batch;
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -167,6 +179,9 @@ public class GenericMaxFeatureIterator<R extends FeatureIterator> implements Fea
      */
     public static FeatureIterator wrap(final FeatureIterator reader, final int limit){
         if(limit==Integer.MAX_VALUE) return reader;
+        //sort then limit, only the first features are kept while sorting
+        final FeatureIterator top = GenericSortByFeatureIterator.limit(reader, limit);
+        if(top != null) return top;
         if(reader instanceof FeatureReader){
             return wrap((FeatureReader)reader,limit);
         }else if(reader instanceof FeatureWriter){
@@ -181,6 +196,9 @@ public class GenericMaxFeatureIterator<R extends FeatureIterator> implements Fea
      */
     public static FeatureReader wrap(final FeatureReader reader, final int limit){
         if(limit==Integer.MAX_VALUE) return reader;
+        //sort then limit, only the first features are kept while sorting
+        final FeatureIterator top = GenericSortByFeatureIterator.limit(reader, limit);
+        if(top != null) return (FeatureReader) top;
         return new GenericMaxFeatureReader(reader, limit);
     }
 
@@ -197,6 +215,9 @@ public class GenericMaxFeatureIterator<R extends FeatureIterator> implements Fea
      */
     public static FeatureCollection wrap(final FeatureCollection original, final int max){
         if(max==Integer.MAX_VALUE) return original;
+        //sort then limit, only the first features are kept while sorting
+        final FeatureCollection top = GenericSortByFeatureIterator.limit(original, max);
+        if(top != null) return top;
         return new GenericMaxFeatureCollection(original, max);
     }
 
@@ -62,13 +62,6 @@ public class GenericQueryFeatureIterator {
         //          otherwise the result will be illogic.
 
 
-        //wrap sort by ---------------------------------------------------------
-        //This can be really expensive, and force the us to read the full iterator.
-        //that may cause out of memory errors.
-        if(sorts != null && sorts.length != 0){
-            reader = FeatureStreams.sort(reader, sorts);
-        }
-
         //wrap filter ----------------------------------------------------------
         //we must keep the filter first since it impacts the start index and max feature
         if(filter != null && filter != Filter.INCLUDE){
@@ -82,6 +75,20 @@ public class GenericQueryFeatureIterator {
             }
         }
 
+        //wrap sort by ---------------------------------------------------------
+        //This can be really expensive, and force the us to read the full iterator.
+        //that may cause out of memory errors. It is placed after the filter, and when
+        //a max features is given only the start index + max features first features
+        //are kept in memory.
+        if(sorts != null && sorts.length != 0){
+            if(max != null){
+                final long top = ((start != null) ? start : 0) + (long) max;
+                reader = FeatureStreams.sort(reader, (int) Math.min(top, Integer.MAX_VALUE), sorts);
+            }else{
+                reader = FeatureStreams.sort(reader, sorts);
+            }
+        }
+
         //wrap start index -----------------------------------------------------
         if(start != null && start > 0){
             reader = FeatureStreams.skip(reader, start);
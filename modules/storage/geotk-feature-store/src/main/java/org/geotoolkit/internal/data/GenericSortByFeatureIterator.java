@@ -18,10 +18,12 @@
 package org.geotoolkit.internal.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import org.geotoolkit.feature.FeatureExt;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
@@ -42,6 +44,10 @@ import org.opengis.filter.sort.SortBy;
  *
  * Don't use this class in you now that your iterator holds a great amount of features,
  * otherwise it may cause an Out Of Memory Exception.
+ * <p>
+ * When only the first features are used (sort followed by a max features limit),
+ * a limit can be given : only this number of features are kept in memory, in a bounded
+ * heap, and only the features entering the heap are copied.
  *
  * @author Johann Sorel (Geomatys)
  * @module
@@ -49,6 +55,8 @@ import org.opengis.filter.sort.SortBy;
 public class GenericSortByFeatureIterator<R extends FeatureIterator> implements FeatureIterator {
 
     protected final R iterator;
+    protected final SortBy[] orders;
+    protected final int limit;
     private final Comparator<Feature> comparator;
     protected List<Feature> ordered = null;
     protected int index = 0;
@@ -58,15 +66,23 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      *
      * @param iterator FeatureReader to sort
      * @param orders sorting orders
+     * @param limit maximum number of features returned, Integer.MAX_VALUE for all
      */
-    private GenericSortByFeatureIterator(final R iterator, final SortBy[] orders) {
+    private GenericSortByFeatureIterator(final R iterator, final SortBy[] orders, final int limit) {
         this.iterator = iterator;
+        this.orders = orders;
+        this.limit = limit;
         this.comparator = new SortByComparator(orders);
     }
 
     private synchronized void sort() throws FeatureStoreRuntimeException{
         if(ordered != null) return;
 
+        if(limit != Integer.MAX_VALUE){
+            ordered = top();
+            return;
+        }
+
         ordered = new ArrayList<>();
 
         while(iterator.hasNext()){
@@ -76,6 +92,52 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
         Collections.sort(ordered,comparator);
     }
 
+    /**
+     * Keep the first features in a heap whose head is the greatest retained feature.
+     * Equal features keep their iteration order, like with a full sort.
+     */
+    private List<Feature> top() throws FeatureStoreRuntimeException{
+        if(limit <= 0) return Collections.emptyList();
+
+        final Comparator<Ranked> order = (Ranked r1, Ranked r2) -> {
+            final int c = comparator.compare(r1.feature, r2.feature);
+            return (c != 0) ? c : Long.compare(r1.rank, r2.rank);
+        };
+        final PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+        long rank = 0;
+        while(iterator.hasNext()){
+            final Feature candidate = iterator.next();
+            if(heap.size() < limit){
+                heap.add(new Ranked(FeatureExt.copy(candidate), rank));
+            }else if(comparator.compare(candidate, heap.peek().feature) < 0){
+                heap.poll();
+                heap.add(new Ranked(FeatureExt.copy(candidate), rank));
+            }
+            rank++;
+        }
+
+        final Ranked[] array = heap.toArray(new Ranked[heap.size()]);
+        Arrays.sort(array, order);
+        final List<Feature> result = new ArrayList<>(array.length);
+        for(Ranked r : array){
+            result.add(r.feature);
+        }
+        return result;
+    }
+
+    /**
+     * A feature and its position in the source iterator.
+     */
+    private static final class Ranked {
+        private final Feature feature;
+        private final long rank;
+
+        private Ranked(final Feature feature, final long rank) {
+            this.feature = feature;
+            this.rank = rank;
+        }
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -119,7 +181,9 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder(Classes.getShortClassName(this));
-        sb.append('[').append(comparator).append("]\n");
+        sb.append('[').append(comparator);
+        if(limit != Integer.MAX_VALUE) sb.append(", Max=").append(limit);
+        sb.append("]\n");
         String subIterator = "\u2514\u2500\u2500" + iterator.toString(); //move text to the right
         subIterator = subIterator.replaceAll("\n", "\n\u00A0\u00A0\u00A0"); //move text to the right
         sb.append(subIterator);
@@ -135,8 +199,8 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      */
     private static final class GenericSortByFeatureReader extends GenericSortByFeatureIterator<FeatureReader> implements FeatureReader{
 
-        private GenericSortByFeatureReader(final FeatureReader reader,final SortBy[] orders){
-            super(reader,orders);
+        private GenericSortByFeatureReader(final FeatureReader reader,final SortBy[] orders, final int limit){
+            super(reader,orders,limit);
         }
 
         @Override
@@ -149,15 +213,21 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
     private static final class GenericSortByFeatureCollection extends WrapFeatureCollection{
 
         private final SortBy[] order;
+        private final int limit;
 
-        private GenericSortByFeatureCollection(final FeatureCollection original, final SortBy[] order){
+        private GenericSortByFeatureCollection(final FeatureCollection original, final SortBy[] order, final int limit){
             super(original);
             this.order = order;
+            this.limit = limit;
         }
 
         @Override
         public FeatureIterator iterator(final Hints hints) throws FeatureStoreRuntimeException {
-            return wrap(getOriginalFeatureCollection().iterator(hints), order);
+            return wrap(getOriginalFeatureCollection().iterator(hints), order, limit);
+        }
+
+        private FeatureCollection withLimit(final int max){
+            return wrap(getOriginalFeatureCollection(), order, Math.min(limit, max));
         }
 
         @Override
@@ -171,17 +241,31 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      * Wrap a FeatureReader will a sort by order.
      */
     public static FeatureReader wrap(final FeatureReader reader, final SortBy[] orders){
-        return new GenericSortByFeatureReader(reader, orders);
+        return wrap(reader, orders, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Wrap a FeatureReader will a sort by order, returning only the first features.
+     */
+    public static FeatureReader wrap(final FeatureReader reader, final SortBy[] orders, final int limit){
+        return new GenericSortByFeatureReader(reader, orders, limit);
     }
 
     /**
      * Wrap a FeatureIterator will a sort by order.
      */
     public static FeatureIterator wrap(final FeatureIterator reader, final SortBy[] orders){
+        return wrap(reader, orders, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Wrap a FeatureIterator will a sort by order, returning only the first features.
+     */
+    public static FeatureIterator wrap(final FeatureIterator reader, final SortBy[] orders, final int limit){
         if(reader instanceof FeatureReader){
-            return wrap((FeatureReader)reader,orders);
+            return wrap((FeatureReader)reader,orders,limit);
         }else{
-            return new GenericSortByFeatureIterator(reader, orders);
+            return new GenericSortByFeatureIterator(reader, orders, limit);
         }
     }
 
@@ -189,7 +273,45 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      * Wrap a FeatureCollection will a sort by order.
      */
     public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders){
-        return new GenericSortByFeatureCollection(original,orders);
+        return wrap(original, orders, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Wrap a FeatureCollection will a sort by order, returning only the first features.
+     */
+    public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders, final int limit){
+        return new GenericSortByFeatureCollection(original,orders,limit);
+    }
+
+    /**
+     * If the given iterator is a sort iterator not yet started, returns a sort iterator
+     * over the same source keeping only the first features.
+     *
+     * @return sort iterator with a limit or null if the given iterator can not be replaced.
+     */
+    static FeatureIterator limit(final FeatureIterator candidate, final int limit){
+        if(candidate instanceof GenericSortByFeatureIterator){
+            final GenericSortByFeatureIterator<?> sort = (GenericSortByFeatureIterator) candidate;
+            synchronized(sort){
+                if(sort.ordered == null){
+                    return wrap(sort.iterator, sort.orders, Math.min(sort.limit, limit));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * If the given collection is a sorted collection, returns a sorted collection
+     * over the same source keeping only the first features.
+     *
+     * @return sorted collection with a limit or null if the given collection can not be replaced.
+     */
+    static FeatureCollection limit(final FeatureCollection candidate, final int limit){
+        if(candidate instanceof GenericSortByFeatureCollection){
+            return ((GenericSortByFeatureCollection) candidate).withLimit(limit);
+        }
+        return null;
     }
 
 }
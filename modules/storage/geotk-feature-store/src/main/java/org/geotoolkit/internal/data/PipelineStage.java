@@ -0,0 +1,326 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.internal.data;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.logging.Logging;
+import org.geotoolkit.internal.Threads;
+import org.geotoolkit.util.collection.CloseableIterator;
+
+/**
+ * Producer/consumer stage reading a source iterator ahead of the consumer.
+ * <p>
+ * Source elements are read, optionally transformed, in batches by tasks of an executor.
+ * At most {@code depth} batches are waiting for the consumer, the producer is not
+ * rescheduled until the consumer takes one. No thread is blocked by the producer,
+ * and if the executor has not started a scheduled batch when the consumer needs it
+ * the consumer reads it itself, so stages can be chained on a bounded executor.
+ * <p>
+ * Exceptions raised by the source or the function are thrown by the consumer
+ * after the elements read before them. Closing the stage stops the producer and
+ * closes the source.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class PipelineStage<S,T> implements CloseableIterator<T> {
+
+    /**
+     * Shared executor for pipeline stages, one thread per processor.
+     */
+    public static final ExecutorService EXECUTOR;
+    static {
+        final int nbThread = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor exec = new ThreadPoolExecutor(nbThread, nbThread, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), Threads.createThreadFactory("FeaturePipeline #"));
+        exec.allowCoreThreadTimeOut(true);
+        EXECUTOR = exec;
+    }
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+    private static final int DONE = 3;
+
+    private final CloseableIterator<? extends S> source;
+    private final Function<? super S, ? extends T> function;
+    private final int batchSize;
+    private final int depth;
+    private final Executor executor;
+    private final Runnable task = this::run;
+
+    //producer state and waiting batches, guarded by lock
+    private final Object lock = new Object();
+    private final ArrayDeque<Batch> queue = new ArrayDeque<>();
+    private int state = IDLE;
+    private boolean sourceClosed = false;
+
+    private volatile boolean closed = false;
+
+    //consumer side
+    private Batch current = null;
+    private int index = 0;
+
+    /**
+     * Creates a stage on the shared executor.
+     *
+     * @param source iterator to read ahead
+     * @param function transformation applied by the producer, can be null
+     * @param batchSize number of elements read by each producer task
+     * @param depth maximum number of batches waiting for the consumer
+     */
+    public PipelineStage(final CloseableIterator<? extends S> source, final Function<? super S, ? extends T> function,
+            final int batchSize, final int depth) {
+        this(source, function, batchSize, depth, EXECUTOR);
+    }
+
+    /**
+     *
+     * @param source iterator to read ahead
+     * @param function transformation applied by the producer, can be null
+     * @param batchSize number of elements read by each producer task
+     * @param depth maximum number of batches waiting for the consumer
+     * @param executor executor running the producer tasks
+     */
+    public PipelineStage(final CloseableIterator<? extends S> source, final Function<? super S, ? extends T> function,
+            final int batchSize, final int depth, final Executor executor) {
+        ArgumentChecks.ensureNonNull("source", source);
+        ArgumentChecks.ensureStrictlyPositive("batchSize", batchSize);
+        ArgumentChecks.ensureStrictlyPositive("depth", depth);
+        ArgumentChecks.ensureNonNull("executor", executor);
+        this.source = source;
+        this.function = function;
+        this.batchSize = batchSize;
+        this.depth = depth;
+        this.executor = executor;
+        synchronized (lock) {
+            state = SCHEDULED;
+        }
+        submit();
+    }
+
+    public CloseableIterator<? extends S> getSource() {
+        return source;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        while (current == null || index >= current.size) {
+            if (current != null && current.error != null) {
+                final Throwable error = current.error;
+                current = null;
+                close();
+                if (error instanceof RuntimeException) throw (RuntimeException) error;
+                if (error instanceof Error) throw (Error) error;
+                throw new IllegalStateException(error.getMessage(), error);
+            }
+            current = take();
+            index = 0;
+            if (current == null) return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more elements.");
+        }
+        final T value = current.values[index];
+        current.values[index++] = null;
+        return value;
+    }
+
+    /**
+     * Stop the producer and close the source.
+     * If a batch is being read the source is closed by the producer when it ends.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        current = null;
+        final boolean closeSource;
+        synchronized (lock) {
+            queue.clear();
+            closeSource = (state != RUNNING);
+            if (closeSource) state = DONE;
+            lock.notifyAll();
+        }
+        if (closeSource) closeSource();
+    }
+
+    /**
+     * Get the next batch, reading it in the current thread if no producer has started it.
+     *
+     * @return next batch or null if there are no more elements
+     */
+    private Batch take() {
+        boolean submit = false;
+        try {
+            synchronized (lock) {
+                while (true) {
+                    final Batch batch = queue.poll();
+                    if (batch != null) {
+                        if (state == IDLE) {
+                            state = SCHEDULED;
+                            submit = true;
+                        }
+                        return batch;
+                    }
+                    if (state == DONE || closed) {
+                        return null;
+                    }
+                    if (state == IDLE || state == SCHEDULED) {
+                        //steal the step rather than waiting for a busy executor
+                        state = RUNNING;
+                        break;
+                    }
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for pipeline elements.", ex);
+                    }
+                }
+            }
+        } finally {
+            if (submit) submit();
+        }
+        produce();
+        return take();
+    }
+
+    private void submit() {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            //the consumer will read the batch itself
+        }
+    }
+
+    private void run() {
+        synchronized (lock) {
+            if (state != SCHEDULED) return;
+            state = RUNNING;
+        }
+        produce();
+    }
+
+    /**
+     * Read one batch. Called with the state set to RUNNING.
+     */
+    @SuppressWarnings("unchecked")
+    private void produce() {
+        final T[] values = (T[]) new Object[batchSize];
+        int size = 0;
+        boolean end = false;
+        Throwable error = null;
+        try {
+            while (size < batchSize && !closed) {
+                if (!source.hasNext()) {
+                    end = true;
+                    break;
+                }
+                final S candidate = source.next();
+                values[size++] = (function == null) ? (T) candidate : function.apply(candidate);
+            }
+        } catch (Throwable ex) {
+            error = ex;
+            end = true;
+        }
+
+        boolean resubmit = false;
+        final boolean finished;
+        synchronized (lock) {
+            if (!closed && (size > 0 || error != null)) {
+                queue.add(new Batch(values, size, error));
+            }
+            if (end || closed) {
+                state = DONE;
+            } else if (queue.size() < depth) {
+                state = SCHEDULED;
+                resubmit = true;
+            } else {
+                state = IDLE;
+            }
+            finished = (state == DONE);
+            lock.notifyAll();
+        }
+        if (finished) {
+            closeSource();
+        } else if (resubmit) {
+            submit();
+        }
+    }
+
+    private void closeSource() {
+        synchronized (lock) {
+            if (sourceClosed) return;
+            sourceClosed = true;
+        }
+        try {
+            source.close();
+        } catch (RuntimeException ex) {
+            Logging.getLogger("org.geotoolkit.data").log(Level.WARNING, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Elements read by one producer step.
+     */
+    private final class Batch {
+
+        private final T[] values;
+        private final int size;
+        /**
+         * Exception which stopped the producer, thrown after the batch elements.
+         */
+        private final Throwable error;
+
+        private Batch(final T[] values, final int size, final Throwable error) {
+            this.values = values;
+            this.size = size;
+            this.error = error;
+        }
+    }
+
+}
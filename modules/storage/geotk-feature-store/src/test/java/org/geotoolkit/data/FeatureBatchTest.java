@@ -0,0 +1,117 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test columnar feature batches.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class FeatureBatchTest extends org.geotoolkit.test.TestBase {
+
+    private static final double DELTA = 0.000001d;
+    private static final GeometryFactory GF = new GeometryFactory();
+
+    private final FeatureType type;
+    private final List<Feature> features = new ArrayList<>();
+
+    public FeatureBatchTest() {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("test");
+        ftb.addAttribute(String.class).setName("name");
+        ftb.addAttribute(Integer.class).setName("count");
+        ftb.addAttribute(Double.class).setName("value");
+        ftb.addAttribute(Point.class).setName("geom");
+        type = ftb.build();
+
+        for (int i = 0; i < 5; i++) {
+            final Feature f = type.newInstance();
+            f.setPropertyValue("name", (i % 2 == 0) ? "even" : "odd");
+            f.setPropertyValue("count", i);
+            f.setPropertyValue("value", (i == 3) ? null : i * 1.5);
+            f.setPropertyValue("geom", GF.createPoint(new Coordinate(i, -i)));
+            features.add(f);
+        }
+    }
+
+    @Test
+    public void readerBatchTest() {
+        final FeatureReader reader = FeatureStreams.asReader(features.iterator(), type);
+        final FeatureBatch batch = reader.nextBatch(4);
+        assertEquals(4, batch.size());
+        assertEquals(4, batch.getColumnCount());
+
+        final FeatureBatch.Column name = batch.getColumn("name");
+        assertEquals(FeatureBatch.Kind.STRING, name.getKind());
+        assertEquals(2, name.getDictionary().length);
+        assertEquals(name.getCodes()[0], name.getCodes()[2]);
+        assertEquals("odd", name.getValue(3));
+
+        final FeatureBatch.Column count = batch.getColumn("count");
+        assertEquals(FeatureBatch.Kind.LONG, count.getKind());
+        assertEquals(2, count.getLongs()[2]);
+
+        final FeatureBatch.Column value = batch.getColumn("value");
+        assertEquals(FeatureBatch.Kind.DOUBLE, value.getKind());
+        assertEquals(3.0, value.getDoubles()[2], DELTA);
+        assertTrue(value.isNull(3));
+        assertTrue(Double.isNaN(value.getDoubles()[3]));
+        assertNull(value.getValue(3));
+
+        final FeatureBatch.Column geom = batch.getColumn("geom");
+        assertEquals(FeatureBatch.Kind.GEOMETRY, geom.getKind());
+        final double[] coords = geom.getCoordinates();
+        final int[] offsets = geom.getCoordinateOffsets();
+        assertEquals(5, offsets.length);
+        assertEquals(4, offsets[2]);
+        assertEquals(2.0, coords[offsets[2]], DELTA);
+        assertEquals(-2.0, coords[offsets[2]+1], DELTA);
+
+        //remaining feature
+        final FeatureBatch last = reader.nextBatch(4);
+        assertEquals(1, last.size());
+        assertEquals(4l, last.getColumn("count").getValue(0));
+        assertNull(reader.nextBatch(4));
+        reader.close();
+    }
+
+    @Test
+    public void limitBatchTest() {
+        final FeatureReader reader = FeatureStreams.limit(FeatureStreams.asReader(features.iterator(), type), 3);
+        reader.next();
+        final FeatureBatch batch = reader.nextBatch(10);
+        assertEquals(2, batch.size());
+        assertEquals(1l, batch.getColumn("count").getValue(0));
+        assertFalse(reader.hasNext());
+        assertNull(reader.nextBatch(10));
+        reader.close();
+    }
+
+}
@@ -36,7 +36,6 @@ import org.geotoolkit.util.NamesExt;
 import org.geotoolkit.geometry.jts.JTS;
 import org.geotoolkit.geometry.jts.transform.GeometryScaleTransformer;
 import org.geotoolkit.geometry.jts.transform.GeometryTransformer;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
@@ -238,7 +237,6 @@ public class FeatureStreamsTest extends org.geotoolkit.test.TestBase {
     }
 
     @Test
-    @Ignore("See #GEOTK-489")
     public void testCacheIterator(){
         FeatureCollection collection = buildSimpleFeatureCollection();
         FeatureIterator ite = FeatureStreams.cached(collection.iterator(), 1);
@@ -701,6 +699,35 @@ public class FeatureStreamsTest extends org.geotoolkit.test.TestBase {
         assertTrue(checkIte.isClosed());
     }
 
+    @Test
+    public void testSortByLimitIterator(){
+        SortBy[] sorts = new SortBy[]{
+            FF.sort("att_double", SortOrder.DESCENDING)
+        };
+
+        //sort followed by a limit keeps only the first features
+        FeatureCollection collection = buildSimpleFeatureCollection();
+        FeatureIterator ite = FeatureStreams.limit(FeatureStreams.sort(collection.iterator(), sorts), 2);
+        assertEquals(id1, ite.next().getPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString()));
+        assertEquals(id3, ite.next().getPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString()));
+        assertFalse(ite.hasNext());
+        ite.close();
+
+        //same result on the collection
+        ite = FeatureStreams.sort(collection, 2, sorts).iterator();
+        assertEquals(id1, ite.next().getPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString()));
+        assertEquals(id3, ite.next().getPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString()));
+        assertFalse(ite.hasNext());
+        ite.close();
+
+        //check sub iterator is properly closed
+        CheckCloseFeatureIterator checkIte = new CheckCloseFeatureIterator(collection.iterator());
+        ite = FeatureStreams.limit(FeatureStreams.sort(checkIte, sorts), 1);
+        while(ite.hasNext()) ite.next();
+        ite.close();
+        assertTrue(checkIte.isClosed());
+    }
+
     @Test
     public void testStartIndexIterator(){
         FeatureCollection collection = buildSimpleFeatureCollection();
@@ -0,0 +1,136 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.internal.data;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.geotoolkit.util.collection.CloseableIterator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test pipeline stages.
+ *
+ * @author Johann Sorel (Geomatys)
+ * @module
+ */
+public class PipelineStageTest extends org.geotoolkit.test.TestBase {
+
+    @Test
+    public void iterateTest() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final PipelineStage<Integer,Integer> stage = new PipelineStage<>(new Counter(1000, -1, closed), (Integer i) -> i * 2, 7, 3);
+        int expected = 0;
+        while (stage.hasNext()) {
+            assertEquals(Integer.valueOf(expected), stage.next());
+            expected += 2;
+        }
+        assertEquals(2000, expected);
+        stage.close();
+        assertTrue(closed.get());
+    }
+
+    /**
+     * Chained stages on a single thread must not block each other.
+     */
+    @Test(timeout = 10000)
+    public void chainedTest() {
+        final ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            final AtomicBoolean closed = new AtomicBoolean();
+            final PipelineStage<Integer,Integer> first = new PipelineStage<>(new Counter(500, -1, closed), null, 3, 1, executor);
+            final PipelineStage<Integer,Integer> second = new PipelineStage<>(first, (Integer i) -> i + 1, 5, 1, executor);
+            int count = 0;
+            while (second.hasNext()) {
+                assertEquals(Integer.valueOf(count + 1), second.next());
+                count++;
+            }
+            second.close();
+            assertEquals(500, count);
+            assertTrue(closed.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void errorTest() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final PipelineStage<Integer,Integer> stage = new PipelineStage<>(new Counter(100, 10, closed), null, 4, 2);
+        int count = 0;
+        try {
+            while (stage.hasNext()) {
+                stage.next();
+                count++;
+            }
+            fail("Source exception should have been propagated.");
+        } catch (IllegalStateException ex) {
+            assertEquals("failure", ex.getMessage());
+        }
+        assertEquals(10, count);
+        assertTrue(closed.get());
+        assertFalse(stage.hasNext());
+    }
+
+    @Test
+    public void closeTest() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final PipelineStage<Integer,Integer> stage = new PipelineStage<>(new Counter(100000, -1, closed), null, 10, 2);
+        assertEquals(Integer.valueOf(0), stage.next());
+        stage.close();
+        assertFalse(stage.hasNext());
+        //source is closed by the producer if it was reading
+        final long limit = System.currentTimeMillis() + 5000;
+        while (!closed.get() && System.currentTimeMillis() < limit) {
+            Thread.yield();
+        }
+        assertTrue(closed.get());
+    }
+
+    private static final class Counter implements CloseableIterator<Integer> {
+
+        private final int size;
+        private final int failAt;
+        private final AtomicBoolean closed;
+        private int index = 0;
+
+        private Counter(final int size, final int failAt, final AtomicBoolean closed) {
+            this.size = size;
+            this.failAt = failAt;
+            this.closed = closed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Integer next() {
+            if (index == failAt) throw new IllegalStateException("failure");
+            return index++;
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+
+}
@@ -26,6 +26,7 @@ import java.awt.image.DataBufferFloat;
 import java.awt.image.ComponentColorModel;
 import java.awt.color.ColorSpace;
 import java.awt.Transparency;
+import java.util.concurrent.RecursiveAction;
 import javax.vecmath.GVector;
 import javax.vecmath.GMatrix;
 import javax.media.jai.RasterFactory;
@@ -55,6 +56,12 @@ import org.geotoolkit.image.color.ScaledColorSpace;
  * @module
  */
 public class ObjectiveAnalysis {
+    /**
+     * Number of output values multiplied by the number of input points below which
+     * the interpolation is not split in more tasks.
+     */
+    private static final long TASK_WORK = 1 << 16;
+
     /**
      * Minimal <var>x</var> ordinate of grid cells.
      */
@@ -193,6 +200,10 @@ public class ObjectiveAnalysis {
      *       given by the {@code xp}, {@code yp} and {@code zp} vector using the
      *       <cite>Objective Analysis</cite> algorithm.
      * </ol>
+     * <p>
+     * Output values are computed by blocks in tasks of the common fork join pool, so
+     * {@link #getOutputLocation getOutputLocation(...)} and {@link #correlation correlation(...)}
+     * may be invoked concurrently. The result does not depend on the number of threads.
      *
      * @param  dest A pre-allocated array, or {@code null} if none.
      * @return The interpolated values as an array of length {@link #getOutputLength}.
@@ -282,26 +293,69 @@ public class ObjectiveAnalysis {
         A.invert(); // A = A⁻¹
         X.mul(A,X); // X = A*X
         /*
-         * Now compute values.
+         * Now compute values. Each value depends only on its location,
+         * blocks of values are computed in parallel.
          */
-        final int n = getOutputLength();
-        for (int i=0; i<n; i++) {
-            final Point2D.Double loc = getOutputLocation(i, P1);
-            double value = P.z(loc.x, loc.y);
-            double lowBits = 0;
-            for (int k=0; k<N; k++) {
-                P2.x = xp[k];
-                P2.y = yp[k];
-                double toAdd = X.getElement(k) * correlation(loc, P2);
-                /*
-                 * Compute value += toAdd
-                 * using Kahan summation algorithm.
-                 */
-                toAdd += lowBits;
-                lowBits = toAdd + (value - (value += toAdd));
+        final double[] weights = new double[N];
+        for (int k=0; k<N; k++) {
+            weights[k] = X.getElement(k);
+        }
+        new Interpolation(xp, yp, P, weights, dest1, dest2, 0, getOutputLength()).invoke();
+    }
+
+    /**
+     * Computes the output values in the [lower &hellip; upper) index range,
+     * splitting the range in two tasks while it is large enough.
+     */
+    private final class Interpolation extends RecursiveAction {
+        private final double[] xp, yp;
+        private final Plane P;
+        private final double[] weights;
+        private final float[] dest1;
+        private final double[] dest2;
+        private final int lower, upper;
+
+        Interpolation(final double[] xp, final double[] yp, final Plane P, final double[] weights,
+                final float[] dest1, final double[] dest2, final int lower, final int upper)
+        {
+            this.xp      = xp;
+            this.yp      = yp;
+            this.P       = P;
+            this.weights = weights;
+            this.dest1   = dest1;
+            this.dest2   = dest2;
+            this.lower   = lower;
+            this.upper   = upper;
+        }
+
+        @Override
+        protected void compute() {
+            if (upper - lower > 1 && (long) (upper - lower) * weights.length > TASK_WORK) {
+                final int mid = (lower + upper) >>> 1;
+                invokeAll(new Interpolation(xp, yp, P, weights, dest1, dest2, lower, mid),
+                          new Interpolation(xp, yp, P, weights, dest1, dest2, mid, upper));
+                return;
+            }
+            final Point2D.Double P1 = new Point2D.Double();
+            final Point2D.Double P2 = new Point2D.Double();
+            for (int i=lower; i<upper; i++) {
+                final Point2D.Double loc = getOutputLocation(i, P1);
+                double value = P.z(loc.x, loc.y);
+                double lowBits = 0;
+                for (int k=0; k<weights.length; k++) {
+                    P2.x = xp[k];
+                    P2.y = yp[k];
+                    double toAdd = weights[k] * correlation(loc, P2);
+                    /*
+                     * Compute value += toAdd
+                     * using Kahan summation algorithm.
+                     */
+                    toAdd += lowBits;
+                    lowBits = toAdd + (value - (value += toAdd));
+                }
+                if (dest1 != null) dest1[i] = (float) value;
+                if (dest2 != null) dest2[i] = value;
             }
-            if (dest1 != null) dest1[i] = (float) value;
-            if (dest2 != null) dest2[i] = value;
         }
     }
 
@@ -0,0 +1,72 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.math;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.opengis.metadata.spatial.PixelOrientation;
+
+/**
+ * Compares the interpolation time of an objective analysis grid
+ * on a single thread and on the common fork join pool.
+ *
+ * Use example : java BenchMarkObjectiveAnalysis 1000 200
+ * for a 1000x1000 grid from 200 points.
+ *
+ * @author Johann Sorel (Geomatys)
+ */
+public class BenchMarkObjectiveAnalysis {
+
+    public static void main(String[] args) throws Exception {
+        final int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        final int nbPoint = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+
+        final Random random = new Random(42);
+        final double[] x = new double[nbPoint];
+        final double[] y = new double[nbPoint];
+        final double[] z = new double[nbPoint];
+        for (int i = 0; i < nbPoint; i++) {
+            x[i] = random.nextDouble() * 1000;
+            y[i] = random.nextDouble() * 1000;
+            z[i] = Math.sin(x[i] / 100) * Math.cos(y[i] / 100) * 50;
+        }
+
+        final ObjectiveAnalysis ob = new ObjectiveAnalysis(new Rectangle(1000, 1000), size, size, PixelOrientation.CENTER);
+        ob.setInputs(x, y, z);
+
+        //warm up
+        ob.interpolate((double[]) null);
+
+        final ForkJoinPool single = new ForkJoinPool(1);
+        long before = System.nanoTime();
+        final double[] sequential = single.submit(() -> ob.interpolate((double[]) null)).get();
+        final long seq = System.nanoTime() - before;
+        single.shutdown();
+
+        before = System.nanoTime();
+        final double[] parallel = ob.interpolate((double[]) null);
+        final long par = System.nanoTime() - before;
+
+        System.out.println("Grid " + size + "x" + size + " from " + nbPoint + " points");
+        System.out.println("Single thread : " + seq / 1000000 + " ms");
+        System.out.println("Common pool   : " + par / 1000000 + " ms (" + ForkJoinPool.getCommonPoolParallelism() + " threads)");
+        System.out.println("Same result   : " + Arrays.equals(sequential, parallel));
+    }
+
+}
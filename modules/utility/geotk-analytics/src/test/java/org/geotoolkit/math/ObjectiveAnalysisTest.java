@@ -72,4 +72,31 @@ public final strictfp class ObjectiveAnalysisTest extends org.geotoolkit.test.Te
         final RenderedImage image = ob.createImage();
         assertNotNull(image);
     }
+
+    /**
+     * Tests a grid large enough to be interpolated by many tasks.
+     * The result shall not depend on the way the grid is split.
+     */
+    @Test
+    public void testParallel() {
+        final int      s = 50;
+        final double[] x = new double[s];
+        final double[] y = new double[s];
+        final double[] z = new double[s];
+        final Random r = new Random(380951990);
+        for (int i=0; i<z.length; i++) {
+            x[i] = r.nextDouble() * 100;
+            y[i] = r.nextDouble() * 100;
+            z[i] = x[i] + y[i];
+        }
+        final ObjectiveAnalysis ob = new ObjectiveAnalysis(
+                new Rectangle(100, 100), 300, 200, PixelOrientation.CENTER);
+        ob.setInputs(x, y, z);
+        final double[] computed = ob.interpolate((double[]) null);
+        final float[] single = ob.interpolate((float[]) null);
+        assertArrayEquals(computed, ob.interpolate((double[]) null), 0);
+        for (int i=0; i<computed.length; i++) {
+            assertEquals((float) computed[i], single[i], 0f);
+        }
+    }
 }
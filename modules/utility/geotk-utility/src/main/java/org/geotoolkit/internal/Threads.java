@@ -165,6 +165,20 @@ public final class Threads extends AtomicInteger implements ThreadFactory, Rejec
         return new Threads(false, false, prefix);
     }
 
+    /**
+     * Creates a factory for worker threads created by the Geotk library. Daemon threads
+     * do not prevent the JVM from exiting, they should be used by shared executors.
+     *
+     * @param  prefix The prefix to put in front of thread names.
+     * @param  daemon {@code true} for creating daemon threads.
+     * @return The thread factory.
+     *
+     * @since 4.0.0
+     */
+    public static ThreadFactory createThreadFactory(final String prefix, final boolean daemon) {
+        return new Threads(false, daemon, prefix);
+    }
+
     /**
      * Executes the given task in a worker thread.
      *